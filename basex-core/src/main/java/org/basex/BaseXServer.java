@@ -4,6 +4,7 @@ import static org.basex.core.Text.*;
 
 import java.io.*;
 import java.net.*;
+import java.nio.channels.*;
 import java.util.*;
 
 import org.basex.api.client.*;
@@ -33,6 +34,8 @@ public final class BaseXServer extends CLI implements Runnable {
   private StringList commands;
   /** Server socket. */
   private ServerSocket socket;
+  /** Selector for client connections ({@code null}: one thread per client). */
+  private ClientSelector selector;
   /** Start as service. */
   private boolean service;
   /** Daemon flag. */
@@ -98,10 +101,18 @@ public final class BaseXServer extends CLI implements Runnable {
       // execute initial command-line arguments
       for(final String cmd : commands) execute(cmd, null);
 
-      socket = new ServerSocket();
+      final int workers = sopts.get(StaticOptions.SERVERWORKERS);
+      socket = workers > 0 ? ServerSocketChannel.open().socket() : new ServerSocket();
       socket.setReuseAddress(true);
       socket.bind(new InetSocketAddress(addr, port));
       stopFile = stopFile(port);
+      if(workers > 0) {
+        selector = new ClientSelector(context, this, workers);
+        selector.start();
+      }
+      if(sopts.get(StaticOptions.VIRTUALTHREADS) && !Threads.virtual()) {
+        context.log.writeServer(LogType.INFO, "Virtual threads are not supported by this JVM.");
+      }
     } catch(final Exception ex) {
       context.log.writeServer(LogType.ERROR, Util.message(ex));
       if(ex instanceof BindException) throw new BaseXException(SRV_RUNNING_X, port);
@@ -151,19 +162,27 @@ public final class BaseXServer extends CLI implements Runnable {
               if(ms - cs.last > ka) cs.quit();
             }
           }
+          // selector: authentication timeout is checked by the selector thread
+          if(selector != null) {
+            selector.add(s.getChannel());
+            continue;
+          }
           final ClientListener cl = new ClientListener(s, context, this);
           // start authentication timeout
           final long to = context.soptions.get(StaticOptions.KEEPALIVE) * 1000L;
           if(to > 0) {
-            cl.auth.schedule(new TimerTask() {
+            cl.auth = context.jobs.schedule(new Runnable() {
               @Override
               public void run() {
                 cl.quitAuth();
               }
-            }, to);
+            }, to, 0);
             auth.add(cl);
           }
-          cl.start();
+          final Thread thread = Threads.thread(cl,
+              context.soptions.get(StaticOptions.VIRTUALTHREADS));
+          thread.setDaemon(true);
+          thread.start();
         }
       } catch(final SocketException ex) {
         break;
@@ -199,6 +218,7 @@ public final class BaseXServer extends CLI implements Runnable {
     for(final ClientListener cs : context.sessions) {
       cs.quit();
     }
+    if(selector != null) selector.close();
 
     try {
       // close interactive input if server was stopped by another process
@@ -328,7 +348,7 @@ public final class BaseXServer extends CLI implements Runnable {
   public void remove(final ClientListener client) {
     synchronized(auth) {
       auth.remove(client);
-      client.auth.cancel();
+      if(client.auth != null) client.auth.cancel(false);
     }
   }
 
@@ -0,0 +1,280 @@
+package org.basex.api.client;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.core.*;
+import org.basex.io.in.*;
+import org.basex.io.out.*;
+import org.basex.server.*;
+import org.basex.util.*;
+import org.basex.util.list.*;
+
+/**
+ * This class collects requests of a {@link ClientSession} and sends them to the server
+ * without waiting for the responses of the preceding requests:
+ * <ul>
+ * <li> In the pipelined mode, the requests are sent one after another, and the responses are
+ * read afterwards in the same order. This mode is supported by all servers.</li>
+ * <li> In the batch mode, all requests are sent in a single {@link ServerCmd#BATCH} frame.
+ * The server receives the complete batch before it starts processing the requests.</li>
+ * </ul>
+ * Queries must have been created before their requests are added to a batch.
+ *
+ * @author BaseX Team 2005-16, BSD License
+ * @author Christian Gruen
+ */
+public final class ClientBatch {
+  /** Maximum number of bytes that are sent before pending responses are read. */
+  private static final int WINDOW = 1 << 15;
+
+  /** Client session. */
+  private final ClientSession cs;
+  /** Batch mode (single frame). */
+  private final boolean frame;
+  /** Encoded requests. */
+  private final ArrayList<byte[]> requests = new ArrayList<>();
+  /** Server commands of the requests. */
+  private final ArrayList<ServerCmd> commands = new ArrayList<>();
+
+  /**
+   * Constructor.
+   * @param session client session
+   * @param frame batch mode (single frame)
+   */
+  ClientBatch(final ClientSession session, final boolean frame) {
+    cs = session;
+    this.frame = frame;
+  }
+
+  /**
+   * Adds a database command.
+   * @param command command string
+   * @return self reference
+   */
+  public ClientBatch execute(final String command) {
+    return add(ServerCmd.COMMAND, new TokenBuilder(command).add(0).finish());
+  }
+
+  /**
+   * Adds a database command.
+   * @param command command
+   * @return self reference
+   */
+  public ClientBatch execute(final Command command) {
+    return execute(command.toString());
+  }
+
+  /**
+   * Adds a request for creating a database.
+   * @param name name of database
+   * @param input xml input
+   * @return self reference
+   * @throws IOException I/O exception
+   */
+  public ClientBatch create(final String name, final InputStream input) throws IOException {
+    return add(ServerCmd.CREATE, name, input);
+  }
+
+  /**
+   * Adds a request for adding a document to the opened database.
+   * @param path target path
+   * @param input xml input
+   * @return self reference
+   * @throws IOException I/O exception
+   */
+  public ClientBatch add(final String path, final InputStream input) throws IOException {
+    return add(ServerCmd.ADD, path, input);
+  }
+
+  /**
+   * Adds a request for replacing a document in the opened database.
+   * @param path document(s) to replace
+   * @param input new content
+   * @return self reference
+   * @throws IOException I/O exception
+   */
+  public ClientBatch replace(final String path, final InputStream input) throws IOException {
+    return add(ServerCmd.REPLACE, path, input);
+  }
+
+  /**
+   * Adds a request for storing raw data in the opened database.
+   * @param path target path
+   * @param input input stream
+   * @return self reference
+   * @throws IOException I/O exception
+   */
+  public ClientBatch store(final String path, final InputStream input) throws IOException {
+    return add(ServerCmd.STORE, path, input);
+  }
+
+  /**
+   * Adds a request for binding a value to an external variable.
+   * @param query query
+   * @param name name of variable
+   * @param value value to be bound
+   * @param type type (may be {@code null})
+   * @return self reference
+   * @throws IOException I/O exception
+   */
+  public ClientBatch bind(final ClientQuery query, final String name, final Object value,
+      final String type) throws IOException {
+    return add(ServerCmd.BIND, query.binding(name, value, type));
+  }
+
+  /**
+   * Adds a request for binding a context value.
+   * @param query query
+   * @param value value to be bound
+   * @param type type (may be {@code null})
+   * @return self reference
+   * @throws IOException I/O exception
+   */
+  public ClientBatch context(final ClientQuery query, final Object value, final String type)
+      throws IOException {
+    return add(ServerCmd.CONTEXT, query.binding(null, value, type));
+  }
+
+  /**
+   * Adds a request for executing a query.
+   * @param query query
+   * @return self reference
+   */
+  public ClientBatch execute(final ClientQuery query) {
+    return add(ServerCmd.EXEC, query.id);
+  }
+
+  /**
+   * Adds a request for closing a query.
+   * @param query query
+   * @return self reference
+   */
+  public ClientBatch close(final ClientQuery query) {
+    return add(ServerCmd.CLOSE, query.id);
+  }
+
+  /**
+   * Returns the number of pending requests.
+   * @return number of requests
+   */
+  public int size() {
+    return requests.size();
+  }
+
+  /**
+   * Sends all pending requests and reads the responses.
+   * The results of commands and query executions are returned in the order of the requests;
+   * empty strings are returned for all other requests. If requests have failed, an exception
+   * with the error message of the first failed request is raised after all responses have
+   * been read.
+   * @return results
+   * @throws IOException I/O exception
+   */
+  public String[] send() throws IOException {
+    cs.ready();
+    final int rs = requests.size();
+    final String[] results = new String[rs];
+    final StringList errors = new StringList();
+    @SuppressWarnings("resource")
+    final BufferInput bi = new BufferInput(cs.sin);
+    if(frame) {
+      cs.sout.write(ServerCmd.BATCH.code);
+      final ServerOutput so = new ServerOutput(cs.sout);
+      for(final byte[] request : requests) so.write(request);
+      cs.sout.write(0);
+      cs.sout.flush();
+      for(int r = 0; r < rs; r++) results[r] = receive(bi, commands.get(r), errors);
+    } else {
+      // read pending responses before too many bytes have been sent
+      int sent = 0, read = 0, bytes = 0;
+      while(read < rs) {
+        if(sent < rs && (bytes < WINDOW || sent == read)) {
+          final byte[] request = requests.get(sent++);
+          cs.sout.write(request);
+          bytes += request.length;
+        } else {
+          cs.sout.flush();
+          while(read < sent) results[read] = receive(bi, commands.get(read++), errors);
+          bytes = 0;
+        }
+      }
+    }
+    requests.clear();
+    commands.clear();
+    if(!errors.isEmpty()) throw new BaseXException(errors.get(0));
+    return results;
+  }
+
+  /**
+   * Receives a response.
+   * @param bi buffered server input
+   * @param command server command
+   * @param errors error messages
+   * @return result
+   * @throws IOException I/O exception
+   */
+  private String receive(final BufferInput bi, final ServerCmd command, final StringList errors)
+      throws IOException {
+
+    final ArrayOutput ao = new ArrayOutput();
+    if(command == ServerCmd.COMMAND) {
+      // {RESULT}0{INFO}0{OK}
+      ClientSession.receive(bi, ao);
+      cs.info = bi.readString();
+      if(!ClientSession.ok(bi)) errors.add(cs.info);
+    } else if(command == ServerCmd.CREATE || command == ServerCmd.ADD ||
+        command == ServerCmd.REPLACE || command == ServerCmd.STORE) {
+      // {INFO}0{OK}
+      cs.info = bi.readString();
+      if(!ClientSession.ok(bi)) errors.add(cs.info);
+    } else {
+      // {RESULT}0{OK}, or {RESULT}0{ERROR}{MSG}0
+      ClientSession.receive(bi, ao);
+      if(!ClientSession.ok(bi)) errors.add(bi.readString());
+    }
+    return command == ServerCmd.COMMAND || command == ServerCmd.EXEC ? ao.toString() : "";
+  }
+
+  /**
+   * Adds a request with an input stream.
+   * @param command server command
+   * @param path path argument
+   * @param input input stream
+   * @return self reference
+   * @throws IOException I/O exception
+   */
+  private ClientBatch add(final ServerCmd command, final String path, final InputStream input)
+      throws IOException {
+    final ArrayOutput ao = new ArrayOutput();
+    ao.write(command.code);
+    ao.print(path);
+    ao.write(0);
+    final ServerOutput so = new ServerOutput(ao);
+    for(int b; (b = input.read()) != -1;) so.write(b);
+    ao.write(0);
+    return add(command, ao.finish());
+  }
+
+  /**
+   * Adds a request with a string argument.
+   * @param command server command
+   * @param arg argument
+   * @return self reference
+   */
+  private ClientBatch add(final ServerCmd command, final String arg) {
+    return add(command, new TokenBuilder().add(command.code).add(arg).add(0).finish());
+  }
+
+  /**
+   * Adds an encoded request.
+   * @param command server command
+   * @param request request
+   * @return self reference
+   */
+  private ClientBatch add(final ServerCmd command, final byte[] request) {
+    requests.add(request);
+    commands.add(command);
+    return this;
+  }
+}
@@ -0,0 +1,406 @@
+package org.basex.api.client;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.basex.core.*;
+import org.basex.util.*;
+
+/**
+ * This class provides a thread-safe pool of client sessions, which are connected to the same
+ * server with the same login data:
+ * <ul>
+ * <li> {@link #acquire()} returns an idle session or, if the maximum number of sessions has not
+ * been reached yet, a new session. Otherwise, the calling thread waits until a session is
+ * released.</li>
+ * <li> {@link ClientSession#close()} releases a session. Its state is reset before it is
+ * returned to the pool (see {@link ClientSession#reset()}). A released session must not be
+ * used anymore.</li>
+ * <li> Sessions that have been idle for a while are checked before they are returned.
+ * Broken sessions are discarded.</li>
+ * <li> Sessions that have been idle for longer than the specified time are closed, unless the
+ * minimum number of sessions would be undercut.</li>
+ * <li> Idle sessions are also closed, and discarded sessions are replaced until the minimum
+ * number of sessions is reached again, by a daemon thread that is shared by all pools.</li>
+ * </ul>
+ *
+ * @author BaseX Team 2005-16, BSD License
+ * @author Christian Gruen
+ */
+public final class ClientPool implements Closeable {
+  /** Time after which idle sessions are checked before they are returned (ms). */
+  private static final long CHECK = 10000;
+  /** Scheduler for the maintenance of all pools (created on demand). */
+  private static ScheduledThreadPoolExecutor scheduler;
+
+  /** Host name. */
+  private final String host;
+  /** Port. */
+  private final int port;
+  /** User name. */
+  private final String username;
+  /** Password. */
+  private final String password;
+  /** Minimum number of sessions. */
+  private final int min;
+  /** Maximum number of sessions. */
+  private final int max;
+  /** Time after which idle sessions are closed (ms). */
+  private final long idle;
+
+  /** Idle sessions (the most recently released session is the last one). */
+  private final ArrayDeque<PooledSession> sessions = new ArrayDeque<>();
+  /** Number of open sessions (including sessions that are being connected). */
+  private int size;
+  /** Indicates if the pool has been closed. */
+  private boolean closed;
+  /** Maintenance task ({@code null} if not scheduled yet). */
+  private ScheduledFuture<?> maintenance;
+
+  /** Number of acquired sessions. */
+  private long acquired;
+  /** Number of created sessions. */
+  private long created;
+  /** Number of discarded sessions. */
+  private long discarded;
+  /** Total waiting time (ns). */
+  private long waited;
+  /** Maximum waiting time (ns). */
+  private long maxWait;
+
+  /**
+   * Constructor. The minimum number of sessions will be opened immediately.
+   * @param host server name
+   * @param port server port
+   * @param username user name
+   * @param password password (plain text)
+   * @param min minimum number of sessions
+   * @param max maximum number of sessions
+   * @param idle time after which idle sessions are closed (ms)
+   * @throws IOException I/O exception
+   */
+  public ClientPool(final String host, final int port, final String username,
+      final String password, final int min, final int max, final long idle) throws IOException {
+
+    if(min < 0 || max < 1 || min > max) throw new IllegalArgumentException(
+        Util.info("Invalid pool size: %-%.", min, max));
+    this.host = host;
+    this.port = port;
+    this.username = username;
+    this.password = password;
+    this.min = min;
+    this.max = max;
+    this.idle = idle;
+    try {
+      for(int s = 0; s < min; s++) {
+        final PooledSession session = new PooledSession();
+        session.used = System.currentTimeMillis();
+        sessions.add(session);
+        size++;
+        created++;
+      }
+    } catch(final IOException ex) {
+      close();
+      throw ex;
+    }
+    final long interval = Math.max(100, Math.min(idle, CHECK));
+    maintenance = scheduler().scheduleWithFixedDelay(new Runnable() {
+      @Override
+      public void run() {
+        maintain();
+      }
+    }, interval, interval, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Returns a session. Waits until a session becomes available.
+   * @return session
+   * @throws IOException I/O exception
+   */
+  public ClientSession acquire() throws IOException {
+    return acquire(0);
+  }
+
+  /**
+   * Returns a session. Waits until a session becomes available, or until the specified
+   * timeout is exceeded.
+   * @param timeout maximum waiting time (ms, {@code 0}: no timeout)
+   * @return session
+   * @throws IOException I/O exception, or timeout
+   */
+  public ClientSession acquire(final long timeout) throws IOException {
+    final long start = System.nanoTime();
+    while(true) {
+      PooledSession session;
+      final ArrayList<PooledSession> evicted = new ArrayList<>();
+      synchronized(this) {
+        evict(evicted);
+        while(sessions.isEmpty() && size == max && !closed) {
+          long ms = 0;
+          if(timeout > 0) {
+            ms = timeout - (System.nanoTime() - start) / 1000000;
+            if(ms <= 0) throw new BaseXException("No session available after % ms.", timeout);
+          }
+          try {
+            wait(ms);
+          } catch(final InterruptedException ex) {
+            throw new InterruptedIOException(ex.getMessage());
+          }
+        }
+        if(closed) throw new BaseXException("Pool has been closed.");
+        session = sessions.pollLast();
+        if(session == null) size++;
+      }
+      exit(evicted);
+
+      if(session == null) {
+        // create new session
+        try {
+          session = new PooledSession();
+        } catch(final IOException ex) {
+          synchronized(this) {
+            size--;
+            notifyAll();
+          }
+          throw ex;
+        }
+        synchronized(this) {
+          created++;
+        }
+      } else if(System.currentTimeMillis() - session.used > CHECK) {
+        // check session that has been idle for a while
+        try {
+          session.reset();
+        } catch(final IOException ex) {
+          Util.debug(ex);
+          discard(session);
+          continue;
+        }
+      }
+
+      final long time = System.nanoTime() - start;
+      synchronized(this) {
+        session.busy = true;
+        acquired++;
+        waited += time;
+        maxWait = Math.max(maxWait, time);
+      }
+      return session;
+    }
+  }
+
+  /**
+   * Returns the number of open sessions.
+   * @return number of sessions
+   */
+  public synchronized int size() {
+    return size;
+  }
+
+  /**
+   * Returns the number of idle sessions.
+   * @return number of sessions
+   */
+  public synchronized int available() {
+    return sessions.size();
+  }
+
+  /**
+   * Returns the average time that was needed for acquiring a session.
+   * @return time (ms)
+   */
+  public synchronized double averageWait() {
+    return acquired == 0 ? 0 : waited / 1000000d / acquired;
+  }
+
+  /**
+   * Returns the maximum time that was needed for acquiring a session.
+   * @return time (ms)
+   */
+  public synchronized double maxWait() {
+    return maxWait / 1000000d;
+  }
+
+  /**
+   * Returns information on the pool.
+   * @return info string
+   */
+  public synchronized String info() {
+    return Util.info("Sessions: % (% available), acquired: %, created: %, discarded: %, " +
+        "average wait: % ms, maximum wait: % ms", size, sessions.size(), acquired, created,
+        discarded, Math.round(averageWait() * 100) / 100d, Math.round(maxWait() * 100) / 100d);
+  }
+
+  /**
+   * Closes the pool and all idle sessions. Sessions that are still in use will be closed when
+   * they are released.
+   */
+  @Override
+  public void close() {
+    final ArrayList<PooledSession> idles;
+    synchronized(this) {
+      closed = true;
+      if(maintenance != null) maintenance.cancel(false);
+      idles = new ArrayList<>(sessions);
+      size -= idles.size();
+      sessions.clear();
+      notifyAll();
+    }
+    exit(idles);
+  }
+
+  /**
+   * Releases a session.
+   * @param session session
+   */
+  private void release(final PooledSession session) {
+    synchronized(this) {
+      if(!session.busy) return;
+      session.busy = false;
+    }
+    boolean ok = false;
+    try {
+      session.reset();
+      ok = true;
+    } catch(final IOException ex) {
+      Util.debug(ex);
+    }
+    synchronized(this) {
+      if(ok && !closed) {
+        session.used = System.currentTimeMillis();
+        sessions.addLast(session);
+        notifyAll();
+        return;
+      }
+    }
+    discard(session);
+  }
+
+  /**
+   * Discards a session.
+   * @param session session
+   */
+  private void discard(final PooledSession session) {
+    synchronized(this) {
+      size--;
+      discarded++;
+      notifyAll();
+    }
+    exit(Collections.singletonList(session));
+  }
+
+  /**
+   * Removes sessions that have been idle for too long, starting with the oldest session.
+   * Must be called by a synchronized method.
+   * @param evicted list for evicted sessions
+   */
+  private void evict(final ArrayList<PooledSession> evicted) {
+    final long time = System.currentTimeMillis();
+    while(size > min && !sessions.isEmpty() && time - sessions.peekFirst().used > idle) {
+      evicted.add(sessions.pollFirst());
+      size--;
+      discarded++;
+    }
+  }
+
+  /**
+   * Closes sessions that have been idle for too long, and opens new sessions if the minimum
+   * number of sessions has been undercut.
+   */
+  private void maintain() {
+    final ArrayList<PooledSession> evicted = new ArrayList<>();
+    int missing;
+    synchronized(this) {
+      if(closed) return;
+      evict(evicted);
+      missing = Math.max(0, min - size);
+      size += missing;
+    }
+    exit(evicted);
+
+    for(; missing > 0; missing--) {
+      PooledSession session;
+      try {
+        session = new PooledSession();
+      } catch(final IOException ex) {
+        // try again with the next run
+        Util.debug(ex);
+        synchronized(this) {
+          size -= missing;
+          notifyAll();
+        }
+        return;
+      }
+      synchronized(this) {
+        created++;
+        if(!closed) {
+          session.used = System.currentTimeMillis();
+          sessions.addLast(session);
+          notifyAll();
+          continue;
+        }
+        size--;
+      }
+      exit(Collections.singletonList(session));
+    }
+  }
+
+  /**
+   * Returns the scheduler for the maintenance of all pools.
+   * @return scheduler
+   */
+  private static synchronized ScheduledThreadPoolExecutor scheduler() {
+    if(scheduler == null) {
+      scheduler = new ScheduledThreadPoolExecutor(1, Threads.factory(false));
+      // cancelled tasks of closed pools are immediately removed from the queue
+      scheduler.setRemoveOnCancelPolicy(true);
+    }
+    return scheduler;
+  }
+
+  /**
+   * Closes the specified sessions.
+   * @param list sessions
+   */
+  private static void exit(final List<PooledSession> list) {
+    for(final PooledSession session : list) {
+      try {
+        session.exit();
+      } catch(final IOException ex) {
+        Util.debug(ex);
+      }
+    }
+  }
+
+  /**
+   * Pooled session, which is released when it is closed.
+   */
+  private final class PooledSession extends ClientSession {
+    /** Time when the session was last released (ms). */
+    long used;
+    /** Indicates if the session is in use. */
+    boolean busy;
+
+    /**
+     * Constructor.
+     * @throws IOException I/O exception
+     */
+    PooledSession() throws IOException {
+      super(host, port, username, password);
+    }
+
+    @Override
+    public void close() {
+      release(this);
+    }
+
+    /**
+     * Closes the connection to the server.
+     * @throws IOException I/O exception
+     */
+    void exit() throws IOException {
+      super.close();
+    }
+  }
+}
@@ -1,6 +1,7 @@
 package org.basex.api.client;
 
 import java.io.*;
+import java.util.*;
 
 import org.basex.api.dom.*;
 import org.basex.core.*;
@@ -26,6 +27,12 @@ public class ClientQuery extends Query {
   final ClientSession cs;
   /** Query id. */
   final String id;
+  /** Input with pending results ({@code null} if no results are pending). */
+  private BufferInput input;
+  /** Indicates if results are requested in the binary encoding. */
+  private boolean binary;
+  /** Reader for binary results ({@code null} if results are not binary). */
+  private BinaryReader reader;
 
   /**
    * Standard constructor.
@@ -58,6 +65,18 @@ public class ClientQuery extends Query {
 
   @Override
   public void bind(final String name, final Object value, final String type) throws IOException {
+    cs.exec(name == null ? ServerCmd.CONTEXT : ServerCmd.BIND, binding(name, value, type), null);
+  }
+
+  /**
+   * Returns the arguments for binding a value.
+   * @param name name of variable ({@code null} for context value)
+   * @param value value to be bound
+   * @param type type ({@code null} if not specified)
+   * @return arguments
+   * @throws IOException I/O exception
+   */
+  String binding(final String name, final Object value, final String type) throws IOException {
     cache = null;
 
     final Object vl = value  instanceof BXNode ? ((BXNode) value).getNode() : value;
@@ -87,9 +106,8 @@ public class ClientQuery extends Query {
       v = value.toString();
     }
 
-    final ServerCmd cmd = name == null ? ServerCmd.CONTEXT : ServerCmd.BIND;
     final String n = name == null ? "" : name + '\0';
-    cs.exec(cmd, id + '\0' + n + v + '\0' + t, null);
+    return id + '\0' + n + v + '\0' + t;
   }
 
   @Override
@@ -107,15 +125,66 @@ public class ClientQuery extends Query {
     cs.exec(ServerCmd.CLOSE, id, null);
   }
 
+  /**
+   * Enables or disables the binary encoding of iteratively requested results.
+   * If enabled, atomic values are sent in a compact binary representation, and nodes are sent
+   * as stream of events (see {@link BinarySerializer}). Typed results can then be retrieved via
+   * {@link #nextValue()}. Maps, arrays and function items, and all results of queries with
+   * custom serialization parameters, are sent as text. Results that are requested with full
+   * type information will never be encoded.
+   * @param enable enable binary encoding
+   */
+  public void binary(final boolean enable) {
+    binary = enable;
+  }
+
+  /**
+   * Returns the next item of the query as Java object. A string is returned if the binary
+   * encoding is disabled, or if the item was returned as text (see {@link BinarySerializer}).
+   * @return Java object or {@code null}
+   * @throws IOException I/O exception
+   */
+  public Object nextValue() throws IOException {
+    if(!more()) return null;
+    final byte[] item = take();
+    if(reader == null) return Token.string(item);
+    final byte[] data = Arrays.copyOfRange(item, 1, item.length);
+    if(item[0] == BinarySerializer.TEXTUAL) return Token.string(data);
+    try {
+      return reader.read(data, type()).toJava();
+    } catch(final QueryException ex) {
+      throw new QueryIOException(ex);
+    }
+  }
+
+  @Override
+  byte[] text(final byte[] item) throws IOException {
+    if(reader == null) return item;
+    final byte[] data = Arrays.copyOfRange(item, 1, item.length);
+    return item[0] == BinarySerializer.TEXTUAL ? data :
+      reader.read(data, type()).serialize().finish();
+  }
+
   @Override
   public void cache(final boolean full) throws IOException {
-    cs.sout.write((full ? ServerCmd.FULL : ServerCmd.RESULTS).code);
+    cs.ready();
+    reader = binary && !full ? new BinaryReader() : null;
+    cs.sout.write((full ? ServerCmd.FULL : reader != null ? ServerCmd.BINARY :
+      ServerCmd.RESULTS).code);
     cs.send(id);
     cs.sout.flush();
 
-    @SuppressWarnings("resource")
-    final BufferInput bi = new BufferInput(cs.sin);
-    cache(bi, full);
+    // results are read when they are requested
+    input = new BufferInput(cs.sin);
+    cache(input, full);
+    cs.active = this;
+  }
+
+  @Override
+  void finish() throws IOException {
+    cs.active = null;
+    final BufferInput bi = input;
+    input = null;
     if(!ClientSession.ok(bi)) throw new BaseXException(bi.readString());
   }
 }
@@ -2,9 +2,11 @@ package org.basex.api.client;
 
 import java.io.*;
 import java.net.*;
+import java.util.zip.*;
 
 import org.basex.core.*;
 import org.basex.core.parse.Commands.Cmd;
+import org.basex.io.*;
 import org.basex.io.in.*;
 import org.basex.io.out.*;
 import org.basex.server.*;
@@ -30,9 +32,12 @@ import org.basex.util.*;
  */
 public class ClientSession extends Session {
   /** Server output (buffered). */
-  final PrintOutput sout;
+  PrintOutput sout;
   /** Server input. */
-  final InputStream sin;
+  InputStream sin;
+
+  /** Query whose results are currently being read ({@code null} if no results are pending). */
+  ClientQuery active;
 
   /** Socket reference. */
   private final Socket socket;
@@ -148,6 +153,64 @@ public class ClientSession extends Session {
     return new ClientQuery(query, this, out);
   }
 
+  /**
+   * Compresses all subsequent requests and responses. This is recommended if large results
+   * or documents are transferred over slow networks. Compression must be enabled while no
+   * other requests are pending.
+   * @return {@code true} if compression is supported by the server
+   * @throws IOException I/O exception
+   */
+  public synchronized boolean compress() throws IOException {
+    if(sin instanceof InflaterInputStream) return true;
+    ready();
+    sout.write(ServerCmd.COMPRESS.code);
+    send(ServerCmd.DEFLATE);
+    sout.flush();
+    // older servers interpret the request as (invalid) command
+    try {
+      receive(new ArrayOutput());
+    } catch(final BaseXException ex) {
+      Util.debug(ex);
+      return false;
+    }
+    sout = PrintOutput.get(new BufferedOutputStream(new DeflaterOutputStream(
+        socket.getOutputStream(), new Deflater(Deflater.BEST_SPEED), true), IO.BLOCKSIZE));
+    sin = new InflaterInputStream(socket.getInputStream());
+    return true;
+  }
+
+  /**
+   * Resets the state of the session: the opened database is closed, all queries are
+   * discarded, the default options of the server are restored, and the client output stream
+   * is unassigned.
+   * @throws IOException I/O exception
+   */
+  public synchronized void reset() throws IOException {
+    ready();
+    sout.write(ServerCmd.RESET.code);
+    send("");
+    sout.flush();
+    receive(new ArrayOutput());
+    out = null;
+  }
+
+  /**
+   * Returns a batch whose requests are sent one after another without waiting for the
+   * responses of the preceding requests.
+   * @return batch
+   */
+  public ClientBatch pipeline() {
+    return new ClientBatch(this, false);
+  }
+
+  /**
+   * Returns a batch whose requests are sent to the server in a single frame.
+   * @return batch
+   */
+  public ClientBatch batch() {
+    return new ClientBatch(this, true);
+  }
+
   @Override
   public synchronized void close() throws IOException {
     socket.close();
@@ -155,6 +218,7 @@ public class ClientSession extends Session {
 
   @Override
   protected void execute(final String command, final OutputStream output) throws IOException {
+    ready();
     send(command);
     sout.flush();
     receive(output);
@@ -211,6 +275,7 @@ public class ClientSession extends Session {
   private void send(final ServerCmd command, final InputStream input, final String... args)
       throws IOException {
 
+    ready();
     sout.write(command.code);
     for(final String arg : args) send(arg);
     send(input);
@@ -227,6 +292,15 @@ public class ClientSession extends Session {
     for(int b; (b = si.read()) != -1;) output.write(b);
   }
 
+  /**
+   * Prepares the session for a new request. Pending query results are read and cached.
+   * @throws IOException I/O exception
+   */
+  void ready() throws IOException {
+    final ClientQuery query = active;
+    if(query != null) query.drain();
+  }
+
   /**
    * Sends a string to the server.
    * @param string string to be sent
@@ -249,6 +323,7 @@ public class ClientSession extends Session {
   String exec(final ServerCmd command, final String arg, final OutputStream output)
       throws IOException {
 
+    ready();
     final OutputStream o = output == null ? new ArrayOutput() : output;
     sout.write(command.code);
     send(arg);
@@ -29,6 +29,10 @@ public abstract class Query implements Closeable {
   private ByteList types;
   /** Cache pointer. */
   private int pos;
+  /** Input with pending results ({@code null} if all results have been read). */
+  private InputStream input;
+  /** Indicates if pending results contain full type information. */
+  private boolean full;
 
   /**
    * Binds a value to an external variable.
@@ -75,6 +79,14 @@ public abstract class Query implements Closeable {
   public boolean more() throws IOException {
     if(cache == null) cache(false);
     if(pos < cache.size()) return true;
+    if(input != null) {
+      // read next result
+      cache.reset();
+      types.reset();
+      pos = 0;
+      read(false);
+      if(pos < cache.size()) return true;
+    }
     cache = null;
     types = null;
     return false;
@@ -94,13 +106,33 @@ public abstract class Query implements Closeable {
    */
   public final String next() throws IOException {
     if(!more()) return null;
-    final byte[] item = cache.get(pos);
-    cache.set(pos++, null);
+    final byte[] item = text(take());
     if(out == null) return Token.string(item);
     out.write(item);
     return null;
   }
 
+  /**
+   * Returns the next cached item and removes it from the cache
+   * (must be called after {@link #more()}).
+   * @return item
+   */
+  final byte[] take() {
+    final byte[] item = cache.get(pos);
+    cache.set(pos++, null);
+    return item;
+  }
+
+  /**
+   * Returns the textual representation of a cached item.
+   * @param item cached item
+   * @return textual representation
+   * @throws IOException I/O exception
+   */
+  byte[] text(final byte[] item) throws IOException {
+    return item;
+  }
+
   /**
    * Returns the XQuery type of the current item (must be called after {@link #next()}.
    * @return item type
@@ -110,16 +142,41 @@ public abstract class Query implements Closeable {
   }
 
   /**
-   * Caches the incoming input.
-   * @param input input stream
-   * @param full retrieve full type information
-   * @throws IOException I/O exception
+   * Assigns the input with the results. The results will be read one by one when they are
+   * requested.
+   * @param in input stream
+   * @param fl retrieve full type information
    */
-  void cache(final InputStream input, final boolean full) throws IOException {
+  void cache(final InputStream in, final boolean fl) {
     cache = new TokenList();
     types = new ByteList();
+    pos = 0;
+    input = in;
+    full = fl;
+  }
+
+  /**
+   * Reads all pending results. Results are discarded if the cache has been invalidated.
+   * @throws IOException I/O exception
+   */
+  final void drain() throws IOException {
+    read(true);
+  }
+
+  /**
+   * Reads pending results from the input.
+   * @param all read all results (otherwise, read a single result)
+   * @throws IOException I/O exception
+   */
+  private void read(final boolean all) throws IOException {
     final ByteList bl = new ByteList();
-    for(int t; (t = input.read()) > 0;) {
+    while(input != null) {
+      final int t = input.read();
+      if(t <= 0) {
+        input = null;
+        finish();
+        break;
+      }
       // skip type information
       if(full && ID.get(t).isExtended()) {
         while(input.read() > 0);
@@ -127,12 +184,21 @@ public abstract class Query implements Closeable {
       // read and decode result
       final ServerInput si = new ServerInput(input);
       for(int b; (b = si.read()) != -1;) bl.add(b);
-      cache.add(bl.next());
-      types.add(t);
+      final byte[] item = bl.next();
+      if(cache != null) {
+        cache.add(item);
+        types.add(t);
+      }
+      if(!all) break;
     }
-    pos = 0;
   }
 
+  /**
+   * Called after all results have been read from the input.
+   * @throws IOException I/O exception
+   */
+  void finish() throws IOException { }
+
   /**
    * Returns the complete result of the query.
    * @return item string or {@code null}
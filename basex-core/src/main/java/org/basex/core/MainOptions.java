@@ -127,6 +127,12 @@ public final class MainOptions extends Options {
   public static final NumberOption INLINELIMIT = new NumberOption("INLINELIMIT", 100);
   /** Flag for tail-call optimization. */
   public static final NumberOption TAILCALLS = new NumberOption("TAILCALLS", 256);
+  /** Maximum number of sorted tuples kept in main memory (0: no limit). */
+  public static final NumberOption SORTLIMIT = new NumberOption("SORTLIMIT", 0);
+  /** Maximum number of groups kept in main memory (0: no limit). */
+  public static final NumberOption GROUPLIMIT = new NumberOption("GROUPLIMIT", 0);
+  /** Match regular expressions in linear time (if possible). */
+  public static final BooleanOption LINEARREGEX = new BooleanOption("LINEARREGEX", false);
   /** Favor global database when opening resources. */
   public static final BooleanOption DEFAULTDB = new BooleanOption("DEFAULTDB", false);
   /** Forces database creation for unknown documents. */
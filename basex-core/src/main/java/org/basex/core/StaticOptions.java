@@ -67,12 +67,20 @@ public final class StaticOptions extends Options {
   public static final NumberOption TIMEOUT = new NumberOption("TIMEOUT", 30);
   /** Keep alive time (seconds) for clients; deactivated if set to 0. */
   public static final NumberOption KEEPALIVE = new NumberOption("KEEPALIVE", 600);
+  /** Number of worker threads for processing client requests (0: one thread per client). */
+  public static final NumberOption SERVERWORKERS = new NumberOption("SERVERWORKERS", 0);
+  /** Run client sessions and scheduled jobs in virtual threads (if supported by the JVM). */
+  public static final BooleanOption VIRTUALTHREADS = new BooleanOption("VIRTUALTHREADS", false);
   /** Defines the number of parallel readers. */
   public static final NumberOption PARALLEL = new NumberOption("PARALLEL", 8);
   /** Logging flag. */
   public static final BooleanOption LOG = new BooleanOption("LOG", true);
   /** Log message cut-off. */
   public static final NumberOption LOGMSGMAXLEN = new NumberOption("LOGMSGMAXLEN", 1000);
+  /** Maximum number of pending log entries (0: entries are written synchronously). */
+  public static final NumberOption LOGQUEUE = new NumberOption("LOGQUEUE", 10000);
+  /** Discard log entries if the queue is full (otherwise, the logging thread is blocked). */
+  public static final BooleanOption LOGDROP = new BooleanOption("LOGDROP", false);
 
   /** Comment: written to options file. */
   public static final Comment C_HTTP = new Comment("HTTP Services");
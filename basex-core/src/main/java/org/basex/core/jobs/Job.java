@@ -1,6 +1,7 @@
 package org.basex.core.jobs;
 
 import java.util.*;
+import java.util.concurrent.*;
 
 import org.basex.core.*;
 import org.basex.core.locks.*;
@@ -18,8 +19,8 @@ public abstract class Job {
   private final List<Job> children = Collections.synchronizedList(new ArrayList<Job>(0));
   /** Job context. */
   private JobContext jc = new JobContext(this);
-  /** Timer. */
-  private Timer timer;
+  /** Timeout task. */
+  private ScheduledFuture<?> timer;
 
   /** This flag indicates that a job is updating. */
   public boolean updating;
@@ -48,7 +49,9 @@ public abstract class Job {
     state(JobState.RUNNING);
     jc.performance = new Performance();
     // non-admin users: stop process after timeout
-    if(!ctx.user().has(Perm.ADMIN)) startTimeout(ctx.soptions.get(StaticOptions.TIMEOUT) * 1000L);
+    if(!ctx.user().has(Perm.ADMIN)) {
+      startTimeout(ctx.jobs, ctx.soptions.get(StaticOptions.TIMEOUT) * 1000L);
+    }
   }
 
   /**
@@ -178,24 +181,25 @@ public abstract class Job {
   // PRIVATE FUNCTIONS ============================================================================
 
   /**
-   * Starts a timeout thread.
+   * Starts a timeout task.
+   * @param jobs job pool
    * @param ms milliseconds to wait; deactivated if set to 0
    */
-  private void startTimeout(final long ms) {
+  private void startTimeout(final JobPool jobs, final long ms) {
     if(ms == 0) return;
-    timer = new Timer(true);
-    timer.schedule(new TimerTask() {
+    timer = jobs.schedule(new Runnable() {
       @Override
       public void run() { timeout(); }
-    }, ms);
+    }, ms, 0);
   }
 
   /**
-   * Stops the timeout thread.
+   * Stops the timeout task.
    */
   private void stopTimeout() {
-    if(timer != null) {
-      timer.cancel();
+    final ScheduledFuture<?> tm = timer;
+    if(tm != null) {
+      tm.cancel(false);
       timer = null;
     }
   }
@@ -4,6 +4,7 @@ import java.util.*;
 import java.util.concurrent.*;
 
 import org.basex.core.*;
+import org.basex.util.*;
 
 /**
  * Job pool.
@@ -23,8 +24,12 @@ public final class JobPool {
 
   /** Timer. */
   final Timer timer = new Timer(true);
+  /** Scheduler for timeouts and other short tasks (the thread is created on demand). */
+  private final ScheduledThreadPoolExecutor scheduler;
   /** Timeout (ms). */
   private final long timeout;
+  /** Indicates if scheduled jobs will be run by virtual threads. */
+  final boolean virtual;
 
   /**
    * Constructor.
@@ -32,6 +37,10 @@ public final class JobPool {
    */
   public JobPool(final StaticOptions sopts) {
     timeout = sopts.get(StaticOptions.CACHETIMEOUT) * 1000L;
+    virtual = sopts.get(StaticOptions.VIRTUALTHREADS);
+    scheduler = new ScheduledThreadPoolExecutor(1, Threads.factory(false));
+    // cancelled timeouts are immediately removed from the queue
+    scheduler.setRemoveOnCancelPolicy(true);
   }
 
   /**
@@ -57,10 +66,26 @@ public final class JobPool {
   public void close() {
     // stop running tasks and queries
     timer.cancel();
+    scheduler.shutdownNow();
     for(final Job job : active.values()) job.stop();
     while(!active.isEmpty()) Thread.yield();
   }
 
+  /**
+   * Schedules a task. All tasks are run by a single thread, so they must not block.
+   * This function is used for enforcing timeouts, in order to avoid the creation of a new
+   * thread for each client session or query.
+   * @param task task
+   * @param delay delay (ms)
+   * @param interval interval for repeated execution (ms, {@code 0}: run once)
+   * @return future, which can be used to cancel the task
+   */
+  public ScheduledFuture<?> schedule(final Runnable task, final long delay, final long interval) {
+    return interval > 0 ?
+      scheduler.scheduleAtFixedRate(task, delay, interval, TimeUnit.MILLISECONDS) :
+      scheduler.schedule(task, delay, TimeUnit.MILLISECONDS);
+  }
+
   /**
    * Discards a result after the timeout.
    * @param job job
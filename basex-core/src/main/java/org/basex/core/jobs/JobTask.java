@@ -3,6 +3,7 @@ package org.basex.core.jobs;
 import java.util.*;
 
 import org.basex.query.func.jobs.*;
+import org.basex.util.*;
 
 /**
  * Scheduled job.
@@ -56,7 +57,7 @@ public final class JobTask extends TimerTask {
   public void run() {
     // skip execution if same job is still running
     final String id = job.job().id();
-    if(jobs.active.get(id) == null) new Thread(job).start();
+    if(jobs.active.get(id) == null) Threads.thread(job, jobs.virtual).start();
 
     start += interval;
     if(start >= end || interval == 0) {
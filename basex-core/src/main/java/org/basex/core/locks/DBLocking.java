@@ -20,7 +20,9 @@ import org.basex.util.list.*;
  *
  * This class prevents locking deadlocks by sorting all all strings
  *
- * Locks can only be released by the same thread which acquired it.
+ * Locks can only be released by the same thread which acquired it. Threads are identified by
+ * their id, which is also unique for virtual threads. Waiting threads are suspended via
+ * {@link Condition} instances, which do not pin virtual threads to their carrier threads.
  *
  * Locking methods are not synchronized to each other. The user must make sure not to call
  * them in parallel by the same thread (it is fine to call arbitrary locking methods by
@@ -53,7 +55,9 @@ public final class DBLocking implements Locking {
   public static final String MODULE_PREFIX = "&";
 
   /** Lock for running thread counters. */
-  private final Object globalLock = new Object();
+  private final ReentrantLock globalLock = new ReentrantLock();
+  /** Signaled when thread counters have changed. */
+  private final Condition globalChanged = globalLock.newCondition();
   /** Number of running local writers. Guarded by {@code globalLock}. */
   private int localWriters;
   /** Number of running local writers. Guarded by {@code globalLock}. */
@@ -69,16 +73,13 @@ public final class DBLocking implements Locking {
   private final Map<String, ReentrantReadWriteLock> locks = new HashMap<>();
   /** Stores lock usage counters for each object used for locking. */
   private final Map<String, AtomicInteger> lockUsage = new HashMap<>();
-  /**
-   * Currently running transactions.
-   * Used as monitor for atomizing access to {@link #queue}.
-   */
+  /** Lock for atomizing access to {@link #transactions} and {@link #queue}. */
+  private final ReentrantLock queueLock = new ReentrantLock();
+  /** Signaled when the queue or the number of running transactions have changed. */
+  private final Condition queueChanged = queueLock.newCondition();
+  /** Currently running transactions. Guarded by {@link #queueLock}. */
   private int transactions;
-  /**
-   * Queue for transactions waiting.
-   *
-   * Used as monitor for waiting threads in queue.
-   */
+  /** Queue for transactions waiting. Guarded by {@link #queueLock}. */
   private final Queue<Long> queue = new LinkedList<>();
   /**
    * Stores a list of objects each transaction has write-locked.
@@ -136,33 +137,27 @@ public final class DBLocking implements Locking {
 
     // Wait in queue if necessary
     final int parallel = ctx.soptions.get(StaticOptions.PARALLEL);
-    synchronized(queue) { // Guard queue and transaction, monitor for waiting in queue
+    queueLock.lock();
+    try {
       queue.add(thread);
       while(transactions >= Math.max(parallel, 1) || queue.peek() != thread) {
-        try {
-          queue.wait();
-        } catch(final InterruptedException ex) {
-          Thread.currentThread().interrupt();
-        }
+        queueChanged.awaitUninterruptibly();
       }
       final int t = transactions++;
       assert t <= Math.max(parallel, 1);
       queue.remove(thread);
+    } finally {
+      queueLock.unlock();
     }
 
     // Global write lock if write StringList is not set
     (write == null ? writeAll.writeLock() : writeAll.readLock()).lock();
 
-    synchronized(globalLock) {
+    globalLock.lock();
+    try {
       // local write locking
       if(write != null && !write.isEmpty()) {
-        while(globalReaders > 0) {
-          try {
-            globalLock.wait();
-          } catch(final InterruptedException ex) {
-            Thread.currentThread().interrupt();
-          }
-        }
+        while(globalReaders > 0) globalChanged.awaitUninterruptibly();
         localWriters++;
       }
       // global read locking
@@ -170,14 +165,12 @@ public final class DBLocking implements Locking {
         while(localWriters > 0 &&
             // We're the only writer, allow global read lock anyway
             !(1 == localWriters && !(null == write || write.isEmpty()))) {
-          try {
-            globalLock.wait();
-          } catch(final InterruptedException ex) {
-            Thread.currentThread().interrupt();
-          }
+          globalChanged.awaitUninterruptibly();
         }
         globalReaders++;
       }
+    } finally {
+      globalLock.unlock();
     }
 
     // Local locking
@@ -256,19 +249,25 @@ public final class DBLocking implements Locking {
 
     // Release global locks
     (writeAll.isWriteLocked() ? writeAll.writeLock() : writeAll.readLock()).unlock();
-    if(writeObjects != null && !writeObjects.isEmpty()) synchronized(globalLock) {
-      localWriters--;
-      globalLock.notifyAll();
-    }
-    if(readObjects == null) synchronized(globalLock) {
-      globalReaders--;
-      globalLock.notifyAll();
+    final boolean writers = writeObjects != null && !writeObjects.isEmpty();
+    if(writers || readObjects == null) {
+      globalLock.lock();
+      try {
+        if(writers) localWriters--;
+        if(readObjects == null) globalReaders--;
+        globalChanged.signalAll();
+      } finally {
+        globalLock.unlock();
+      }
     }
 
     // Allow another transaction to run
-    synchronized(queue) {
+    queueLock.lock();
+    try {
       transactions--;
-      queue.notifyAll();
+      queueChanged.signalAll();
+    } finally {
+      queueLock.unlock();
     }
   }
 
@@ -4,6 +4,7 @@ import static org.basex.util.Token.*;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.atomic.*;
 
 import org.basex.core.*;
 import org.basex.index.*;
@@ -13,6 +14,7 @@ import org.basex.index.query.*;
 import org.basex.index.resource.*;
 import org.basex.index.value.*;
 import org.basex.io.*;
+import org.basex.io.in.*;
 import org.basex.io.random.*;
 import org.basex.util.*;
 import org.basex.util.list.*;
@@ -66,6 +68,8 @@ import org.basex.util.list.*;
  * @author Christian Gruen
  */
 public abstract class Data {
+  /** Counter for creating unique ids. */
+  private static final AtomicInteger ID = new AtomicInteger();
   /** Node kind: document (code: {@code 0}). */
   public static final byte DOC = 0x00;
   /** Node kind: element (code: {@code 1}). */
@@ -81,6 +85,8 @@ public abstract class Data {
 
   /** Resource index. */
   public final Resources resources = new Resources(this);
+  /** Unique id, defining the order of nodes from different databases. */
+  public final int id = ID.incrementAndGet();
   /** Meta data. */
   public final MetaData meta;
 
@@ -472,6 +478,16 @@ public abstract class Data {
    */
   public abstract double textDbl(int pre, boolean text);
 
+  /**
+   * Returns an input stream for a text (text, comment, pi, document) or attribute value.
+   * @param pre pre value
+   * @param text text/attribute flag
+   * @return input stream
+   */
+  public BufferInput textInput(final int pre, final boolean text) {
+    return new ArrayInput(text(pre, text));
+  }
+
   /**
    * Returns the byte length of a (possibly compressed) text (text, comment, pi, document).
    * @param pre pre value
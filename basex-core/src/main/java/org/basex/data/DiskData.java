@@ -15,6 +15,7 @@ import org.basex.index.name.*;
 import org.basex.index.path.*;
 import org.basex.index.value.*;
 import org.basex.io.*;
+import org.basex.io.in.*;
 import org.basex.io.in.DataInput;
 import org.basex.io.out.DataOutput;
 import org.basex.io.random.*;
@@ -263,6 +264,22 @@ public final class DiskData extends Data {
     return number(o) ? o & IO.OFFNUM - 1 : toDouble(txt(o, text));
   }
 
+  @Override
+  public BufferInput textInput(final int pre, final boolean text) {
+    final long o = textRef(pre);
+    if(!number(o)) {
+      // stream large texts from disk
+      final DataAccess da = text ? texts : values;
+      final long off = o & IO.OFFCOMP - 1;
+      final int l = da.readNum(off);
+      if(l >= IO.STREAMSIZE) {
+        final InputStream is = da.inputStream(off + Num.length(l), l);
+        return new BufferInput(compressed(o) ? Compress.unpack(is) : is);
+      }
+    }
+    return super.textInput(pre, text);
+  }
+
   @Override
   public int textLen(final int pre, final boolean text) {
     final long o = textRef(pre);
@@ -97,6 +97,8 @@ public abstract class IO {
   public static final long OFFNUM = 0x8000000000L;
   /** Offset for compressing texts (see bit layout in {@link Data} class). */
   public static final long OFFCOMP = 0x4000000000L;
+  /** Minimum length of texts that are streamed from disk (see {@link Data#textInput}). */
+  public static final int STREAMSIZE = 1 << 16;
 
   /** Absolute file path. All paths have forward slashes, no matter which OS is used. */
   protected String pth;
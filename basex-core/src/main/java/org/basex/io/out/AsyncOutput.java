@@ -0,0 +1,191 @@
+package org.basex.io.out;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.io.*;
+import org.basex.util.*;
+import org.basex.util.list.*;
+
+/**
+ * This class writes bytes to an output stream in a separate thread. The writing thread will
+ * never be blocked by a receiver that does not read its input: bytes that have not been sent
+ * yet are cached in main memory, and spilled to a temporary file if they exceed a limit.
+ * Buffered bytes are passed on to the sending thread when the buffer is full or when
+ * {@link #flush()} is called.
+ *
+ * @author BaseX Team 2005-16, BSD License
+ * @author Christian Gruen
+ */
+public final class AsyncOutput extends OutputStream {
+  /** Output stream. */
+  private final OutputStream os;
+  /** Maximum number of pending bytes that are cached in main memory. */
+  private final int limit;
+  /** Sending thread. */
+  private final Thread thread;
+
+  /** Pending blocks that are cached in main memory. */
+  private final ArrayDeque<ByteList> blocks = new ArrayDeque<>();
+  /** Number of bytes cached in main memory. */
+  private long cached;
+  /** Temporary file ({@code null} if no bytes have been spilled yet). */
+  private IOFile file;
+  /** Random access to the temporary file. */
+  private RandomAccessFile raf;
+  /** Number of bytes written to the temporary file. */
+  private long written;
+  /** Number of bytes read from the temporary file. */
+  private long read;
+  /** Indicates if all bytes have been written. */
+  private boolean finished;
+  /** Exception raised while sending bytes. */
+  private IOException error;
+
+  /** Buffer with bytes that have not been passed on yet. */
+  private final byte[] buffer = new byte[IO.BLOCKSIZE];
+  /** Number of bytes in the buffer. */
+  private int size;
+
+  /**
+   * Constructor. Starts the sending thread.
+   * @param os output stream
+   * @param limit maximum number of pending bytes that are cached in main memory
+   * @param virtual use virtual thread (ignored if not supported by the runtime)
+   */
+  public AsyncOutput(final OutputStream os, final int limit, final boolean virtual) {
+    this.os = os;
+    this.limit = limit;
+    thread = Threads.thread(new Runnable() {
+      @Override
+      public void run() {
+        send();
+      }
+    }, virtual);
+    thread.start();
+  }
+
+  @Override
+  public void write(final int b) throws IOException {
+    buffer[size++] = (byte) b;
+    if(size == buffer.length) pass();
+  }
+
+  @Override
+  public void write(final byte[] b, final int off, final int len) throws IOException {
+    int o = off;
+    final int e = off + len;
+    while(o < e) {
+      final int l = Math.min(buffer.length - size, e - o);
+      System.arraycopy(b, o, buffer, size, l);
+      size += l;
+      o += l;
+      if(size == buffer.length) pass();
+    }
+  }
+
+  @Override
+  public void flush() throws IOException {
+    if(size > 0) pass();
+  }
+
+  /**
+   * Waits until all bytes have been sent and deletes the temporary file.
+   * No more bytes must be written after this function has been called.
+   * @throws IOException I/O exception raised while sending the bytes
+   */
+  public void finish() throws IOException {
+    try {
+      flush();
+    } finally {
+      synchronized(this) {
+        finished = true;
+        notifyAll();
+      }
+      try {
+        thread.join();
+      } catch(final InterruptedException ex) {
+        Util.debug(ex);
+      }
+      if(raf != null) {
+        try {
+          raf.close();
+        } catch(final IOException ex) {
+          Util.debug(ex);
+        }
+        file.delete();
+      }
+    }
+    if(error != null) throw error;
+  }
+
+  /**
+   * Passes on the buffered bytes to the sending thread.
+   * @throws IOException I/O exception
+   */
+  private synchronized void pass() throws IOException {
+    if(error != null) throw error;
+    // bytes are kept in main memory if no spilled bytes are pending and the limit is not reached
+    if(read == written && cached + size <= limit) {
+      // small chunks (e.g. flushed results) are appended to the last pending block
+      final ByteList last = blocks.peekLast();
+      if(last != null && last.size() + size <= buffer.length) last.add(buffer, 0, size);
+      else blocks.add(new ByteList(buffer.length).add(buffer, 0, size));
+      cached += size;
+    } else {
+      if(raf == null) {
+        file = new IOFile(File.createTempFile(Prop.NAME + '-', IO.TMPSUFFIX));
+        raf = new RandomAccessFile(file.file(), "rw");
+      }
+      raf.seek(written);
+      raf.write(buffer, 0, size);
+      written += size;
+    }
+    size = 0;
+    notifyAll();
+  }
+
+  /**
+   * Sends pending bytes until all bytes have been written.
+   */
+  private void send() {
+    final byte[] chunk = new byte[IO.BLOCKSIZE];
+    try {
+      while(true) {
+        final byte[] data;
+        final int len;
+        final boolean pending;
+        synchronized(this) {
+          while(blocks.isEmpty() && read == written && !finished) wait();
+          if(!blocks.isEmpty()) {
+            final ByteList block = blocks.poll();
+            len = block.size();
+            data = block.finish();
+            cached -= len;
+          } else if(read < written) {
+            len = (int) Math.min(chunk.length, written - read);
+            raf.seek(read);
+            raf.readFully(chunk, 0, len);
+            read += len;
+            // all spilled bytes have been read: reuse temporary file
+            if(read == written) read = written = 0;
+            data = chunk;
+          } else {
+            break;
+          }
+          pending = !blocks.isEmpty() || read < written;
+        }
+        os.write(data, 0, len);
+        // flush output if no more bytes are pending
+        if(!pending) os.flush();
+      }
+    } catch(final IOException ex) {
+      synchronized(this) {
+        error = ex;
+        blocks.clear();
+      }
+    } catch(final InterruptedException ex) {
+      Util.debug(ex);
+    }
+  }
+}
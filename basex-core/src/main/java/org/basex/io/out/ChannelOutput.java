@@ -0,0 +1,111 @@
+package org.basex.io.out;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+
+import org.basex.io.*;
+
+/**
+ * This class writes bytes to a socket channel in non-blocking mode.
+ * If the channel cannot accept more bytes, the remaining bytes are cached (and spilled to disk
+ * if they exceed a limit). The writing thread will never be blocked by a client that does not
+ * read its input. Pending bytes are written by calling {@link #drain()} when the channel
+ * becomes writable again.
+ *
+ * @author BaseX Team 2005-16, BSD License
+ * @author Christian Gruen
+ */
+public final class ChannelOutput extends OutputStream {
+  /** Maximum number of pending bytes that are cached in main memory. */
+  private static final int CACHE = 1 << 20;
+  /** Socket channel. */
+  private final SocketChannel channel;
+
+  /** Pending bytes ({@code null} if all bytes have been written). */
+  private SpillOutput pending;
+  /** Buffer with pending bytes that are currently being written. */
+  private ByteBuffer buffer;
+  /** Time when pending bytes were written for the last time. */
+  private long time;
+
+  /**
+   * Constructor.
+   * @param channel socket channel
+   */
+  public ChannelOutput(final SocketChannel channel) {
+    this.channel = channel;
+  }
+
+  @Override
+  public void write(final int b) throws IOException {
+    write(new byte[] { (byte) b }, 0, 1);
+  }
+
+  @Override
+  public void write(final byte[] b, final int off, final int len) throws IOException {
+    if(pending == null) {
+      final ByteBuffer bb = ByteBuffer.wrap(b, off, len);
+      channel.write(bb);
+      if(!bb.hasRemaining()) return;
+      pending = new SpillOutput(CACHE);
+      pending.write(b, bb.position(), bb.remaining());
+    } else {
+      pending.write(b, off, len);
+    }
+  }
+
+  /**
+   * Indicates if there are bytes that have not been written yet.
+   * @return result of check
+   */
+  public boolean pending() {
+    return pending != null;
+  }
+
+  /**
+   * Returns the time when pending bytes were written for the last time.
+   * @return time (ms)
+   */
+  public long time() {
+    return time;
+  }
+
+  /**
+   * Writes as many pending bytes as the channel accepts without blocking.
+   * No new bytes must be written until all pending bytes have been written.
+   * @return {@code true} if all pending bytes have been written
+   * @throws IOException I/O exception
+   */
+  public boolean drain() throws IOException {
+    if(pending == null) return true;
+    final InputStream in = pending.input();
+    if(buffer == null) {
+      buffer = ByteBuffer.allocate(IO.BLOCKSIZE);
+      buffer.limit(0);
+      time = System.currentTimeMillis();
+    }
+    while(true) {
+      if(!buffer.hasRemaining()) {
+        final int l = in.read(buffer.array());
+        if(l == -1) {
+          discard();
+          return true;
+        }
+        buffer.position(0);
+        buffer.limit(l);
+      }
+      if(channel.write(buffer) == 0) return false;
+      time = System.currentTimeMillis();
+    }
+  }
+
+  /**
+   * Discards all pending bytes.
+   */
+  public void discard() {
+    if(pending != null) pending.close();
+    pending = null;
+    buffer = null;
+  }
+}
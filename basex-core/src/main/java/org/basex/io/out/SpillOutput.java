@@ -0,0 +1,106 @@
+package org.basex.io.out;
+
+import java.io.*;
+
+import org.basex.io.*;
+import org.basex.util.*;
+
+/**
+ * This class caches output bytes. Bytes are kept in main memory until the specified limit
+ * is exceeded. Then, all bytes are spilled to a temporary file, which is deleted when
+ * the stream is closed.
+ *
+ * @author BaseX Team 2005-16, BSD License
+ * @author Christian Gruen
+ */
+public final class SpillOutput extends OutputStream {
+  /** Maximum number of bytes that are cached in main memory. */
+  private final int limit;
+  /** Cached bytes. */
+  private ArrayOutput array = new ArrayOutput();
+  /** Temporary file ({@code null} if bytes are cached in main memory). */
+  private IOFile file;
+  /** Output stream of the temporary file. */
+  private OutputStream output;
+  /** Input stream ({@code null} if no input stream was requested yet). */
+  private InputStream input;
+  /** Number of written bytes. */
+  private long size;
+
+  /**
+   * Constructor.
+   * @param limit maximum number of bytes that are cached in main memory
+   */
+  public SpillOutput(final int limit) {
+    this.limit = limit;
+  }
+
+  @Override
+  public void write(final int b) throws IOException {
+    if(output == null && size + 1 > limit) spill();
+    if(output != null) output.write(b);
+    else array.write(b);
+    size++;
+  }
+
+  @Override
+  public void write(final byte[] b, final int off, final int len) throws IOException {
+    if(output == null && size + len > limit) spill();
+    if(output != null) output.write(b, off, len);
+    else array.write(b, off, len);
+    size += len;
+  }
+
+  /**
+   * Returns the number of written bytes.
+   * @return number of bytes
+   */
+  public long size() {
+    return size;
+  }
+
+  /**
+   * Returns an input stream for the written bytes.
+   * No more bytes must be written after this function has been called.
+   * @return input stream
+   * @throws IOException I/O exception
+   */
+  public InputStream input() throws IOException {
+    if(input == null) {
+      if(output != null) {
+        output.close();
+        output = null;
+        input = file.inputStream();
+      } else {
+        input = new ByteArrayInputStream(array.buffer(), 0, (int) array.size());
+      }
+      array = null;
+    }
+    return input;
+  }
+
+  @Override
+  public void close() {
+    try {
+      if(output != null) output.close();
+      if(input != null) input.close();
+    } catch(final IOException ex) {
+      Util.debug(ex);
+    }
+    output = null;
+    input = null;
+    array = null;
+    if(file != null) file.delete();
+  }
+
+  /**
+   * Spills the cached bytes to a temporary file.
+   * @throws IOException I/O exception
+   */
+  private void spill() throws IOException {
+    file = new IOFile(File.createTempFile(Prop.NAME + '-', IO.TMPSUFFIX));
+    output = new BufferOutput(new FileOutputStream(file.file()));
+    output.write(array.buffer(), 0, (int) array.size());
+    array = null;
+  }
+}
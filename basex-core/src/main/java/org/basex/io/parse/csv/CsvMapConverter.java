@@ -6,6 +6,7 @@ import org.basex.build.csv.*;
 import org.basex.query.*;
 import org.basex.query.util.list.*;
 import org.basex.query.value.item.*;
+import org.basex.query.value.map.*;
 import org.basex.query.value.map.Map;
 
 /**
@@ -59,12 +60,10 @@ final class CsvMapConverter extends CsvConverter {
   @Override
   protected Map finish() throws QueryIOException {
     try {
-      Map map = Map.EMPTY;
+      final MapBuilder mb = new MapBuilder(null);
       int row = 1;
-      for(final ItemList list : records) {
-        map = map.put(Int.get(row++), list.value(), null);
-      }
-      return map;
+      for(final ItemList list : records) mb.put(Int.get(row++), list.value());
+      return mb.finish();
     } catch(final QueryException ex) {
       throw new QueryIOException(ex);
     }
@@ -10,7 +10,7 @@ import org.basex.query.*;
 import org.basex.query.util.list.*;
 import org.basex.query.value.*;
 import org.basex.query.value.item.*;
-import org.basex.query.value.map.Map;
+import org.basex.query.value.map.*;
 import org.basex.query.value.seq.*;
 import org.basex.util.*;
 
@@ -41,7 +41,7 @@ public final class JsonMapConverter extends JsonConverter {
   /** Stack for intermediate array values. */
   private final Stack<ValueList> arrays = new Stack<>();
   /** Stack for intermediate maps values. */
-  private final Stack<Map> maps = new Stack<>();
+  private final Stack<MapBuilder> maps = new Stack<>();
 
   /**
    * Constructor.
@@ -63,7 +63,7 @@ public final class JsonMapConverter extends JsonConverter {
 
   @Override
   void openObject() {
-    maps.push(Map.EMPTY);
+    maps.push(new MapBuilder(null));
   }
 
   @Override
@@ -77,7 +77,7 @@ public final class JsonMapConverter extends JsonConverter {
     final Item key = (Item) stack.pop();
     if(add) {
       try {
-        maps.push(maps.pop().put(key, val, null));
+        maps.peek().put(key, val);
       } catch(final QueryException ex) {
         throw new QueryIOException(ex);
       }
@@ -86,7 +86,7 @@ public final class JsonMapConverter extends JsonConverter {
 
   @Override
   void closeObject() {
-    stack.push(maps.pop());
+    stack.push(maps.pop().finish());
   }
 
   @Override
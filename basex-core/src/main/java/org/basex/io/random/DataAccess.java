@@ -190,22 +190,80 @@ public final class DataAccess implements Closeable {
    * @return byte array
    */
   public synchronized byte[] readBytes(final int len) {
+    final byte[] b = new byte[len];
+    readBytes(b, 0, len);
+    return b;
+  }
+
+  /**
+   * Reads a number of bytes from the specified offset into an array.
+   * @param pos position
+   * @param b target array
+   * @param o array offset
+   * @param len length
+   */
+  public synchronized void readBytes(final long pos, final byte[] b, final int o, final int len) {
+    cursor(pos);
+    readBytes(b, o, len);
+  }
+
+  /**
+   * Returns an input stream for the specified range of bytes. As the stream remembers its
+   * own position, other data can be read before the stream has been consumed.
+   * @param pos position
+   * @param len length
+   * @return input stream
+   */
+  public InputStream inputStream(final long pos, final int len) {
+    return new InputStream() {
+      private long p = pos;
+      private int l = len;
+
+      @Override
+      public int read() {
+        if(l == 0) return -1;
+        l--;
+        return read1(p++) & 0xFF;
+      }
+
+      @Override
+      public int read(final byte[] b, final int o, final int ln) {
+        if(l == 0) return -1;
+        final int r = Math.min(ln, l);
+        readBytes(p, b, o, r);
+        p += r;
+        l -= r;
+        return r;
+      }
+
+      @Override
+      public int available() {
+        return l;
+      }
+    };
+  }
+
+  /**
+   * Reads a number of bytes into an array.
+   * @param b target array
+   * @param o array offset
+   * @param len length
+   */
+  private void readBytes(final byte[] b, final int o, final int len) {
     int l = len;
     int ll = IO.BLOCKSIZE - off;
-    final byte[] b = new byte[l];
 
-    System.arraycopy(buffer(false).data, off, b, 0, Math.min(l, ll));
+    System.arraycopy(buffer(false).data, off, b, o, Math.min(l, ll));
     if(l > ll) {
       l -= ll;
       while(l > IO.BLOCKSIZE) {
-        System.arraycopy(buffer(true).data, 0, b, ll, IO.BLOCKSIZE);
+        System.arraycopy(buffer(true).data, 0, b, o + ll, IO.BLOCKSIZE);
         ll += IO.BLOCKSIZE;
         l -= IO.BLOCKSIZE;
       }
-      System.arraycopy(buffer(true).data, 0, b, ll, l);
+      System.arraycopy(buffer(true).data, 0, b, o + ll, l);
     }
     off += l;
-    return b;
   }
 
   /**
@@ -39,6 +39,8 @@ public final class BaseXSerializer extends AdaptiveSerializer {
           try(final InputStream is = item.input(null)) {
             for(int b; (b = is.read()) != -1;) out.write(b);
           }
+        } else if(item instanceof StrRope) {
+          printChars(item.input(null));
         } else {
           printChars(item.string(null));
         }
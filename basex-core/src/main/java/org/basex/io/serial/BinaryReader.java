@@ -0,0 +1,115 @@
+package org.basex.io.serial;
+
+import static org.basex.io.serial.BinarySerializer.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.io.*;
+import org.basex.io.in.DataInput;
+import org.basex.query.*;
+import org.basex.query.value.item.*;
+import org.basex.query.value.node.*;
+import org.basex.query.value.type.*;
+import org.basex.util.*;
+
+/**
+ * This class reads items that have been written by the {@link BinarySerializer}.
+ * A single instance must be used for all items of a result, as the name dictionary is
+ * shared by all items.
+ *
+ * @author BaseX Team 2005-16, BSD License
+ * @author Christian Gruen
+ */
+public final class BinaryReader {
+  /** Name dictionary. */
+  private final ArrayList<QNm> names = new ArrayList<>();
+
+  /**
+   * Returns an item.
+   * @param data binary representation of the item
+   * @param type type of the item
+   * @return item
+   * @throws IOException I/O exception
+   */
+  public Item read(final byte[] data, final Type type) throws IOException {
+    final DataInput in = new DataInput(new IOContent(data));
+    if(type instanceof NodeType) return node(in, in.read());
+
+    if(type == AtomType.DBL) return Dbl.get(Double.longBitsToDouble(in.read8()));
+    if(type == AtomType.FLT) return Flt.get(Float.intBitsToFloat(read4(in)));
+    if(type == AtomType.BLN) return Bln.get(in.read() == 1);
+    if(type.instanceOf(AtomType.ITR) && type != AtomType.ULN) return Int.get(in.read8(), type);
+    if(type == AtomType.B64) return new B64(data);
+    if(type == AtomType.HEX) return new Hex(data);
+    if(type == AtomType.STR) return Str.get(data);
+    if(type == AtomType.ATM) return new Atm(data);
+    if(type == AtomType.QNM) return new QNm(data);
+    if(type instanceof AtomType) {
+      try {
+        return ((AtomType) type).cast(Str.get(data), null, null, null);
+      } catch(final QueryException ex) {
+        // values that cannot be reconstructed are returned as strings
+        Util.debug(ex);
+      }
+    }
+    return Str.get(data);
+  }
+
+  /**
+   * Reads a node.
+   * @param in input
+   * @param event event
+   * @return node
+   * @throws IOException I/O exception
+   */
+  private ANode node(final DataInput in, final int event) throws IOException {
+    switch(event) {
+      case DOC:
+        final FDoc doc = new FDoc(in.readToken());
+        for(int e; (e = in.read()) != END;) doc.add(node(in, e));
+        return doc;
+      case ELEM:
+        final FElem elem = new FElem(name(in));
+        for(int e; (e = in.read()) != END;) {
+          if(e == NSP) elem.namespaces().add(in.readToken(), in.readToken());
+          else elem.add(node(in, e));
+        }
+        return elem;
+      case ATTR:
+        return new FAttr(name(in), in.readToken());
+      case NSP:
+        return new FNSpace(in.readToken(), in.readToken());
+      case TEXT:
+        return new FTxt(in.readToken());
+      case COMM:
+        return new FComm(in.readToken());
+      case PI:
+        return new FPI(new QNm(in.readToken()), in.readToken());
+      default:
+        throw new IOException("Invalid binary event: " + event);
+    }
+  }
+
+  /**
+   * Reads a name reference.
+   * @param in input
+   * @return name
+   * @throws IOException I/O exception
+   */
+  private QNm name(final DataInput in) throws IOException {
+    final int id = in.readNum();
+    if(id > names.size()) names.add(new QNm(in.readToken(), in.readToken()));
+    return names.get(id - 1);
+  }
+
+  /**
+   * Reads a 4-byte integer.
+   * @param in input
+   * @return integer
+   * @throws IOException I/O exception
+   */
+  private static int read4(final DataInput in) throws IOException {
+    return in.read() << 24 | in.read() << 16 | in.read() << 8 | in.read();
+  }
+}
@@ -0,0 +1,222 @@
+package org.basex.io.serial;
+
+import static org.basex.query.QueryError.*;
+import static org.basex.query.QueryText.*;
+import static org.basex.util.Token.*;
+
+import java.io.*;
+
+import org.basex.io.out.DataOutput;
+import org.basex.query.*;
+import org.basex.query.util.ft.*;
+import org.basex.query.value.item.*;
+import org.basex.query.value.node.*;
+import org.basex.query.value.type.*;
+import org.basex.util.hash.*;
+
+/**
+ * This class serializes items to a compact binary representation, which is used for
+ * returning query results to clients (see {@link BinaryReader}).
+ * The type of an item is not part of its representation and must be sent separately.
+ * In query results, each item is preceded by a byte that indicates if the item is encoded
+ * ({@link #BINARY}) or serialized as text with the serialization parameters of the query
+ * ({@link #TEXTUAL}). Text is returned for maps, arrays and function items, and for all items
+ * if non-default serialization parameters have been specified.
+ *
+ * <p>Atomic values:</p>
+ * <ul>
+ * <li> integers (all types derived from {@code xs:integer}, except for
+ * {@code xs:unsignedLong}): 8-byte two's complement</li>
+ * <li> doubles: 8-byte IEEE 754 bits; floats: 4-byte IEEE 754 bits</li>
+ * <li> booleans: 1 byte ({@code 0} or {@code 1})</li>
+ * <li> binary items: raw bytes</li>
+ * <li> all other values: UTF-8 encoded string value</li>
+ * </ul>
+ *
+ * <p>Nodes are represented as stream of events, each starting with a single byte:</p>
+ * <ul>
+ * <li> {@link #DOC}: {base uri}, child events, {@link #END}</li>
+ * <li> {@link #ELEM}: {name}, namespace and attribute events, child events, {@link #END}</li>
+ * <li> {@link #ATTR}: {name}{value}</li>
+ * <li> {@link #NSP}: {prefix}{uri}</li>
+ * <li> {@link #TEXT}, {@link #COMM}: {value}</li>
+ * <li> {@link #PI}: {name}{value}</li>
+ * </ul>
+ * Strings are written as compressed length and UTF-8 bytes (see {@link DataOutput#writeToken}).
+ * Element and attribute names are stored in a dictionary that is shared by all items of a
+ * result: a name is referenced by its compressed id (starting with {@code 1}).
+ * If the id has not been referenced before, it is followed by {prefixed name}{uri}.
+ *
+ * @author BaseX Team 2005-16, BSD License
+ * @author Christian Gruen
+ */
+public final class BinarySerializer extends Serializer {
+  /** Item representation: binary encoding. */
+  public static final int BINARY = 0;
+  /** Item representation: text. */
+  public static final int TEXTUAL = 1;
+
+  /** Event: end of element or document. */
+  public static final int END = 0;
+  /** Event: document. */
+  public static final int DOC = 1;
+  /** Event: element. */
+  public static final int ELEM = 2;
+  /** Event: attribute. */
+  public static final int ATTR = 3;
+  /** Event: namespace. */
+  public static final int NSP = 4;
+  /** Event: text. */
+  public static final int TEXT = 5;
+  /** Event: comment. */
+  public static final int COMM = 6;
+  /** Event: processing instruction. */
+  public static final int PI = 7;
+
+  /** Output stream. */
+  private final DataOutput out;
+  /** Name dictionary (keys: prefixed name and uri, separated by space). */
+  private final TokenSet names = new TokenSet();
+
+  /**
+   * Constructor.
+   * @param os output stream
+   */
+  public BinarySerializer(final OutputStream os) {
+    out = new DataOutput(os);
+  }
+
+  @Override
+  public void serialize(final Item item) throws IOException {
+    // standalone attributes and namespaces
+    if(item.type == NodeType.ATT) {
+      final ANode node = (ANode) item;
+      out.write(ATTR);
+      name(node.qname());
+      out.writeToken(node.string());
+    } else if(item.type == NodeType.NSP) {
+      final ANode node = (ANode) item;
+      out.write(NSP);
+      out.writeToken(node.name());
+      out.writeToken(node.string());
+    } else {
+      super.serialize(item);
+    }
+  }
+
+  @Override
+  protected void openDoc(final byte[] name) throws IOException {
+    out.write(DOC);
+    out.writeToken(name);
+  }
+
+  @Override
+  protected void closeDoc() throws IOException {
+    out.write(END);
+  }
+
+  @Override
+  protected void startOpen(final QNm name) throws IOException {
+    out.write(ELEM);
+    name(name);
+  }
+
+  @Override
+  protected void finishEmpty() throws IOException {
+    out.write(END);
+  }
+
+  @Override
+  protected void finishClose() throws IOException {
+    out.write(END);
+  }
+
+  @Override
+  protected void attribute(final byte[] name, final byte[] value, final boolean standalone)
+      throws IOException {
+
+    if(startsWith(name, XMLNS) && (name.length == 5 || name[5] == ':')) {
+      out.write(NSP);
+      out.writeToken(name.length == 5 ? EMPTY : substring(name, 6));
+      out.writeToken(value);
+    } else {
+      final byte[] prefix = prefix(name);
+      byte[] uri = prefix.length == 0 ? EMPTY : eq(prefix, XML) ? XML_URI : nsUri(prefix);
+      if(uri == null) uri = EMPTY;
+      out.write(ATTR);
+      name(name, uri);
+      out.writeToken(value);
+    }
+  }
+
+  @Override
+  protected void text(final byte[] value, final FTPos ftp) throws IOException {
+    out.write(TEXT);
+    out.writeToken(value);
+  }
+
+  @Override
+  protected void comment(final byte[] value) throws IOException {
+    out.write(COMM);
+    out.writeToken(value);
+  }
+
+  @Override
+  protected void pi(final byte[] name, final byte[] value) throws IOException {
+    out.write(PI);
+    out.writeToken(name);
+    out.writeToken(value);
+  }
+
+  @Override
+  protected void atomic(final Item item) throws IOException {
+    try {
+      final Type type = item.type;
+      if(item instanceof Int) {
+        out.write8(item.itr(null));
+      } else if(type == AtomType.DBL) {
+        out.write8(Double.doubleToRawLongBits(item.dbl(null)));
+      } else if(type == AtomType.FLT) {
+        out.write4(Float.floatToRawIntBits(item.flt(null)));
+      } else if(type == AtomType.BLN) {
+        out.write(item.bool(null) ? 1 : 0);
+      } else if(item instanceof Bin) {
+        out.writeBytes(((Bin) item).binary(null));
+      } else {
+        out.writeBytes(item.string(null));
+      }
+    } catch(final QueryException ex) {
+      throw new QueryIOException(ex);
+    }
+  }
+
+  @Override
+  protected void function(final FItem item) throws IOException {
+    throw SERFUNC_X.getIO(item.seqType());
+  }
+
+  /**
+   * Writes a reference to a name.
+   * @param name name
+   * @throws IOException I/O exception
+   */
+  private void name(final QNm name) throws IOException {
+    name(name.string(), name.uri());
+  }
+
+  /**
+   * Writes a reference to a name.
+   * @param name prefixed name
+   * @param uri namespace uri
+   * @throws IOException I/O exception
+   */
+  private void name(final byte[] name, final byte[] uri) throws IOException {
+    final int size = names.size();
+    final int id = names.put(concat(name, SPACE, uri));
+    out.writeNum(id);
+    if(id > size) {
+      out.writeToken(name);
+      out.writeToken(uri);
+    }
+  }
+}
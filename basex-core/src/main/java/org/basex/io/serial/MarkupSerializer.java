@@ -147,6 +147,11 @@ abstract class MarkupSerializer extends StandardSerializer {
     out.print(ATT2);
   }
 
+  @Override
+  protected boolean chunks() throws IOException {
+    return form == null && cdata().isEmpty();
+  }
+
   @Override
   protected void text(final byte[] value, final FTPos ftp) throws IOException {
     final byte[] val = norm(value);
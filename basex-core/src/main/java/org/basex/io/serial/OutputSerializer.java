@@ -7,6 +7,8 @@ import static org.basex.util.Token.*;
 import java.io.*;
 import java.nio.charset.*;
 
+import org.basex.io.*;
+import org.basex.io.in.*;
 import org.basex.io.out.*;
 import org.basex.query.*;
 import org.basex.util.*;
@@ -104,6 +106,23 @@ public abstract class OutputSerializer extends Serializer {
     for(int a = 0; a < al; a += cl(text, a)) printChar(cp(text, a));
   }
 
+  /**
+   * Encodes the characters of the specified UTF-8 input before printing.
+   * The input is decoded in chunks, which end at character boundaries.
+   * @param input input (will be closed)
+   * @throws IOException I/O exception
+   */
+  protected final void printChars(final BufferInput input) throws IOException {
+    try(final BufferInput bi = input) {
+      final TokenBuilder tb = new TokenBuilder(IO.BLOCKSIZE);
+      for(int b; (b = bi.read()) != -1;) {
+        if(tb.size() >= IO.BLOCKSIZE && (b & 0xC0) != 0x80) printChars(tb.next());
+        tb.addByte((byte) b);
+      }
+      printChars(tb.finish());
+    }
+  }
+
   /**
    * Encodes the specified codepoint before printing.
    * @param cp codepoint to be encoded and printed
@@ -11,6 +11,8 @@ import org.basex.build.csv.CsvOptions.*;
 import org.basex.build.json.*;
 import org.basex.build.json.JsonOptions.*;
 import org.basex.data.*;
+import org.basex.io.*;
+import org.basex.io.in.*;
 import org.basex.io.serial.csv.*;
 import org.basex.io.serial.json.*;
 import org.basex.query.*;
@@ -294,6 +296,15 @@ public abstract class Serializer implements Closeable {
   @SuppressWarnings("unused")
   protected void text(final byte[] value, final FTPos ftp) throws IOException { }
 
+  /**
+   * Indicates if long texts can be serialized in several chunks.
+   * @return result of check
+   * @throws IOException I/O exception
+   */
+  protected boolean chunks() throws IOException {
+    return false;
+  }
+
   /**
    * Serializes a comment.
    * @param value value
@@ -302,6 +313,24 @@ public abstract class Serializer implements Closeable {
   @SuppressWarnings("unused")
   protected void comment(final byte[] value) throws IOException { }
 
+  /**
+   * Serializes a long database text in chunks, which end at character boundaries.
+   * @param data data reference
+   * @param pre pre value
+   * @throws IOException I/O exception
+   */
+  private void prepareText(final Data data, final int pre) throws IOException {
+    prepare();
+    try(final BufferInput bi = data.textInput(pre, true)) {
+      final TokenBuilder tb = new TokenBuilder(IO.BLOCKSIZE);
+      for(int b; (b = bi.read()) != -1;) {
+        if(tb.size() >= IO.BLOCKSIZE && (b & 0xC0) != 0x80) text(tb.next(), null);
+        tb.addByte((byte) b);
+      }
+      text(tb.finish(), null);
+    }
+  }
+
   /**
    * Serializes a processing instruction.
    * @param name name
@@ -366,7 +395,12 @@ public abstract class Serializer implements Closeable {
       }
 
       if(kind == Data.TEXT) {
-        prepareText(data.text(pre, true), ft != null ? ft.get(data, pre) : null);
+        final FTPos ftp = ft != null ? ft.get(data, pre) : null;
+        if(ftp == null && chunks() && data.textLen(pre, true) >= IO.STREAMSIZE) {
+          prepareText(data, pre);
+        } else {
+          prepareText(data.text(pre, true), ftp);
+        }
         pre++;
       } else if(kind == Data.COMM) {
         prepareComment(data.text(pre++, true));
@@ -107,6 +107,8 @@ public abstract class StandardSerializer extends OutputSerializer {
         try(final InputStream is = item.input(null)) {
           for(int cp; (cp = is.read()) != -1;) printChar(cp);
         }
+      } else if(item instanceof StrRope && form == null) {
+        printChars(item.input(null));
       } else {
         printChars(norm(item.string(null)));
       }
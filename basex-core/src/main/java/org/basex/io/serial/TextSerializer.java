@@ -21,6 +21,11 @@ final class TextSerializer extends StandardSerializer {
     super(os, sopts);
   }
 
+  @Override
+  protected boolean chunks() {
+    return form == null;
+  }
+
   @Override
   protected void text(final byte[] value, final FTPos ftp) throws IOException {
     out.print(norm(value));
@@ -381,6 +381,7 @@ public interface QueryText {
   /** Query Info. */ String TEST = "test";
   /** Query Info. */ String MIN = "min";
   /** Query Info. */ String MAX = "max";
+  /** Query Info. */ String COSTS = "costs";
   /** Query Info. */ String INF = "inf";
   /** Query Info. */ String TCL = "tailCall";
 
@@ -406,8 +407,11 @@ public interface QueryText {
   /** Optimization info. */ String OPTPATH_X = "removing non-existing path %";
   /** Optimization info. */ String OPTINDEX_X_X = "applying % index for %";
   /** Optimization info. */ String OPTNOINDEX = "removing path with no index results";
+  /** Optimization info. */ String OPTSCAN_X_X = "skipping index access, sequential scan is cheaper (% < %)";
   /** Optimization info. */ String OPTCHILD_X = "converting % to child steps";
   /** Optimization info. */ String OPTUNROLL_X = "unrolling %";
+  /** Optimization info. */ String OPTTOPK_X_X = "sorting % tuple(s) at most: %";
+  /** Optimization info. */ String OPTAGGR_X = "aggregating values of %";
 
   // MISCELLANEOUS ================================================================================
 
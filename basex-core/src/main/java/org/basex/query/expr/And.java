@@ -3,6 +3,7 @@ package org.basex.query.expr;
 import static org.basex.query.QueryText.*;
 
 import org.basex.query.*;
+import org.basex.query.expr.path.*;
 import org.basex.query.func.*;
 import org.basex.query.util.*;
 import org.basex.query.util.list.*;
@@ -142,13 +143,19 @@ public final class And extends Logical {
       tmp[e] = ii.expr;
     }
 
-    // evaluate arguments with higher selectivity first
+    // evaluate arguments with higher selectivity first (costs will be sorted as well)
     final int[] ord = Array.createOrder(ics, true);
-    final Expr[] ex = new Expr[es];
-    for(int e = 0; e < es; ++e) ex[e] = tmp[ord[e]];
-    ii.expr = new InterSect(info, ex);
+    // only intersect index results with similar costs; filter the remaining results
+    final ExprList ex = new ExprList(es), preds = new ExprList(es);
+    for(int e = 0; e < es; ++e) {
+      if(ics[e] / IndexInfo.INTERSECT <= ics[0]) ex.add(tmp[ord[e]]);
+      else preds.add(exprs[ord[e]]);
+    }
+    final Expr index = ex.size() == 1 ? ex.get(0) : new InterSect(info, ex.finish());
+    ii.expr = preds.isEmpty() ? index :
+      Path.get(info, index, Step.get(info, Axis.SELF, Test.NOD, preds.finish()));
     // use worst costs for estimation, as all index results may need to be scanned
-    ii.costs = ics[ord[es - 1]];
+    ii.costs = ics[ex.size() - 1];
     return true;
   }
 
@@ -1,10 +1,13 @@
 package org.basex.query.expr;
 
 import static org.basex.query.QueryText.*;
+import static org.basex.query.value.type.AtomType.*;
 
 import org.basex.query.*;
+import org.basex.query.value.*;
 import org.basex.query.value.item.*;
 import org.basex.query.value.node.*;
+import org.basex.query.value.seq.*;
 import org.basex.query.value.type.*;
 import org.basex.query.value.type.SeqType.Occ;
 import org.basex.query.var.*;
@@ -59,6 +62,145 @@ public final class Arith extends Arr {
     return calc.ev(it1, it2, info);
   }
 
+  /**
+   * Evaluates the expression for all items of a native sequence, which are bound to the
+   * context value. Succeeds if one operand is the context value, and if the other operand
+   * is a value or a variable reference. Integer ranges are shifted without being materialized,
+   * and integer and double values are computed on primitive arrays.
+   * @param value value
+   * @param compile compilation flag (variable references will be ignored)
+   * @param qc query context
+   * @return resulting value, or {@code null} if the items must be processed one by one
+   * @throws QueryException query exception
+   */
+  Value map(final Value value, final boolean compile, final QueryContext qc)
+      throws QueryException {
+    final boolean first = exprs[0] instanceof ContextValue;
+    final Expr expr = exprs[first ? 1 : 0];
+    if(!first && !(exprs[1] instanceof ContextValue) ||
+        !(expr instanceof Value || !compile && expr instanceof VarRef) ||
+        !(value instanceof RangeSeq || value instanceof IntSeq || value instanceof DblSeq))
+      return null;
+
+    final Item it = expr.atomItem(qc, info);
+    if(it == null) return Empty.SEQ;
+    if(!it.type.isNumberOrUntyped()) return null;
+
+    final Type type = Calc.type(value.type, it.type);
+    if(type == ITR) {
+      final long l = it.itr(info);
+      if(value instanceof RangeSeq) {
+        // shift range: start and end must not overflow
+        final RangeSeq rs = (RangeSeq) value;
+        final long s = rs.start(), e = rs.end();
+        if(calc == Calc.PLUS) {
+          final long ns = s + l, ne = e + l;
+          if(((s ^ ns) & (l ^ ns)) < 0 || ((e ^ ne) & (l ^ ne)) < 0) return null;
+          return RangeSeq.get(ns, rs.size(), rs.asc());
+        }
+        if(calc == Calc.MINUS) {
+          final long l1 = first ? s : l, l2 = first ? l : s, ns = l1 - l2;
+          final long m1 = first ? e : l, m2 = first ? l : e, ne = m1 - m2;
+          if(((l1 ^ l2) & (l1 ^ ns)) < 0 || ((m1 ^ m2) & (m1 ^ ne)) < 0) return null;
+          return RangeSeq.get(ns, rs.size(), rs.asc() == first);
+        }
+        return null;
+      }
+      if(value instanceof IntSeq) {
+        final long[] values = map(((IntSeq) value).values(), l, first);
+        return values != null ? IntSeq.get(values, ITR) : null;
+      }
+    } else if(type == DBL && !(value instanceof RangeSeq)) {
+      final double[] values;
+      if(value instanceof IntSeq) {
+        final long[] longs = ((IntSeq) value).values();
+        final int ll = longs.length;
+        values = new double[ll];
+        for(int i = 0; i < ll; i++) values[i] = longs[i];
+      } else {
+        values = ((DblSeq) value).toJava().clone();
+      }
+      return map(values, it.dbl(info), first) ? DblSeq.get(values) : null;
+    }
+    return null;
+  }
+
+  /**
+   * Performs the calculation on integers.
+   * @param values values
+   * @param l operand
+   * @param first indicates if the values are the first operands
+   * @return resulting values, or {@code null} if an error needs to be raised
+   */
+  private long[] map(final long[] values, final long l, final boolean first) {
+    final int vl = values.length;
+    final long[] result = new long[vl];
+    for(int v = 0; v < vl; v++) {
+      final long l1 = first ? values[v] : l, l2 = first ? l : values[v], r;
+      switch(calc) {
+        case PLUS:
+          r = l1 + l2;
+          if(((l1 ^ r) & (l2 ^ r)) < 0) return null;
+          break;
+        case MINUS:
+          r = l1 - l2;
+          if(((l1 ^ l2) & (l1 ^ r)) < 0) return null;
+          break;
+        case MULT:
+          if(l2 > 0 ? l1 > Long.MAX_VALUE / l2 || l1 < Long.MIN_VALUE / l2
+                    : l2 < -1 ? l1 > Long.MIN_VALUE / l2 || l1 < Long.MAX_VALUE / l2
+                              : l2 == -1 && l1 == Long.MIN_VALUE) return null;
+          r = l1 * l2;
+          break;
+        case IDIV:
+          if(l2 == 0 || l2 == -1 && (l1 == Long.MIN_VALUE || l1 == Integer.MIN_VALUE)) return null;
+          r = l1 / l2;
+          break;
+        case MOD:
+          if(l2 == 0) return null;
+          r = l1 % l2;
+          break;
+        default:
+          return null;
+      }
+      result[v] = r;
+    }
+    return result;
+  }
+
+  /**
+   * Performs the calculation on doubles. The values will be replaced with the results.
+   * @param values values
+   * @param d operand
+   * @param first indicates if the values are the first operands
+   * @return {@code true} if the calculation was successful
+   */
+  private boolean map(final double[] values, final double d, final boolean first) {
+    if(calc == Calc.IDIV) return false;
+    final int vl = values.length;
+    for(int v = 0; v < vl; v++) {
+      final double d1 = first ? values[v] : d, d2 = first ? d : values[v];
+      switch(calc) {
+        case PLUS:
+          values[v] = d1 + d2;
+          break;
+        case MINUS:
+          values[v] = d1 - d2;
+          break;
+        case MULT:
+          values[v] = d1 * d2;
+          break;
+        case DIV:
+          values[v] = d1 / d2;
+          break;
+        default:
+          values[v] = d1 % d2;
+          break;
+      }
+    }
+    return true;
+  }
+
   @Override
   public Arith copy(final CompileContext cc, final IntObjMap<Var> vm) {
     return copyType(new Arith(info, exprs[0].copy(cc, vm), exprs[1].copy(cc, vm), calc));
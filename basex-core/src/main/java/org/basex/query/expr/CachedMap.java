@@ -39,6 +39,12 @@ final class CachedMap extends SimpleMap {
       final int el = exprs.length;
       for(int e = 1; e < el; e++) {
         final Expr ex = exprs[e];
+        // arithmetic expressions: try to evaluate all items in a single pass
+        final Value vector = ex instanceof Arith ? ((Arith) ex).map(result, false, qc) : null;
+        if(vector != null) {
+          result = vector;
+          continue;
+        }
         focus.pos = 0;
         focus.size = result.size();
         final ValueBuilder vb = new ValueBuilder();
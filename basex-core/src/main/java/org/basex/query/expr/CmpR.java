@@ -5,13 +5,11 @@ import static org.basex.util.Token.*;
 
 import org.basex.data.*;
 import org.basex.index.*;
-import org.basex.index.name.*;
 import org.basex.index.query.*;
 import org.basex.index.stats.*;
 import org.basex.query.*;
 import org.basex.query.expr.index.*;
 import org.basex.query.expr.path.*;
-import org.basex.query.expr.path.Test.Kind;
 import org.basex.query.iter.*;
 import org.basex.query.util.*;
 import org.basex.query.value.item.*;
@@ -168,8 +166,9 @@ public final class CmpR extends Single {
     }
 
     // estimate costs
-    ii.costs = data.costs(nr);
-    if(ii.costs == -1) return false;
+    if(data.costs(nr) == -1) return false;
+    ii.costs = estimate(key, nr);
+    if(ii.costs == 0) return true;
 
     // skip if numbers are negative, doubles, or of different string length
     final int mnl = min >= 0 && (long) min == min ? token(min).length : -1;
@@ -193,28 +192,31 @@ public final class CmpR extends Single {
    * @return key
    */
   private Stats key(final IndexInfo ii, final IndexType type) {
-    // statistics are not up-to-date
-    final Data data = ii.ic.data;
-    if(!data.meta.uptodate || !data.nspaces.isEmpty() || !(expr instanceof AxisPath)) return null;
-
-    NameTest test = ii.test;
-    if(test == null) {
-      final Step step;
-      final AxisPath path = (AxisPath) expr;
-      final int st = path.steps.length - 1;
-      if(type == IndexType.TEXT) {
-        step = st == 0 ? ii.step : path.step(st - 1);
-        if(step.test.kind != Kind.NAME) return null;
-      } else {
-        step = path.step(st);
-        if(!step.simple(Axis.ATTR, true)) return null;
+    if(!(expr instanceof AxisPath)) return null;
+    final Stats stats = ii.stats(type);
+    return stats == null || StatsType.isNumeric(stats.type) ? stats : null;
+  }
+
+  /**
+   * Estimates the number of values in the specified range.
+   * @param stats statistics
+   * @param nr numeric range
+   * @return estimated number of values ({@code 0}: no results, exact)
+   */
+  private static int estimate(final Stats stats, final NumericRange nr) {
+    // distinct values are known: count values in range
+    if(stats.values != null) {
+      int c = 0;
+      for(final byte[] value : stats.values) {
+        final double d = Token.toDouble(value);
+        if(d >= nr.min && d <= nr.max) c += stats.values.get(value);
       }
-      test = (NameTest) step.test;
+      return c == 0 ? 0 : Math.max(2, c);
     }
-
-    final Names names = type == IndexType.TEXT ? data.elemNames : data.attrNames;
-    final Stats stats = names.stats(names.id(test.name.local()));
-    return stats == null || StatsType.isNumeric(stats.type) ? stats : null;
+    // assume uniform distribution of values
+    final double range = stats.max - stats.min;
+    final double fraction = range > 0 ? (nr.max - nr.min) / range : 1;
+    return Math.max(2, (int) Math.min(stats.count, Math.ceil(stats.count * fraction)));
   }
 
   @Override
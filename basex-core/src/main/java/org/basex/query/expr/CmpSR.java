@@ -6,6 +6,7 @@ import static org.basex.query.QueryText.*;
 import org.basex.data.*;
 import org.basex.index.*;
 import org.basex.index.query.*;
+import org.basex.index.stats.*;
 import org.basex.query.*;
 import org.basex.query.expr.CmpG.*;
 import org.basex.query.expr.index.*;
@@ -162,6 +163,21 @@ final class CmpSR extends Single {
     ii.costs = data.costs(sr);
     if(ii.costs < 0) return false;
 
+    // distinct values are known: count values in range
+    final Stats stats = ii.stats(type);
+    if(stats != null && stats.values != null) {
+      int c = 0;
+      for(final byte[] value : stats.values) {
+        final int d1 = Token.diff(value, min), d2 = Token.diff(value, max);
+        if((mni ? d1 >= 0 : d1 > 0) && (mxi ? d2 <= 0 : d2 < 0)) c += stats.values.get(value);
+      }
+      if(c == 0) {
+        ii.costs = 0;
+        return true;
+      }
+      ii.costs = Math.max(2, c);
+    }
+
     final TokenBuilder tb = new TokenBuilder();
     tb.add(mni ? '[' : '(').addExt(min).add(',').addExt(max).add(mxi ? ']' : ')');
     ii.create(new StringRangeAccess(info, sr, ii.ic), true, info,
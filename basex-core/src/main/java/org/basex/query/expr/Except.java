@@ -5,6 +5,7 @@ import static org.basex.query.QueryText.*;
 import org.basex.query.*;
 import org.basex.query.iter.*;
 import org.basex.query.util.list.*;
+import org.basex.query.value.*;
 import org.basex.query.value.item.*;
 import org.basex.query.value.node.*;
 import org.basex.query.var.*;
@@ -56,21 +57,11 @@ public final class Except extends Set {
   }
 
   @Override
-  protected ANodeList eval(final Iter[] iter) throws QueryException {
-    final ANodeList list = new ANodeList().check();
-
-    for(Item it; (it = iter[0].next()) != null;) list.add(toNode(it));
-    final boolean db = list.dbnodes();
-
+  protected Value eval(final Iter[] iter) throws QueryException {
+    NodeBitmap nodes = nodes(iter[0]);
     final int el = exprs.length;
-    for(int e = 1; e < el && !list.isEmpty(); e++) {
-      final Iter ir = iter[e];
-      for(Item it; (it = ir.next()) != null;) {
-        final int i = list.indexOf(toNode(it), db);
-        if(i != -1) list.delete(i);
-      }
-    }
-    return list;
+    for(int e = 1; e < el && !nodes.isEmpty(); e++) nodes = nodes.except(nodes(iter[e]));
+    return nodes.value();
   }
 
   @Override
@@ -2,7 +2,7 @@ package org.basex.query.expr;
 
 import org.basex.query.*;
 import org.basex.query.iter.*;
-import org.basex.query.util.list.*;
+import org.basex.query.value.*;
 import org.basex.query.value.item.*;
 import org.basex.query.value.node.*;
 import org.basex.query.var.*;
@@ -32,24 +32,11 @@ public final class InterSect extends Set {
   }
 
   @Override
-  protected ANodeList eval(final Iter[] iter) throws QueryException {
-    ANodeList list = new ANodeList();
-
-    for(Item it; (it = iter[0].next()) != null;) list.add(toNode(it));
-    final boolean db = list.dbnodes();
-
+  protected Value eval(final Iter[] iter) throws QueryException {
+    NodeBitmap nodes = nodes(iter[0]);
     final int el = exprs.length;
-    for(int e = 1; e < el && list.size() != 0; ++e) {
-      final ANodeList nt = new ANodeList().check();
-      final Iter ir = iter[e];
-      for(Item it; (it = ir.next()) != null;) {
-        final ANode n = toNode(it);
-        final int i = list.indexOf(n, db);
-        if(i != -1) nt.add(n);
-      }
-      list = nt;
-    }
-    return list;
+    for(int e = 1; e < el && !nodes.isEmpty(); ++e) nodes = nodes.intersect(nodes(iter[e]));
+    return nodes.value();
   }
 
   @Override
@@ -25,7 +25,18 @@ final class IterMap extends SimpleMap {
   }
 
   @Override
-  public Iter iter(final QueryContext qc) {
+  public Iter iter(final QueryContext qc) throws QueryException {
+    final Value vector = vector(qc, false);
+    if(vector != null) {
+      final int el = exprs.length;
+      if(el == 2) return vector.iter();
+      // evaluate remaining expressions
+      final Expr[] ex = new Expr[el - 1];
+      ex[0] = vector;
+      System.arraycopy(exprs, 2, ex, 1, el - 2);
+      return new IterMap(info, ex).iter(qc);
+    }
+
     return new Iter() {
       final int sz = exprs.length;
       final Iter[] iter = new Iter[sz];
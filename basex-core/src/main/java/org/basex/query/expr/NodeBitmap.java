@@ -0,0 +1,125 @@
+package org.basex.query.expr;
+
+import org.basex.data.*;
+import org.basex.query.util.list.*;
+import org.basex.query.value.*;
+import org.basex.query.value.node.*;
+import org.basex.query.value.seq.*;
+import org.basex.util.*;
+import org.basex.util.list.*;
+
+/**
+ * Node set of a set expression. As long as all nodes are database nodes from the same
+ * database, their pre values are stored in a compressed bitmap. Otherwise, a node list is used.
+ *
+ * @author BaseX Team 2005-16, BSD License
+ * @author Christian Gruen
+ */
+final class NodeBitmap {
+  /** Data reference (assigned with the first database node). */
+  private Data data;
+  /** Pre values ({@code null} if nodes are stored in a list). */
+  private Bitmap pres = new Bitmap();
+  /** Node list ({@code null} if nodes are stored in a bitmap). */
+  private ANodeList list;
+
+  /**
+   * Adds a node.
+   * @param node node
+   */
+  void add(final ANode node) {
+    if(pres != null) {
+      if(node instanceof DBNode && ((DBNode) node).plain() &&
+          (data == null || data == node.data())) {
+        data = node.data();
+        pres.add(((DBNode) node).pre());
+        return;
+      }
+      list();
+    }
+    list.add(node);
+  }
+
+  /**
+   * Returns the intersection of this and the specified set.
+   * @param nb node set
+   * @return resulting set
+   */
+  NodeBitmap intersect(final NodeBitmap nb) {
+    final NodeBitmap result = new NodeBitmap();
+    if(bitmaps(nb)) {
+      result.data = data;
+      result.pres = pres.and(nb.pres);
+    } else {
+      final ANodeList l1 = list(), l2 = nb.list();
+      final boolean db = l1.dbnodes();
+      for(final ANode node : l2) {
+        if(l1.indexOf(node, db) != -1) result.add(node);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns all nodes of this set that are not contained in the specified set.
+   * @param nb node set
+   * @return resulting set
+   */
+  NodeBitmap except(final NodeBitmap nb) {
+    final NodeBitmap result = new NodeBitmap();
+    if(bitmaps(nb)) {
+      result.data = data;
+      result.pres = pres.andNot(nb.pres);
+    } else {
+      final ANodeList l1 = list(), l2 = nb.list();
+      final boolean db = l2.dbnodes();
+      for(final ANode node : l1) {
+        if(l2.indexOf(node, db) == -1) result.add(node);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Checks if this set is empty.
+   * @return result of check
+   */
+  boolean isEmpty() {
+    return pres != null ? data == null || pres.cardinality() == 0 : list.isEmpty();
+  }
+
+  /**
+   * Returns the nodes as value.
+   * @return value
+   */
+  Value value() {
+    if(pres == null) return list.value();
+    return data == null ? Empty.SEQ : DBNodeSeq.get(new IntList(pres.toArray()), data, false,
+        false);
+  }
+
+  /**
+   * Checks if this and the specified set are stored as bitmaps of the same database.
+   * @param nb node set
+   * @return result of check
+   */
+  private boolean bitmaps(final NodeBitmap nb) {
+    return pres != null && nb.pres != null &&
+        (data == null || nb.data == null || data == nb.data);
+  }
+
+  /**
+   * Returns the nodes as node list.
+   * @return node list
+   */
+  private ANodeList list() {
+    if(list == null) {
+      list = new ANodeList().check();
+      if(data != null) {
+        for(final int pre : pres.toArray()) list.add(new DBNode(data, pre));
+      }
+      pres = null;
+    }
+    return list;
+  }
+}
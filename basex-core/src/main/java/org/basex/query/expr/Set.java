@@ -6,7 +6,8 @@ import java.util.*;
 
 import org.basex.query.*;
 import org.basex.query.iter.*;
-import org.basex.query.util.list.*;
+import org.basex.query.value.*;
+import org.basex.query.value.item.*;
 import org.basex.query.value.node.*;
 import org.basex.query.value.type.*;
 import org.basex.util.*;
@@ -45,20 +46,49 @@ abstract class Set extends Arr {
   }
 
   @Override
-  public final NodeIter iter(final QueryContext qc) throws QueryException {
+  public final Iter iter(final QueryContext qc) throws QueryException {
+    final Iter[] iter = iters(qc);
+    return iterable ? iter(iter) : eval(iter).iter();
+  }
+
+  @Override
+  public final Value value(final QueryContext qc) throws QueryException {
+    // all results are requested: combine node sets (bitmaps for nodes of a single database)
+    return eval(iters(qc));
+  }
+
+  /**
+   * Returns iterators for all operands.
+   * @param qc query context
+   * @return iterators
+   * @throws QueryException query exception
+   */
+  private Iter[] iters(final QueryContext qc) throws QueryException {
     final int el = exprs.length;
     final Iter[] iter = new Iter[el];
     for(int e = 0; e < el; e++) iter[e] = qc.iter(exprs[e]);
-    return iterable ? iter(iter) : eval(iter).iter();
+    return iter;
+  }
+
+  /**
+   * Adds the nodes of the specified iterator to a node set.
+   * @param iter iterator
+   * @return node set
+   * @throws QueryException query exception
+   */
+  final NodeBitmap nodes(final Iter iter) throws QueryException {
+    final NodeBitmap nodes = new NodeBitmap();
+    for(Item it; (it = iter.next()) != null;) nodes.add(toNode(it));
+    return nodes;
   }
 
   /**
    * Evaluates the specified iterators.
    * @param iter iterators
-   * @return resulting node list
+   * @return resulting nodes
    * @throws QueryException query exception
    */
-  protected abstract ANodeList eval(final Iter[] iter) throws QueryException;
+  protected abstract Value eval(final Iter[] iter) throws QueryException;
 
   /**
    * Evaluates the specified iterators in an iterative manner.
@@ -72,9 +72,34 @@ public abstract class SimpleMap extends Arr {
     // rewrite path with empty steps
     for(final Expr expr : exprs) if(expr.isEmpty()) return optPre(cc);
 
+    // pre-evaluate arithmetic expressions on native sequences and ranges
+    final Value vector = vector(cc.qc, true);
+    if(vector != null) {
+      final int el = exprs.length;
+      if(el == 2) return optPre(vector, cc);
+      final Expr[] ex = new Expr[el - 1];
+      ex[0] = vector;
+      System.arraycopy(exprs, 2, ex, 1, el - 2);
+      return get(info, ex).optimize(cc);
+    }
     return allAreValues() ? optPre(value(cc.qc), cc) : this;
   }
 
+  /**
+   * Evaluates the first two expressions in a single pass if the first expression is a value
+   * or a variable reference, and if the second expression is an arithmetic expression.
+   * @param qc query context
+   * @param compile compilation flag (variable references will be ignored)
+   * @return resulting value, or {@code null} if the items must be processed one by one
+   * @throws QueryException query exception
+   */
+  final Value vector(final QueryContext qc, final boolean compile) throws QueryException {
+    final Expr expr = exprs[0];
+    if(!(exprs[1] instanceof Arith) || !(expr instanceof Value || !compile && expr instanceof VarRef))
+      return null;
+    return ((Arith) exprs[1]).map(qc.value(expr), compile, qc);
+  }
+
   @Override
   public final boolean has(final Flag flag) {
     return flag == Flag.CTX ? exprs[0].has(flag) : super.has(flag);
@@ -5,6 +5,7 @@ import static org.basex.query.QueryText.*;
 import org.basex.query.*;
 import org.basex.query.iter.*;
 import org.basex.query.util.list.*;
+import org.basex.query.value.*;
 import org.basex.query.value.item.*;
 import org.basex.query.value.node.*;
 import org.basex.query.value.seq.*;
@@ -58,12 +59,12 @@ public final class Union extends Set {
   }
 
   @Override
-  public ANodeList eval(final Iter[] iter) throws QueryException {
-    final ANodeList list = new ANodeList().check();
+  public Value eval(final Iter[] iter) throws QueryException {
+    final NodeBitmap nodes = new NodeBitmap();
     for(final Iter ir : iter) {
-      for(Item it; (it = ir.next()) != null;) list.add(toNode(it));
+      for(Item it; (it = ir.next()) != null;) nodes.add(toNode(it));
     }
-    return list;
+    return nodes.value();
   }
 
   @Override
@@ -52,6 +52,23 @@ public final class GFLWOR extends ParseExpr {
     return e;
   }
 
+  /**
+   * Limits the number of tuples to be sorted by a trailing order by clause.
+   * Called by functions that only request the first results of this expression.
+   * @param max maximum number of requested results
+   * @param cc compilation context
+   */
+  public void limit(final long max, final CompileContext cc) {
+    // the first results are guaranteed to stem from the first tuples if every tuple
+    // yields at least one item
+    if(max < 1 || max > Integer.MAX_VALUE || clauses.isEmpty() || ret.seqType().mayBeZero())
+      return;
+    final Clause last = clauses.getLast();
+    if(last instanceof OrderBy && ((OrderBy) last).limit(max)) {
+      cc.info(QueryText.OPTTOPK_X_X, max, this);
+    }
+  }
+
   @Override
   public Item item(final QueryContext qc, final InputInfo ii) throws QueryException {
     Item out = null;
@@ -154,6 +171,8 @@ public final class GFLWOR extends ParseExpr {
       changed |= optimizeWhere(cc);
       // rewrite positional variables to predicates
       changed |= optimizePos(cc);
+      // aggregate values of non-grouping variables
+      changed |= aggregate(cc);
 
       // remove FLWOR expressions when all clauses were removed
       if(clauses.isEmpty()) {
@@ -461,6 +480,31 @@ public final class GFLWOR extends ParseExpr {
     return changed;
   }
 
+  /**
+   * Rewrites non-grouping variables of group by clauses that are only passed on to
+   * aggregation functions.
+   * @param cc compilation context
+   * @return {@code true} if a clause was rewritten, {@code false} otherwise
+   */
+  private boolean aggregate(final CompileContext cc) {
+    boolean changed = false;
+    final ListIterator<Clause> iter = clauses.listIterator();
+    while(iter.hasNext()) {
+      final Clause clause = iter.next();
+      if(!(clause instanceof GroupBy)) continue;
+
+      final ArrayList<Expr> exprs = new ArrayList<Expr>(
+          clauses.subList(iter.nextIndex(), clauses.size()));
+      exprs.add(ret);
+      final GroupBy gb = ((GroupBy) clause).aggregate(exprs, cc);
+      if(gb != null) {
+        iter.set(gb);
+        changed = true;
+      }
+    }
+    return changed;
+  }
+
   /**
    * Optimization pass which tries to slide let expressions out of loops. Care is taken
    * that no unnecessary relocations are done.
@@ -1,15 +1,23 @@
 package org.basex.query.expr.gflwor;
 
+import static org.basex.query.QueryError.*;
 import static org.basex.query.QueryText.*;
 
+import java.io.*;
 import java.util.*;
 
+import org.basex.core.*;
+import org.basex.io.*;
+import org.basex.io.in.DataInput;
+import org.basex.io.out.DataOutput;
 import org.basex.query.*;
 import org.basex.query.expr.*;
 import org.basex.query.expr.gflwor.GFLWOR.Clause;
 import org.basex.query.expr.gflwor.GFLWOR.Eval;
+import org.basex.query.func.*;
 import org.basex.query.util.*;
 import org.basex.query.util.collation.*;
+import org.basex.query.util.list.*;
 import org.basex.query.value.*;
 import org.basex.query.value.item.*;
 import org.basex.query.value.node.*;
@@ -27,12 +35,19 @@ import org.basex.util.hash.*;
  * @author Leo Woerteler
  */
 public final class GroupBy extends Clause {
+  /** Number of bits used for choosing a partition. */
+  private static final int PARTBITS = 4;
+  /** Maximum partition depth. */
+  private static final int MAXDEPTH = 4;
+
   /** Grouping specs. */
   private final Spec[] specs;
   /** Non-grouping variable expressions. */
   private Expr[] preExpr;
   /** Non-grouping variables. */
   private Var[] post;
+  /** Aggregation functions of non-grouping variables ({@code null} entries: no aggregation). */
+  private StandardFunc[] aggr;
   /** Number of non-occluded grouping variables. */
   private final int nonOcc;
 
@@ -49,6 +64,7 @@ public final class GroupBy extends Clause {
     this.post = post;
     preExpr = new Expr[pre.length];
     System.arraycopy(pre, 0, preExpr, 0, pre.length);
+    aggr = new StandardFunc[pre.length];
     int n = 0;
     for(final Spec spec : specs) if(!spec.occluded) n++;
     nonOcc = n;
@@ -69,6 +85,7 @@ public final class GroupBy extends Clause {
     preExpr = pre;
     this.post = post;
     this.nonOcc = nonOcc;
+    aggr = new StandardFunc[pre.length];
   }
 
   /**
@@ -88,6 +105,8 @@ public final class GroupBy extends Clause {
   @Override
   Eval eval(final Eval sub) {
     return new Eval() {
+      /** Groups that have not been returned yet. */
+      private Groups pending;
       /** Groups to iterate over. */
       private Group[] groups;
       /** Current position. */
@@ -95,8 +114,13 @@ public final class GroupBy extends Clause {
 
       @Override
       public boolean next(final QueryContext qc) throws QueryException {
-        if(groups == null) groups = init(qc);
-        if(pos == groups.length) return false;
+        if(pending == null) pending = init(qc);
+        while(groups == null || pos == groups.length) {
+          // process next partition
+          groups = pending.next();
+          if(groups == null) return false;
+          pos = 0;
+        }
 
         final Group curr = groups[pos];
         // be nice to the garbage collector
@@ -110,79 +134,103 @@ public final class GroupBy extends Clause {
           }
         }
         final int pl = post.length;
-        for(int i = 0; i < pl; i++) qc.set(post[i], curr.ngv[i].value());
+        for(int i = 0; i < pl; i++) {
+          qc.set(post[i], curr.ngv[i] != null ? curr.ngv[i].value() : curr.aggr[i]);
+        }
         return true;
       }
 
       /**
        * Builds up the groups.
        * @param qc query context
+       * @return groups
        * @throws QueryException query exception
        */
-      private Group[] init(final QueryContext qc) throws QueryException {
-        final ArrayList<Group> grps = new ArrayList<>();
-        final IntObjMap<Group> map = new IntObjMap<>();
-        final Collation[] colls = new Collation[nonOcc];
-        int c = 0;
-        for(final Spec spec : specs) {
-          if(!spec.occluded) colls[c++] = spec.coll;
-        }
-
+      private Groups init(final QueryContext qc) throws QueryException {
+        final Groups grps = new Groups(qc, null, 0);
         while(sub.next(qc)) {
           final Item[] key = new Item[nonOcc];
-          int p = 0, hash = 1;
+          int p = 0;
           for(final Spec spec : specs) {
             final Item atom = spec.atomItem(qc, info);
-            if(!spec.occluded) {
-              key[p++] = atom;
-              // If the values are compared using a special collation, we let them collide
-              // here and let the comparison do all the work later.
-              // This enables other non-collation specs to avoid the collision.
-              hash = 31 * hash + (atom == null || spec.coll != null ? 0 : atom.hash(info));
-            }
+            if(!spec.occluded) key[p++] = atom;
             qc.set(spec.var, atom == null ? Empty.SEQ : atom);
           }
 
-          // find the group for this key
-          final Group fst;
-          Group grp = null;
-          // no collations, so we can use hashing
-          for(Group g = fst = map.get(hash); g != null; g = g.next) {
-            if(eq(key, g.key, colls)) {
-              grp = g;
-              break;
-            }
-          }
-
           final int pl = preExpr.length;
-          if(grp == null) {
-            // new group, add it to the list
-            final ValueBuilder[] ngs = new ValueBuilder[pl];
-            final int nl = ngs.length;
-            for(int n = 0; n < nl; n++) ngs[n] = new ValueBuilder();
-            grp = new Group(key, ngs);
-            grps.add(grp);
-
-            // insert the group into the hash table
-            if(fst == null) {
-              map.put(hash, grp);
-            } else {
-              final Group nxt = fst.next;
-              fst.next = grp;
-              grp.next = nxt;
-            }
-          }
-
-          // add values of non-grouping variables to the group
-          for(int g = 0; g < pl; g++) grp.ngv[g].add(preExpr[g].value(qc));
+          final Value[] vals = new Value[pl];
+          for(int g = 0; g < pl; g++) vals[g] = preExpr[g].value(qc);
+          grps.add(key, vals);
         }
-
-        // we're finished, copy the array so the list can be garbage-collected
-        return grps.toArray(new Group[grps.size()]);
+        return grps;
       }
     };
   }
 
+  /**
+   * Rewrites non-grouping variables that are only referenced as arguments of aggregation
+   * functions ({@code count}, {@code sum}, {@code min}, {@code max}). The values of the
+   * resulting variables will be aggregated while the groups are built.
+   * @param exprs expressions following this clause
+   * @param cc compilation context
+   * @return new clause, or {@code null} if nothing was changed
+   */
+  GroupBy aggregate(final ArrayList<Expr> exprs, final CompileContext cc) {
+    final ExprList pres = new ExprList();
+    final ArrayList<Var> posts = new ArrayList<>();
+    final ArrayList<StandardFunc> aggs = new ArrayList<>();
+    boolean changed = false;
+
+    final int pl = post.length;
+    for(int p = 0; p < pl; p++) {
+      pres.add(preExpr[p]);
+      posts.add(post[p]);
+      aggs.add(aggr[p]);
+      if(aggr[p] != null) continue;
+
+      // collect all references and function calls
+      final Var var = post[p];
+      final ArrayList<StandardFunc> funcs = new ArrayList<>();
+      final int[] refs = { 0 };
+      final ASTVisitor visitor = new ASTVisitor() {
+        @Override
+        public boolean used(final VarRef ref) {
+          if(ref.var.is(var)) refs[0]++;
+          return true;
+        }
+        @Override
+        public boolean standardFunc(final StandardFunc func) {
+          // count($v), sum($v), sum($v, $zero), min($v), max($v)
+          final Expr[] args = func.exprs;
+          if(args.length > 0 && args[0] instanceof VarRef && ((VarRef) args[0]).var.is(var) && (
+            func.sig == Function.COUNT || func.sig == Function.SUM ||
+            (func.sig == Function.MIN || func.sig == Function.MAX) && args.length == 1
+          )) funcs.add(func);
+          return true;
+        }
+      };
+      for(final Expr expr : exprs) expr.accept(visitor);
+      if(funcs.isEmpty() || funcs.size() != refs[0]) continue;
+
+      // bind each function argument to a new aggregated variable
+      for(final StandardFunc func : funcs) {
+        final Var vr = cc.vs().addNew(var.name, null, false, cc.qc, info);
+        func.exprs[0] = new VarRef(func.info, vr);
+        pres.add(preExpr[p].copy(cc, new IntObjMap<Var>()));
+        posts.add(vr);
+        aggs.add(func);
+      }
+      cc.info(OPTAGGR_X, var);
+      changed = true;
+    }
+    if(!changed) return null;
+
+    final GroupBy gb = new GroupBy(specs, pres.finish(), posts.toArray(new Var[posts.size()]),
+        nonOcc, info);
+    gb.aggr = aggs.toArray(new StandardFunc[aggs.size()]);
+    return gb;
+  }
+
   /**
    * Checks two keys for equality.
    * @param its1 first keys
@@ -219,6 +267,7 @@ public final class GroupBy extends Clause {
   public GroupBy optimize(final CompileContext cc) throws QueryException {
     final int pl = preExpr.length;
     for(int p = 0; p < pl; p++) {
+      if(aggr[p] != null) continue;
       final SeqType it = preExpr[p].seqType();
       post[p].refineType(it.withOcc(it.mayBeZero() ? Occ.ZERO_MORE : Occ.ONE_MORE), cc);
     }
@@ -254,7 +303,9 @@ public final class GroupBy extends Clause {
     for(int p = 0; p < pl; p++) ps[p] = cc.copy(post[p], vm);
 
     // done
-    return new GroupBy(Arr.copyAll(cc, vm, specs), pEx, ps, nonOcc, info);
+    final GroupBy gb = new GroupBy(Arr.copyAll(cc, vm, specs), pEx, ps, nonOcc, info);
+    gb.aggr = aggr.clone();
+    return gb;
   }
 
   @Override
@@ -272,6 +323,7 @@ public final class GroupBy extends Clause {
     for(int p = 0; p < post.length; p++) {
       if(!used.get(post[p].id)) {
         preExpr = Array.delete(preExpr, p);
+        aggr = Array.delete(aggr, p);
         post = Array.delete(post, p--);
       }
     }
@@ -314,7 +366,9 @@ public final class GroupBy extends Clause {
     final StringBuilder sb = new StringBuilder();
     final int pl = post.length;
     for(int p = 0; p < pl; p++) {
-      sb.append(LET).append(" (: post-group :) ").append(post[p]);
+      sb.append(LET).append(" (: post-group");
+      if(aggr[p] != null) sb.append(", ").append(Token.string(aggr[p].sig.local()));
+      sb.append(" :) ").append(post[p]);
       sb.append(' ').append(ASSIGN).append(' ').append(preExpr[p]).append(' ');
     }
     sb.append(GROUP).append(' ').append(BY);
@@ -390,6 +444,240 @@ public final class GroupBy extends Clause {
     }
   }
 
+  /**
+   * Hash table for building groups.
+   * If a limit is specified and the number of groups exceeds this limit, the tuples of all
+   * new groups are distributed to temporary partition files, which will be grouped later on.
+   */
+  private final class Groups {
+    /** Query context. */
+    private final QueryContext qc;
+    /** Partition depth. */
+    private final int depth;
+    /** Maximum number of groups ({@code 0}: no limit). */
+    private final int limit;
+    /** Collations. */
+    private final Collation[] colls;
+    /** Collation keys ({@code null} entries: no collation). */
+    private final CollationKeys[] keys;
+    /** Aggregation functions ({@code null} entries: no aggregation). */
+    private final StandardFunc[] funcs;
+    /** Groups. */
+    private final ArrayList<Group> list = new ArrayList<>();
+    /** Hash map with the groups. */
+    private final IntObjMap<Group> map = new IntObjMap<>();
+
+    /** Spilled tuples (assigned when the first tuple is written). */
+    private TupleSpill spill;
+    /** Partition files. */
+    private IOFile[] files;
+    /** Output streams of the partitions. */
+    private DataOutput[] outs;
+    /** Number of tuples in the partitions. */
+    private int[] sizes;
+    /** Next partition to be grouped ({@code -1}: return in-memory groups). */
+    private int part = -1;
+    /** Groups of the current partition. */
+    private Groups child;
+
+    /**
+     * Constructor.
+     * @param qc query context
+     * @param spill spilled tuples (can be {@code null})
+     * @param depth partition depth
+     */
+    Groups(final QueryContext qc, final TupleSpill spill, final int depth) {
+      this.qc = qc;
+      this.spill = spill;
+      this.depth = depth;
+      limit = depth < MAXDEPTH ? qc.context.options.get(MainOptions.GROUPLIMIT) : 0;
+
+      colls = new Collation[nonOcc];
+      keys = new CollationKeys[nonOcc];
+      int c = 0;
+      for(final Spec spec : specs) {
+        if(spec.occluded) continue;
+        if(spec.coll != null) keys[c] = new CollationKeys(spec.coll);
+        colls[c++] = spec.coll;
+      }
+      // create function instances for aggregating values
+      final int pl = aggr.length;
+      funcs = new StandardFunc[pl];
+      for(int p = 0; p < pl; p++) {
+        final StandardFunc f = aggr[p];
+        if(f == null) continue;
+        // sum: return empty sequence for empty input
+        funcs[p] = f.sig == Function.SUM ? f.sig.get(f.sc, f.info, Empty.SEQ, Empty.SEQ) :
+          f.sig.get(f.sc, f.info, Empty.SEQ);
+      }
+    }
+
+    /**
+     * Adds a tuple.
+     * @param key grouping key
+     * @param vals values of the non-grouping variables
+     * @throws QueryException query exception
+     */
+    void add(final Item[] key, final Value[] vals) throws QueryException {
+      // If strings are compared using a special collation, the hash value is computed from
+      // their collation keys. Other values with collations are compared later.
+      int hash = 1;
+      final int kl = key.length;
+      for(int k = 0; k < kl; k++) {
+        final Item atom = key[k];
+        hash = 31 * hash + (atom == null ? 0 : colls[k] == null ? atom.hash(info) :
+          atom.type.isStringOrUntyped() ? Token.hash(keys[k].key(atom.string(info))) : 0);
+      }
+
+      // find the group for this key
+      final Group fst;
+      Group grp = null;
+      for(Group g = fst = map.get(hash); g != null; g = g.next) {
+        if(eq(key, g.key, colls)) {
+          grp = g;
+          break;
+        }
+      }
+
+      final int pl = vals.length;
+      if(grp == null) {
+        // limit is reached: write tuple to partition
+        if(limit > 0 && list.size() >= limit) {
+          spill(key, vals, hash);
+          return;
+        }
+
+        // new group, add it to the list
+        final ValueBuilder[] ngs = new ValueBuilder[pl];
+        final Value[] ags = new Value[pl];
+        for(int n = 0; n < pl; n++) {
+          if(funcs[n] == null) ngs[n] = new ValueBuilder();
+          else ags[n] = Empty.SEQ;
+        }
+        grp = new Group(key, ngs, ags);
+        list.add(grp);
+
+        // insert the group into the hash table
+        if(fst == null) {
+          map.put(hash, grp);
+        } else {
+          final Group nxt = fst.next;
+          fst.next = grp;
+          grp.next = nxt;
+        }
+      }
+
+      // add values of non-grouping variables to the group
+      for(int g = 0; g < pl; g++) {
+        final Value val = vals[g];
+        final StandardFunc func = funcs[g];
+        if(func == null) {
+          grp.ngv[g].add(val);
+        } else if(func.sig == Function.COUNT) {
+          // count: represent number of items as range sequence
+          grp.aggr[g] = RangeSeq.get(1, grp.aggr[g].size() + val.size(), true);
+        } else if(!val.isEmpty()) {
+          // sum, min, max: aggregate previous result and new values
+          final Value all = ValueBuilder.concat(grp.aggr[g], val);
+          if(grp.raw != null && grp.raw[g]) {
+            grp.aggr[g] = all;
+          } else {
+            func.exprs[0] = all;
+            try {
+              final Item it = func.item(qc, info);
+              grp.aggr[g] = it == null ? Empty.SEQ : it;
+            } catch(final QueryException ex) {
+              // keep values: the error will be raised if the aggregation function is evaluated
+              Util.debug(ex);
+              if(grp.raw == null) grp.raw = new boolean[pl];
+              grp.raw[g] = true;
+              grp.aggr[g] = all;
+            }
+          }
+        }
+      }
+    }
+
+    /**
+     * Returns the next groups.
+     * @return groups, or {@code null} if all groups have been returned
+     * @throws QueryException query exception
+     */
+    Group[] next() throws QueryException {
+      if(part == -1) {
+        part++;
+        final Group[] groups = list.toArray(new Group[list.size()]);
+        list.clear();
+        map.clear();
+        if(outs != null) {
+          try {
+            for(final IOFile file : files) if(file != null) SpillFiles.get(qc).close(file);
+          } catch(final IOException ex) {
+            throw IOERR_X.get(info, ex);
+          }
+          outs = null;
+        }
+        return groups;
+      }
+
+      while(true) {
+        // return groups of the current partition
+        if(child != null) {
+          final Group[] groups = child.next();
+          if(groups != null) return groups;
+          child = null;
+        }
+        if(files == null || part == files.length) return null;
+
+        // group tuples of the next partition
+        final IOFile file = files[part];
+        final int size = sizes[part++];
+        if(file == null) continue;
+        child = new Groups(qc, spill, depth + 1);
+        final SpillFiles sf = SpillFiles.get(qc);
+        try {
+          final DataInput in = sf.input(file);
+          for(int s = 0; s < size; s++) child.add(spill.readKey(nonOcc, in), spill.readValues(in));
+        } catch(final IOException ex) {
+          throw IOERR_X.get(info, ex);
+        } finally {
+          sf.delete(file);
+        }
+      }
+    }
+
+    /**
+     * Writes a tuple to a partition file.
+     * @param key grouping key
+     * @param vals values of the non-grouping variables
+     * @param hash hash value of the key
+     * @throws QueryException query exception
+     */
+    private void spill(final Item[] key, final Value[] vals, final int hash)
+        throws QueryException {
+
+      // choose different partitions on each level
+      final int p = (hash + depth) * 0x9E3779B9 >>> 32 - PARTBITS;
+      try {
+        if(files == null) {
+          if(spill == null) spill = new TupleSpill(info);
+          files = new IOFile[1 << PARTBITS];
+          outs = new DataOutput[1 << PARTBITS];
+          sizes = new int[1 << PARTBITS];
+        }
+        if(outs[p] == null) {
+          final SpillFiles sf = SpillFiles.get(qc);
+          files[p] = sf.create();
+          outs[p] = sf.output(files[p]);
+        }
+        spill.write(key, vals, outs[p]);
+        sizes[p]++;
+      } catch(final IOException ex) {
+        throw IOERR_X.get(info, ex);
+      }
+    }
+  }
+
   /**
    * A group of tuples of post-grouping variables.
    *
@@ -399,8 +687,12 @@ public final class GroupBy extends Clause {
   private static final class Group {
     /** Grouping key, may contain {@code null} values. */
     final Item[] key;
-    /** Non-grouping variables. */
+    /** Non-grouping variables ({@code null} entries: aggregated variables). */
     final ValueBuilder[] ngv;
+    /** Aggregated non-grouping variables. */
+    final Value[] aggr;
+    /** Aggregated variables whose values could not be aggregated (assigned on demand). */
+    boolean[] raw;
     /** Overflow list. */
     Group next;
 
@@ -408,10 +700,12 @@ public final class GroupBy extends Clause {
      * Constructor.
      * @param k grouping key
      * @param ng non-grouping variables
+     * @param ag aggregated non-grouping variables
      */
-    Group(final Item[] k, final ValueBuilder[] ng) {
+    Group(final Item[] k, final ValueBuilder[] ng, final Value[] ag) {
       key = k;
       ngv = ng;
+      aggr = ag;
     }
   }
 }
@@ -3,9 +3,7 @@ package org.basex.query.expr.gflwor;
 import static org.basex.query.QueryError.*;
 import static org.basex.query.QueryText.*;
 
-import java.util.*;
-import java.util.List;
-
+import org.basex.core.*;
 import org.basex.query.*;
 import org.basex.query.expr.*;
 import org.basex.query.expr.gflwor.GFLWOR.Clause;
@@ -30,6 +28,8 @@ public final class OrderBy extends Clause {
   private VarRef[] refs;
   /** Sort keys. */
   private final Key[] keys;
+  /** Maximum number of tuples to be returned. */
+  private long max = Long.MAX_VALUE;
 
   /**
    * Constructor.
@@ -46,92 +46,102 @@ public final class OrderBy extends Clause {
   @Override
   Eval eval(final Eval sub) {
     return new Eval() {
-      /** Sorted output tuples. */
-      private Value[][] tpls;
-      /** Permutation of the values. */
-      private Integer[] perm;
-      /** Current position. */
-      int pos;
+      /** Sorted tuples. */
+      private TupleSorter sorter;
       @Override
       public boolean next(final QueryContext qc) throws QueryException {
-        if(tpls == null) sort(qc);
-        if(pos == tpls.length) return false;
-        final int p = perm[pos++];
-        final Value[] tuple = tpls[p];
-        // free the space occupied by the tuple
-        tpls[p] = null;
+        if(sorter == null) sort(qc);
+        final Value[] tuple = sorter.next();
+        if(tuple == null) return false;
         final int rl = refs.length;
         for(int r = 0; r < rl; r++) qc.set(refs[r].var, tuple[r]);
         return true;
       }
 
       /**
-       * Caches and sorts all incoming tuples.
+       * Caches all incoming tuples.
        * @param qc query context
        * @throws QueryException evaluation exception
        */
       private void sort(final QueryContext qc) throws QueryException {
-        // keys are stored at odd positions, values at even ones
-        List<Value[]> tuples = new ArrayList<>();
+        sorter = new TupleSorter(OrderBy.this, qc.context.options.get(MainOptions.SORTLIMIT),
+            max, qc, info);
+        final int kl = keys.length;
+        final CollationKeys[] cks = new CollationKeys[kl];
+        final Item[] firsts = new Item[kl];
+        for(int k = 0; k < kl; k++) {
+          if(keys[k].coll != null) cks[k] = new CollationKeys(keys[k].coll);
+        }
         while(sub.next(qc)) {
-          final int kl = keys.length;
           final Item[] key = new Item[kl];
-          for(int k = 0; k < kl; k++) key[k] = keys[k].expr.atomItem(qc, keys[k].info);
-          tuples.add(key);
+          for(int k = 0; k < kl; k++) {
+            final Key ky = keys[k];
+            Item it = ky.expr.atomItem(qc, ky.info);
+            if(cks[k] != null && it != null && it != Dbl.NAN && it != Flt.NAN) {
+              // replace strings by their collation keys, which are compared bytewise
+              if(firsts[k] == null) firsts[k] = it;
+              else if(!firsts[k].comparable(it)) throw castError(it, firsts[k].type, ky.info);
+              if(it.type.isStringOrUntyped()) it = Str.get(cks[k].key(it.string(ky.info)));
+            }
+            key[k] = it;
+          }
 
           final int rl = refs.length;
           final Value[] vals = new Value[rl];
           for(int r = 0; r < rl; r++) vals[r] = refs[r].value(qc);
-          tuples.add(vals);
-        }
-
-        final int len = tuples.size() >>> 1;
-        final Item[][] ks = new Item[len][];
-        perm = new Integer[len];
-        tpls = new Value[len][];
-        for(int i = 0; i < len; i++) {
-          perm[i] = i;
-          tpls[i] = tuples.get(i << 1 | 1);
-          ks[i] = (Item[]) tuples.get(i << 1);
-        }
-        // be nice to the garbage collector
-        tuples = null;
-        try {
-          Arrays.sort(perm, new Comparator<Integer>() {
-            @Override
-            public int compare(final Integer x, final Integer y) {
-              try {
-                final Item[] a = ks[x], b = ks[y];
-                final int kl = keys.length;
-                for(int k = 0; k < kl; k++) {
-                  final Key key = keys[k];
-                  Item m = a[k], n = b[k];
-                  if(m == Dbl.NAN || m == Flt.NAN) m = null;
-                  if(n == Dbl.NAN || n == Flt.NAN) n = null;
-                  if(m != null && n != null && !m.comparable(n))
-                    throw castError(n, m.type, key.info);
-
-                  final int c = m == null
-                      ? n == null ? 0                 : key.least ? -1 : 1
-                      : n == null ? key.least ? 1 : -1 : m.diff(n, key.coll, key.info);
-                  if(c != 0) return key.desc ? -c : c;
-                }
-                return 0;
-              } catch(final QueryException ex) {
-                throw new QueryRTException(ex);
-              }
-            }
-          });
-        } catch(final QueryRTException ex) {
-          throw ex.getCause();
+          sorter.add(key, vals);
         }
       }
     };
   }
 
+  /**
+   * Limits the number of returned tuples.
+   * @param mx maximum number of tuples
+   * @return {@code true} if the limit was reduced
+   */
+  boolean limit(final long mx) {
+    if(mx >= max) return false;
+    max = mx;
+    return true;
+  }
+
+  /**
+   * Returns the number of sort keys.
+   * @return number of keys
+   */
+  int keys() {
+    return keys.length;
+  }
+
+  /**
+   * Compares two tuples of sort keys.
+   * Strings that are compared with collations have been replaced by their collation keys.
+   * @param a first tuple
+   * @param b second tuple
+   * @return result of comparison
+   * @throws QueryException query exception
+   */
+  int compare(final Item[] a, final Item[] b) throws QueryException {
+    final int kl = keys.length;
+    for(int k = 0; k < kl; k++) {
+      final Key key = keys[k];
+      Item m = a[k], n = b[k];
+      if(m == Dbl.NAN || m == Flt.NAN) m = null;
+      if(n == Dbl.NAN || n == Flt.NAN) n = null;
+      if(m != null && n != null && !m.comparable(n)) throw castError(n, m.type, key.info);
+
+      final int c = m == null
+          ? n == null ? 0                 : key.least ? -1 : 1
+          : n == null ? key.least ? 1 : -1 : m.diff(n, null, key.info);
+      if(c != 0) return key.desc ? -c : c;
+    }
+    return 0;
+  }
+
   @Override
   public void plan(final FElem plan) {
-    final FElem e = planElem();
+    final FElem e = max == Long.MAX_VALUE ? planElem() : planElem(MAX, max);
     for(final Key key : keys) key.plan(e);
     plan.add(e);
   }
@@ -183,7 +193,9 @@ public final class OrderBy extends Clause {
 
   @Override
   public OrderBy copy(final CompileContext cc, final IntObjMap<Var> vm) {
-    return new OrderBy(Arr.copyAll(cc, vm, refs), Arr.copyAll(cc, vm, keys), info);
+    final OrderBy ob = new OrderBy(Arr.copyAll(cc, vm, refs), Arr.copyAll(cc, vm, keys), info);
+    ob.max = max;
+    return ob;
   }
 
   @Override
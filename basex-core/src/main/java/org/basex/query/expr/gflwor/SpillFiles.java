@@ -0,0 +1,110 @@
+package org.basex.query.expr.gflwor;
+
+import java.io.*;
+import java.util.*;
+import java.util.Map.Entry;
+
+import org.basex.io.*;
+import org.basex.io.in.DataInput;
+import org.basex.io.out.DataOutput;
+import org.basex.query.*;
+import org.basex.util.*;
+
+/**
+ * Temporary files to which the tuples of FLWOR clauses are spilled.
+ * Files are deleted as soon as they have been consumed. Files that are left (because only
+ * parts of a result have been requested, or because evaluation has failed) will be closed
+ * and deleted after the query has been evaluated.
+ *
+ * @author BaseX Team 2005-16, BSD License
+ * @author Christian Gruen
+ */
+public final class SpillFiles implements QueryResource {
+  /** Temporary files and their open streams ({@code null} values: no open stream). */
+  private final HashMap<IOFile, Closeable> files = new HashMap<>();
+
+  /**
+   * Returns the temporary files of the specified query.
+   * @param qc query context
+   * @return temporary files
+   */
+  static SpillFiles get(final QueryContext qc) {
+    return qc.resources.index(SpillFiles.class);
+  }
+
+  /**
+   * Creates a new temporary file.
+   * @return file
+   * @throws IOException I/O exception
+   */
+  synchronized IOFile create() throws IOException {
+    final IOFile file = new IOFile(File.createTempFile(Prop.NAME + '-', IO.TMPSUFFIX));
+    files.put(file, null);
+    return file;
+  }
+
+  /**
+   * Opens an output stream for the specified file.
+   * @param file file
+   * @return output stream
+   * @throws IOException I/O exception
+   */
+  synchronized DataOutput output(final IOFile file) throws IOException {
+    final DataOutput out = new DataOutput(file);
+    files.put(file, out);
+    return out;
+  }
+
+  /**
+   * Opens an input stream for the specified file.
+   * @param file file
+   * @return input stream
+   * @throws IOException I/O exception
+   */
+  synchronized DataInput input(final IOFile file) throws IOException {
+    final DataInput in = new DataInput(file);
+    files.put(file, in);
+    return in;
+  }
+
+  /**
+   * Closes the open stream of the specified file.
+   * @param file file
+   * @throws IOException I/O exception
+   */
+  synchronized void close(final IOFile file) throws IOException {
+    final Closeable stream = files.put(file, null);
+    if(stream != null) stream.close();
+  }
+
+  /**
+   * Closes the open stream of the specified file and deletes the file.
+   * @param file file
+   */
+  synchronized void delete(final IOFile file) {
+    close(files.remove(file));
+    file.delete();
+  }
+
+  @Override
+  public synchronized void close() {
+    for(final Entry<IOFile, Closeable> entry : files.entrySet()) {
+      close(entry.getValue());
+      entry.getKey().delete();
+    }
+    files.clear();
+  }
+
+  /**
+   * Closes a stream.
+   * @param stream stream (can be {@code null})
+   */
+  private static void close(final Closeable stream) {
+    if(stream == null) return;
+    try {
+      stream.close();
+    } catch(final IOException ex) {
+      Util.debug(ex);
+    }
+  }
+}
@@ -0,0 +1,366 @@
+package org.basex.query.expr.gflwor;
+
+import static org.basex.query.QueryError.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.io.*;
+import org.basex.io.in.DataInput;
+import org.basex.io.out.DataOutput;
+import org.basex.query.*;
+import org.basex.query.util.sort.*;
+import org.basex.query.value.*;
+import org.basex.query.value.item.*;
+import org.basex.util.*;
+
+/**
+ * Sorts the tuples of an {@code order by} clause.
+ *
+ * Tuples are cached in main memory and sorted via a permutation of primitive integers.
+ * If a limit is specified and the number of cached tuples exceeds this limit, the cached
+ * tuples are sorted and written to a temporary file. All sorted runs are finally merged.
+ *
+ * If only the first tuples will be requested, a bounded heap is used to keep the best tuples.
+ *
+ * @author BaseX Team 2005-16, BSD License
+ * @author Christian Gruen
+ */
+final class TupleSorter {
+  /** Order by clause. */
+  private final OrderBy order;
+  /** Maximum number of tuples to be cached in main memory ({@code 0}: no limit). */
+  private final int limit;
+  /** Query context. */
+  private final QueryContext qc;
+  /** Input info. */
+  private final InputInfo info;
+  /** Maximum number of tuples to be returned. */
+  private final long max;
+  /** Heap with the best tuples (only assigned in top-k mode). */
+  private final MinHeap<Tuple, Tuple> top;
+  /** Number of tuples that have been added to the heap. */
+  private long added;
+
+  /** Cached sort keys. */
+  private Item[][] keys = new Item[Array.CAPACITY][];
+  /** Cached values. */
+  private Value[][] values = new Value[Array.CAPACITY][];
+  /** Number of cached tuples. */
+  private int size;
+
+  /** Sorted runs that have been written to disk. */
+  private final ArrayList<FileRun> runs = new ArrayList<>();
+  /** Spilled tuples (assigned when the first run is written). */
+  private TupleSpill spill;
+
+  /** Permutation of the cached tuples (only assigned if no runs exist). */
+  private int[] perm;
+  /** Current position in the permutation. */
+  private int pos;
+  /** Heap for merging the sorted runs (only assigned if runs exist). */
+  private MinHeap<Run, Run> heap;
+
+  /**
+   * Constructor.
+   * @param order order by clause
+   * @param limit maximum number of tuples to be cached in main memory ({@code 0}: no limit)
+   * @param max maximum number of tuples to be returned
+   * @param qc query context
+   * @param info input info
+   */
+  TupleSorter(final OrderBy order, final int limit, final long max, final QueryContext qc,
+      final InputInfo info) {
+    this.order = order;
+    this.limit = limit;
+    this.max = max;
+    this.qc = qc;
+    this.info = info;
+
+    top = max == Long.MAX_VALUE || limit > 0 && max >= limit ? null :
+      new MinHeap<Tuple, Tuple>((int) Math.min(max + 1, Array.CAPACITY), new Comparator<Tuple>() {
+        @Override
+        public int compare(final Tuple t1, final Tuple t2) {
+          try {
+            // the worst tuple (largest key, added last) is placed on top of the heap
+            final int c = order.compare(t2.key, t1.key);
+            return c != 0 ? c : t2.id < t1.id ? -1 : 1;
+          } catch(final QueryException ex) {
+            throw new QueryRTException(ex);
+          }
+        }
+      });
+  }
+
+  /**
+   * Adds a tuple.
+   * @param key sort keys
+   * @param value values
+   * @throws QueryException query exception
+   */
+  void add(final Item[] key, final Value[] value) throws QueryException {
+    if(top != null) {
+      final Tuple tuple = new Tuple(key, value, added++);
+      try {
+        top.insert(tuple, tuple);
+        if(top.size() > max) top.removeMin();
+      } catch(final QueryRTException ex) {
+        throw ex.getCause();
+      }
+      return;
+    }
+
+    if(size == keys.length) {
+      final int s = Array.newSize(size);
+      keys = Arrays.copyOf(keys, s);
+      values = Arrays.copyOf(values, s);
+    }
+    keys[size] = key;
+    values[size++] = value;
+    if(limit > 0 && size >= limit) spill();
+  }
+
+  /**
+   * Returns the next tuple in sort order.
+   * @return values of the next tuple, or {@code null} if all tuples have been returned
+   * @throws QueryException query exception
+   */
+  Value[] next() throws QueryException {
+    if(perm == null && heap == null) finish();
+
+    if(heap == null) {
+      if(pos == size) return null;
+      final int p = perm[pos++];
+      final Value[] value = values[p];
+      // free the space occupied by the tuple
+      keys[p] = null;
+      values[p] = null;
+      return value;
+    }
+
+    if(heap.isEmpty()) return null;
+    try {
+      final Run run = heap.removeMin();
+      final Value[] value = run.value;
+      if(run.next()) heap.insert(run, run);
+      return value;
+    } catch(final QueryRTException ex) {
+      throw ex.getCause();
+    }
+  }
+
+  /**
+   * Sorts the cached tuples, or prepares the merge of all sorted runs.
+   * @throws QueryException query exception
+   */
+  private void finish() throws QueryException {
+    if(top != null) {
+      // heap is ordered by descending keys
+      size = top.size();
+      keys = new Item[size][];
+      values = new Value[size][];
+      perm = new int[size];
+      try {
+        for(int s = size - 1; s >= 0; s--) {
+          final Tuple tuple = top.removeMin();
+          keys[s] = tuple.key;
+          values[s] = tuple.value;
+          perm[s] = s;
+        }
+      } catch(final QueryRTException ex) {
+        throw ex.getCause();
+      }
+      return;
+    }
+
+    final int[] sorted = sort();
+    if(runs.isEmpty()) {
+      perm = sorted;
+      return;
+    }
+
+    heap = new MinHeap<>(runs.size() + 1, new Comparator<Run>() {
+      @Override
+      public int compare(final Run r1, final Run r2) {
+        try {
+          final int c = order.compare(r1.key, r2.key);
+          // tuples from earlier runs come first (stable sort)
+          return c != 0 ? c : r1.id - r2.id;
+        } catch(final QueryException ex) {
+          throw new QueryRTException(ex);
+        }
+      }
+    });
+    final ArrayList<Run> all = new ArrayList<Run>(runs);
+    if(size != 0) all.add(new MemRun(runs.size(), sorted));
+    try {
+      for(final Run run : all) {
+        if(run.next()) heap.insert(run, run);
+      }
+    } catch(final QueryRTException ex) {
+      throw ex.getCause();
+    }
+  }
+
+  /**
+   * Returns a sorted permutation of the cached tuples.
+   * @return permutation
+   * @throws QueryException query exception
+   */
+  private int[] sort() throws QueryException {
+    return MergeSort.order(size, new IndexComparator() {
+      @Override
+      public int compare(final int i1, final int i2) throws QueryException {
+        return order.compare(keys[i1], keys[i2]);
+      }
+    });
+  }
+
+  /**
+   * Sorts the cached tuples and writes them to a temporary file.
+   * @throws QueryException query exception
+   */
+  private void spill() throws QueryException {
+    final int[] sorted = sort();
+    if(spill == null) spill = new TupleSpill(info);
+    final SpillFiles files = SpillFiles.get(qc);
+    try {
+      final IOFile file = files.create();
+      final DataOutput out = files.output(file);
+      for(final int p : sorted) spill.write(keys[p], values[p], out);
+      files.close(file);
+      runs.add(new FileRun(runs.size(), file, size));
+    } catch(final IOException ex) {
+      throw IOERR_X.get(info, ex);
+    }
+    keys = new Item[Array.CAPACITY][];
+    values = new Value[Array.CAPACITY][];
+    size = 0;
+  }
+
+  /**
+   * Tuple in the heap of the best tuples.
+   */
+  private static final class Tuple {
+    /** Sort keys. */
+    final Item[] key;
+    /** Values. */
+    final Value[] value;
+    /** Tuple id (reflects the order of the incoming tuples). */
+    final long id;
+
+    /**
+     * Constructor.
+     * @param key sort keys
+     * @param value values
+     * @param id tuple id
+     */
+    Tuple(final Item[] key, final Value[] value, final long id) {
+      this.key = key;
+      this.value = value;
+      this.id = id;
+    }
+  }
+
+  /**
+   * Sorted run.
+   */
+  private abstract static class Run {
+    /** Run id (reflects the order of the incoming tuples). */
+    final int id;
+    /** Sort keys of the current tuple. */
+    Item[] key;
+    /** Values of the current tuple. */
+    Value[] value;
+
+    /**
+     * Constructor.
+     * @param id run id
+     */
+    Run(final int id) {
+      this.id = id;
+    }
+
+    /**
+     * Proceeds to the next tuple.
+     * @return {@code true} if another tuple was found
+     */
+    abstract boolean next();
+  }
+
+  /**
+   * Sorted run in main memory.
+   */
+  private final class MemRun extends Run {
+    /** Sorted permutation. */
+    private final int[] sorted;
+    /** Current position. */
+    private int p;
+
+    /**
+     * Constructor.
+     * @param id run id
+     * @param sorted sorted permutation
+     */
+    MemRun(final int id, final int[] sorted) {
+      super(id);
+      this.sorted = sorted;
+    }
+
+    @Override
+    boolean next() {
+      if(p == sorted.length) return false;
+      final int s = sorted[p++];
+      key = keys[s];
+      value = values[s];
+      keys[s] = null;
+      values[s] = null;
+      return true;
+    }
+  }
+
+  /**
+   * Sorted run on disk. The file is deleted when the last tuple has been read, or after
+   * the query has been evaluated (see {@link SpillFiles}).
+   */
+  private final class FileRun extends Run {
+    /** Temporary files. */
+    private final SpillFiles files = SpillFiles.get(qc);
+    /** Temporary file. */
+    private final IOFile file;
+    /** Number of remaining tuples. */
+    private int remaining;
+    /** Input stream (assigned when the first tuple is requested). */
+    private DataInput in;
+
+    /**
+     * Constructor.
+     * @param id run id
+     * @param file temporary file
+     * @param size number of tuples
+     */
+    FileRun(final int id, final IOFile file, final int size) {
+      super(id);
+      this.file = file;
+      remaining = size;
+    }
+
+    @Override
+    boolean next() {
+      try {
+        if(remaining == 0) {
+          files.delete(file);
+          return false;
+        }
+        if(in == null) in = files.input(file);
+        remaining--;
+
+        key = spill.readKey(order.keys(), in);
+        value = spill.readValues(in);
+        return true;
+      } catch(final IOException ex) {
+        throw new QueryRTException(IOERR_X.get(info, ex));
+      }
+    }
+  }
+}
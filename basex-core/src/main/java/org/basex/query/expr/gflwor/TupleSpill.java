@@ -0,0 +1,244 @@
+package org.basex.query.expr.gflwor;
+
+import java.io.*;
+import java.math.*;
+import java.util.*;
+
+import org.basex.data.*;
+import org.basex.io.in.DataInput;
+import org.basex.io.out.DataOutput;
+import org.basex.query.*;
+import org.basex.query.value.*;
+import org.basex.query.value.item.*;
+import org.basex.query.value.node.*;
+import org.basex.query.value.seq.*;
+import org.basex.query.value.type.*;
+import org.basex.util.*;
+
+/**
+ * Writes tuples of FLWOR clauses to temporary files and reads them back.
+ * Atomic items and database nodes are written to disk. Items that cannot be written
+ * (such as fragments or function items) remain in main memory and are referenced from
+ * the temporary files.
+ *
+ * @author BaseX Team 2005-16, BSD License
+ * @author Christian Gruen
+ */
+final class TupleSpill {
+  /** Item type: empty key. */
+  private static final int EMPTY = 0;
+  /** Item type: reference to an in-memory value. */
+  private static final int REF = 1;
+  /** Item type: database node. */
+  private static final int NODE = 2;
+  /** Item type: string. */
+  private static final int STR = 3;
+  /** Item type: untyped atomic. */
+  private static final int ATM = 4;
+  /** Item type: integer. */
+  private static final int INT = 5;
+  /** Item type: double. */
+  private static final int DBL = 6;
+  /** Item type: float. */
+  private static final int FLT = 7;
+  /** Item type: decimal. */
+  private static final int DEC = 8;
+  /** Item type: boolean. */
+  private static final int BLN = 9;
+  /** Item type: sequence. */
+  private static final int SEQ = 10;
+
+  /** Input info. */
+  private final InputInfo info;
+  /** Databases of spilled nodes. */
+  private final ArrayList<Data> datas = new ArrayList<>();
+  /** Values that cannot be spilled. */
+  private final ArrayList<Value> refs = new ArrayList<>();
+
+  /**
+   * Constructor.
+   * @param info input info
+   */
+  TupleSpill(final InputInfo info) {
+    this.info = info;
+  }
+
+  /**
+   * Writes a tuple.
+   * @param key keys (single entries can be {@code null})
+   * @param value values
+   * @param out output stream
+   * @throws IOException I/O exception
+   * @throws QueryException query exception
+   */
+  void write(final Item[] key, final Value[] value, final DataOutput out)
+      throws IOException, QueryException {
+    for(final Item k : key) write(k, out);
+    out.writeNum(value.length);
+    for(final Value v : value) write(v, out);
+  }
+
+  /**
+   * Reads the keys of a tuple.
+   * @param kl number of keys
+   * @param in input stream
+   * @return keys
+   * @throws IOException I/O exception
+   */
+  Item[] readKey(final int kl, final DataInput in) throws IOException {
+    final Item[] key = new Item[kl];
+    for(int k = 0; k < kl; k++) key[k] = (Item) read(in);
+    return key;
+  }
+
+  /**
+   * Reads the values of a tuple.
+   * @param in input stream
+   * @return values
+   * @throws IOException I/O exception
+   */
+  Value[] readValues(final DataInput in) throws IOException {
+    final int vl = in.readNum();
+    final Value[] value = new Value[vl];
+    for(int v = 0; v < vl; v++) value[v] = read(in);
+    return value;
+  }
+
+  /**
+   * Writes a value.
+   * @param value value
+   * @param out output stream
+   * @throws IOException I/O exception
+   * @throws QueryException query exception
+   */
+  private void write(final Value value, final DataOutput out)
+      throws IOException, QueryException {
+
+    if(value instanceof Item) {
+      write((Item) value, out);
+    } else if(value instanceof RangeSeq || value.size() > Integer.MAX_VALUE) {
+      // compact or huge sequences will not be materialized
+      ref(value, out);
+    } else {
+      out.write1(SEQ);
+      out.writeNum((int) value.size());
+      for(final Item it : value) write(it, out);
+    }
+  }
+
+  /**
+   * Writes an item.
+   * @param item item (can be {@code null})
+   * @param out output stream
+   * @throws IOException I/O exception
+   * @throws QueryException query exception
+   */
+  private void write(final Item item, final DataOutput out) throws IOException, QueryException {
+    final Class<?> clz = item == null ? null : item.getClass();
+    if(clz == null) {
+      out.write1(EMPTY);
+    } else if(clz == DBNode.class) {
+      final DBNode node = (DBNode) item;
+      int d = datas.indexOf(node.data());
+      if(d == -1) {
+        d = datas.size();
+        datas.add(node.data());
+      }
+      out.write1(NODE);
+      out.writeNum(d);
+      out.writeNum(node.pre());
+    } else if(clz == Str.class) {
+      out.write1(STR);
+      out.writeNum(((AtomType) item.type).ordinal());
+      out.writeToken(item.string(info));
+    } else if(clz == Atm.class) {
+      out.write1(ATM);
+      out.writeToken(item.string(info));
+    } else if(clz == Int.class) {
+      out.write1(INT);
+      out.writeNum(((AtomType) item.type).ordinal());
+      out.write8(item.itr(info));
+    } else if(clz == Dbl.class) {
+      out.write1(DBL);
+      out.write8(Double.doubleToRawLongBits(item.dbl(info)));
+    } else if(clz == Flt.class) {
+      out.write1(FLT);
+      out.write4(Float.floatToRawIntBits(item.flt(info)));
+    } else if(clz == Dec.class) {
+      out.write1(DEC);
+      out.writeToken(Token.token(item.dec(info).toString()));
+    } else if(clz == Bln.class) {
+      out.write1(BLN);
+      out.writeBool(item.bool(info));
+    } else {
+      ref(item, out);
+    }
+  }
+
+  /**
+   * Writes a reference to a value that will be kept in main memory.
+   * @param value value
+   * @param out output stream
+   * @throws IOException I/O exception
+   */
+  private void ref(final Value value, final DataOutput out) throws IOException {
+    out.write1(REF);
+    out.writeNum(refs.size());
+    refs.add(value);
+  }
+
+  /**
+   * Reads a value.
+   * @param in input stream
+   * @return value (can be {@code null})
+   * @throws IOException I/O exception
+   */
+  private Value read(final DataInput in) throws IOException {
+    final int type = in.read();
+    switch(type) {
+      case EMPTY:
+        return null;
+      case REF:
+        final int r = in.readNum();
+        final Value value = refs.get(r);
+        // free the space occupied by the value
+        refs.set(r, null);
+        return value;
+      case NODE:
+        return new DBNode(datas.get(in.readNum()), in.readNum());
+      case STR:
+        final AtomType st = AtomType.VALUES[in.readNum()];
+        return new Str(in.readToken(), st);
+      case ATM:
+        return new Atm(in.readToken());
+      case INT:
+        final AtomType it = AtomType.VALUES[in.readNum()];
+        return Int.get(in.read8(), it);
+      case DBL:
+        return Dbl.get(Double.longBitsToDouble(in.read8()));
+      case FLT:
+        return Flt.get(Float.intBitsToFloat(readInt(in)));
+      case DEC:
+        return Dec.get(new BigDecimal(Token.string(in.readToken())));
+      case BLN:
+        return Bln.get(in.readBool());
+      case SEQ:
+        final int s = in.readNum();
+        final ValueBuilder vb = new ValueBuilder();
+        for(int i = 0; i < s; i++) vb.add(read(in));
+        return vb.value();
+      default:
+        throw Util.notExpected(type);
+    }
+  }
+
+  /**
+   * Reads an integer that has been written via {@link DataOutput#write4(int)}.
+   * @param in input stream
+   * @return integer
+   * @throws IOException I/O exception
+   */
+  private static int readInt(final DataInput in) throws IOException {
+    return (in.read() << 24) + (in.read() << 16) + (in.read() << 8) + in.read();
+  }
+}
@@ -186,9 +186,15 @@ public final class Window extends Clause {
    * @return evaluator for tumbling windows
    */
   private Eval slidingEval(final Eval sub) {
+    final boolean reuse = reuseEnd();
     return new WindowEval() {
-      /** Queue holding the items of the current window. */
+      /** Queue holding the items of the currently open windows. */
       private final ArrayDeque<Item> queue = new ArrayDeque<>();
+      /** Position of the last end item that has been found ({@code 0}: none). */
+      private long endPos;
+      /** Indicates if the end of the input has been reached without finding an end item. */
+      private boolean drained;
+
       @Override
       public boolean next(final QueryContext qc) throws QueryException {
         while(true) {
@@ -196,47 +202,71 @@ public final class Window extends Clause {
           while((curr = advance()) != null) {
             next = queue.peekFirst();
             if(next == null && (next = next()) != null) queue.addLast(next);
-            if(start.matches(qc, curr, p, prev, next)) break;
-            prev = curr;
-          }
-
-          if(curr != null) {
-            final ValueBuilder cache = new ValueBuilder();
-            final Iterator<Item> qiter = queue.iterator();
-            // the first element is already the {@code next} one
-            if(qiter.hasNext()) qiter.next();
-            Item pr = prev, it = curr, nx = next;
-            long ps = p;
-            do {
-              cache.add(it);
-              if(end.matches(qc, it, ps++, pr, nx)) break;
-              pr = it;
-              it = nx;
-              if(qiter.hasNext()) {
-                nx = qiter.next();
-              } else {
-                nx = next();
-                if(nx != null) queue.addLast(nx);
-              }
-            } while(it != null);
-
-            // return window if end was found or {@code only} isn't set
-            if(!(it == null && only)) {
-              start.bind(qc, curr, p, prev, next);
-              prev = curr;
-              qc.set(var, cache.value());
-              return true;
+            if(start.matches(qc, curr, p, prev, next)) {
+              if(window(qc, curr, next)) return true;
+              // no more windows can be closed: skip the remaining items
+              if(reuse) break;
             }
+            prev = curr;
           }
 
           // abort if no more tuples from above
           if(!prepareNext(qc, sub)) return false;
           queue.clear();
+          endPos = 0;
+          drained = false;
         }
       }
 
       /**
-       * tries to advance the start of the queue by one element and returns the removed
+       * Collects the items of the window starting with the specified item.
+       * @param qc query context
+       * @param curr start item
+       * @param next item following the start item
+       * @return {@code true} if the window was bound
+       * @throws QueryException query exception
+       */
+      private boolean window(final QueryContext qc, final Item curr, final Item next)
+          throws QueryException {
+
+        // the end item of the last window (if any) will be the end item of this window
+        final boolean known = reuse && (drained || endPos >= p);
+        final ValueBuilder cache = new ValueBuilder();
+        final Iterator<Item> qiter = queue.iterator();
+        // the first element is already the {@code next} one
+        if(qiter.hasNext()) qiter.next();
+        Item pr = prev, it = curr, nx = next;
+        long ps = p;
+        do {
+          cache.add(it);
+          if(known) {
+            if(ps == endPos || nx == null) end.bind(qc, it, ps, pr, nx);
+            if(ps++ == endPos) break;
+          } else if(end.matches(qc, it, ps++, pr, nx)) {
+            endPos = ps - 1;
+            break;
+          }
+          pr = it;
+          it = nx;
+          if(qiter.hasNext()) {
+            nx = qiter.next();
+          } else {
+            nx = next();
+            if(nx != null) queue.addLast(nx);
+          }
+        } while(it != null);
+        if(it == null) drained = true;
+
+        // return window if end was found or {@code only} isn't set
+        if(it == null && only) return false;
+        start.bind(qc, curr, p, prev, next);
+        prev = curr;
+        qc.set(var, cache.value());
+        return true;
+      }
+
+      /**
+       * Tries to advance the start of the queue by one element and returns the removed
        * element in case of success, {@code null} otherwise.
        * @return removed element or {@code null}
        * @throws QueryException evaluation exception
@@ -250,6 +280,22 @@ public final class Window extends Clause {
     };
   }
 
+  /**
+   * Checks if the end item of a sliding window can be reused for subsequent windows.
+   * This is the case if the end condition is deterministic and independent of the
+   * variables of the start condition.
+   * @return result of check
+   */
+  private boolean reuseEnd() {
+    if(end.has(Flag.NDT)) return false;
+    final Var[] vs = new Var[start.nVars()];
+    start.writeVars(vs, 0);
+    for(final Var v : vs) {
+      if(end.count(v) != VarUsage.NEVER) return false;
+    }
+    return true;
+  }
+
   @Override
   public Clause compile(final CompileContext cc) throws QueryException {
     expr = expr.compile(cc);
@@ -15,6 +15,8 @@ import org.basex.util.*;
 public abstract class IndexAccess extends Simple {
   /** Index context. */
   final IndexContext ictx;
+  /** Estimated costs of the index access ({@code null}: unknown). */
+  Integer costs;
 
   /**
    * Constructor.
@@ -35,6 +37,25 @@ public abstract class IndexAccess extends Simple {
     seqType = seqType().withSize(s);
   }
 
+  /**
+   * Assigns the estimated costs of the index access.
+   * @param c costs
+   */
+  public void costs(final int c) {
+    costs = c;
+  }
+
+  /**
+   * Copies the estimated costs to the given index access.
+   * @param <T> index access type
+   * @param ia index access
+   * @return the index access for convenience
+   */
+  final <T extends IndexAccess> T copyCosts(final T ia) {
+    ia.costs = costs;
+    return ia;
+  }
+
   @Override
   public abstract NodeIter iter(final QueryContext qc) throws QueryException;
 
@@ -51,13 +51,13 @@ public final class RangeAccess extends IndexAccess {
 
   @Override
   public Expr copy(final CompileContext cc, final IntObjMap<Var> vm) {
-    return new RangeAccess(info, index, ictx);
+    return copyCosts(new RangeAccess(info, index, ictx));
   }
 
   @Override
   public void plan(final FElem plan) {
     addPlan(plan, planElem(DATA, ictx.data.meta.name, MIN, index.min, MAX, index.max,
-        TYPE, index.type()));
+        TYPE, index.type(), COSTS, costs));
   }
 
   @Override
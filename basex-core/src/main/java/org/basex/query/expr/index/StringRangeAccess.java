@@ -90,13 +90,13 @@ public final class StringRangeAccess extends IndexAccess {
 
   @Override
   public Expr copy(final CompileContext cc, final IntObjMap<Var> vm) {
-    return new StringRangeAccess(info, index, ictx);
+    return copyCosts(new StringRangeAccess(info, index, ictx));
   }
 
   @Override
   public void plan(final FElem plan) {
     addPlan(plan, planElem(DATA, ictx.data.meta.name,
-        MIN, index.min, MAX, index.max, TYP, index.type()));
+        MIN, index.min, MAX, index.max, TYP, index.type(), COSTS, costs));
   }
 
   @Override
@@ -14,11 +14,14 @@ import org.basex.query.expr.path.*;
 import org.basex.query.func.*;
 import org.basex.query.iter.*;
 import org.basex.query.util.*;
+import org.basex.query.value.*;
 import org.basex.query.value.item.*;
 import org.basex.query.value.node.*;
+import org.basex.query.value.seq.*;
 import org.basex.query.var.*;
 import org.basex.util.*;
 import org.basex.util.hash.*;
+import org.basex.util.list.*;
 
 /**
  * This index class retrieves texts and attribute values from the index.
@@ -71,8 +74,38 @@ public final class ValueAccess extends IndexAccess {
       iter.add(iter(trim ? Token.trim(term) : term));
     }
     final int is = iter.size();
-    return is == 0 ? BasicNodeIter.EMPTY : is == 1 ? iter.get(0) :
-      new Union(info, expr).eval(iter.toArray(new NodeIter[is])).iter();
+    if(is == 0) return BasicNodeIter.EMPTY;
+    if(is == 1) return iter.get(0);
+
+    // multiple terms: merge pre values of all index results
+    final Bitmap bitmap = new Bitmap();
+    for(final BasicNodeIter bi : iter) {
+      for(ANode n; (n = bi.next()) != null;) bitmap.add(((DBNode) n).pre());
+    }
+    final int[] pres = bitmap.toArray();
+    return new DBNodeIter(ictx.data) {
+      int p;
+
+      @Override
+      public DBNode next() {
+        return p < pres.length ? new DBNode(data, pres[p++]) : null;
+      }
+
+      @Override
+      public DBNode get(final long i) {
+        return new DBNode(data, pres[(int) i]);
+      }
+
+      @Override
+      public long size() {
+        return pres.length;
+      }
+
+      @Override
+      public Value value() {
+        return DBNodeSeq.get(new IntList(pres), data, false, false);
+      }
+    };
   }
 
   /**
@@ -199,7 +232,7 @@ public final class ValueAccess extends IndexAccess {
 
   @Override
   public Expr copy(final CompileContext cc, final IntObjMap<Var> vm) {
-    return copyType(new ValueAccess(info, expr.copy(cc, vm), type, test, ictx));
+    return copyCosts(copyType(new ValueAccess(info, expr.copy(cc, vm), type, test, ictx)));
   }
 
   @Override
@@ -214,7 +247,8 @@ public final class ValueAccess extends IndexAccess {
 
   @Override
   public void plan(final FElem plan) {
-    addPlan(plan, planElem(DATA, ictx.data.meta.name, TYP, type, NAM, test), expr);
+    addPlan(plan, planElem(DATA, ictx.data.meta.name, TYP, type, NAM, test,
+        COSTS, costs), expr);
   }
 
   @Override
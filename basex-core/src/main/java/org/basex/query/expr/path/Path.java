@@ -643,6 +643,9 @@ public abstract class Path extends ParseExpr {
     IndexInfo index = null;
     // cheapest predicate and step
     int iPred = 0, iStep = 0;
+    // costs of a sequential scan
+    long scan = data.meta.size;
+    boolean desc = false;
 
     // check if path can be converted to an index access
     final int sl = steps.length;
@@ -653,8 +656,9 @@ public abstract class Path extends ParseExpr {
       if(step == null || !step.axis.down || step.has(Flag.POS)) break;
 
       // check if path is iterable (i.e., will be duplicate-free)
-      final boolean iter = pathNodes(data, s) != null;
-      final IndexContext ictx = new IndexContext(data, iter);
+      final ArrayList<PathNode> nodes = pathNodes(data, s);
+      final IndexContext ictx = new IndexContext(data, nodes != null, nodes);
+      desc |= step.axis != CHILD;
 
       // choose cheapest index access
       final int pl = step.preds.length;
@@ -672,12 +676,17 @@ public abstract class Path extends ParseExpr {
           index = ii;
           iPred = p;
           iStep = s;
+          scan = ictx.scan(desc);
         }
       }
     }
 
     // skip rewriting if no index access is possible, or if it is too expensive
-    if(index == null || index.costs > data.meta.size) return this;
+    if(index == null) return this;
+    if(index.costs > scan) {
+      cc.info(OPTSCAN_X_X, scan, index.costs);
+      return this;
+    }
 
     // rewrite for index access
     cc.info(index.optInfo);
@@ -129,6 +129,11 @@ public abstract class StandardFunc extends Arr {
       flag != Flag.HOF && super.has(flag);
   }
 
+  @Override
+  public boolean accept(final ASTVisitor visitor) {
+    return visitor.standardFunc(this) && super.accept(visitor);
+  }
+
   @Override
   public final boolean isFunction(final Function f) {
     return sig == f;
@@ -9,6 +9,7 @@ import java.nio.charset.*;
 import java.util.*;
 import java.util.zip.*;
 
+import org.basex.io.in.*;
 import org.basex.query.*;
 import org.basex.query.iter.*;
 import org.basex.query.value.item.*;
@@ -123,15 +124,23 @@ public class ArchiveCreate extends ArchiveFn {
       }
     }
 
-    // data to be compressed
-    byte[] val = toBytes(cont);
-    if(!(cont instanceof Bin) && enc != Strings.UTF8) val = encode(val, enc, qc);
-
     try {
       out.level(lvl == null ? level : toInt(lvl));
     } catch(final IllegalArgumentException ex) {
       throw ARCH_LEVEL_X.get(info, lvl);
     }
+
+    // stream database nodes
+    if(cont instanceof DBNode && enc == Strings.UTF8) {
+      try(final BufferInput bi = cont.input(info)) {
+        out.write(ze, bi);
+      }
+      return;
+    }
+
+    // data to be compressed
+    byte[] val = toBytes(cont);
+    if(!(cont instanceof Bin) && enc != Strings.UTF8) val = encode(val, enc, qc);
     out.write(ze, val);
   }
 }
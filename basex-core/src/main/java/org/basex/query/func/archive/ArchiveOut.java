@@ -7,6 +7,7 @@ import java.io.*;
 import java.util.zip.*;
 
 import org.basex.io.*;
+import org.basex.io.in.*;
 import org.basex.io.out.*;
 import org.basex.query.*;
 import org.basex.util.*;
@@ -61,6 +62,14 @@ abstract class ArchiveOut implements Closeable {
    */
   public abstract void write(final ZipEntry entry, final byte[] value) throws IOException;
 
+  /**
+   * Writes the specified entry, the contents of which are streamed.
+   * @param entry zip entry
+   * @param input input to be written
+   * @throws IOException I/O exception
+   */
+  public abstract void write(final ZipEntry entry, final BufferInput input) throws IOException;
+
   @Override
   public abstract void close();
 
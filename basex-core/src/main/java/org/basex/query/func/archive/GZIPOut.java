@@ -3,6 +3,7 @@ package org.basex.query.func.archive;
 import java.io.*;
 import java.util.zip.*;
 
+import org.basex.io.in.*;
 import org.basex.util.*;
 
 /**
@@ -38,6 +39,11 @@ final class GZIPOut extends ArchiveOut {
     zos.write(value);
   }
 
+  @Override
+  public void write(final ZipEntry entry, final BufferInput input) throws IOException {
+    for(int c; (c = input.read(data)) != -1;) zos.write(data, 0, c);
+  }
+
   @Override
   public void close() {
     try { zos.close(); } catch(final IOException ex) { Util.debug(ex); }
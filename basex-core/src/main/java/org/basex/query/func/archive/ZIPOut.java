@@ -3,6 +3,7 @@ package org.basex.query.func.archive;
 import java.io.*;
 import java.util.zip.*;
 
+import org.basex.io.in.*;
 import org.basex.util.*;
 
 /**
@@ -45,6 +46,13 @@ final class ZIPOut extends ArchiveOut {
     zos.closeEntry();
   }
 
+  @Override
+  public void write(final ZipEntry entry, final BufferInput input) throws IOException {
+    zos.putNextEntry(entry);
+    for(int c; (c = input.read(data)) != -1;) zos.write(data, 0, c);
+    zos.closeEntry();
+  }
+
   @Override
   public void close() {
     try { zos.close(); } catch(final IOException ex) { Util.debug(ex); }
@@ -7,9 +7,12 @@ import java.io.*;
 import java.nio.charset.*;
 import java.nio.file.*;
 
+import org.basex.io.in.*;
 import org.basex.io.out.*;
 import org.basex.query.*;
 import org.basex.query.value.item.*;
+import org.basex.query.value.node.*;
+import org.basex.query.value.type.*;
 import org.basex.util.*;
 
 /**
@@ -36,12 +39,21 @@ public class FileWriteText extends FileFn {
       throws QueryException, IOException {
 
     final Path path = checkParentDir(toPath(0, qc));
-    final byte[] s = toToken(exprs[1], qc);
+    final Item it = checkNoEmpty(exprs[1].item(qc, info), AtomType.STR);
     final String enc = toEncoding(2, FILE_UNKNOWN_ENCODING_X, qc);
     final Charset cs = enc == null || enc == Strings.UTF8 ? null : Charset.forName(enc);
 
+    // stream database nodes
+    final boolean stream = cs == null && it instanceof DBNode;
+    final byte[] s = stream ? null : toToken(it.atomItem(info));
     try(final PrintOutput out = PrintOutput.get(new FileOutputStream(path.toFile(), append))) {
-      out.write(cs == null ? s : string(s).getBytes(cs));
+      if(stream) {
+        try(final BufferInput bi = it.input(info)) {
+          for(int b; (b = bi.read()) != -1;) out.write(b);
+        }
+      } else {
+        out.write(cs == null ? s : string(s).getBytes(cs));
+      }
     }
     return null;
   }
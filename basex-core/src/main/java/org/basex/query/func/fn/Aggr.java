@@ -3,11 +3,15 @@ package org.basex.query.func.fn;
 import static org.basex.query.QueryError.*;
 import static org.basex.query.value.type.AtomType.*;
 
+import java.math.*;
+
 import org.basex.query.*;
 import org.basex.query.expr.*;
 import org.basex.query.func.*;
 import org.basex.query.iter.*;
+import org.basex.query.value.*;
 import org.basex.query.value.item.*;
+import org.basex.query.value.seq.*;
 
 /**
  * Aggregation function.
@@ -42,4 +46,64 @@ abstract class Aggr extends StandardFunc {
     }
     return avg ? Calc.DIV.ev(rs, Int.get(c), info) : rs;
   }
+
+  /**
+   * Sums up the values of a native sequence or an integer range.
+   * @param value value
+   * @param avg calculate average
+   * @return summed up item, or {@code null} if the items must be processed one by one
+   * @throws QueryException query exception
+   */
+  Item sum(final Value value, final boolean avg) throws QueryException {
+    final long size = value.size();
+    Item rs;
+    if(value instanceof RangeSeq) {
+      // partial sum calculation (Little Gauss)
+      final RangeSeq range = (RangeSeq) value;
+      final long s = Math.min(range.start(), range.end());
+      final long e = Math.max(range.start(), range.end());
+      if(s >= 0 && e < 3037000500L) {
+        // range is small enough to be computed with long values
+        rs = Int.get((s + e) * size / 2);
+      } else {
+        // compute larger ranges
+        final BigInteger bs = BigInteger.valueOf(s), be = BigInteger.valueOf(e);
+        final BigInteger bi = bs.add(be).multiply(BigInteger.valueOf(size)).
+            divide(BigInteger.valueOf(2));
+        final long l = bi.longValue();
+        // check if result is small enough to be represented as long value
+        if(bi.equals(BigInteger.valueOf(l))) rs = Int.get(l);
+        else if(avg) rs = Dec.get(new BigDecimal(bi));
+        else throw RANGE_X.get(info, bi);
+      }
+    } else if(value instanceof IntSeq) {
+      final long[] values = ((IntSeq) value).values();
+      long r = values[0];
+      for(int v = 1; v < size; v++) {
+        final long l = values[v], n = r + l;
+        // overflow: raise error in default evaluation
+        if(((r ^ n) & (l ^ n)) < 0) return null;
+        r = n;
+      }
+      rs = Int.get(r);
+    } else if(value instanceof DblSeq) {
+      final double[] values = ((DblSeq) value).toJava();
+      double r = values[0];
+      for(int v = 1; v < size; v++) r += values[v];
+      rs = Dbl.get(r);
+    } else if(value instanceof FltSeq) {
+      final float[] values = ((FltSeq) value).toJava();
+      float r = values[0];
+      for(int v = 1; v < size; v++) r += values[v];
+      rs = Flt.get(r);
+    } else if(value instanceof DecSeq) {
+      final BigDecimal[] values = ((DecSeq) value).toJava();
+      BigDecimal r = values[0];
+      for(int v = 1; v < size; v++) r = r.add(values[v]);
+      rs = Dec.get(r);
+    } else {
+      return null;
+    }
+    return avg ? Calc.DIV.ev(rs, Int.get(size), info) : rs;
+  }
 }
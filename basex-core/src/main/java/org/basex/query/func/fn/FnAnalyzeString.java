@@ -31,7 +31,7 @@ public final class FnAnalyzeString extends RegEx {
   @Override
   public Item item(final QueryContext qc, final InputInfo ii) throws QueryException {
     final byte[] value = toEmptyToken(exprs[0], qc);
-    final Pattern p = pattern(exprs[1], exprs.length == 3 ? exprs[2] : null, qc, true);
+    final Pattern p = pattern(exprs[1], exprs.length == 3 ? exprs[2] : null, qc, true).pattern;
     final String str = string(value);
     final Matcher m = p.matcher(str);
 
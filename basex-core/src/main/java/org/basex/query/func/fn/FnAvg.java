@@ -14,7 +14,12 @@ import org.basex.util.*;
 public final class FnAvg extends Aggr {
   @Override
   public Item item(final QueryContext qc, final InputInfo ii) throws QueryException {
-    final Iter iter = exprs[0].atomIter(qc, info);
+    // native sequences: compute result on primitive values
+    final Iter ir = exprs[0].iter(qc);
+    final Item avg = ir instanceof ValueIter ? sum(ir.value(), true) : null;
+    if(avg != null) return avg;
+
+    final Iter iter = new AtomIter(ir, qc, info, exprs[0].seqType().mayBeArray());
     final Item it = iter.next();
     return it == null ? null : sum(iter, it, true);
   }
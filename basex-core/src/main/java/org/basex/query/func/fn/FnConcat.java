@@ -15,11 +15,11 @@ import org.basex.util.*;
 public final class FnConcat extends StandardFunc {
   @Override
   public Item item(final QueryContext qc, final InputInfo ii) throws QueryException {
-    final TokenBuilder tb = new TokenBuilder();
+    final RopeBuilder rb = new RopeBuilder();
     for(final Expr a : exprs) {
       final Item it = a.atomItem(qc, info);
-      if(it != null) tb.add(it.string(info));
+      if(it != null) rb.add(it, info);
     }
-    return Str.get(tb.finish());
+    return rb.finish();
   }
 }
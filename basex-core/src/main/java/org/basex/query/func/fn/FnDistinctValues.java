@@ -16,6 +16,8 @@ import org.basex.query.value.*;
 import org.basex.query.value.item.*;
 import org.basex.query.value.seq.*;
 import org.basex.query.value.type.*;
+import org.basex.util.hash.*;
+import org.basex.util.list.*;
 
 /**
  * Function implementation.
@@ -30,7 +32,7 @@ public final class FnDistinctValues extends StandardFunc {
     if(exprs[0] instanceof RangeSeq) return exprs[0].iter(qc);
 
     return new Iter() {
-      final ItemSet set = coll == null ? new HashItemSet() : new CollationItemSet(coll);
+      final ItemSet set = coll == null ? new NativeItemSet() : new CollationItemSet(coll);
       final Iter ir = exprs[0].atomIter(qc, info);
 
       @Override
@@ -49,13 +51,33 @@ public final class FnDistinctValues extends StandardFunc {
     final Collation coll = toCollation(1, qc);
     if(exprs[0] instanceof RangeSeq) return (RangeSeq) exprs[0];
 
+    final Iter ir = exprs[0].iter(qc);
+    if(coll == null && ir instanceof ValueIter) {
+      // integer sequences: deduplicate primitive values
+      final Value value = ir.value();
+      if(value instanceof IntSeq) return distinct((IntSeq) value);
+    }
+
     final ValueBuilder vb = new ValueBuilder();
-    final ItemSet set = coll == null ? new HashItemSet() : new CollationItemSet(coll);
-    final Iter ir = exprs[0].atomIter(qc, info);
-    for(Item it; (it = ir.next()) != null;) if(set.add(it, info)) vb.add(it);
+    final ItemSet set = coll == null ? new NativeItemSet() : new CollationItemSet(coll);
+    final Iter iter = new AtomIter(ir, qc, info, exprs[0].seqType().mayBeArray());
+    for(Item it; (it = iter.next()) != null;) if(set.add(it, info)) vb.add(it);
     return vb.value();
   }
 
+  /**
+   * Returns the distinct values of an integer sequence.
+   * @param seq integer sequence
+   * @return distinct values
+   */
+  private static Value distinct(final IntSeq seq) {
+    final long[] values = seq.values();
+    final LongSet set = new LongSet(values.length);
+    final LongList list = new LongList(values.length);
+    for(final long v : values) if(set.add(v)) list.add(v);
+    return IntSeq.get(list.finish(), seq.type);
+  }
+
   @Override
   protected Expr opt(final CompileContext cc) throws QueryException {
     final SeqType st = exprs[0].seqType();
@@ -2,6 +2,7 @@ package org.basex.query.func.fn;
 
 import org.basex.query.*;
 import org.basex.query.expr.*;
+import org.basex.query.expr.gflwor.*;
 import org.basex.query.func.*;
 import org.basex.query.value.item.*;
 import org.basex.query.value.type.*;
@@ -23,7 +24,10 @@ public final class FnHead extends StandardFunc {
 
   @Override
   protected Expr opt(final CompileContext cc) {
-    seqType = SeqType.get(exprs[0].seqType().type, Occ.ZERO_ONE);
+    final Expr ex = exprs[0];
+    seqType = SeqType.get(ex.seqType().type, Occ.ZERO_ONE);
+    // top-k evaluation: only sort the first tuple
+    if(ex instanceof GFLWOR) ((GFLWOR) ex).limit(1, cc);
     return this;
   }
 }
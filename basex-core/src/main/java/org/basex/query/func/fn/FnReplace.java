@@ -6,6 +6,7 @@ import static org.basex.util.Token.*;
 import java.util.regex.*;
 
 import org.basex.query.*;
+import org.basex.query.util.regex.*;
 import org.basex.query.value.item.*;
 import org.basex.util.*;
 
@@ -19,10 +20,10 @@ public final class FnReplace extends RegEx {
   @Override
   public Item item(final QueryContext qc, final InputInfo ii) throws QueryException {
     final byte[] value = toEmptyToken(exprs[0], qc);
-    final Pattern pat = pattern(exprs[1], exprs.length == 4 ? exprs[3] : null, qc, true);
+    final RegExPattern pat = pattern(exprs[1], exprs.length == 4 ? exprs[3] : null, qc, true);
     final byte[] rep = toToken(exprs[2], qc);
     String replace = string(rep);
-    if((pat.flags() & Pattern.LITERAL) != 0) {
+    if((pat.pattern.flags() & Pattern.LITERAL) != 0) {
       // literal parsing: add backslashes
       replace = replace.replace("\\", "\\\\").replace("$", "\\$");
     } else {
@@ -40,7 +41,7 @@ public final class FnReplace extends RegEx {
     }
 
     try {
-      return Str.get(pat.matcher(string(value)).replaceAll(replace));
+      return Str.get(pat.replaceAll(string(value), replace));
     } catch(final Exception ex) {
       if(ex.getMessage().contains("No group")) throw REGROUP.get(info);
       throw REGPAT_X.get(info, ex);
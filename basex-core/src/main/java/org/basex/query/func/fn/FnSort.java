@@ -2,15 +2,15 @@ package org.basex.query.func.fn;
 
 import static org.basex.query.QueryError.*;
 
-import java.util.*;
-
 import org.basex.query.*;
 import org.basex.query.func.*;
 import org.basex.query.iter.*;
 import org.basex.query.util.collation.*;
 import org.basex.query.util.list.*;
+import org.basex.query.util.sort.*;
 import org.basex.query.value.*;
 import org.basex.query.value.item.*;
+import org.basex.util.*;
 
 /**
  * Function implementation.
@@ -30,14 +30,14 @@ public final class FnSort extends StandardFunc {
 
     final long sz = value.size();
     final ValueList vl = new ValueList((int) Math.min(Integer.MAX_VALUE, sz));
-    if(exprs.length > 1) {
+    if(exprs.length > 2) {
       final FItem key = checkArity(exprs[2], 1, qc);
       for(final Item it : value) vl.add(key.invokeValue(qc, info, it));
     } else {
       for(final Item it : value) vl.add(it.atomValue(info));
     }
 
-    final Integer[] order = sort(vl, this, coll);
+    final int[] order = sort(vl, this, coll);
     return new ValueIter() {
       int c;
       @Override
@@ -68,41 +68,112 @@ public final class FnSort extends StandardFunc {
    * @return item order
    * @throws QueryException query exception
    */
-  public static Integer[] sort(final ValueList vl, final StandardFunc sf, final Collation coll)
+  public static int[] sort(final ValueList vl, final StandardFunc sf, final Collation coll)
       throws QueryException {
 
-    final int al = vl.size();
-    final Integer[] order = new Integer[al];
-    for(int o = 0; o < al; o++) order[o] = o;
-    try {
-      Arrays.sort(order, new Comparator<Integer>() {
+    final int[] order = sortKeys(vl, sf, coll);
+    return order != null ? order : MergeSort.order(vl.size(), new IndexComparator() {
+      @Override
+      public int compare(final int i1, final int i2) throws QueryException {
+        final Value v1 = vl.get(i1), v2 = vl.get(i2);
+        final long s1 = v1.size(), s2 = v2.size(), sl = Math.min(s1, s2);
+        for(int v = 0; v < sl; v++) {
+          Item m = v1.itemAt(v), n = v2.itemAt(v);
+          if(m == Dbl.NAN || m == Flt.NAN) m = null;
+          if(n == Dbl.NAN || n == Flt.NAN) n = null;
+          if(m != null && n != null && !m.comparable(n)) {
+            throw m instanceof FItem ? FIEQ_X.get(sf.info, m.type) :
+                  n instanceof FItem ? FIEQ_X.get(sf.info, n.type) :
+                  diffError(m, n, sf.info);
+          }
+          final int d = m == null ? n == null ? 0 : -1 : n == null ? 1 :
+            m.diff(n, coll, sf.info);
+          if(d != 0 && d != Item.UNDEF) return d;
+        }
+        return (int) (s1 - s2);
+      }
+    });
+  }
+
+  /**
+   * Sorts the input data if all keys are single integers, doubles or strings.
+   * The keys are extracted into primitive arrays and compared without atomization.
+   * @param vl value list
+   * @param sf calling function
+   * @param coll collation
+   * @return item order, or {@code null} if the keys are not homogeneous
+   * @throws QueryException query exception
+   */
+  private static int[] sortKeys(final ValueList vl, final StandardFunc sf,
+      final Collation coll) throws QueryException {
+
+    // check if all keys are single items of the same kind
+    final int sz = vl.size();
+    int ints = 0, dbls = 0, strs = 0;
+    for(int i = 0; i < sz; i++) {
+      final Value v = vl.get(i);
+      if(!(v instanceof Item)) return null;
+      final Item it = (Item) v;
+      if(it instanceof Int) ints++;
+      else if(it instanceof Dbl) dbls++;
+      else if(it.type.isStringOrUntyped()) strs++;
+      else return null;
+    }
+
+    final IndexComparator cmp;
+    if(strs == sz) {
+      // strings with collations: compare collation keys
+      final CollationKeys ck = coll != null ? new CollationKeys(coll) : null;
+      final byte[][] keys = new byte[sz][];
+      for(int i = 0; i < sz; i++) {
+        final byte[] string = ((Item) vl.get(i)).string(sf.info);
+        keys[i] = ck != null ? ck.key(string) : string;
+      }
+      cmp = new IndexComparator() {
+        @Override
+        public int compare(final int i1, final int i2) {
+          return Token.diff(keys[i1], keys[i2]);
+        }
+      };
+    } else if(ints == sz) {
+      final long[] keys = new long[sz];
+      for(int i = 0; i < sz; i++) keys[i] = ((Int) vl.get(i)).itr();
+      cmp = new IndexComparator() {
+        @Override
+        public int compare(final int i1, final int i2) {
+          final long l1 = keys[i1], l2 = keys[i2];
+          return l1 < l2 ? -1 : l1 > l2 ? 1 : 0;
+        }
+      };
+    } else if(ints + dbls == sz) {
+      // integers are compared exactly with each other, and promoted to doubles otherwise;
+      // NaN is smaller than all other values
+      final double[] keys = new double[sz];
+      final long[] longs = new long[sz];
+      final boolean[] exact = new boolean[sz];
+      for(int i = 0; i < sz; i++) {
+        final Item it = (Item) vl.get(i);
+        if(it instanceof Int) {
+          longs[i] = it.itr(sf.info);
+          exact[i] = true;
+        }
+        keys[i] = it.dbl(sf.info);
+      }
+      cmp = new IndexComparator() {
         @Override
-        public int compare(final Integer i1, final Integer i2) {
-          try {
-            final Value v1 = vl.get(i1), v2 = vl.get(i2);
-            final long s1 = v1.size(), s2 = v2.size(), sl = Math.min(s1, s2);
-            for(int v = 0; v < sl; v++) {
-              Item m = v1.itemAt(v), n = v2.itemAt(v);
-              if(m == Dbl.NAN || m == Flt.NAN) m = null;
-              if(n == Dbl.NAN || n == Flt.NAN) n = null;
-              if(m != null && n != null && !m.comparable(n)) {
-                throw m instanceof FItem ? FIEQ_X.get(sf.info, m.type) :
-                      n instanceof FItem ? FIEQ_X.get(sf.info, n.type) :
-                      diffError(m, n, sf.info);
-              }
-              final int d = m == null ? n == null ? 0 : -1 : n == null ? 1 :
-                m.diff(n, coll, sf.info);
-              if(d != 0 && d != Item.UNDEF) return d;
-            }
-            return (int) (s1 - s2);
-          } catch(final QueryException ex) {
-            throw new QueryRTException(ex);
+        public int compare(final int i1, final int i2) {
+          if(exact[i1] && exact[i2]) {
+            final long l1 = longs[i1], l2 = longs[i2];
+            return l1 < l2 ? -1 : l1 > l2 ? 1 : 0;
           }
+          final double d1 = keys[i1], d2 = keys[i2];
+          return d1 < d2 ? -1 : d1 > d2 ? 1 : d1 == d2 || Double.isNaN(d1) && Double.isNaN(d2) ?
+            0 : Double.isNaN(d1) ? -1 : 1;
         }
-      });
-    } catch(final QueryRTException ex) {
-      throw ex.getCause();
+      };
+    } else {
+      return null;
     }
-    return order;
+    return MergeSort.parallelOrder(sz, cmp);
   }
 }
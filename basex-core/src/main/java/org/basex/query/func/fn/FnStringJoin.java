@@ -16,7 +16,7 @@ import org.basex.util.*;
  */
 public final class FnStringJoin extends StandardFunc {
   @Override
-  public Str item(final QueryContext qc, final InputInfo ii) throws QueryException {
+  public Item item(final QueryContext qc, final InputInfo ii) throws QueryException {
     final Iter iter = exprs[0].atomIter(qc, info);
     final byte[] token = exprs.length == 2 ? toToken(exprs[1], qc) : EMPTY;
 
@@ -25,14 +25,16 @@ public final class FnStringJoin extends StandardFunc {
     if(it == null) return Str.ZERO;
 
     // single result
-    final byte[] first = it.string(info);
-    if((it = iter.next()) == null) return Str.get(first);
+    final Item first = it;
+    if((it = iter.next()) == null) {
+      return first instanceof StrRope ? first : Str.get(first.string(info));
+    }
 
     // join multiple strings
-    final TokenBuilder tb = new TokenBuilder(first);
+    final RopeBuilder rb = new RopeBuilder().add(first, info);
     do {
-      tb.add(token).add(it.string(info));
+      rb.add(token).add(it, info);
     } while((it = iter.next()) != null);
-    return Str.get(tb.finish());
+    return rb.finish();
   }
 }
@@ -2,11 +2,15 @@ package org.basex.query.func.fn;
 
 import static org.basex.query.QueryError.*;
 
+import java.io.*;
+
 import org.basex.core.locks.*;
+import org.basex.io.in.*;
 import org.basex.query.*;
 import org.basex.query.func.*;
 import org.basex.query.util.*;
 import org.basex.query.value.item.*;
+import org.basex.query.value.node.*;
 import org.basex.util.*;
 
 /**
@@ -18,15 +22,35 @@ import org.basex.util.*;
 public final class FnStringLength extends StandardFunc {
   @Override
   public Item item(final QueryContext qc, final InputInfo ii) throws QueryException {
-    final byte[] s;
+    final Item it;
     if(exprs.length == 0) {
-      final Item it = ctxValue(qc).item(qc, info);
+      it = ctxValue(qc).item(qc, info);
       if(it instanceof FItem) throw FISTRING_X.get(info, it.type);
-      s = it == null ? Token.EMPTY : it.string(info);
     } else {
-      s = toEmptyToken(ctxArg(0, qc), qc);
+      it = ctxArg(0, qc).item(qc, info);
+    }
+    if(it == null) return Int.get(0);
+    // database nodes and ropes: count characters without materializing the string
+    if(it instanceof DBNode || it instanceof StrRope) return Int.get(length(it.input(info)));
+    return Int.get(Token.length(exprs.length == 0 ? it.string(info) : toToken(it.atomItem(info))));
+  }
+
+  /**
+   * Counts the characters of the specified input.
+   * @param input input
+   * @return number of characters
+   * @throws QueryException query exception
+   */
+  private long length(final BufferInput input) throws QueryException {
+    long l = 0;
+    try(final BufferInput bi = input) {
+      for(int b; (b = bi.read()) != -1;) {
+        if((b & 0xC0) != 0x80) l++;
+      }
+    } catch(final IOException ex) {
+      throw IOERR_X.get(info, ex);
     }
-    return Int.get(Token.length(s));
+    return l;
   }
 
   @Override
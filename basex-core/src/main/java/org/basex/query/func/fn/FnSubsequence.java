@@ -2,6 +2,7 @@ package org.basex.query.func.fn;
 
 import org.basex.query.*;
 import org.basex.query.expr.*;
+import org.basex.query.expr.gflwor.*;
 import org.basex.query.func.*;
 import org.basex.query.func.util.*;
 import org.basex.query.iter.*;
@@ -135,9 +136,18 @@ public class FnSubsequence extends StandardFunc {
   }
 
   @Override
-  protected Expr opt(final CompileContext cc) {
-    final SeqType st = exprs[0].seqType();
+  protected Expr opt(final CompileContext cc) throws QueryException {
+    final Expr ex = exprs[0];
+    final SeqType st = ex.seqType();
     seqType = SeqType.get(st.type, st.zeroOrOne() ? Occ.ZERO_ONE : Occ.ZERO_MORE);
+
+    // top-k evaluation: only sort the tuples that will be returned
+    if(ex instanceof GFLWOR && exprs[1].isValue() && (exprs.length < 3 || exprs[2].isValue())) {
+      final long[] range = range(cc.qc);
+      if(range != null && range != ALL && range[1] != Long.MAX_VALUE) {
+        ((GFLWOR) ex).limit(range[0] + range[1] - 1, cc);
+      }
+    }
     return this;
   }
 }
@@ -2,8 +2,6 @@ package org.basex.query.func.fn;
 
 import static org.basex.util.Token.*;
 
-import java.util.*;
-
 import org.basex.query.*;
 import org.basex.query.func.*;
 import org.basex.query.value.item.*;
@@ -44,7 +42,7 @@ public final class FnSubstring extends StandardFunc {
     }
     e = Math.min(l, end ? s + e : Integer.MAX_VALUE);
     if(s >= e) return Str.ZERO;
-    if(ascii) return Str.get(substring(str, s, e));
+    if(ascii) return StrRope.get(str, s, e);
 
     int ss = s;
     int ee = e;
@@ -54,7 +52,7 @@ public final class FnSubstring extends StandardFunc {
       if(p == e) ee = l;
     }
     if(p == e) ee = l;
-    return Str.get(Arrays.copyOfRange(str, ss, ee));
+    return StrRope.get(str, ss, ee);
   }
 
   /**
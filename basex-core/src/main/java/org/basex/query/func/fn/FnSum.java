@@ -1,14 +1,9 @@
 package org.basex.query.func.fn;
 
-import static org.basex.query.QueryError.*;
-
-import java.math.*;
-
 import org.basex.query.*;
 import org.basex.query.expr.*;
 import org.basex.query.iter.*;
 import org.basex.query.value.item.*;
-import org.basex.query.value.seq.*;
 import org.basex.query.value.type.*;
 import org.basex.query.var.*;
 import org.basex.util.*;
@@ -22,23 +17,12 @@ import org.basex.util.*;
 public final class FnSum extends Aggr {
   @Override
   public Item item(final QueryContext qc, final InputInfo ii) throws QueryException {
-    // partial sum calculation (Little Gauss)
-    if(exprs[0] instanceof RangeSeq) {
-      final RangeSeq rs = (RangeSeq) exprs[0];
-      final long s = rs.start(), e = s + rs.size() - 1;
-      // range is small enough to be computed with long values
-      if(e < 3037000500L) return Int.get((s + e) * (e - s + 1) / 2);
-      // compute larger ranges
-      final BigInteger bs = BigInteger.valueOf(s), be = BigInteger.valueOf(e);
-      final BigInteger bi = bs.add(be).multiply(be.subtract(bs).add(BigInteger.ONE)).
-          divide(BigInteger.valueOf(2));
-      final long l = bi.longValue();
-      // check if result is small enough to be represented as long value
-      if(bi.equals(BigInteger.valueOf(l))) return Int.get(l);
-      throw RANGE_X.get(info, bi);
-    }
+    // native sequences: compute result on primitive values
+    final Iter ir = exprs[0].iter(qc);
+    final Item sum = ir instanceof ValueIter ? sum(ir.value(), false) : null;
+    if(sum != null) return sum;
 
-    final Iter iter = exprs[0].atomIter(qc, info);
+    final Iter iter = new AtomIter(ir, qc, info, exprs[0].seqType().mayBeArray());
     final Item it = iter.next();
     if(it != null) return sum(iter, it, false);
 
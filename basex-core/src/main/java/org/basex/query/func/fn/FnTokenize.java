@@ -8,6 +8,7 @@ import java.util.regex.*;
 import org.basex.query.*;
 import org.basex.query.expr.*;
 import org.basex.query.iter.*;
+import org.basex.query.util.regex.*;
 import org.basex.query.value.*;
 import org.basex.query.value.seq.*;
 import org.basex.util.list.*;
@@ -29,17 +30,25 @@ public final class FnTokenize extends RegEx {
     final byte[] val = toEmptyToken(exprs[0], qc);
     if(exprs.length < 2) return StrSeq.get(split(normalize(val), ' '));
 
-    final Pattern p = pattern(exprs[1], exprs.length == 3 ? exprs[2] : null, qc, true);
-    if(p.matcher("").matches()) throw REGROUP.get(info);
+    final RegExPattern p = pattern(exprs[1], exprs.length == 3 ? exprs[2] : null, qc, true);
+    if(p.pattern.matcher("").matches()) throw REGROUP.get(info);
 
     final TokenList tl = new TokenList();
     final String str = string(val);
     if(!str.isEmpty()) {
-      final Matcher m = p.matcher(str);
       int s = 0;
-      while(m.find()) {
-        tl.add(str.substring(s, m.start()));
-        s = m.end();
+      if(p.nfa != null) {
+        final NFAMatcher m = p.nfa.matcher(str);
+        while(m.find()) {
+          tl.add(str.substring(s, m.start()));
+          s = m.end();
+        }
+      } else {
+        final Matcher m = p.pattern.matcher(str);
+        while(m.find()) {
+          tl.add(str.substring(s, m.start()));
+          s = m.end();
+        }
       }
       tl.add(str.substring(s, str.length()));
     }
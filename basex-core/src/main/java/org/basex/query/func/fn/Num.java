@@ -3,12 +3,16 @@ package org.basex.query.func.fn;
 import static org.basex.query.QueryError.*;
 import static org.basex.query.value.type.AtomType.*;
 
+import java.math.*;
+
 import org.basex.query.*;
 import org.basex.query.expr.CmpV.OpV;
 import org.basex.query.func.*;
 import org.basex.query.iter.*;
 import org.basex.query.util.collation.*;
+import org.basex.query.value.*;
 import org.basex.query.value.item.*;
+import org.basex.query.value.seq.*;
 import org.basex.query.value.type.*;
 
 /**
@@ -41,7 +45,14 @@ abstract class Num extends StandardFunc {
   Item minmax(final OpV cmp, final QueryContext qc) throws QueryException {
     final Collation coll = toCollation(1, qc);
 
-    final Iter iter = exprs[0].atomIter(qc, info);
+    // native sequences: compute result on primitive values
+    final Iter ir = exprs[0].iter(qc);
+    if(ir instanceof ValueIter) {
+      final Item it = minmax(ir.value(), cmp == OpV.GT);
+      if(it != null) return it;
+    }
+
+    final Iter iter = new AtomIter(ir, qc, info, exprs[0].seqType().mayBeArray());
     Item curr = iter.next();
     if(curr == null) return null;
 
@@ -76,6 +87,59 @@ abstract class Num extends StandardFunc {
     return curr;
   }
 
+  /**
+   * Returns the minimum or maximum of a native sequence or an integer range.
+   * @param value value
+   * @param min minimum or maximum
+   * @return resulting item, or {@code null} if the items must be processed one by one
+   */
+  private static Item minmax(final Value value, final boolean min) {
+    final int size = (int) value.size();
+    if(value instanceof RangeSeq) {
+      final RangeSeq range = (RangeSeq) value;
+      final long s = range.start(), e = range.end();
+      return Int.get(min ? Math.min(s, e) : Math.max(s, e));
+    }
+    if(value instanceof IntSeq) {
+      final long[] values = ((IntSeq) value).values();
+      long r = values[0];
+      for(int v = 1; v < size; v++) {
+        final long l = values[v];
+        if(min ? r > l : r < l) r = l;
+      }
+      return Int.get(r, value.type);
+    }
+    // NaN values will be returned as result
+    if(value instanceof DblSeq) {
+      final double[] values = ((DblSeq) value).toJava();
+      double r = values[0];
+      for(int v = 1; v < size; v++) {
+        final double d = values[v];
+        if((min ? r > d : r < d) || Double.isNaN(d)) r = d;
+      }
+      return Dbl.get(r);
+    }
+    if(value instanceof FltSeq) {
+      final float[] values = ((FltSeq) value).toJava();
+      float r = values[0];
+      for(int v = 1; v < size; v++) {
+        final float f = values[v];
+        if((min ? r > f : r < f) || Float.isNaN(f)) r = f;
+      }
+      return Flt.get(r);
+    }
+    if(value instanceof DecSeq) {
+      final BigDecimal[] values = ((DecSeq) value).toJava();
+      BigDecimal r = values[0];
+      for(int v = 1; v < size; v++) {
+        final int c = r.compareTo(values[v]);
+        if(min ? c > 0 : c < 0) r = values[v];
+      }
+      return Dec.get(r);
+    }
+    return null;
+  }
+
   /**
    * Returns the new target type, or {@code null} if conversion is not necessary.
    * @param curr old item
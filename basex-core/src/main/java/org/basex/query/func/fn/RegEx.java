@@ -1,13 +1,15 @@
 package org.basex.query.func.fn;
 
-import java.util.regex.*;
+import java.util.*;
+import java.util.Map.Entry;
 
+import org.basex.core.*;
 import org.basex.query.*;
 import org.basex.query.expr.*;
 import org.basex.query.func.*;
+import org.basex.query.util.regex.*;
 import org.basex.query.util.regex.parse.*;
 import org.basex.util.*;
-import org.basex.util.hash.*;
 
 /**
  * Regular expression functions.
@@ -16,8 +18,16 @@ import org.basex.util.hash.*;
  * @author Christian Gruen
  */
 abstract class RegEx extends StandardFunc {
-  /** Pattern cache [SINGLE]. */
-  private final TokenObjMap<Pattern> patterns = new TokenObjMap<>();
+  /** Maximum number of cached patterns. */
+  private static final int CACHE = 1 << 12;
+  /** Global pattern cache. The least recently used patterns will be discarded. */
+  private static final LinkedHashMap<String, RegExPattern> PATTERNS =
+    new LinkedHashMap<String, RegExPattern>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(final Entry<String, RegExPattern> eldest) {
+        return size() > CACHE;
+      }
+    };
 
   /**
    * Returns a regular expression pattern.
@@ -28,21 +38,26 @@ abstract class RegEx extends StandardFunc {
    * @return pattern modifier
    * @throws QueryException query exception
    */
-  protected Pattern pattern(final Expr regex, final Expr modifier, final QueryContext qc,
+  protected RegExPattern pattern(final Expr regex, final Expr modifier, final QueryContext qc,
       final boolean check) throws QueryException {
 
     final byte[] pat = toToken(regex, qc);
     final byte[] mod = modifier != null ? toToken(modifier, qc) : null;
-    final TokenBuilder tb = new TokenBuilder(pat);
+    final boolean linear = qc.context.options.get(MainOptions.LINEARREGEX);
+    final TokenBuilder tb = new TokenBuilder();
+    tb.add(linear ? 'l' : '-').add(check ? 'c' : '-').add(pat);
     if(mod != null) tb.add(0).add(mod);
-    final byte[] key = tb.finish();
+    final String key = tb.toString();
 
-    Pattern pattern;
-    synchronized(patterns) {
-      pattern = patterns.get(key);
-      if(pattern == null) {
-        pattern = RegExParser.parse(pat, mod, info, check);
-        patterns.put(key, pattern);
+    RegExPattern pattern;
+    synchronized(PATTERNS) {
+      pattern = PATTERNS.get(key);
+    }
+    if(pattern == null) {
+      // errors are not cached: invalid patterns will be parsed again
+      pattern = RegExParser.parse(pat, mod, linear, info, check);
+      synchronized(PATTERNS) {
+        PATTERNS.put(key, pattern);
       }
     }
     return pattern;
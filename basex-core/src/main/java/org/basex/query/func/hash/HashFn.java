@@ -10,6 +10,7 @@ import org.basex.io.in.*;
 import org.basex.query.*;
 import org.basex.query.func.*;
 import org.basex.query.value.item.*;
+import org.basex.query.value.node.*;
 
 /**
  * Hashing function.
@@ -26,10 +27,10 @@ abstract class HashFn extends StandardFunc {
    * @throws QueryException exception
    */
   final B64 hash(final String algo, final QueryContext qc) throws QueryException {
-    final Item item = exprs[0].atomItem(qc, info);
+    final Item item = exprs[0].item(qc, info);
     try {
       final MessageDigest md = MessageDigest.getInstance(algo);
-      if(item instanceof B64Stream) {
+      if(item instanceof B64Stream || item instanceof DBNode) {
         try(final BufferInput bi = item.input(info)) {
           final byte[] tmp = new byte[IO.BLOCKSIZE];
           do {
@@ -42,7 +43,7 @@ abstract class HashFn extends StandardFunc {
         }
       }
       // non-streaming item, string
-      return new B64(md.digest(toBytes(item)));
+      return new B64(md.digest(toBytes(item == null ? null : item.atomItem(info))));
     } catch(final NoSuchAlgorithmException ex) {
       throw HASH_ALG_X.get(info, algo);
     }
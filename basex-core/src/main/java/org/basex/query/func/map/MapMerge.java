@@ -1,10 +1,13 @@
 package org.basex.query.func.map;
 
+import java.util.*;
+
 import org.basex.query.*;
 import org.basex.query.func.*;
 import org.basex.query.iter.*;
 import org.basex.query.value.item.*;
 import org.basex.query.value.map.*;
+import org.basex.query.value.map.Map;
 import org.basex.util.*;
 
 /**
@@ -21,10 +24,25 @@ public final class MapMerge extends StandardFunc {
     if(exprs.length > 1) new FuncOptions(info).acceptUnknown().assign(toMap(exprs[1], qc), opts);
 
     final MergeDuplicates merge = opts.get(MergeOptions.DUPLICATES);
-    Map map = Map.EMPTY;
+    final ArrayList<Map> list = new ArrayList<>();
+    long size = 0;
+    int max = 0;
     for(Item it; (it = maps.next()) != null;) {
-      map = map.addAll(toMap(it), merge, info);
+      final Map map = toMap(it);
+      list.add(map);
+      size += map.mapSize();
+      max = Math.max(max, map.mapSize());
+    }
+
+    // few additional entries: update persistent map
+    if(size - max < max >>> 3) {
+      Map map = Map.EMPTY;
+      for(final Map m : list) map = map.addAll(m, merge, info);
+      return map;
     }
-    return map;
+    // otherwise, use transient builder
+    final MapBuilder mb = new MapBuilder(info, (int) Math.min(size, 1 << 24));
+    for(final Map m : list) mb.add(m, merge);
+    return mb.finish();
   }
 }
@@ -2,6 +2,7 @@ package org.basex.query.func.util;
 
 import org.basex.query.*;
 import org.basex.query.expr.*;
+import org.basex.query.expr.gflwor.*;
 import org.basex.query.func.*;
 import org.basex.query.iter.*;
 import org.basex.query.value.item.*;
@@ -36,8 +37,15 @@ public final class UtilItemAt extends StandardFunc {
   }
 
   @Override
-  protected Expr opt(final CompileContext cc) {
-    seqType = exprs[0].seqType().withOcc(Occ.ZERO_ONE);
+  protected Expr opt(final CompileContext cc) throws QueryException {
+    final Expr ex = exprs[0];
+    seqType = ex.seqType().withOcc(Occ.ZERO_ONE);
+    // top-k evaluation: only sort the tuples that will be returned
+    if(ex instanceof GFLWOR && exprs[1].isValue()) {
+      final double ds = toDouble(exprs[1], cc.qc);
+      final long pos = (long) ds;
+      if(ds == pos) ((GFLWOR) ex).limit(pos, cc);
+    }
     return this;
   }
 }
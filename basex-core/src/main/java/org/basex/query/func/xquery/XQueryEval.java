@@ -5,6 +5,7 @@ import static org.basex.util.Token.*;
 
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.*;
 
 import org.basex.core.jobs.*;
 import org.basex.core.users.*;
@@ -81,7 +82,7 @@ public class XQueryEval extends StandardFunc {
 
     final User user = qc.context.user();
     final Perm tmp = user.perm("");
-    Timer to = null;
+    final ArrayList<ScheduledFuture<?>> tasks = new ArrayList<>(2);
 
     final Perm perm = Perm.get(opts.get(XQueryOptions.PERMISSION).toString());
     if(!user.has(perm)) throw BXXQ_PERM2_X.get(info, perm);
@@ -93,22 +94,20 @@ public class XQueryEval extends StandardFunc {
       if(mb != 0) {
         Performance.gc(2);
         final long limit = Performance.memory() + (mb << 20);
-        to = new Timer(true);
-        to.schedule(new TimerTask() {
+        tasks.add(qc.context.jobs.schedule(new Runnable() {
           @Override
           // limit reached: stop query
           public void run() { if(Performance.memory() > limit) qctx.memory(); }
-        }, 500, 500);
+        }, 500, 500));
       }
 
       // timeout
       final long ms = opts.get(XQueryOptions.TIMEOUT) * 1000L;
       if(ms != 0) {
-        if(to == null) to = new Timer(true);
-        to.schedule(new TimerTask() {
+        tasks.add(qc.context.jobs.schedule(new Runnable() {
           @Override
           public void run() { qctx.timeout(); }
-        }, ms);
+        }, ms, 0));
       }
 
       // base-uri: adopt specified uri, passed on uri, or uri from parent query
@@ -151,7 +150,7 @@ public class XQueryEval extends StandardFunc {
           ex.info(info);
       }
     } finally {
-      if(to != null) to.cancel();
+      for(final ScheduledFuture<?> task : tasks) task.cancel(false);
       user.perm(tmp, "");
     }
   }
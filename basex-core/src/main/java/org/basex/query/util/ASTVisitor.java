@@ -73,6 +73,16 @@ public abstract class ASTVisitor {
     return true;
   }
 
+  /**
+   * Notifies the visitor of a standard function call.
+   * @param func function
+   * @return if more expressions should be visited
+   */
+  @SuppressWarnings("unused")
+  public boolean standardFunc(final StandardFunc func) {
+    return true;
+  }
+
   /**
    * Notifies the visitor of a function item.
    * @param func the function item
@@ -1,6 +1,9 @@
 package org.basex.query.util;
 
+import java.util.*;
+
 import org.basex.data.*;
+import org.basex.index.path.*;
 
 /**
  * This class contains data required for index operations.
@@ -13,6 +16,8 @@ public final class IndexContext {
   public final Data data;
   /** Flag for iterative evaluation. */
   public final boolean iterable;
+  /** Path nodes of the step to be rewritten (can be {@code null}). */
+  public final ArrayList<PathNode> nodes;
 
   /**
    * Constructor.
@@ -20,7 +25,30 @@ public final class IndexContext {
    * @param iterable iterable flag
    */
   public IndexContext(final Data data, final boolean iterable) {
+    this(data, iterable, null);
+  }
+
+  /**
+   * Constructor.
+   * @param data data reference
+   * @param iterable iterable flag
+   * @param nodes path nodes of the step to be rewritten (can be {@code null})
+   */
+  public IndexContext(final Data data, final boolean iterable, final ArrayList<PathNode> nodes) {
     this.data = data;
     this.iterable = iterable;
+    this.nodes = nodes;
+  }
+
+  /**
+   * Returns the number of nodes that will be visited by a sequential scan.
+   * @param desc indicates if the path contains descendant steps
+   * @return number of nodes
+   */
+  public long scan(final boolean desc) {
+    if(desc || nodes == null) return data.meta.size;
+    long sz = 0;
+    for(final PathNode node : nodes) sz += node.stats.count;
+    return sz;
   }
 }
@@ -6,6 +6,8 @@ import java.util.*;
 
 import org.basex.data.*;
 import org.basex.index.*;
+import org.basex.index.name.*;
+import org.basex.index.path.*;
 import org.basex.index.query.*;
 import org.basex.index.stats.*;
 import org.basex.query.*;
@@ -29,6 +31,9 @@ import org.basex.util.hash.*;
  * @author Christian Gruen
  */
 public final class IndexInfo {
+  /** Maximum factor by which the costs of intersected index results may differ. */
+  public static final int INTERSECT = 8;
+
   /** Query context. */
   public final QueryContext qc;
   /** Index context. */
@@ -118,6 +123,7 @@ public final class IndexInfo {
     if(value.isValue()) {
       // loop through all items
       costs = 0;
+      final ArrayList<Stats> stats = type == IndexType.TOKEN ? null : pathStats();
       final Iter ir = value.iter(qc);
       final ArrayList<ValueAccess> tmp = new ArrayList<>();
       final TokenSet strings = new TokenSet();
@@ -133,10 +139,13 @@ public final class IndexInfo {
         // add only expressions that yield results and that have not been requested before
         if(!strings.contains(string)) {
           strings.put(string);
+          // skip strings that do not occur on the addressed paths
+          if(stats != null && !matches(stats, string)) continue;
           final int c = data.costs(new StringToken(type, string));
           if(c < 0) return false;
           if(c > 0) {
             final ValueAccess va = new ValueAccess(info, it, type, test, ic).trim(trim);
+            va.costs(c);
             tmp.add(va);
             if(c == 1) va.seqType = va.seqType().withOcc(Occ.ZERO_ONE);
             costs += c;
@@ -156,8 +165,10 @@ public final class IndexInfo {
       if(!value.seqType().type.isStringOrUntyped() || value.has(Flag.CTX) || value.has(Flag.NDT) ||
         value.has(Flag.UPD)) return false;
 
-      // estimate costs (tend to worst case)
-      costs = Math.max(1, data.meta.size / 10);
+      // estimate costs: average number of occurrences of a value (tend to worst case)
+      final Stats stats = type == IndexType.TOKEN ? null : stats(type);
+      costs = Math.max(2, stats == null ? data.meta.size / 10 :
+        stats.count / (stats.values != null ? Math.max(1, stats.values.size()) : data.meta.maxcats));
       root = new ValueAccess(info, value, type, test, ic);
     }
 
@@ -175,13 +186,144 @@ public final class IndexInfo {
   public void create(final ParseExpr root, final boolean parent, final InputInfo ii,
       final String opt) {
 
+    if(root instanceof IndexAccess) ((IndexAccess) root).costs(costs);
     expr = invert(test == null || !parent ? root :
       Path.get(ii, root, Step.get(ii, Axis.PARENT, test)));
     optInfo = opt;
   }
 
+  /**
+   * Returns the statistics of the element or attribute name addressed by the comparison.
+   * @param type index type ({@link IndexType#TEXT} or {@link IndexType#ATTRIBUTE})
+   * @return statistics, or {@code null} if no up-to-date statistics are available
+   */
+  public Stats stats(final IndexType type) {
+    // statistics are not up-to-date
+    final Data data = ic.data;
+    if(!data.meta.uptodate || !data.nspaces.isEmpty()) return null;
+
+    NameTest nt = test;
+    if(nt == null) {
+      if(!(pred instanceof AxisPath)) return null;
+      final Step st;
+      final AxisPath path = (AxisPath) pred;
+      final int sl = path.steps.length - 1;
+      if(type == IndexType.TEXT) {
+        st = sl == 0 ? step : path.step(sl - 1);
+        if(st.test.kind != Kind.NAME) return null;
+      } else {
+        st = path.step(sl);
+        if(!st.simple(Axis.ATTR, true)) return null;
+      }
+      nt = (NameTest) st.test;
+    }
+
+    final Names names = type == IndexType.TEXT ? data.elemNames : data.attrNames;
+    return names.stats(names.id(nt.name.local()));
+  }
+
+  /**
+   * Returns the statistics of the values that are addressed by the comparison, based on the
+   * path nodes of the step to be rewritten. Examples:
+   * <ul>
+   *   <li>{@code /xml/a[b = 'A']} -> text nodes of {@code /xml/a/b}</li>
+   *   <li>{@code /xml/a[@id = 'A']} -> attributes of {@code /xml/a/@id}</li>
+   * </ul>
+   * @return statistics, or {@code null} if no up-to-date statistics are available
+   */
+  public ArrayList<Stats> pathStats() {
+    final Data data = ic.data;
+    if(ic.nodes == null || !data.meta.uptodate || !data.nspaces.isEmpty()) return null;
+
+    ArrayList<PathNode> nodes = ic.nodes;
+    if(pred instanceof AxisPath) {
+      for(final Expr expr : ((AxisPath) pred).steps) {
+        if(!(expr instanceof Step)) return null;
+        final Step st = (Step) expr;
+        if(st.axis == Axis.CHILD && st.test == Test.TXT) {
+          nodes = children(nodes, Data.TEXT, 0);
+        } else if(st.test.kind == Kind.NAME && st.axis == Axis.CHILD) {
+          nodes = children(nodes, Data.ELEM, data.elemNames.id(st.test.name.local()));
+        } else if(st.test.kind == Kind.NAME && st.axis == Axis.ATTR) {
+          nodes = children(nodes, Data.ATTR, data.attrNames.id(st.test.name.local()));
+        } else {
+          return null;
+        }
+      }
+    } else if(!(pred instanceof ContextValue)) {
+      return null;
+    }
+
+    final ArrayList<Stats> stats = new ArrayList<>(nodes.size());
+    for(final PathNode node : nodes) {
+      if(node.kind == Data.ELEM) {
+        // element: choose text nodes
+        for(final PathNode child : node.children) {
+          if(child.kind == Data.TEXT) stats.add(child.stats);
+        }
+      } else {
+        stats.add(node.stats);
+      }
+    }
+    return stats;
+  }
+
   // PRIVATE METHODS ==============================================================================
 
+  /**
+   * Returns the child path nodes with the specified kind and name.
+   * @param nodes path nodes
+   * @param kind node kind
+   * @param name name id ({@code 0} for text nodes)
+   * @return child nodes
+   */
+  private static ArrayList<PathNode> children(final ArrayList<PathNode> nodes, final byte kind,
+      final int name) {
+    final ArrayList<PathNode> list = new ArrayList<>();
+    for(final PathNode node : nodes) {
+      for(final PathNode child : node.children) {
+        if(child.kind == kind && child.name == name) list.add(child);
+      }
+    }
+    return list;
+  }
+
+  /**
+   * Checks if the specified string may occur in the values described by the statistics.
+   * @param stats statistics
+   * @param string string
+   * @return result of check
+   */
+  private static boolean matches(final ArrayList<Stats> stats, final byte[] string) {
+    for(final Stats st : stats) {
+      if(matches(st, string)) return true;
+    }
+    return false;
+  }
+
+  /**
+   * Checks if the specified string may occur in the values described by the statistics.
+   * @param stats statistics
+   * @param string string
+   * @return result of check
+   */
+  private static boolean matches(final Stats stats, final byte[] string) {
+    final byte type = stats.type;
+    // distinct values are known
+    if(stats.values != null) return stats.values.get(string) != -1;
+    // no values, or values out of range
+    if(StatsType.isNone(type)) return false;
+    if(StatsType.isInteger(type)) {
+      final long l = Token.toLong(string);
+      return l != Long.MIN_VALUE && l >= stats.min && l <= stats.max;
+    }
+    if(StatsType.isDouble(type)) {
+      final double d = Token.toDouble(string);
+      return d >= stats.min && d <= stats.max;
+    }
+    return true;
+  }
+
   /**
    * Checks if the specified expression can be rewritten for index access.
    * @param type index type
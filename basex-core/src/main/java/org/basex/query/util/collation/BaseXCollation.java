@@ -4,7 +4,6 @@ import static org.basex.query.QueryError.*;
 import static org.basex.util.Token.*;
 
 import java.text.*;
-import java.util.*;
 
 import org.basex.query.*;
 import org.basex.util.*;
@@ -17,13 +16,13 @@ import org.basex.util.*;
  */
 final class BaseXCollation extends Collation {
   /** Collator. */
-  private final Comparator<Object> collator;
+  private final Collator collator;
 
   /**
    * Private Constructor.
    * @param collator collator
    */
-  BaseXCollation(final Comparator<Object> collator) {
+  BaseXCollation(final Collator collator) {
     this.collator = collator;
   }
 
@@ -32,6 +31,11 @@ final class BaseXCollation extends Collation {
     return collator.compare(string(string), string(compare));
   }
 
+  @Override
+  protected byte[] key(final String string) {
+    return collator.getCollationKey(string).toByteArray();
+  }
+
   @Override
   protected int indexOf(final String string, final String contains, final Mode mode,
       final InputInfo info) throws QueryException {
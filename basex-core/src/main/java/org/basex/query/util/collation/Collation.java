@@ -197,6 +197,15 @@ public abstract class Collation {
    */
   public abstract int compare(final byte[] string, final byte[] compare);
 
+  /**
+   * Returns the collation key of the specified string. Keys can be compared bytewise via
+   * {@link Token#diff(byte[], byte[])}, yielding the same results as {@link #compare}.
+   * Keys should be retrieved via {@link CollationKeys}, which caches recently used keys.
+   * @param string string
+   * @return key
+   */
+  protected abstract byte[] key(final String string);
+
   /**
    * Returns the start or end position of the specified substring.
    * @param string string
@@ -7,6 +7,7 @@ import org.basex.query.util.hash.*;
 import org.basex.query.util.list.*;
 import org.basex.query.value.item.*;
 import org.basex.util.*;
+import org.basex.util.hash.*;
 
 /**
  * This set indexes items under the terms of a collation.
@@ -17,8 +18,12 @@ import org.basex.util.*;
 public final class CollationItemSet implements ItemSet {
   /** Items. */
   private final ItemList items = new ItemList();
+  /** Collation keys of strings. */
+  private final TokenSet keys = new TokenSet();
   /** Collation. */
   private final Collation coll;
+  /** Collation key cache. */
+  private final CollationKeys ck;
 
   /**
    * Constructor.
@@ -26,10 +31,19 @@ public final class CollationItemSet implements ItemSet {
    */
   public CollationItemSet(final Collation coll) {
     this.coll = coll;
+    ck = new CollationKeys(coll);
   }
 
   @Override
   public boolean add(final Item item, final InputInfo ii) throws QueryException {
+    // strings: compare collation keys
+    if(item.type.isStringOrUntyped()) {
+      if(!keys.add(ck.key(item.string(ii)))) return false;
+      items.add(item);
+      return true;
+    }
+
+    // other items: compare with all items that have been added before
     final int is = items.size();
     for(int id = 0; id < is; id++) {
       if(items.get(id).equiv(item, coll, ii)) return false;
@@ -0,0 +1,52 @@
+package org.basex.query.util.collation;
+
+import java.util.*;
+
+import org.basex.util.*;
+
+/**
+ * Collation keys of a single operation (sorting, grouping, deduplication).
+ * Keys are computed once per string and can then be compared bytewise. The keys of
+ * recently used strings are kept in a small LRU cache, as input strings often repeat.
+ *
+ * @author BaseX Team 2005-16, BSD License
+ * @author Christian Gruen
+ */
+public final class CollationKeys {
+  /** Maximum number of cached keys. */
+  private static final int CACHE = 1 << 10;
+
+  /** Collation. */
+  private final Collation coll;
+  /** Cached keys (in access order). */
+  private final LinkedHashMap<String, byte[]> cache =
+      new LinkedHashMap<String, byte[]>(CACHE, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(final Map.Entry<String, byte[]> eldest) {
+      return size() > CACHE;
+    }
+  };
+
+  /**
+   * Constructor.
+   * @param coll collation
+   */
+  public CollationKeys(final Collation coll) {
+    this.coll = coll;
+  }
+
+  /**
+   * Returns the collation key of the specified string.
+   * @param string string
+   * @return key
+   */
+  public byte[] key(final byte[] string) {
+    final String str = Token.string(string);
+    byte[] key = cache.get(str);
+    if(key == null) {
+      key = coll.key(str);
+      cache.put(str, key);
+    }
+    return key;
+  }
+}
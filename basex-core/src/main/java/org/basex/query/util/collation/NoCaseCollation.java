@@ -22,6 +22,20 @@ final class NoCaseCollation extends Collation {
     return tl - cl;
   }
 
+  @Override
+  protected byte[] key(final String string) {
+    // characters are converted to upper case and stored as big-endian 16-bit values
+    final int sl = string.length();
+    final byte[] key = new byte[sl << 1];
+    for(int s = 0; s < sl; s++) {
+      final char ch = string.charAt(s);
+      final int c = ch >= 'a' && ch <= 'z' ? ch - 0x20 : ch;
+      key[s << 1] = (byte) (c >>> 8);
+      key[(s << 1) + 1] = (byte) c;
+    }
+    return key;
+  }
+
   @Override
   protected int indexOf(final String string, final String sub, final Mode mode,
       final InputInfo info) {
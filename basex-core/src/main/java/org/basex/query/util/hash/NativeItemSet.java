@@ -0,0 +1,111 @@
+package org.basex.query.util.hash;
+
+import java.util.*;
+
+import org.basex.query.*;
+import org.basex.query.value.item.*;
+import org.basex.util.*;
+import org.basex.util.hash.*;
+
+/**
+ * Item set for distinct values. As long as all items are integers, doubles, or strings, their
+ * primitive values are stored in a {@link LongSet} or {@link TokenSet}. Otherwise, the values
+ * are transferred to a {@link HashItemSet}.
+ *
+ * @author BaseX Team 2005-16, BSD License
+ * @author Christian Gruen
+ */
+public final class NativeItemSet implements ItemSet {
+  /** No item has been added yet. */
+  private static final int EMPTY = 0;
+  /** Integers. */
+  private static final int INTEGERS = 1;
+  /** Doubles. */
+  private static final int DOUBLES = 2;
+  /** Strings and untyped atomics. */
+  private static final int STRINGS = 3;
+  /** Generic items. */
+  private static final int GENERIC = 4;
+
+  /** Current mode. */
+  private int mode = EMPTY;
+  /** Integers and double bits. */
+  private LongSet longs;
+  /** Strings. */
+  private TokenSet tokens;
+  /** Generic items. */
+  private HashItemSet items;
+
+  @Override
+  public boolean add(final Item key, final InputInfo ii) throws QueryException {
+    final int m = mode(key);
+    if(mode == EMPTY) {
+      mode = m;
+      if(m == STRINGS) tokens = new TokenSet();
+      else if(m != GENERIC) longs = new LongSet();
+      else items = new HashItemSet();
+    } else if(m != mode) {
+      generic(ii);
+    }
+
+    switch(mode) {
+      case INTEGERS: return longs.add(key.itr(ii));
+      case DOUBLES:  return longs.add(bits(key.dbl(ii)));
+      case STRINGS:  return tokens.add(key.string(ii));
+      default:       return items.add(key, ii);
+    }
+  }
+
+  @Override
+  public Iterator<Item> iterator() {
+    try {
+      return generic(null).iterator();
+    } catch(final QueryException ex) {
+      throw Util.notExpected(ex);
+    }
+  }
+
+  /**
+   * Transfers all values to a generic item set.
+   * @param ii input info
+   * @return generic item set
+   * @throws QueryException query exception
+   */
+  private HashItemSet generic(final InputInfo ii) throws QueryException {
+    if(items == null) {
+      items = new HashItemSet();
+      if(longs != null) {
+        final int sz = longs.size();
+        for(int i = 1; i <= sz; i++) {
+          final long l = longs.key(i);
+          items.add(mode == INTEGERS ? Int.get(l) : Dbl.get(Double.longBitsToDouble(l)), ii);
+        }
+      } else if(tokens != null) {
+        for(final byte[] token : tokens) items.add(Str.get(token), ii);
+      }
+      longs = null;
+      tokens = null;
+    }
+    mode = GENERIC;
+    return items;
+  }
+
+  /**
+   * Returns the mode for the specified item.
+   * @param item item
+   * @return mode
+   */
+  private static int mode(final Item item) {
+    return item instanceof Int ? INTEGERS : item instanceof Dbl ? DOUBLES :
+      item.type.isStringOrUntyped() ? STRINGS : GENERIC;
+  }
+
+  /**
+   * Returns the bits of a double. Positive and negative zero and all NaN values are unified.
+   * @param d double
+   * @return bits
+   */
+  private static long bits(final double d) {
+    return Double.doubleToLongBits(d == 0 ? 0 : d);
+  }
+}
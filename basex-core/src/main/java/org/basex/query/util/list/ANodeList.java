@@ -6,6 +6,7 @@ import org.basex.data.*;
 import org.basex.query.iter.*;
 import org.basex.query.value.*;
 import org.basex.query.value.node.*;
+import org.basex.query.value.seq.*;
 import org.basex.query.value.type.*;
 import org.basex.util.*;
 import org.basex.util.list.*;
@@ -115,7 +116,13 @@ public final class ANodeList extends ElementList implements Iterable<ANode> {
    * @return array
    */
   public Value value() {
+    final boolean ordered = check;
     sort();
+    if(size > 1) {
+      // compact representation of database nodes
+      final Value value = DBNodeRunSeq.get(list, size, ordered);
+      if(value != null) return value;
+    }
     return ValueBuilder.value(list, size, NodeType.NOD);
   }
 
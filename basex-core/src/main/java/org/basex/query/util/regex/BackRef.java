@@ -22,4 +22,9 @@ public final class BackRef extends RegExp {
   void toRegEx(final StringBuilder sb) {
     sb.append('\\').append(num);
   }
+
+  @Override
+  void compile(final NFA nfa) {
+    nfa.unsupported();
+  }
 }
@@ -22,4 +22,9 @@ public final class Branch extends RegExp {
   void toRegEx(final StringBuilder sb) {
     for(final RegExp piece : pieces) piece.toRegEx(sb);
   }
+
+  @Override
+  void compile(final NFA nfa) {
+    for(final RegExp piece : pieces) piece.compile(nfa);
+  }
 }
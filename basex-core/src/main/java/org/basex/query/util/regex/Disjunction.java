@@ -24,4 +24,9 @@ public final class Disjunction extends RegExp {
     final int bl = branches.length;
     for(int b = 1; b < bl; b++) branches[b].toRegEx(sb.append('|'));
   }
+
+  @Override
+  void compile(final NFA nfa) {
+    nfa.alternatives(branches);
+  }
 }
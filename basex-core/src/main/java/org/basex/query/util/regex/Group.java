@@ -28,4 +28,10 @@ public final class Group extends RegExp {
     encl.toRegEx(sb);
     sb.append(')');
   }
+
+  @Override
+  void compile(final NFA nfa) {
+    if(capture) nfa.group(encl);
+    else encl.compile(nfa);
+  }
 }
@@ -40,4 +40,9 @@ public final class LineBorder extends RegExp {
   void toRegEx(final StringBuilder sb) {
     sb.append(start ? "^" : multi ? "$" : "(?:$(?!\\s))");
   }
+
+  @Override
+  void compile(final NFA nfa) {
+    nfa.border(start, multi);
+  }
 }
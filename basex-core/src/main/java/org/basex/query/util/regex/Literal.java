@@ -23,6 +23,11 @@ public final class Literal extends RegExp {
     sb.append(escape(codepoint));
   }
 
+  @Override
+  void compile(final NFA nfa) {
+    nfa.literal(codepoint);
+  }
+
   /**
    * Escapes the given code point for a regular expression.
    * @param cp code point
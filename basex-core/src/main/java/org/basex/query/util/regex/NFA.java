@@ -0,0 +1,313 @@
+package org.basex.query.util.regex;
+
+import static java.util.regex.Pattern.*;
+
+import java.util.*;
+import java.util.regex.*;
+
+import org.basex.util.list.*;
+
+/**
+ * Nondeterministic finite automaton for regular expressions without back-references.
+ * The instructions are executed by an {@link NFAMatcher}, which runs all alternatives in
+ * parallel and takes linear time in the length of the input.
+ *
+ * @author BaseX Team 2005-16, BSD License
+ * @author Christian Gruen
+ */
+public final class NFA {
+  /** Maximum number of instructions. */
+  private static final int MAX = 1 << 12;
+
+  /** Instruction: code point. */
+  static final int CHAR = 0;
+  /** Instruction: character test. */
+  static final int TEST = 1;
+  /** Instruction: alternatives (first target is preferred). */
+  static final int SPLIT = 2;
+  /** Instruction: jump. */
+  static final int JUMP = 3;
+  /** Instruction: save current position. */
+  static final int SAVE = 4;
+  /** Instruction: start of input. */
+  static final int BEGIN = 5;
+  /** Instruction: start of line. */
+  static final int LINE_START = 6;
+  /** Instruction: end of input. */
+  static final int END = 7;
+  /** Instruction: end of line. */
+  static final int LINE_END = 8;
+  /** Instruction: match. */
+  static final int MATCH = 9;
+
+  /** Pattern flags. */
+  final int flags;
+  /** Opcodes. */
+  int[] ops = new int[16];
+  /** First arguments. */
+  int[] args = new int[16];
+  /** Second arguments. */
+  int[] args2 = new int[16];
+  /** Character tests. */
+  final ArrayList<CharTest> tests = new ArrayList<>();
+  /** Number of instructions. */
+  int size;
+  /** Number of capturing groups. */
+  int groups;
+
+  /** Indices of character tests. */
+  private final HashMap<String, Integer> testIds = new HashMap<>();
+  /** Indicates if the expression can be represented as automaton. */
+  private boolean supported = true;
+
+  /**
+   * Constructor.
+   * @param flags pattern flags
+   */
+  private NFA(final int flags) {
+    this.flags = flags;
+  }
+
+  /**
+   * Returns an automaton for the specified expression.
+   * @param regex regular expression
+   * @param flags pattern flags
+   * @return automaton, or {@code null} if the expression contains back-references or is too
+   *   complex
+   */
+  public static NFA get(final RegExp regex, final int flags) {
+    final NFA nfa = new NFA(flags);
+    nfa.add(SAVE, 0, 0);
+    regex.compile(nfa);
+    nfa.add(SAVE, 1, 0);
+    nfa.add(MATCH, 0, 0);
+    return nfa.supported ? nfa : null;
+  }
+
+  /**
+   * Returns a matcher for the specified input.
+   * @param input input
+   * @return matcher
+   */
+  public NFAMatcher matcher(final String input) {
+    return new NFAMatcher(this, input);
+  }
+
+  /**
+   * Indicates that the expression cannot be represented as automaton.
+   */
+  void unsupported() {
+    supported = false;
+  }
+
+  /**
+   * Adds a code point.
+   * @param cp code point
+   */
+  void literal(final int cp) {
+    if((flags & CASE_INSENSITIVE) == 0) add(CHAR, cp, 0);
+    else test(Literal.escape(cp));
+  }
+
+  /**
+   * Adds a test for a single character.
+   * @param regex Java representation of the character test
+   */
+  void test(final String regex) {
+    Integer id = testIds.get(regex);
+    if(id == null) {
+      id = tests.size();
+      tests.add(new CharTest(Pattern.compile(regex, flags & (CASE_INSENSITIVE | UNICODE_CASE |
+          DOTALL))));
+      testIds.put(regex, id);
+    }
+    add(TEST, id, 0);
+  }
+
+  /**
+   * Adds a line border.
+   * @param start start flag
+   * @param multi multi-line flag
+   */
+  void border(final boolean start, final boolean multi) {
+    add(start ? multi ? LINE_START : BEGIN : multi ? LINE_END : END, 0, 0);
+  }
+
+  /**
+   * Adds a capturing group.
+   * @param encl enclosed expression
+   */
+  void group(final RegExp encl) {
+    final int g = ++groups;
+    add(SAVE, g << 1, 0);
+    encl.compile(this);
+    add(SAVE, (g << 1) + 1, 0);
+  }
+
+  /**
+   * Adds alternative branches.
+   * @param branches branches
+   */
+  void alternatives(final RegExp[] branches) {
+    final int bl = branches.length - 1;
+    final int[] jumps = new int[bl];
+    for(int b = 0; b < bl; b++) {
+      final int split = add(SPLIT, size + 1, 0);
+      branches[b].compile(this);
+      jumps[b] = add(JUMP, 0, 0);
+      args2[split] = size;
+    }
+    branches[bl].compile(this);
+    for(final int jump : jumps) args[jump] = size;
+  }
+
+  /**
+   * Repeats the instructions of an atom, starting from the specified position.
+   * @param start position of the first instruction of the atom
+   * @param min minimum number of occurrences
+   * @param max maximum number of occurrences ({@code -1}: unbounded)
+   * @param lazy lazy flag
+   */
+  void repeat(final int start, final int min, final int max, final boolean lazy) {
+    // cut the atom
+    final int al = size - start;
+    final int[] o = Arrays.copyOfRange(ops, start, size);
+    final int[] a = Arrays.copyOfRange(args, start, size);
+    final int[] a2 = Arrays.copyOfRange(args2, start, size);
+    size = start;
+
+    // repeated atoms that match the empty string are not supported: if an iteration is empty,
+    // Java stops iterating (even if the minimum has not been reached yet)
+    if((long) al * (max == -1 ? min + 1 : max) + size > MAX || max != 1 && empty(o, a, a2, start)) {
+      unsupported();
+      return;
+    }
+    for(int m = 0; m < min; m++) paste(o, a, a2, start);
+    if(max == -1) {
+      final int split = add(SPLIT, 0, 0);
+      paste(o, a, a2, start);
+      add(JUMP, split, 0);
+      branch(split, split + 1, lazy);
+    } else {
+      final int[] splits = new int[max - min];
+      for(int m = min; m < max; m++) {
+        splits[m - min] = add(SPLIT, 0, 0);
+        paste(o, a, a2, start);
+      }
+      for(final int split : splits) branch(split, split + 1, lazy);
+    }
+  }
+
+  /**
+   * Checks if the specified instructions can be passed without consuming characters.
+   * @param o opcodes
+   * @param a first arguments (relative to the first instruction)
+   * @param a2 second arguments (relative to the first instruction)
+   * @param start original position of the first instruction
+   * @return result of check
+   */
+  private static boolean empty(final int[] o, final int[] a, final int[] a2, final int start) {
+    final int ol = o.length;
+    final boolean[] visited = new boolean[ol + 1];
+    final IntList stack = new IntList();
+    stack.add(0);
+    while(!stack.isEmpty()) {
+      final int pc = stack.pop();
+      if(pc == ol) return true;
+      if(visited[pc]) continue;
+      visited[pc] = true;
+      final int op = o[pc];
+      if(op == JUMP || op == SPLIT) stack.add(a[pc] - start);
+      if(op == SPLIT) stack.add(a2[pc] - start);
+      if(op != JUMP && op != SPLIT && op != CHAR && op != TEST) stack.add(pc + 1);
+    }
+    return false;
+  }
+
+  /**
+   * Assigns the targets of a split instruction.
+   * @param split position of the split instruction
+   * @param body position of the quantified atom
+   * @param lazy lazy flag
+   */
+  private void branch(final int split, final int body, final boolean lazy) {
+    args[split] = lazy ? size : body;
+    args2[split] = lazy ? body : size;
+  }
+
+  /**
+   * Appends copied instructions and relocates their jump targets.
+   * @param o opcodes
+   * @param a first arguments
+   * @param a2 second arguments
+   * @param start original position of the first instruction
+   */
+  private void paste(final int[] o, final int[] a, final int[] a2, final int start) {
+    final int off = size - start, ol = o.length;
+    for(int i = 0; i < ol; i++) {
+      final int op = o[i];
+      final boolean jump = op == SPLIT || op == JUMP;
+      add(op, jump ? a[i] + off : a[i], op == SPLIT ? a2[i] + off : a2[i]);
+    }
+  }
+
+  /**
+   * Adds an instruction.
+   * @param op opcode
+   * @param arg first argument
+   * @param arg2 second argument
+   * @return position of the instruction
+   */
+  private int add(final int op, final int arg, final int arg2) {
+    if(size == ops.length) {
+      final int s = size << 1;
+      ops = Arrays.copyOf(ops, s);
+      args = Arrays.copyOf(args, s);
+      args2 = Arrays.copyOf(args2, s);
+    }
+    if(size == MAX) unsupported();
+    ops[size] = op;
+    args[size] = arg;
+    args2[size] = arg2;
+    return size++;
+  }
+
+  /**
+   * Test for single characters. The results for Latin-1 characters are precomputed.
+   */
+  static final class CharTest {
+    /** Pattern for a single character. */
+    private final Pattern pattern;
+    /** Results for Latin-1 characters. */
+    private final long[] latin = new long[4];
+
+    /**
+     * Constructor.
+     * @param pattern pattern for a single character
+     */
+    CharTest(final Pattern pattern) {
+      this.pattern = pattern;
+      for(int cp = 0; cp < 256; cp++) {
+        if(test(cp)) latin[cp >>> 6] |= 1L << cp;
+      }
+    }
+
+    /**
+     * Checks if the specified code point matches.
+     * @param cp code point
+     * @return result of check
+     */
+    boolean matches(final int cp) {
+      return cp < 256 ? (latin[cp >>> 6] & 1L << cp) != 0 : test(cp);
+    }
+
+    /**
+     * Tests a code point.
+     * @param cp code point
+     * @return result of check
+     */
+    private boolean test(final int cp) {
+      return pattern.matcher(new String(Character.toChars(cp))).matches();
+    }
+  }
+}
@@ -0,0 +1,319 @@
+package org.basex.query.util.regex;
+
+import static org.basex.query.util.regex.NFA.*;
+
+import java.util.*;
+
+/**
+ * Matcher for an {@link NFA}. All threads of the automaton are advanced in parallel, one
+ * code point at a time, and threads that reach the same instruction are merged. The threads
+ * are ordered by priority, such that the same matches are found as by a backtracking matcher.
+ * The API resembles the one of {@link java.util.regex.Matcher}.
+ *
+ * @author BaseX Team 2005-16, BSD License
+ * @author Christian Gruen
+ */
+public final class NFAMatcher {
+  /** Automaton. */
+  private final NFA nfa;
+  /** Input. */
+  private final String input;
+  /** Length of the input. */
+  private final int length;
+  /** Initial captures. */
+  private final int[] init;
+
+  /** Current threads. */
+  private Threads current;
+  /** Threads for the next position. */
+  private Threads next;
+  /** Generations in which instructions were visited. */
+  private final int[] marks;
+  /** Current generation. */
+  private int gen;
+  /** Stack with pending instructions. */
+  private final int[] stackPcs;
+  /** Stack with captures of pending instructions. */
+  private final int[][] stackCaps;
+
+  /** Captures of the last match ({@code null}: no match). */
+  private int[] match;
+  /** Start of the last match. */
+  private int first = -1;
+  /** End of the last match. */
+  private int last;
+
+  /**
+   * Constructor.
+   * @param nfa automaton
+   * @param input input
+   */
+  NFAMatcher(final NFA nfa, final String input) {
+    this.nfa = nfa;
+    this.input = input;
+    length = input.length();
+    init = new int[nfa.groups + 1 << 1];
+    Arrays.fill(init, -1);
+
+    final int size = nfa.size;
+    current = new Threads(size);
+    next = new Threads(size);
+    marks = new int[size];
+    stackPcs = new int[size + 1];
+    stackCaps = new int[size + 1][];
+  }
+
+  /**
+   * Finds the next match.
+   * @return result of check
+   */
+  public boolean find() {
+    int from = last;
+    if(from == first) from++;
+    match = from > length ? null : search(from);
+    if(match == null) return false;
+    first = match[0];
+    last = match[1];
+    return true;
+  }
+
+  /**
+   * Returns the start offset of the last match.
+   * @return offset
+   */
+  public int start() {
+    return start(0);
+  }
+
+  /**
+   * Returns the end offset of the last match.
+   * @return offset
+   */
+  public int end() {
+    return end(0);
+  }
+
+  /**
+   * Returns the start offset of a group of the last match.
+   * @param group group
+   * @return offset ({@code -1} if the group did not participate in the match)
+   */
+  public int start(final int group) {
+    return capture(group << 1);
+  }
+
+  /**
+   * Returns the end offset of a group of the last match.
+   * @param group group
+   * @return offset ({@code -1} if the group did not participate in the match)
+   */
+  public int end(final int group) {
+    return capture((group << 1) + 1);
+  }
+
+  /**
+   * Returns the number of capturing groups.
+   * @return number of groups
+   */
+  public int groupCount() {
+    return nfa.groups;
+  }
+
+  /**
+   * Replaces all matches with the specified replacement. {@code $} followed by digits refers
+   * to a group, and {@code \} escapes the next character.
+   * @param replacement replacement
+   * @return resulting string
+   */
+  public String replaceAll(final String replacement) {
+    if(!find()) return input;
+
+    final StringBuilder sb = new StringBuilder();
+    final int rl = replacement.length();
+    int s = 0;
+    do {
+      sb.append(input, s, start());
+      for(int r = 0; r < rl;) {
+        char ch = replacement.charAt(r++);
+        if(ch == '\\') {
+          if(r == rl) throw new IllegalArgumentException("Character to be escaped is missing");
+          sb.append(replacement.charAt(r++));
+        } else if(ch == '$') {
+          if(r == rl) throw new IllegalArgumentException("Group index is missing");
+          ch = replacement.charAt(r++);
+          if(ch < '0' || ch > '9') throw new IllegalArgumentException("Illegal group reference");
+          int group = ch - '0';
+          // consume further digits as long as they refer to an existing group
+          for(; r < rl; r++) {
+            ch = replacement.charAt(r);
+            if(ch < '0' || ch > '9') break;
+            final int g = group * 10 + ch - '0';
+            if(g > nfa.groups) break;
+            group = g;
+          }
+          final int gs = start(group), ge = end(group);
+          if(gs != -1 && ge != -1) sb.append(input, gs, ge);
+        } else {
+          sb.append(ch);
+        }
+      }
+      s = end();
+    } while(find());
+    return sb.append(input, s, length).toString();
+  }
+
+  /**
+   * Returns a capture of the last match.
+   * @param c index of the capture
+   * @return offset
+   */
+  private int capture(final int c) {
+    if(match == null) throw new IllegalStateException("No match available");
+    if(c >= match.length) throw new IndexOutOfBoundsException("No group " + (c >>> 1));
+    return match[c];
+  }
+
+  /**
+   * Searches for the leftmost match, starting from the specified position.
+   * @param from start position
+   * @return captures of the match, or {@code null}
+   */
+  private int[] search(final int from) {
+    final int[] ops = nfa.ops, args = nfa.args;
+    final ArrayList<NFA.CharTest> tests = nfa.tests;
+
+    int[] result = null;
+    current.size = 0;
+    gen++;
+    for(int i = from;;) {
+      // start a new thread with lowest priority until a match has been found
+      if(result == null) add(current, 0, i, init);
+
+      final int cp = i < length ? input.codePointAt(i) : -1;
+      final int n = cp > 0xFFFF ? i + 2 : i + 1;
+      gen++;
+      final Threads cl = current, nl = next;
+      nl.size = 0;
+      final int cs = cl.size;
+      for(int t = 0; t < cs; t++) {
+        final int pc = cl.pcs[t];
+        final int op = ops[pc];
+        if(op == CHAR) {
+          if(cp == args[pc]) add(nl, pc + 1, n, cl.caps[t]);
+        } else if(op == TEST) {
+          if(cp != -1 && tests.get(args[pc]).matches(cp)) add(nl, pc + 1, n, cl.caps[t]);
+        } else {
+          // match found: discard all threads with lower priority
+          result = cl.caps[t];
+          break;
+        }
+      }
+      current = nl;
+      next = cl;
+      if(cp == -1 || result != null && nl.size == 0) break;
+      i = n;
+    }
+    return result;
+  }
+
+  /**
+   * Adds a thread and follows all instructions that do not consume input.
+   * @param threads threads
+   * @param start instruction
+   * @param pos current position
+   * @param caps captures
+   */
+  private void add(final Threads threads, final int start, final int pos, final int[] caps) {
+    final int[] ops = nfa.ops, args = nfa.args, args2 = nfa.args2;
+    int sp = 0;
+    stackPcs[sp] = start;
+    stackCaps[sp++] = caps;
+    while(sp > 0) {
+      int pc = stackPcs[--sp];
+      int[] cps = stackCaps[sp];
+      stackCaps[sp] = null;
+      while(marks[pc] != gen) {
+        marks[pc] = gen;
+        final int op = ops[pc];
+        if(op == JUMP) {
+          pc = args[pc];
+        } else if(op == SPLIT) {
+          stackPcs[sp] = args2[pc];
+          stackCaps[sp++] = cps;
+          pc = args[pc];
+        } else if(op == SAVE) {
+          cps = cps.clone();
+          cps[args[pc]] = pos;
+          pc++;
+        } else if(op == CHAR || op == TEST || op == MATCH) {
+          threads.add(pc, cps);
+          break;
+        } else if(border(op, pos)) {
+          pc++;
+        } else {
+          break;
+        }
+      }
+    }
+  }
+
+  /**
+   * Checks if a line border matches at the specified position. The semantics of
+   * {@link java.util.regex.Pattern} are adopted.
+   * @param op opcode
+   * @param pos position
+   * @return result of check
+   */
+  private boolean border(final int op, final int pos) {
+    switch(op) {
+      case BEGIN:
+        return pos == 0;
+      case LINE_START:
+        if(pos == length) return false;
+        if(pos == 0) return true;
+        final char pr = input.charAt(pos - 1);
+        return pr == '\r' ? input.charAt(pos) != '\n' : pr == '\n' || pr == '\u0085' ||
+          (pr | 1) == '\u2029';
+      case END:
+        if(pos == length) return true;
+        final char ch = input.charAt(pos);
+        return pos == length - 1 && (ch == '\u0085' || (ch | 1) == '\u2029');
+      default:
+        if(pos == length) return true;
+        final char c = input.charAt(pos);
+        return c == '\n' ? pos == 0 || input.charAt(pos - 1) != '\r' :
+          c == '\r' || c == '\u0085' || (c | 1) == '\u2029';
+    }
+  }
+
+  /**
+   * Threads, ordered by priority.
+   */
+  private static final class Threads {
+    /** Instructions. */
+    final int[] pcs;
+    /** Captures. */
+    final int[][] caps;
+    /** Number of threads. */
+    int size;
+
+    /**
+     * Constructor.
+     * @param capacity maximum number of threads
+     */
+    Threads(final int capacity) {
+      pcs = new int[capacity];
+      caps = new int[capacity][];
+    }
+
+    /**
+     * Adds a thread.
+     * @param pc instruction
+     * @param cps captures
+     */
+    void add(final int pc, final int[] cps) {
+      pcs[size] = pc;
+      caps[size++] = cps;
+    }
+  }
+}
@@ -27,4 +27,11 @@ public final class Piece extends RegExp {
     atom.toRegEx(sb);
     quant.toRegEx(sb);
   }
+
+  @Override
+  void compile(final NFA nfa) {
+    final int start = nfa.size;
+    atom.compile(nfa);
+    quant.compile(nfa, start);
+  }
 }
@@ -31,6 +31,15 @@ public final class Quantifier extends RegExp {
     sb.append(string()).append(lazy ? "?" : "");
   }
 
+  /**
+   * Repeats the compiled instructions of the quantified atom.
+   * @param nfa automaton
+   * @param start position of the first instruction of the atom
+   */
+  void compile(final NFA nfa, final int start) {
+    nfa.repeat(start, min, max, lazy);
+  }
+
   /**
    * Translates the occurrence bounds to a regex string.
    * @return regex representation
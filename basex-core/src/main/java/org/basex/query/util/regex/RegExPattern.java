@@ -0,0 +1,47 @@
+package org.basex.query.util.regex;
+
+import java.util.regex.*;
+
+/**
+ * Compiled regular expression. Consists of a Java pattern and, optionally, an automaton that
+ * matches in linear time.
+ *
+ * @author BaseX Team 2005-16, BSD License
+ * @author Christian Gruen
+ */
+public final class RegExPattern {
+  /** Java pattern. */
+  public final Pattern pattern;
+  /** Automaton ({@code null} if the expression is matched by the Java pattern). */
+  public final NFA nfa;
+
+  /**
+   * Constructor.
+   * @param pattern Java pattern
+   * @param nfa automaton (can be {@code null})
+   */
+  public RegExPattern(final Pattern pattern, final NFA nfa) {
+    this.pattern = pattern;
+    this.nfa = nfa;
+  }
+
+  /**
+   * Checks if the input contains a match.
+   * @param input input
+   * @return result of check
+   */
+  public boolean find(final String input) {
+    return nfa != null ? nfa.matcher(input).find() : pattern.matcher(input).find();
+  }
+
+  /**
+   * Replaces all matches of the input.
+   * @param input input
+   * @param replacement replacement
+   * @return resulting string
+   */
+  public String replaceAll(final String input, final String replacement) {
+    return nfa != null ? nfa.matcher(input).replaceAll(replacement) :
+      pattern.matcher(input).replaceAll(replacement);
+  }
+}
@@ -17,4 +17,13 @@ public abstract class RegExp {
    * @param sb string builder
    */
   abstract void toRegEx(StringBuilder sb);
+
+  /**
+   * Compiles this expression to instructions of an automaton.
+   * By default, the expression is compiled to a test for a single character.
+   * @param nfa automaton
+   */
+  void compile(final NFA nfa) {
+    nfa.test(toString());
+  }
 }
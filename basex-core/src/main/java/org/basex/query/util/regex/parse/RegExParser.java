@@ -31,17 +31,17 @@ public class RegExParser implements RegExParserConstants {
   private boolean multiLine;
 
   /**
-   * Compiles this regular expression to a {@link Pattern}.
+   * Compiles this regular expression to a {@link Pattern} and, optionally, an {@link NFA}.
    * @param regex regular expression to parse
    * @param mod modifiers
-   * @param ext XQuery 3.0 syntax
+   * @param linear create an automaton for matching in linear time (if possible)
    * @param ii input info
    * @param check check result for empty strings
    * @return the pattern
    * @throws QueryException query exception
    */
-  public static Pattern parse(final byte[] regex, final byte[] mod, final InputInfo ii,
-      final boolean check) throws QueryException {
+  public static RegExPattern parse(final byte[] regex, final byte[] mod, final boolean linear,
+      final InputInfo ii, final boolean check) throws QueryException {
 
     // process modifiers
     int m = 0;
@@ -58,13 +58,13 @@ public class RegExParser implements RegExParserConstants {
     }
 
     // no need to change anything
-    if((m & LITERAL) != 0) return Pattern.compile(string(regex), m);
+    if((m & LITERAL) != 0) return new RegExPattern(Pattern.compile(string(regex), m), null);
 
     try {
       final RegExParser parser = new RegExParser(regex, strip, (m & DOTALL) != 0,
           (m & MULTILINE) != 0);
-      final String string = parser.parse().toString();
-      final Pattern pattern = Pattern.compile(string, m);
+      final RegExp regExp = parser.parse();
+      final Pattern pattern = Pattern.compile(regExp.toString(), m);
       if(check) {
         // Circumvent Java RegEx behavior ("If MULTILINE mode is activated"...):
         // http://docs.oracle.com/javase/8/docs/api/java/util/regex/Pattern.html#lt
@@ -72,7 +72,7 @@ public class RegExParser implements RegExParserConstants {
           Pattern.compile(pattern.pattern());
         if(p.matcher("").matches()) throw REGROUP.get(ii);
       }
-      return pattern;
+      return new RegExPattern(pattern, linear ? NFA.get(regExp, m) : null);
     } catch(final ParseException ex) {
       Util.debug(ex);
       throw REGPAT_X.get(ii, regex);
@@ -0,0 +1,21 @@
+package org.basex.query.util.sort;
+
+import org.basex.query.*;
+
+/**
+ * Comparator for entries that are referenced by their integer positions.
+ *
+ * @author BaseX Team 2005-16, BSD License
+ * @author Christian Gruen
+ */
+public interface IndexComparator {
+  /**
+   * Compares the entries at the specified positions.
+   * @param i1 position of the first entry
+   * @param i2 position of the second entry
+   * @return negative value, zero or positive value if the first entry is smaller,
+   *   equal or greater than the second one
+   * @throws QueryException query exception
+   */
+  int compare(int i1, int i2) throws QueryException;
+}
@@ -0,0 +1,185 @@
+package org.basex.query.util.sort;
+
+import java.util.concurrent.*;
+
+import org.basex.query.*;
+import org.basex.util.*;
+
+/**
+ * Stable merge sort on primitive integer positions.
+ * In contrast to {@link java.util.Arrays#sort(Object[], java.util.Comparator)}, no boxed
+ * integers are created, and query exceptions can directly be raised by the comparator.
+ *
+ * @author BaseX Team 2005-16, BSD License
+ * @author Christian Gruen
+ */
+public final class MergeSort {
+  /** Threshold for switching to insertion sort. */
+  private static final int INSERTION = 16;
+  /** Minimum number of entries of a range that will be sorted in parallel. */
+  private static final int PARALLEL = 1 << 15;
+  /** Thread pool for parallel sorting (created on demand). */
+  private static ForkJoinPool pool;
+
+  /** Private constructor. */
+  private MergeSort() { }
+
+  /**
+   * Returns a sorted permutation of the positions {@code 0} to {@code size - 1}.
+   * @param size number of entries
+   * @param cmp comparator
+   * @return sorted positions
+   * @throws QueryException query exception
+   */
+  public static int[] order(final int size, final IndexComparator cmp) throws QueryException {
+    final int[] order = new int[size];
+    for(int o = 0; o < size; o++) order[o] = o;
+    sort(order, size, cmp);
+    return order;
+  }
+
+  /**
+   * Returns a sorted permutation of the positions {@code 0} to {@code size - 1}.
+   * Large inputs are sorted in parallel. The comparator must be thread-safe, and it must
+   * not raise exceptions.
+   * @param size number of entries
+   * @param cmp comparator
+   * @return sorted positions
+   * @throws QueryException query exception
+   */
+  public static int[] parallelOrder(final int size, final IndexComparator cmp)
+      throws QueryException {
+    if(size < PARALLEL << 1 || Runtime.getRuntime().availableProcessors() < 2) {
+      return order(size, cmp);
+    }
+
+    final int[] order = new int[size];
+    for(int o = 0; o < size; o++) order[o] = o;
+    pool().invoke(new SortTask(order.clone(), order, 0, size, cmp));
+    return order;
+  }
+
+  /**
+   * Returns the thread pool for parallel sorting, which is shared by all queries.
+   * @return pool
+   */
+  private static synchronized ForkJoinPool pool() {
+    if(pool == null) pool = new ForkJoinPool();
+    return pool;
+  }
+
+  /**
+   * Sorts the first entries of the specified positions.
+   * @param order positions to be sorted
+   * @param size number of positions to be sorted
+   * @param cmp comparator
+   * @throws QueryException query exception
+   */
+  public static void sort(final int[] order, final int size, final IndexComparator cmp)
+      throws QueryException {
+    if(size < 2) return;
+    sort(order.clone(), order, 0, size, cmp);
+  }
+
+  /**
+   * Recursively sorts the specified range.
+   * @param src source array (contains the same entries as the target array)
+   * @param trg target array
+   * @param s start position (inclusive)
+   * @param e end position (exclusive)
+   * @param cmp comparator
+   * @throws QueryException query exception
+   */
+  private static void sort(final int[] src, final int[] trg, final int s, final int e,
+      final IndexComparator cmp) throws QueryException {
+
+    final int l = e - s;
+    if(l < INSERTION) {
+      for(int i = s + 1; i < e; i++) {
+        final int v = trg[i];
+        int j = i;
+        for(; j > s && cmp.compare(trg[j - 1], v) > 0; j--) trg[j] = trg[j - 1];
+        trg[j] = v;
+      }
+      return;
+    }
+
+    // sort both halves, using the target array as scratch space
+    final int m = s + (l >>> 1);
+    sort(trg, src, s, m, cmp);
+    sort(trg, src, m, e, cmp);
+
+    merge(src, trg, s, m, e, cmp);
+  }
+
+  /**
+   * Merges two sorted ranges.
+   * @param src source array with the sorted ranges
+   * @param trg target array
+   * @param s start position of the first range (inclusive)
+   * @param m start position of the second range
+   * @param e end position of the second range (exclusive)
+   * @param cmp comparator
+   * @throws QueryException query exception
+   */
+  private static void merge(final int[] src, final int[] trg, final int s, final int m,
+      final int e, final IndexComparator cmp) throws QueryException {
+
+    // skip merge if both halves are already in order
+    if(cmp.compare(src[m - 1], src[m]) <= 0) {
+      System.arraycopy(src, s, trg, s, e - s);
+      return;
+    }
+    for(int i = s, p = s, q = m; i < e; i++) {
+      trg[i] = q >= e || p < m && cmp.compare(src[p], src[q]) <= 0 ? src[p++] : src[q++];
+    }
+  }
+
+  /**
+   * Task for sorting a range in parallel.
+   */
+  private static final class SortTask extends RecursiveAction {
+    /** Source array. */
+    private final int[] src;
+    /** Target array. */
+    private final int[] trg;
+    /** Start position (inclusive). */
+    private final int s;
+    /** End position (exclusive). */
+    private final int e;
+    /** Comparator. */
+    private final IndexComparator cmp;
+
+    /**
+     * Constructor.
+     * @param src source array (contains the same entries as the target array)
+     * @param trg target array
+     * @param s start position (inclusive)
+     * @param e end position (exclusive)
+     * @param cmp comparator
+     */
+    SortTask(final int[] src, final int[] trg, final int s, final int e,
+        final IndexComparator cmp) {
+      this.src = src;
+      this.trg = trg;
+      this.s = s;
+      this.e = e;
+      this.cmp = cmp;
+    }
+
+    @Override
+    protected void compute() {
+      try {
+        if(e - s < PARALLEL) {
+          sort(src, trg, s, e, cmp);
+        } else {
+          final int m = s + (e - s >>> 1);
+          invokeAll(new SortTask(trg, src, s, m, cmp), new SortTask(trg, src, m, e, cmp));
+          merge(src, trg, s, m, e, cmp);
+        }
+      } catch(final QueryException ex) {
+        throw Util.notExpected(ex);
+      }
+    }
+  }
+}
@@ -0,0 +1,93 @@
+package org.basex.query.value.item;
+
+import java.util.*;
+
+import org.basex.query.*;
+import org.basex.util.*;
+
+/**
+ * Builder for concatenated strings. Small strings are copied and merged into chunks, whereas
+ * large strings and ropes are shared. If the result is large enough, a {@link StrRope} will be
+ * returned, and concatenating ropes takes constant time.
+ *
+ * @author BaseX Team 2005-16, BSD License
+ * @author Christian Gruen
+ */
+public final class RopeBuilder {
+  /** Maximum size of a merged chunk. */
+  private static final int CHUNK = 1 << 16;
+
+  /** Shared parts. */
+  private final ArrayList<AStr> parts = new ArrayList<>();
+  /** Bytes of the current chunk. */
+  private final TokenBuilder tb = new TokenBuilder();
+  /** Length of the string in bytes. */
+  private long size;
+
+  /**
+   * Adds the string value of an item.
+   * @param item item
+   * @param ii input info
+   * @return self reference
+   * @throws QueryException query exception
+   */
+  public RopeBuilder add(final Item item, final InputInfo ii) throws QueryException {
+    if(item instanceof StrRope) {
+      share((AStr) item, ((StrRope) item).length());
+    } else if(item instanceof Str && ((Str) item).string().length >= StrRope.MIN) {
+      share((AStr) item, ((Str) item).string().length);
+    } else {
+      add(item.string(ii));
+    }
+    return this;
+  }
+
+  /**
+   * Adds a token.
+   * @param token token
+   * @return self reference
+   */
+  public RopeBuilder add(final byte[] token) {
+    tb.add(token);
+    size += token.length;
+    if(tb.size() >= CHUNK) chunk();
+    return this;
+  }
+
+  /**
+   * Returns the resulting string.
+   * @return string
+   */
+  public AStr finish() {
+    if(parts.isEmpty()) return Str.get(tb.finish());
+    // small results, or results exceeding the maximum size of arrays, are materialized
+    if(size < StrRope.MIN || size > Integer.MAX_VALUE) {
+      final TokenBuilder text = new TokenBuilder((int) Math.min(size, StrRope.MIN));
+      for(final AStr part : parts) {
+        text.add(part instanceof StrRope ? ((StrRope) part).string(null) : part.value);
+      }
+      return Str.get(text.add(tb.finish()).finish());
+    }
+    chunk();
+    return parts.size() == 1 && parts.get(0) instanceof StrRope ? parts.get(0) :
+      new StrRope(parts.toArray(new AStr[parts.size()]), (int) size);
+  }
+
+  /**
+   * Shares a string.
+   * @param str string
+   * @param length length of the string in bytes
+   */
+  private void share(final AStr str, final int length) {
+    chunk();
+    parts.add(str);
+    size += length;
+  }
+
+  /**
+   * Adds the current chunk as new part.
+   */
+  private void chunk() {
+    if(!tb.isEmpty()) parts.add(Str.get(tb.next()));
+  }
+}
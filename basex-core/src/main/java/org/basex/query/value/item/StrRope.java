@@ -0,0 +1,216 @@
+package org.basex.query.value.item;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.io.in.*;
+import org.basex.query.*;
+import org.basex.query.expr.*;
+import org.basex.util.*;
+import org.basex.util.list.*;
+
+/**
+ * Large string item ({@code xs:string}), which is represented as a rope.
+ *
+ * A rope is either a concatenation of strings and other ropes, or a slice of a byte array.
+ * Concatenations and substrings share the bytes of their operands. The string will only be
+ * materialized if its bytes are requested; serializers consume ropes via {@link #input}.
+ *
+ * @author BaseX Team 2005-16, BSD License
+ * @author Christian Gruen
+ */
+public final class StrRope extends AStr {
+  /** Minimum length of strings that will be represented as ropes. */
+  public static final int MIN = 1 << 13;
+
+  /** Parts ({@link Str} and {@link StrRope} instances; {@code null} for slices). */
+  private AStr[] parts;
+  /** Bytes of a slice ({@code null} for concatenations). */
+  private byte[] bytes;
+  /** Start offset of a slice. */
+  private int start;
+  /** Length of the string in bytes. */
+  private final int length;
+
+  /**
+   * Constructor for concatenations.
+   * @param parts parts
+   * @param length length of the string in bytes
+   */
+  StrRope(final AStr[] parts, final int length) {
+    this.parts = parts;
+    this.length = length;
+  }
+
+  /**
+   * Constructor for slices.
+   * @param bytes bytes
+   * @param start start offset
+   * @param end end offset (exclusive)
+   */
+  private StrRope(final byte[] bytes, final int start, final int end) {
+    this.bytes = bytes;
+    this.start = start;
+    length = end - start;
+  }
+
+  /**
+   * Returns a string for the specified range of bytes.
+   * The bytes will be shared if the resulting string is large enough.
+   * @param bytes bytes
+   * @param start start offset (must point to the start of a character)
+   * @param end end offset (exclusive, must point to the start of a character)
+   * @return string
+   */
+  public static AStr get(final byte[] bytes, final int start, final int end) {
+    if(start == 0 && end == bytes.length) return Str.get(bytes);
+    return end - start < MIN ? Str.get(Arrays.copyOfRange(bytes, start, end)) :
+      new StrRope(bytes, start, end);
+  }
+
+  /**
+   * Returns the length of the string in bytes.
+   * @return length
+   */
+  public int length() {
+    return length;
+  }
+
+  @Override
+  public synchronized byte[] string(final InputInfo ii) {
+    if(value == null) {
+      final byte[] tmp = new byte[length];
+      int s = 0;
+      for(final Cursor cursor = new Cursor(this); cursor.next();) {
+        System.arraycopy(cursor.bytes, cursor.off, tmp, s, cursor.len);
+        s += cursor.len;
+      }
+      // release parts to free memory
+      value = tmp;
+      parts = null;
+      bytes = null;
+    }
+    return value;
+  }
+
+  @Override
+  public synchronized BufferInput input(final InputInfo ii) {
+    if(value != null) return new ArrayInput(value);
+
+    final Cursor cursor = new Cursor(this);
+    return new BufferInput(new InputStream() {
+      @Override
+      public int read() {
+        while(cursor.len == 0) {
+          if(!cursor.next()) return -1;
+        }
+        cursor.len--;
+        return cursor.bytes[cursor.off++] & 0xFF;
+      }
+
+      @Override
+      public int read(final byte[] b, final int o, final int l) {
+        while(cursor.len == 0) {
+          if(!cursor.next()) return -1;
+        }
+        final int n = Math.min(l, cursor.len);
+        System.arraycopy(cursor.bytes, cursor.off, b, o, n);
+        cursor.off += n;
+        cursor.len -= n;
+        return n;
+      }
+    });
+  }
+
+  @Override
+  public boolean sameAs(final Expr cmp) {
+    return this == cmp;
+  }
+
+  @Override
+  public String toJava() {
+    return Token.string(string(null));
+  }
+
+  /**
+   * Cursor on the byte ranges of a rope, which are visited in document order.
+   */
+  private static final class Cursor {
+    /** Stack with part arrays. */
+    private final ArrayList<AStr[]> stack = new ArrayList<>();
+    /** Stack with positions of the next parts. */
+    private final IntList pos = new IntList();
+    /** Bytes of the current range. */
+    byte[] bytes;
+    /** Offset of the current range. */
+    int off;
+    /** Remaining length of the current range. */
+    int len;
+
+    /**
+     * Constructor.
+     * @param rope rope
+     */
+    Cursor(final StrRope rope) {
+      stack.add(new AStr[] { rope });
+      pos.add(0);
+    }
+
+    /**
+     * Moves the cursor to the next non-empty byte range.
+     * @return {@code true} if another range was found
+     */
+    boolean next() {
+      // ropes are traversed iteratively, as left-deep ropes may be arbitrarily deep
+      for(int s; (s = stack.size() - 1) >= 0;) {
+        final AStr[] ps = stack.get(s);
+        final int p = pos.get(s);
+        if(p == ps.length) {
+          stack.remove(s);
+          pos.pop();
+        } else {
+          pos.set(s, p + 1);
+          if(range(ps[p]) && len != 0) return true;
+        }
+      }
+      return false;
+    }
+
+    /**
+     * Assigns the byte range of the specified part, or pushes its parts onto the stack.
+     * @param part part
+     * @return {@code true} if a byte range was assigned
+     */
+    private boolean range(final AStr part) {
+      if(part instanceof StrRope) {
+        final StrRope rope = (StrRope) part;
+        synchronized(rope) {
+          if(rope.value != null) {
+            assign(rope.value, 0, rope.value.length);
+          } else if(rope.parts != null) {
+            stack.add(rope.parts);
+            pos.add(0);
+            return false;
+          } else {
+            assign(rope.bytes, rope.start, rope.length);
+          }
+        }
+      } else {
+        assign(part.value, 0, part.value.length);
+      }
+      return true;
+    }
+
+    /**
+     * Assigns a byte range.
+     * @param b bytes
+     * @param o offset
+     * @param l length
+     */
+    private void assign(final byte[] b, final int o, final int l) {
+      bytes = b;
+      off = o;
+      len = l;
+    }
+  }
+}
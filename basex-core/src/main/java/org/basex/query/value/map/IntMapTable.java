@@ -0,0 +1,69 @@
+package org.basex.query.value.map;
+
+import org.basex.query.*;
+import org.basex.query.value.*;
+import org.basex.query.value.item.*;
+import org.basex.query.value.type.*;
+import org.basex.util.*;
+
+/**
+ * Hash table of a {@link Map} with {@code xs:integer} keys.
+ *
+ * @author BaseX Team 2005-16, BSD License
+ * @author Christian Gruen
+ */
+final class IntMapTable extends MapTable {
+  /** Keys. */
+  private final long[] keys;
+
+  /**
+   * Constructor.
+   * @param keys keys
+   * @param values values
+   */
+  IntMapTable(final long[] keys, final Value[] values) {
+    super(values);
+    this.keys = keys;
+    index();
+  }
+
+  @Override
+  int index(final Item key, final InputInfo ii) {
+    // numbers of other types are compared via their decimal values
+    if(!(key instanceof Int)) return key instanceof ANum ? UNKNOWN : -1;
+    final long k = ((Int) key).itr();
+    for(int s = first(hash(k));; s = next(s)) {
+      final int i = entry(s);
+      if(i == -1 || keys[i] == k) return i;
+    }
+  }
+
+  @Override
+  int slot(final int i) {
+    return hash(keys[i]);
+  }
+
+  @Override
+  Item key(final int i) {
+    return Int.get(keys[i]);
+  }
+
+  @Override
+  int hash(final int i) {
+    return Int.get(keys[i]).hash(null);
+  }
+
+  @Override
+  AtomType keyType() {
+    return AtomType.ITR;
+  }
+
+  /**
+   * Returns a distributed hash value for the specified key.
+   * @param key key
+   * @return hash value
+   */
+  private static int hash(final long key) {
+    return mix((int) (key ^ key >>> 32));
+  }
+}
@@ -30,8 +30,10 @@ public final class Map extends FItem {
   /** Number of bits per level, maximum is 5 because {@code 1 << 5 == 32}. */
   static final int BITS = 5;
 
-  /** Wrapped immutable map. */
-  private final TrieNode root;
+  /** Wrapped immutable map (created on demand if the map is backed by a hash table). */
+  private TrieNode root;
+  /** Hash table with primitive keys (can be {@code null}). */
+  private final MapTable table;
   /** Key sequence. */
   private Value keys;
 
@@ -39,9 +41,47 @@ public final class Map extends FItem {
    * Constructor.
    * @param root map
    */
-  private Map(final TrieNode root) {
+  Map(final TrieNode root) {
+    this(root, null);
+  }
+
+  /**
+   * Constructor for a map that is backed by a hash table.
+   * @param table hash table
+   */
+  Map(final MapTable table) {
+    this(null, table);
+  }
+
+  /**
+   * Constructor.
+   * @param root map (can be {@code null})
+   * @param table hash table (can be {@code null})
+   */
+  private Map(final TrieNode root, final MapTable table) {
     super(SeqType.ANY_MAP, new AnnList());
     this.root = root;
+    this.table = table;
+  }
+
+  /**
+   * Returns the trie of this map.
+   * @return root node
+   */
+  private TrieNode root() {
+    if(root == null) root = table.trie();
+    return root;
+  }
+
+  /**
+   * Adds all bindings of this map to the specified map builder.
+   * @param mb map builder
+   * @param merge merge duplicates
+   * @throws QueryException query exception
+   */
+  void add(final MapBuilder mb, final MergeDuplicates merge) throws QueryException {
+    if(table != null) table.add(mb, merge);
+    else root.add(mb, merge);
   }
 
   @Override
@@ -66,7 +106,8 @@ public final class Map extends FItem {
 
   @Override
   public void materialize(final InputInfo ii) throws QueryException {
-    root.materialize(ii);
+    if(table != null) table.materialize(ii);
+    else root.materialize(ii);
   }
 
   @Override
@@ -96,8 +137,8 @@ public final class Map extends FItem {
    * @throws QueryException query exception
    */
   public Map delete(final Item key, final InputInfo ii) throws QueryException {
-    final TrieNode del = root.delete(key.hash(ii), key, 0, ii);
-    return del == root ? this : del == null ? EMPTY : new Map(del);
+    final TrieNode rt = root(), del = rt.delete(key.hash(ii), key, 0, ii);
+    return del == rt ? this : del == null ? EMPTY : new Map(del);
   }
 
   /**
@@ -108,7 +149,11 @@ public final class Map extends FItem {
    * @throws QueryException query exception
    */
   public Value get(final Item key, final InputInfo ii) throws QueryException {
-    final Value v = root.get(key.hash(ii), key, 0, ii);
+    if(table != null) {
+      final int i = table.index(key, ii);
+      if(i != MapTable.UNKNOWN) return i == -1 ? Empty.SEQ : table.values[i];
+    }
+    final Value v = root().get(key.hash(ii), key, 0, ii);
     return v == null ? Empty.SEQ : v;
   }
 
@@ -120,7 +165,11 @@ public final class Map extends FItem {
    * @throws QueryException query exception
    */
   public boolean contains(final Item key, final InputInfo ii) throws QueryException {
-    return root.contains(key.hash(ii), key, 0, ii);
+    if(table != null) {
+      final int i = table.index(key, ii);
+      if(i != MapTable.UNKNOWN) return i != -1;
+    }
+    return root().contains(key.hash(ii), key, 0, ii);
   }
 
   /**
@@ -135,8 +184,8 @@ public final class Map extends FItem {
       throws QueryException {
 
     if(map == EMPTY) return this;
-    final TrieNode upd = root.addAll(map.root, 0, merge, ii);
-    return upd == map.root ? map : new Map(upd);
+    final TrieNode rt = map.root(), upd = root().addAll(rt, 0, merge, ii);
+    return upd == rt ? map : new Map(upd);
   }
 
   @Override
@@ -170,7 +219,8 @@ public final class Map extends FItem {
       if(arg == AtomType.AAT) arg = null;
       if(ret == null || ret.eq(SeqType.ITEM_ZM)) ret = null;
       // map { ... } instance of function(...) as item() -> false (result may be empty sequence)
-      return (arg == null && ret == null) || root.instanceOf(arg, ret);
+      return arg == null && ret == null ||
+          (table != null ? table.instanceOf(arg, ret) : root.instanceOf(arg, ret));
     }
     // allow coercion
     return coerce || ret == null || ret.eq(SeqType.ITEM_ZM);
@@ -185,8 +235,8 @@ public final class Map extends FItem {
    * @throws QueryException query exception
    */
   public Map put(final Item key, final Value value, final InputInfo ii) throws QueryException {
-    final TrieNode ins = root.put(key.hash(ii), key, value, 0, ii);
-    return ins == root ? this : new Map(ins);
+    final TrieNode rt = root(), ins = rt.put(key.hash(ii), key, value, 0, ii);
+    return ins == rt ? this : new Map(ins);
   }
 
   /**
@@ -194,7 +244,7 @@ public final class Map extends FItem {
    * @return size
    */
   public int mapSize() {
-    return root.size;
+    return table != null ? table.size() : root.size;
   }
 
   /**
@@ -204,7 +254,8 @@ public final class Map extends FItem {
   public Value keys() {
     if(keys == null) {
       final ValueBuilder res = new ValueBuilder();
-      root.keys(res);
+      if(table != null) table.keys(res);
+      else root.keys(res);
       keys = res.value();
     }
     return keys;
@@ -216,7 +267,8 @@ public final class Map extends FItem {
    */
   public Value values() {
     final ValueBuilder res = new ValueBuilder();
-    root.values(res);
+    if(table != null) table.values(res);
+    else root.values(res);
     return res.value();
   }
 
@@ -231,7 +283,8 @@ public final class Map extends FItem {
   public Value forEach(final FItem func, final QueryContext qc, final InputInfo ii)
       throws QueryException {
     final ValueBuilder vb = new ValueBuilder();
-    root.forEach(vb, func, qc, ii);
+    if(table != null) table.forEach(vb, func, qc, ii);
+    else root.forEach(vb, func, qc, ii);
     return vb.value();
   }
 
@@ -239,7 +292,7 @@ public final class Map extends FItem {
   public boolean deep(final Item item, final InputInfo ii, final Collation coll)
       throws QueryException {
 
-    if(item instanceof Map) return root.deep(ii, ((Map) item).root, coll);
+    if(item instanceof Map) return root().deep(ii, ((Map) item).root(), coll);
     return item instanceof FItem && !(item instanceof Array) && super.deep(item, ii, coll);
   }
 
@@ -268,7 +321,7 @@ public final class Map extends FItem {
 
   @Override
   public int hash(final InputInfo ii) throws QueryException {
-    return root.hash(ii);
+    return root().hash(ii);
   }
 
   @Override
@@ -355,9 +408,9 @@ public final class Map extends FItem {
 
   @Override
   public String toString() {
-    final StringBuilder sb = root.toString(new StringBuilder(MAP).append(" { "));
+    final StringBuilder sb = root().toString(new StringBuilder(MAP).append(" { "));
     // remove superfluous comma
-    if(root.size > 0) sb.deleteCharAt(sb.length() - 2);
+    if(mapSize() > 0) sb.deleteCharAt(sb.length() - 2);
     return sb.append('}').toString();
   }
 }
@@ -0,0 +1,324 @@
+package org.basex.query.value.map;
+
+import static org.basex.query.QueryError.*;
+
+import java.util.*;
+
+import org.basex.query.*;
+import org.basex.query.value.*;
+import org.basex.query.value.item.*;
+import org.basex.query.value.type.*;
+import org.basex.util.*;
+
+/**
+ * Transient builder for maps with many entries.
+ *
+ * Entries are stored in a mutable hash table. When the map is requested, the trie is built
+ * bottom-up in a single pass, without creating intermediate versions of the trie.
+ * If all keys are integers or strings, and if the number of entries exceeds {@link #TABLE},
+ * a hash table with primitive keys is created instead.
+ * A builder must not be used anymore after {@link #finish()} has been called.
+ *
+ * @author BaseX Team 2005-16, BSD License
+ * @author Christian Gruen
+ */
+public final class MapBuilder {
+  /** Minimum number of entries for creating a hash table with primitive keys. */
+  static final int TABLE = 16;
+  /** Input info. */
+  private final InputInfo info;
+  /** Hash values of the keys (entries start with offset 1). */
+  private int[] hashes;
+  /** Keys. */
+  private Item[] keys;
+  /** Values. */
+  private Value[] values;
+  /** Pointers to the next entry of a bucket ({@code 0}: none). */
+  private int[] next;
+  /** Pointers to the first entries of all buckets ({@code 0}: none). */
+  private int[] buckets;
+  /** Number of entries. */
+  private int size;
+  /** Common type of all keys ({@code null}: no entries; {@link AtomType#ITEM}: mixed types). */
+  private AtomType type;
+
+  /**
+   * Constructor.
+   * @param info input info (can be {@code null})
+   */
+  public MapBuilder(final InputInfo info) {
+    this(info, Array.CAPACITY);
+  }
+
+  /**
+   * Constructor.
+   * @param info input info (can be {@code null})
+   * @param capacity expected number of entries
+   */
+  public MapBuilder(final InputInfo info, final int capacity) {
+    this.info = info;
+    final int c = Array.CAPACITY, s = capacity < c ? c : Integer.highestOneBit(capacity) << 1;
+    hashes = new int[s];
+    keys = new Item[s];
+    values = new Value[s];
+    next = new int[s];
+    buckets = new int[s];
+  }
+
+  /**
+   * Returns the value bound to the specified key.
+   * @param key key (must not be {@code null})
+   * @return value, or {@code null} if the key does not exist
+   * @throws QueryException query exception
+   */
+  public Value get(final Item key) throws QueryException {
+    final int id = id(key.hash(info), key);
+    return id == 0 ? null : values[id];
+  }
+
+  /**
+   * Binds a value to the specified key and replaces an existing value.
+   * @param key key (must not be {@code null})
+   * @param value value
+   * @return self reference
+   * @throws QueryException query exception
+   */
+  public MapBuilder put(final Item key, final Value value) throws QueryException {
+    return add(key.hash(info), key, value, MergeDuplicates.USE_LAST);
+  }
+
+  /**
+   * Adds all entries of the specified map.
+   * @param map map
+   * @param merge handling of duplicate keys
+   * @return self reference
+   * @throws QueryException query exception
+   */
+  public MapBuilder add(final Map map, final MergeDuplicates merge) throws QueryException {
+    map.add(this, merge);
+    return this;
+  }
+
+  /**
+   * Returns the number of entries.
+   * @return number of entries
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Creates a map from the entries of this builder.
+   * @return map
+   */
+  public Map finish() {
+    final Map map;
+    if(size == 0) {
+      map = Map.EMPTY;
+    } else if(size < TABLE || type != AtomType.ITR && type != AtomType.STR) {
+      map = new Map(trie());
+    } else {
+      final int[] ids = ids();
+      final Value[] vs = new Value[size];
+      for(int i = 0; i < size; i++) vs[i] = values[ids[i]];
+      if(type == AtomType.ITR) {
+        final long[] ks = new long[size];
+        for(int i = 0; i < size; i++) ks[i] = ((Int) keys[ids[i]]).itr();
+        map = new Map(new IntMapTable(ks, vs));
+      } else {
+        final byte[][] ks = new byte[size][];
+        final int[] hs = new int[size];
+        for(int i = 0; i < size; i++) {
+          ks[i] = ((Str) keys[ids[i]]).string();
+          hs[i] = hashes[ids[i]];
+        }
+        map = new Map(new StrMapTable(ks, hs, vs));
+      }
+    }
+    // invalidate builder
+    hashes = null;
+    keys = null;
+    values = null;
+    next = null;
+    buckets = null;
+    return map;
+  }
+
+  /**
+   * Creates a trie from the entries of this builder.
+   * @return root node
+   */
+  TrieNode trie() {
+    return size == 0 ? TrieNode.EMPTY : node(ids(), 0, size, 0);
+  }
+
+  /**
+   * Adds an entry.
+   * @param hash hash value of the key
+   * @param key key
+   * @param value value
+   * @param merge handling of duplicate keys
+   * @return self reference
+   * @throws QueryException query exception
+   */
+  MapBuilder add(final int hash, final Item key, final Value value, final MergeDuplicates merge)
+      throws QueryException {
+
+    final int id = id(hash, key);
+    if(id != 0) {
+      switch(merge) {
+        case USE_FIRST:
+        case UNSPECIFIED:
+          break;
+        case USE_LAST:
+          keys[id] = key;
+          values[id] = value;
+          type(key);
+          break;
+        case COMBINE:
+          values[id] = ValueBuilder.concat(values[id], value);
+          break;
+        default:
+          throw MERGE_DUPLICATE_X.get(info, key);
+      }
+      return this;
+    }
+
+    final int s = ++size;
+    if(s == hashes.length) {
+      final int ns = Array.newSize(s);
+      hashes = Arrays.copyOf(hashes, ns);
+      keys = Arrays.copyOf(keys, ns);
+      values = Arrays.copyOf(values, ns);
+      next = Arrays.copyOf(next, ns);
+    }
+    hashes[s] = hash;
+    keys[s] = key;
+    values[s] = value;
+    type(key);
+    if(s >= buckets.length) rehash();
+    final int b = hash & buckets.length - 1;
+    next[s] = buckets[b];
+    buckets[b] = s;
+    return this;
+  }
+
+  /**
+   * Returns the id of the specified key.
+   * @param hash hash value of the key
+   * @param key key
+   * @return id, or {@code 0} if the key does not exist
+   * @throws QueryException query exception
+   */
+  private int id(final int hash, final Item key) throws QueryException {
+    for(int id = buckets[hash & buckets.length - 1]; id != 0; id = next[id]) {
+      if(hashes[id] == hash && keys[id].sameKey(key, info)) return id;
+    }
+    return 0;
+  }
+
+  /**
+   * Doubles the number of buckets.
+   */
+  private void rehash() {
+    final int bl = buckets.length << 1;
+    buckets = new int[bl];
+    for(int id = 1; id < size; id++) {
+      final int b = hashes[id] & bl - 1;
+      next[id] = buckets[b];
+      buckets[b] = id;
+    }
+  }
+
+  /**
+   * Updates the common type of all keys.
+   * @param key key
+   */
+  private void type(final Item key) {
+    final AtomType tp = key instanceof Int && key.type == AtomType.ITR ? AtomType.ITR :
+      key instanceof Str && key.type == AtomType.STR ? AtomType.STR : AtomType.ITEM;
+    if(type != tp) type = type == null ? tp : AtomType.ITEM;
+  }
+
+  /**
+   * Returns the ids of all entries in the order of the trie.
+   * @return ids
+   */
+  private int[] ids() {
+    final int[] ids = new int[size];
+    for(int i = 0; i < size; i++) ids[i] = i + 1;
+    sort(ids, new int[size], 0, size, 0);
+    return ids;
+  }
+
+  /**
+   * Recursively sorts the specified entries in the order of the trie (counting sort).
+   * @param ids ids of all entries
+   * @param tmp temporary array
+   * @param start first entry
+   * @param end last entry (exclusive)
+   * @param level level
+   */
+  private void sort(final int[] ids, final int[] tmp, final int start, final int end,
+      final int level) {
+
+    // single entry or identical hash values (collision list): nothing to sort
+    final int n = end - start, hash = hashes[ids[start]];
+    int i = start + 1;
+    while(i < end && hashes[ids[i]] == hash) i++;
+    if(i == end) return;
+
+    final int[] offsets = new int[TrieNode.KIDS + 1];
+    for(int e = start; e < end; e++) offsets[TrieNode.key(hashes[ids[e]], level) + 1]++;
+    for(int k = 0; k < TrieNode.KIDS; k++) offsets[k + 1] += offsets[k];
+    final int[] pos = Arrays.copyOf(offsets, TrieNode.KIDS);
+    for(int e = start; e < end; e++) {
+      tmp[start + pos[TrieNode.key(hashes[ids[e]], level)]++] = ids[e];
+    }
+    System.arraycopy(tmp, start, ids, start, n);
+
+    for(int k = 0; k < TrieNode.KIDS; k++) {
+      final int s = offsets[k], e = offsets[k + 1];
+      if(e - s > 1) sort(ids, tmp, start + s, start + e, level + 1);
+    }
+  }
+
+  /**
+   * Recursively creates a trie node for the specified entries.
+   * @param ids ids of all entries, sorted in the order of the trie
+   * @param start first entry
+   * @param end last entry (exclusive)
+   * @param level level
+   * @return node
+   */
+  private TrieNode node(final int[] ids, final int start, final int end, final int level) {
+    final int n = end - start, first = ids[start], hash = hashes[first];
+    if(n == 1) return new TrieLeaf(hash, keys[first], values[first]);
+
+    // identical hash values: create collision list
+    int i = start + 1;
+    while(i < end && hashes[ids[i]] == hash) i++;
+    if(i == end) {
+      final Item[] ks = new Item[n];
+      final Value[] vs = new Value[n];
+      for(int e = 0; e < n; e++) {
+        ks[e] = keys[ids[start + e]];
+        vs[e] = values[ids[start + e]];
+      }
+      return new TrieList(hash, ks, vs);
+    }
+
+    // create children from the ranges of entries with the same key
+    final TrieNode[] kids = new TrieNode[TrieNode.KIDS];
+    int used = 0;
+    for(int s = start; s < end;) {
+      final int k = TrieNode.key(hashes[ids[s]], level);
+      int e = s + 1;
+      while(e < end && TrieNode.key(hashes[ids[e]], level) == k) e++;
+      kids[k] = node(ids, s, e, level + 1);
+      used |= 1 << k;
+      s = e;
+    }
+    return new TrieBranch(kids, used, n);
+  }
+}
@@ -0,0 +1,211 @@
+package org.basex.query.value.map;
+
+import org.basex.query.*;
+import org.basex.query.value.*;
+import org.basex.query.value.item.*;
+import org.basex.query.value.type.*;
+import org.basex.util.*;
+
+/**
+ * Immutable hash table of a {@link Map} with keys of a single primitive type.
+ *
+ * Keys are stored without item wrappers and are found via open addressing. Entries are
+ * stored in the same order as in the equivalent trie. If a map is to be updated, or if a key
+ * cannot be resolved via its primitive value, the trie is built on demand.
+ *
+ * @author BaseX Team 2005-16, BSD License
+ * @author Christian Gruen
+ */
+abstract class MapTable {
+  /** Return value of {@link #index}: key cannot be resolved by the table. */
+  static final int UNKNOWN = -2;
+
+  /** Values. */
+  final Value[] values;
+  /** Hash table with entry offsets, starting with 1 ({@code 0}: empty slot). */
+  private final int[] slots;
+
+  /**
+   * Constructor.
+   * @param values values
+   */
+  MapTable(final Value[] values) {
+    this.values = values;
+    slots = new int[Integer.highestOneBit(values.length) << 2];
+  }
+
+  /**
+   * Indexes all entries. Must be called by the constructors of the implementing classes.
+   */
+  final void index() {
+    final int mask = slots.length - 1, size = values.length;
+    for(int i = 0; i < size; i++) {
+      int s = slot(i) & mask;
+      while(slots[s] != 0) s = s + 1 & mask;
+      slots[s] = i + 1;
+    }
+  }
+
+  /**
+   * Returns the number of entries.
+   * @return size
+   */
+  final int size() {
+    return values.length;
+  }
+
+  /**
+   * Returns the offset of the entry with the specified key.
+   * @param key key
+   * @param ii input info
+   * @return offset, {@code -1} if the key does not exist, or {@link #UNKNOWN}
+   * @throws QueryException query exception
+   */
+  abstract int index(Item key, InputInfo ii) throws QueryException;
+
+  /**
+   * Returns the first slot to be probed for the specified entry.
+   * @param i entry offset
+   * @return slot (not masked)
+   */
+  abstract int slot(int i);
+
+  /**
+   * Returns the key of the specified entry.
+   * @param i entry offset
+   * @return key
+   */
+  abstract Item key(int i);
+
+  /**
+   * Returns the hash value of the key of the specified entry.
+   * @param i entry offset
+   * @return hash value
+   */
+  abstract int hash(int i);
+
+  /**
+   * Returns the type of the keys.
+   * @return key type
+   */
+  abstract AtomType keyType();
+
+  /**
+   * Returns the first slot to be probed for a hash value.
+   * @param hash distributed hash value
+   * @return slot
+   */
+  final int first(final int hash) {
+    return hash & slots.length - 1;
+  }
+
+  /**
+   * Returns the entry offset stored in the specified slot.
+   * @param s slot
+   * @return offset, or {@code -1} if the slot is empty
+   */
+  final int entry(final int s) {
+    return slots[s] - 1;
+  }
+
+  /**
+   * Returns the next slot to be probed.
+   * @param s slot
+   * @return next slot
+   */
+  final int next(final int s) {
+    return s + 1 & slots.length - 1;
+  }
+
+  /**
+   * Distributes the bits of a hash value.
+   * @param hash hash value
+   * @return distributed value
+   */
+  static int mix(final int hash) {
+    final int h = hash * 0x9E3779B9;
+    return h ^ h >>> 16;
+  }
+
+  /**
+   * Creates the equivalent trie.
+   * @return trie
+   */
+  final TrieNode trie() {
+    final int size = values.length;
+    final MapBuilder mb = new MapBuilder(null, size);
+    try {
+      for(int i = 0; i < size; i++) mb.add(hash(i), key(i), values[i], MergeDuplicates.USE_LAST);
+    } catch(final QueryException ex) {
+      throw Util.notExpected(ex);
+    }
+    return mb.trie();
+  }
+
+  /**
+   * Adds all entries to the specified map builder.
+   * @param mb map builder
+   * @param merge merge duplicates
+   * @throws QueryException query exception
+   */
+  final void add(final MapBuilder mb, final MergeDuplicates merge) throws QueryException {
+    final int size = values.length;
+    for(int i = 0; i < size; i++) mb.add(hash(i), key(i), values[i], merge);
+  }
+
+  /**
+   * Collects all keys.
+   * @param ks key cache
+   */
+  final void keys(final ValueBuilder ks) {
+    final int size = values.length;
+    for(int i = 0; i < size; i++) ks.add(key(i));
+  }
+
+  /**
+   * Collects all values.
+   * @param vs value cache
+   */
+  final void values(final ValueBuilder vs) {
+    for(final Value value : values) vs.add(value);
+  }
+
+  /**
+   * Materializes all values.
+   * @param ii input info
+   * @throws QueryException query exception
+   */
+  final void materialize(final InputInfo ii) throws QueryException {
+    for(final Value value : values) value.materialize(ii);
+  }
+
+  /**
+   * Applies a function on all entries.
+   * @param vb value builder
+   * @param func function to apply on keys and values
+   * @param qc query context
+   * @param ii input info
+   * @throws QueryException query exception
+   */
+  final void forEach(final ValueBuilder vb, final FItem func, final QueryContext qc,
+      final InputInfo ii) throws QueryException {
+    final int size = values.length;
+    for(int i = 0; i < size; i++) vb.add(func.invokeValue(qc, ii, key(i), values[i]));
+  }
+
+  /**
+   * Checks if the map has the specified key and value type.
+   * @param kt key type
+   * @param vt value type
+   * @return {@code true} if the type fits, {@code false} otherwise
+   */
+  final boolean instanceOf(final AtomType kt, final SeqType vt) {
+    if(kt != null && !keyType().instanceOf(kt)) return false;
+    if(vt != null) {
+      for(final Value value : values) {
+        if(!vt.instance(value)) return false;
+      }
+    }
+    return true;
+  }
+}
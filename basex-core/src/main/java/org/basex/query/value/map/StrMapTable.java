@@ -0,0 +1,64 @@
+package org.basex.query.value.map;
+
+import org.basex.query.*;
+import org.basex.query.value.*;
+import org.basex.query.value.item.*;
+import org.basex.query.value.type.*;
+import org.basex.util.*;
+
+/**
+ * Hash table of a {@link Map} with {@code xs:string} keys.
+ *
+ * @author BaseX Team 2005-16, BSD License
+ * @author Christian Gruen
+ */
+final class StrMapTable extends MapTable {
+  /** Keys. */
+  private final byte[][] keys;
+  /** Hash values of the keys. */
+  private final int[] hashes;
+
+  /**
+   * Constructor.
+   * @param keys keys
+   * @param hashes hash values of the keys
+   * @param values values
+   */
+  StrMapTable(final byte[][] keys, final int[] hashes, final Value[] values) {
+    super(values);
+    this.keys = keys;
+    this.hashes = hashes;
+    index();
+  }
+
+  @Override
+  int index(final Item key, final InputInfo ii) throws QueryException {
+    if(!key.type.isStringOrUntyped()) return -1;
+    final byte[] k = key.string(ii);
+    final int h = Token.hash(k);
+    for(int s = first(mix(h));; s = next(s)) {
+      final int i = entry(s);
+      if(i == -1 || hashes[i] == h && Token.eq(keys[i], k)) return i;
+    }
+  }
+
+  @Override
+  int slot(final int i) {
+    return mix(hashes[i]);
+  }
+
+  @Override
+  Item key(final int i) {
+    return Str.get(keys[i]);
+  }
+
+  @Override
+  int hash(final int i) {
+    return hashes[i];
+  }
+
+  @Override
+  AtomType keyType() {
+    return AtomType.STR;
+  }
+}
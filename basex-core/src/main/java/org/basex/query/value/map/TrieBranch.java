@@ -174,6 +174,13 @@ final class TrieBranch extends TrieNode {
     return ch == null ? this : new TrieBranch(ch, nu, ns);
   }
 
+  @Override
+  void add(final MapBuilder mb, final MergeDuplicates merge) throws QueryException {
+    for(final TrieNode nd : kids) {
+      if(nd != null) nd.add(mb, merge);
+    }
+  }
+
   @Override
   boolean verify() {
     int c = 0;
@@ -162,6 +162,11 @@ final class TrieLeaf extends TrieNode {
     return new TrieBranch(ch, o.used | 1 << k, o.size + ch[k].size - (old != null ? old.size : 0));
   }
 
+  @Override
+  void add(final MapBuilder mb, final MergeDuplicates merge) throws QueryException {
+    mb.add(hash, key, value, merge);
+  }
+
   @Override
   boolean verify() {
     try {
@@ -230,6 +230,11 @@ final class TrieList extends TrieNode {
     return new TrieBranch(ch, o.used | 1 << k, o.size + size - (old != null ? old.size : 0));
   }
 
+  @Override
+  void add(final MapBuilder mb, final MergeDuplicates merge) throws QueryException {
+    for(int i = 0; i < size; i++) mb.add(hash, keys[i], values[i], merge);
+  }
+
   @Override
   boolean verify() {
     try {
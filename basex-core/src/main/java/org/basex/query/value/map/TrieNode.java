@@ -41,6 +41,8 @@ abstract class TrieNode {
     TrieNode add(final TrieBranch o, final int l, final MergeDuplicates merge,
         final InputInfo ii) { return o; }
     @Override
+    void add(final MapBuilder mb, final MergeDuplicates merge) { }
+    @Override
     boolean verify() { return true; }
     @Override
     void keys(final ValueBuilder ks) { }
@@ -175,6 +177,14 @@ abstract class TrieNode {
   abstract TrieNode add(final TrieBranch o, final int lvl, final MergeDuplicates merge,
       final InputInfo ii) throws QueryException;
 
+  /**
+   * Adds all bindings of this node to the specified map builder.
+   * @param mb map builder
+   * @param merge merge duplicates
+   * @throws QueryException query exception
+   */
+  abstract void add(final MapBuilder mb, final MergeDuplicates merge) throws QueryException;
+
   /**
    * Verifies the tree.
    * @return check result
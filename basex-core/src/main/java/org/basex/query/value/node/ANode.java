@@ -237,6 +237,9 @@ public abstract class ANode extends Item {
       }
       c2 = n;
     }
+    // nodes from different databases: order by databases, as nodes may be recreated
+    final Data data1 = node1.data(), data2 = node2.data();
+    if(data1 != null && data2 != null && data1 != data2) return data1.id - data2.id < 0 ? -1 : 1;
     return node1.id - node2.id < 0 ? -1 : 1;
   }
 
@@ -10,6 +10,7 @@ import org.basex.build.*;
 import org.basex.core.*;
 import org.basex.data.*;
 import org.basex.io.*;
+import org.basex.io.in.*;
 import org.basex.query.*;
 import org.basex.query.expr.*;
 import org.basex.query.iter.*;
@@ -127,12 +128,36 @@ public class DBNode extends ANode {
     return pre;
   }
 
+  /**
+   * Checks if this node is fully described by its data reference and pre value.
+   * @return result of check
+   */
+  public final boolean plain() {
+    return getClass() == DBNode.class && parent == null && score == null;
+  }
+
   @Override
   public final byte[] string() {
     if(value == null) value = data.atom(pre);
     return value;
   }
 
+  @Override
+  public final BufferInput input(final InputInfo ii) {
+    // stream texts, attribute values and elements with a single text node from disk
+    if(value == null) {
+      final int kind = data.kind(pre);
+      if(kind == Data.TEXT || kind == Data.COMM) return data.textInput(pre, true);
+      if(kind == Data.ATTR) return data.textInput(pre, false);
+      if(kind == Data.ELEM || kind == Data.DOC) {
+        final int as = data.attSize(pre, kind);
+        if(data.size(pre, kind) - as == 1 && data.kind(pre + as) == Data.TEXT)
+          return data.textInput(pre + as, true);
+      }
+    }
+    return new ArrayInput(string());
+  }
+
   @Override
   public final long itr(final InputInfo ii) throws QueryException {
     if(type == NodeType.ELM) {
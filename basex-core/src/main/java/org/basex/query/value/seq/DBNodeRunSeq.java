@@ -0,0 +1,176 @@
+package org.basex.query.value.seq;
+
+import static org.basex.query.QueryText.*;
+import static org.basex.query.func.Function.*;
+
+import java.util.*;
+
+import org.basex.data.*;
+import org.basex.query.*;
+import org.basex.query.expr.*;
+import org.basex.query.iter.*;
+import org.basex.query.value.*;
+import org.basex.query.value.item.*;
+import org.basex.query.value.node.*;
+import org.basex.query.value.type.*;
+import org.basex.util.*;
+
+/**
+ * Sequence, containing at least two database nodes from one or more databases.
+ *
+ * Nodes are stored as pre values. Consecutive nodes from the same database are grouped to runs,
+ * which share a single data reference.
+ *
+ * @author BaseX Team 2005-16, BSD License
+ * @author Christian Gruen
+ */
+public final class DBNodeRunSeq extends NativeSeq {
+  /** Maximum ratio between the number of runs and the number of nodes. */
+  private static final int RUNS = 4;
+
+  /** Data references of all runs. */
+  private final Data[] datas;
+  /** Offsets to the first nodes of all runs. */
+  private final int[] starts;
+  /** Pre values. */
+  private final int[] pres;
+  /** Nodes are in document order and contain no duplicates. */
+  private final boolean ordered;
+
+  /**
+   * Constructor.
+   * @param datas data references of all runs
+   * @param starts offsets to the first nodes of all runs
+   * @param pres pre values
+   * @param type node type
+   * @param ordered nodes are in document order and contain no duplicates
+   */
+  private DBNodeRunSeq(final Data[] datas, final int[] starts, final int[] pres, final Type type,
+      final boolean ordered) {
+    super(pres.length, type);
+    this.datas = datas;
+    this.starts = starts;
+    this.pres = pres;
+    this.ordered = ordered;
+  }
+
+  @Override
+  public Data data() {
+    return datas.length == 1 ? datas[0] : null;
+  }
+
+  @Override
+  public Item ebv(final QueryContext qc, final InputInfo ii) {
+    return itemAt(0);
+  }
+
+  @Override
+  public boolean iterable() {
+    return ordered;
+  }
+
+  @Override
+  public boolean sameAs(final Expr cmp) {
+    return cmp instanceof DBNodeRunSeq && pres == ((DBNodeRunSeq) cmp).pres;
+  }
+
+  @Override
+  public DBNode itemAt(final long pos) {
+    final int p = (int) pos, r = Arrays.binarySearch(starts, p);
+    return new DBNode(datas[r < 0 ? -r - 2 : r], pres[p]);
+  }
+
+  @Override
+  public ValueIter iter() {
+    return new ValueIter() {
+      int c, r;
+
+      @Override
+      public Item get(final long i) {
+        return itemAt(i);
+      }
+
+      @Override
+      public Item next() {
+        if(c == size) return null;
+        while(r + 1 < starts.length && starts[r + 1] == c) r++;
+        return new DBNode(datas[r], pres[c++]);
+      }
+
+      @Override
+      public long size() {
+        return size;
+      }
+
+      @Override
+      public Value value() {
+        return DBNodeRunSeq.this;
+      }
+    };
+  }
+
+  @Override
+  public Value atomValue(final InputInfo ii) throws QueryException {
+    final ValueBuilder vb = new ValueBuilder();
+    for(int s = 0; s < size; s++) vb.add(itemAt(s).atomValue(ii));
+    return vb.value();
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder sb = new StringBuilder(PAREN1);
+    int r = 0;
+    for(int i = 0; i < size; ++i) {
+      while(r + 1 < starts.length && starts[r + 1] == i) r++;
+      sb.append(i == 0 ? "" : SEP);
+      sb.append(_DB_OPEN_PRE.args(datas[r].meta.name, pres[i]));
+      if(sb.length() <= 16 || i + 1 == size) continue;
+      // output is chopped to prevent too long error strings
+      sb.append(SEP).append(DOTS);
+      break;
+    }
+    return sb.append(PAREN2).toString();
+  }
+
+  // STATIC METHODS =====================================================================
+
+  /**
+   * Creates a compact sequence from the specified nodes.
+   * @param nodes nodes
+   * @param size number of nodes (must be at least 2)
+   * @param ordered nodes are in document order and contain no duplicates
+   * @return resulting sequence, or {@code null} if the nodes cannot be stored in a compact way
+   */
+  public static Value get(final ANode[] nodes, final int size, final boolean ordered) {
+    // count runs, check if all nodes can be reconstructed from their data reference and pre value
+    int runs = 0;
+    Data data = null;
+    Type type = nodes[0].type;
+    for(int n = 0; n < size; n++) {
+      final ANode node = nodes[n];
+      if(!(node instanceof DBNode) || !((DBNode) node).plain()) return null;
+      if(node.data() != data) {
+        data = node.data();
+        if(++runs > size / RUNS) return null;
+      }
+      if(type != node.type) type = NodeType.NOD;
+    }
+
+    final int[] pres = new int[size];
+    for(int n = 0; n < size; n++) pres[n] = ((DBNode) nodes[n]).pre();
+    // single database, ordered nodes: return standard sequence
+    if(runs == 1 && ordered) return new DBNodeSeq(pres, data, type, false);
+
+    final Data[] datas = new Data[runs];
+    final int[] starts = new int[runs];
+    data = null;
+    for(int n = 0, r = 0; n < size; n++) {
+      if(nodes[n].data() != data) {
+        data = nodes[n].data();
+        datas[r] = data;
+        starts[r++] = n;
+      }
+    }
+    return new DBNodeRunSeq(datas, starts, pres, type, ordered);
+  }
+}
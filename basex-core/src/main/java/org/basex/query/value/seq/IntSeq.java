@@ -40,6 +40,14 @@ public final class IntSeq extends NativeSeq {
     return type == is.type && Arrays.equals(values, is.values);
   }
 
+  /**
+   * Returns the integer values.
+   * @return values
+   */
+  public long[] values() {
+    return values;
+  }
+
   @Override
   public Object toJava() {
     switch((AtomType) type) {
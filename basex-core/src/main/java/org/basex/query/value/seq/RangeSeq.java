@@ -63,6 +63,14 @@ public final class RangeSeq extends Seq {
     return asc ? start + size - 1 : start - size + 1;
   }
 
+  /**
+   * Indicates if the values are ascending.
+   * @return result of check
+   */
+  public boolean asc() {
+    return asc;
+  }
+
   @Override
   public Object toJava() {
     final long[] obj = new long[(int) size];
@@ -1,6 +1,5 @@
 package org.basex.server;
 
-import org.basex.util.*;
 import org.basex.util.hash.*;
 
 /**
@@ -14,14 +13,16 @@ public final class ClientBlocker {
   private final TokenIntMap blocked = new TokenIntMap();
 
   /**
-   * Registers the client and delays the process.
+   * Registers the client and returns the time by which its response should be delayed.
+   * The delay is doubled with each failed login.
    * @param client client address
+   * @return delay (ms)
    */
-  public synchronized void delay(final byte[] client) {
+  public synchronized long delay(final byte[] client) {
     int delay = blocked.get(client);
     delay = delay == -1 ? 1 : Math.min(delay, 1024) << 1;
     blocked.put(client, delay);
-    for(int d = delay; d > 0; d--) Performance.sleep(100);
+    return delay * 100L;
   }
 
   /**
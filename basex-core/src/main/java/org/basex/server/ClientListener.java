@@ -4,30 +4,41 @@ import static org.basex.core.Text.*;
 
 import java.io.*;
 import java.net.*;
+import java.nio.channels.*;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.zip.*;
 
 import org.basex.*;
 import org.basex.core.*;
 import org.basex.core.cmd.*;
 import org.basex.core.parse.*;
 import org.basex.core.users.*;
+import org.basex.io.*;
 import org.basex.io.in.*;
 import org.basex.io.out.*;
 import org.basex.query.*;
 import org.basex.server.Log.LogType;
 import org.basex.util.*;
+import org.basex.util.options.*;
 import org.basex.util.list.*;
 
 /**
  * Server-side client session in the client-server architecture.
+ * Requests are either processed by a dedicated thread, which blocks while waiting for input,
+ * or by the worker threads of a {@link ClientSelector}.
  *
  * @author BaseX Team 2005-16, BSD License
  * @author Andreas Weiler
  * @author Christian Gruen
  */
-public final class ClientListener extends Thread {
-  /** Timer for authentication time out. */
-  public final Timer auth = new Timer();
+public final class ClientListener implements Runnable {
+  /** Maximum number of bytes of iterative query results that are cached in main memory. */
+  private static final int CACHE = 1 << 20;
+
+  /** Authentication timeout ({@code null} if not scheduled, or if requests are processed by
+   * workers). */
+  public ScheduledFuture<?> auth;
   /** Timestamp of last interaction. */
   public long last;
 
@@ -37,10 +48,16 @@ public final class ClientListener extends Thread {
   private final Performance perf = new Performance();
   /** Database context. */
   private final Context context;
+  /** Options of the main context. */
+  private final MainOptions options;
   /** Server reference. */
   private final BaseXServer server;
   /** Socket reference. */
   private final Socket socket;
+  /** Socket channel ({@code null} if requests are processed by a dedicated thread). */
+  private final SocketChannel channel;
+  /** Channel output ({@code null} if requests are processed by a dedicated thread). */
+  private ChannelOutput cout;
 
   /** Input stream. */
   private BufferInput in;
@@ -52,6 +69,10 @@ public final class ClientListener extends Thread {
   private int id;
   /** Indicates if the server thread is running. */
   private boolean running;
+  /** Nonce for authentication. */
+  private String nonce;
+  /** Indicates if requests and responses are compressed. */
+  volatile boolean compressed;
 
   /**
    * Constructor.
@@ -60,103 +81,216 @@ public final class ClientListener extends Thread {
    * @param server server reference
    */
   public ClientListener(final Socket socket, final Context context, final BaseXServer server) {
+    this(socket, null, context, server);
+  }
+
+  /**
+   * Constructor for sessions whose requests are processed by worker threads.
+   * This instance will not be run by a dedicated thread.
+   * @param channel socket channel (in non-blocking mode)
+   * @param context database context
+   * @param server server reference
+   */
+  public ClientListener(final SocketChannel channel, final Context context,
+      final BaseXServer server) {
+    this(channel.socket(), channel, context, server);
+  }
+
+  /**
+   * Constructor.
+   * @param socket socket
+   * @param channel socket channel (can be {@code null})
+   * @param context database context
+   * @param server server reference
+   */
+  private ClientListener(final Socket socket, final SocketChannel channel,
+      final Context context, final BaseXServer server) {
     this.context = new Context(context, this);
+    options = context.options;
     this.socket = socket;
+    this.channel = channel;
     this.server = server;
     last = System.currentTimeMillis();
-    setDaemon(true);
   }
 
   @Override
   public void run() {
     if(!authenticate()) return;
+    while(running && process(in));
+  }
 
+  /**
+   * Processes a single request.
+   * @param input input stream
+   * @return {@code true} if the session is still running
+   */
+  boolean process(final BufferInput input) {
+    in = input;
     try {
-      while(running) {
-        command = null;
-        String cmd;
-        final ServerCmd sc;
-        try {
-          final int b = in.read();
-          if(b == -1) {
-            // end of stream: exit session
-            quit();
-            break;
-          }
-
-          last = System.currentTimeMillis();
-          perf.time();
-          sc = ServerCmd.get(b);
-          cmd = null;
-          if(sc == ServerCmd.CREATE) {
-            create();
-          } else if(sc == ServerCmd.ADD) {
-            add();
-          } else if(sc == ServerCmd.REPLACE) {
-            replace();
-          } else if(sc == ServerCmd.STORE) {
-            store();
-          } else if(sc != ServerCmd.COMMAND) {
-            query(sc);
-          } else {
-            // database command
-            cmd = new ByteList().add(b).add(in.readBytes()).toString();
-          }
-        } catch(final IOException ex) {
-          // this exception may be thrown if a session is stopped
-          quit();
-          break;
-        }
-        if(sc != ServerCmd.COMMAND) continue;
-
-        // parse input and create command instance
-        try {
-          command = CommandParser.get(cmd, context).parseSingle();
-          log(LogType.REQUEST, command.toString(true));
-        } catch(final QueryException ex) {
-          // log invalid command
-          final String msg = ex.getMessage();
-          log(LogType.REQUEST, cmd);
-          log(LogType.ERROR, msg);
-          // send 0 to mark end of potential result
-          out.write(0);
-          // send {INFO}0
-          out.print(msg);
-          out.write(0);
-          // send 1 to mark error
-          send(false);
-          continue;
-        }
-
-        // execute command and send {RESULT}
-        boolean ok = true;
-        String info;
-        try {
-          // run command
-          command.execute(context, new ServerOutput(out));
-          info = command.info();
-        } catch(final BaseXException ex) {
-          ok = false;
-          info = ex.getMessage();
-        }
+      return request();
+    } catch(final IOException ex) {
+      log(LogType.ERROR, Util.message(ex));
+      command = null;
+      quit();
+      return false;
+    } finally {
+      command = null;
+    }
+  }
 
-        // send 0 to mark end of result
-        out.write(0);
-        // send info
-        info(info, ok);
+  /**
+   * Processes a single request.
+   * @return {@code true} if the session is still running
+   * @throws IOException I/O exception
+   */
+  private boolean request() throws IOException {
+    command = null;
+    String cmd;
+    ArrayInput batch = null;
+    final ServerCmd sc;
+    try {
+      final int b = in.read();
+      if(b == -1) {
+        // end of stream: exit session
+        quit();
+        return false;
+      }
 
-        // stop console
-        if(command instanceof Exit) {
-          command = null;
-          quit();
-        }
+      last = System.currentTimeMillis();
+      perf.time();
+      sc = ServerCmd.get(b);
+      cmd = null;
+      if(sc == ServerCmd.CREATE) {
+        create();
+      } else if(sc == ServerCmd.ADD) {
+        add();
+      } else if(sc == ServerCmd.REPLACE) {
+        replace();
+      } else if(sc == ServerCmd.STORE) {
+        store();
+      } else if(sc == ServerCmd.COMPRESS) {
+        compress();
+      } else if(sc == ServerCmd.RESET) {
+        reset();
+      } else if(sc == ServerCmd.BATCH) {
+        batch = new ArrayInput(new BufferInput(new ServerInput(in)).content());
+      } else if(sc != ServerCmd.COMMAND) {
+        query(sc);
+      } else {
+        // database command
+        cmd = new ByteList().add(b).add(in.readBytes()).toString();
       }
     } catch(final IOException ex) {
-      log(LogType.ERROR, Util.message(ex));
+      // this exception may be thrown if a session is stopped
+      quit();
+      return false;
+    }
+    if(batch != null) return batch(batch);
+    if(sc != ServerCmd.COMMAND) return true;
+
+    // parse input and create command instance
+    try {
+      command = CommandParser.get(cmd, context).parseSingle();
+      log(LogType.REQUEST, command.toString(true));
+    } catch(final QueryException ex) {
+      // log invalid command
+      final String msg = ex.getMessage();
+      log(LogType.REQUEST, cmd);
+      log(LogType.ERROR, msg);
+      // send 0 to mark end of potential result
+      out.write(0);
+      // send {INFO}0
+      out.print(msg);
+      out.write(0);
+      // send 1 to mark error
+      send(false);
+      return true;
+    }
+
+    // execute command and send {RESULT}
+    boolean ok = true;
+    String info;
+    try {
+      // run command
+      command.execute(context, new ServerOutput(out));
+      info = command.info();
+    } catch(final BaseXException ex) {
+      ok = false;
+      info = ex.getMessage();
+    }
+
+    // send 0 to mark end of result
+    out.write(0);
+    // send info
+    info(info, ok);
+
+    // stop console
+    if(command instanceof Exit) {
       command = null;
       quit();
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Enables the compression of requests and responses.
+   * @throws IOException I/O exception
+   */
+  private void compress() throws IOException {
+    final String algorithm = in.readString();
+    log(LogType.REQUEST, ServerCmd.COMPRESS + "[" + algorithm + ']');
+    if(!algorithm.equals(ServerCmd.DEFLATE)) {
+      out.write(0);
+      error("Unknown compression: " + algorithm);
+      return;
+    }
+    out.write(0);
+    success(algorithm);
+    if(!compressed) {
+      compressed = true;
+      // all subsequent bytes are compressed (workers receive input that has been decompressed
+      // by the selector). flushed output is completely decompressible by the client
+      final OutputStream os = channel != null ? cout : socket.getOutputStream();
+      out = PrintOutput.get(new BufferedOutputStream(new DeflaterOutputStream(os,
+          new Deflater(Deflater.BEST_SPEED), true), IO.BLOCKSIZE));
+      if(channel == null) in = new BufferInput(new InflaterInputStream(socket.getInputStream()));
+    }
+  }
+
+  /**
+   * Resets the state of the session: closes the opened database, discards all queries and
+   * restores the options of the main context.
+   * @throws IOException I/O exception
+   */
+  private void reset() throws IOException {
+    in.readString();
+    log(LogType.REQUEST, ServerCmd.RESET.toString());
+    for(final ServerQuery qp : queries.values()) qp.close();
+    queries.clear();
+    new Close().execute(context);
+    for(final Option<?> option : options) context.options.put(option, options.get(option));
+    out.write(0);
+    success("");
+  }
+
+  /**
+   * Processes a batch of requests. The responses are sent in the order of the requests.
+   * @param requests requests
+   * @return {@code true} if the session is still running
+   * @throws IOException I/O exception
+   */
+  private boolean batch(final ArrayInput requests) throws IOException {
+    final BufferInput input = in;
+    in = requests;
+    try {
+      while(requests.size() < requests.length()) {
+        if(!request()) return false;
+      }
+      return true;
+    } finally {
+      in = input;
     }
-    command = null;
   }
 
   /**
@@ -165,16 +299,39 @@ public final class ClientListener extends Thread {
    */
   private boolean authenticate() {
     try {
-      final String nonce = Long.toString(System.nanoTime());
-      final byte[] address = socket.getInetAddress().getAddress();
+      greet();
+      in = new BufferInput(socket.getInputStream());
+    } catch(final IOException ex) {
+      Util.debug(ex);
+      server.remove(this);
+      return false;
+    }
+    return login(in);
+  }
 
-      // send {REALM:TIMESTAMP}0
-      out = PrintOutput.get(socket.getOutputStream());
-      out.print(Prop.NAME + ':' + nonce);
-      send(true);
+  /**
+   * Sends the realm and a nonce to the client, which is the first step of the authentication.
+   * @throws IOException I/O exception
+   */
+  void greet() throws IOException {
+    nonce = Long.toString(System.nanoTime());
+    if(channel != null) cout = new ChannelOutput(channel);
+    out = PrintOutput.get(channel != null ? cout : socket.getOutputStream());
+    // send {REALM:TIMESTAMP}0
+    out.print(Prop.NAME + ':' + nonce);
+    send(true);
+  }
 
-      // evaluate login data
-      in = new BufferInput(socket.getInputStream());
+  /**
+   * Evaluates the login data.
+   * @param input input stream
+   * @return success flag
+   */
+  boolean login(final BufferInput input) {
+    in = input;
+    long delay = 0;
+    try {
+      final byte[] address = socket.getInetAddress().getAddress();
       // receive {USER}0{DIGEST-HASH}0
       final String us = in.readString(), hash = in.readString();
       final User user = context.users.get(us);
@@ -191,8 +348,11 @@ public final class ClientListener extends Thread {
       } else {
         if(!us.isEmpty()) log(LogType.ERROR, ACCESS_DENIED);
         // delay users with wrong passwords
-        context.blocker.delay(address);
-        send(false);
+        delay = context.blocker.delay(address);
+        if(channel == null) {
+          Performance.sleep(delay);
+          send(false);
+        }
       }
     } catch(final IOException ex) {
       if(running) {
@@ -203,9 +363,34 @@ public final class ClientListener extends Thread {
     }
 
     server.remove(this);
+    if(!running && channel != null) {
+      // worker threads are not blocked: the response will be sent by the scheduler
+      context.jobs.schedule(new Runnable() {
+        @Override
+        public void run() {
+          deny();
+        }
+      }, delay, 0);
+    }
     return running;
   }
 
+  /**
+   * Sends an error flag to a client whose login has failed, and closes the connection.
+   */
+  private void deny() {
+    try {
+      send(false);
+    } catch(final IOException ex) {
+      Util.debug(ex);
+    }
+    try {
+      socket.close();
+    } catch(final IOException ex) {
+      Util.debug(ex);
+    }
+  }
+
   /**
    * Quits the authentication.
    */
@@ -242,6 +427,14 @@ public final class ClientListener extends Thread {
     }
   }
 
+  /**
+   * Returns the output of the socket channel.
+   * @return channel output ({@code null} if requests are processed by a dedicated thread)
+   */
+  ChannelOutput output() {
+    return cout;
+  }
+
   /**
    * Returns the context of this session.
    * @return user reference
@@ -393,11 +586,13 @@ public final class ClientListener extends Thread {
           info.append(val);
           if(!typ.isEmpty()) info.append(" as ").append(typ);
         } else if(sc == ServerCmd.RESULTS) {
-          qp.execute(out, true, true, false);
+          results(qp, false, false);
         } else if(sc == ServerCmd.EXEC) {
           qp.execute(out, false, true, false);
         } else if(sc == ServerCmd.FULL) {
-          qp.execute(out, true, true, true);
+          results(qp, true, false);
+        } else if(sc == ServerCmd.BINARY) {
+          results(qp, false, true);
         } else if(sc == ServerCmd.INFO) {
           out.print(qp.info());
         } else if(sc == ServerCmd.OPTIONS) {
@@ -406,6 +601,7 @@ public final class ClientListener extends Thread {
           out.print(Boolean.toString(qp.updating()));
         } else if(sc == ServerCmd.CLOSE) {
           queries.remove(arg);
+          qp.close();
         } else if(sc == ServerCmd.NEXT) {
           throw new Exception("Protocol for query iteration is out-of-date.");
         }
@@ -422,7 +618,8 @@ public final class ClientListener extends Thread {
       error = Util.message(ex);
       log(LogType.REQUEST, sc + "[" + arg + ']');
       log(LogType.ERROR, error);
-      queries.remove(arg);
+      final ServerQuery qp = queries.remove(arg);
+      if(qp != null) qp.close();
     }
     if(error != null) {
       // send 0 as end marker, 1 as error flag, and {MSG}0
@@ -434,6 +631,35 @@ public final class ClientListener extends Thread {
     out.flush();
   }
 
+  /**
+   * Evaluates a query and sends the results iteratively. As the client may read the results
+   * lazily, the evaluation must not be blocked by the client: otherwise, locks would be held,
+   * and timeouts would continue, until the client has read all results. Results are streamed
+   * to the client, and bytes that cannot be sent yet are cached (and spilled to disk if they
+   * exceed a limit). The query is closed as soon as it has been evaluated.
+   * @param qp query
+   * @param full return full type information
+   * @param binary return results in the binary encoding
+   * @throws IOException I/O exception
+   */
+  private void results(final ServerQuery qp, final boolean full, final boolean binary)
+      throws IOException {
+    if(channel != null) {
+      // bytes that cannot be written are cached by the channel output and sent by the selector
+      qp.execute(out, true, true, full, binary);
+    } else {
+      // bytes are sent by a separate thread, which is blocked if the client does not read them
+      final AsyncOutput ao = new AsyncOutput(out, CACHE,
+          context.soptions.get(StaticOptions.VIRTUALTHREADS));
+      try {
+        qp.execute(ao, true, true, full, binary);
+      } finally {
+        // send results that have been generated before a potential error
+        ao.finish();
+      }
+    }
+  }
+
   /**
    * Sends a success flag to the client (0: true, 1: false).
    * @param ok success flag
@@ -449,7 +675,7 @@ public final class ClientListener extends Thread {
    * @param type log type
    * @param info message info
    */
-  private void log(final LogType type, final String info) {
+  void log(final LogType type, final String info) {
     context.log.write(address(), context.user(), type, info, perf);
   }
 }
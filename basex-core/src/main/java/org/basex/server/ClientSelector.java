@@ -0,0 +1,392 @@
+package org.basex.server;
+
+import static org.basex.core.Text.*;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.zip.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.io.in.*;
+import org.basex.io.out.*;
+import org.basex.server.Log.LogType;
+import org.basex.util.*;
+
+/**
+ * Selector-based front end of the database server. All idle client connections are
+ * multiplexed by a single thread. As soon as a complete request has been received,
+ * it is dispatched to a bounded pool of worker threads. Responses that cannot be written
+ * immediately are cached by the {@link ChannelOutput}, and written by the selector thread as
+ * soon as the client reads its input. The wire protocol is the same as for sessions with a
+ * dedicated {@link ClientListener} thread.
+ *
+ * @author BaseX Team 2005-16, BSD License
+ * @author Christian Gruen
+ */
+public final class ClientSelector extends Thread {
+  /** Size of the read buffer. */
+  private static final int BUFFER = 1 << 16;
+
+  /** New connections. */
+  private final ConcurrentLinkedQueue<SocketChannel> added = new ConcurrentLinkedQueue<>();
+  /** Connections whose requests have been processed. */
+  private final ConcurrentLinkedQueue<Connection> processed = new ConcurrentLinkedQueue<>();
+  /** Read buffer. */
+  private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER);
+  /** Buffer for decompressed bytes. */
+  private final byte[] inflated = new byte[BUFFER];
+  /** Selector. */
+  private final Selector selector;
+  /** Worker threads. */
+  private final ExecutorService workers;
+  /** Database context. */
+  private final Context context;
+  /** Server reference. */
+  private final BaseXServer server;
+  /** Indicates if the selector is running. */
+  private volatile boolean running = true;
+
+  /**
+   * Constructor.
+   * @param context database context
+   * @param server server reference
+   * @param threads number of worker threads
+   * @throws IOException I/O exception
+   */
+  public ClientSelector(final Context context, final BaseXServer server, final int threads)
+      throws IOException {
+    this.context = context;
+    this.server = server;
+    selector = Selector.open();
+    workers = Executors.newFixedThreadPool(threads,
+        Threads.factory(context.soptions.get(StaticOptions.VIRTUALTHREADS)));
+    setDaemon(true);
+  }
+
+  /**
+   * Adds a new client connection.
+   * @param channel socket channel
+   */
+  public void add(final SocketChannel channel) {
+    added.add(channel);
+    selector.wakeup();
+  }
+
+  /**
+   * Closes the selector and all connections that have not been authenticated yet.
+   * Authenticated sessions are closed via {@link ClientListener#quit()}.
+   */
+  public void close() {
+    running = false;
+    selector.wakeup();
+  }
+
+  @Override
+  public void run() {
+    while(running) {
+      try {
+        selector.select(1000);
+        for(SocketChannel ch; (ch = added.poll()) != null;) accept(ch);
+        for(Connection conn; (conn = processed.poll()) != null;) resume(conn);
+
+        final Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while(keys.hasNext()) {
+          final SelectionKey key = keys.next();
+          keys.remove();
+          if(!key.isValid()) continue;
+          if(key.isReadable()) read((Connection) key.attachment());
+          else if(key.isWritable()) resume((Connection) key.attachment());
+        }
+        timeout();
+      } catch(final Throwable ex) {
+        Util.errln(ex);
+        context.log.writeServer(LogType.ERROR, Util.message(ex));
+      }
+    }
+
+    workers.shutdownNow();
+    for(final SelectionKey key : selector.keys()) {
+      final Connection conn = (Connection) key.attachment();
+      conn.client.output().discard();
+      if(!conn.login) close(key.channel());
+    }
+    close(selector);
+  }
+
+  /**
+   * Registers a new connection and starts the authentication.
+   * @param channel socket channel
+   */
+  private void accept(final SocketChannel channel) {
+    try {
+      channel.configureBlocking(false);
+      final ClientListener client = new ClientListener(channel, context, server);
+      client.greet();
+      final Connection conn = new Connection(client);
+      conn.key = channel.register(selector, 0, conn);
+      resume(conn);
+    } catch(final IOException ex) {
+      Util.debug(ex);
+      close(channel);
+    }
+  }
+
+  /**
+   * Reads incoming bytes of a connection and dispatches complete requests.
+   * @param conn connection
+   */
+  private void read(final Connection conn) {
+    buffer.clear();
+    int n;
+    try {
+      n = ((SocketChannel) conn.key.channel()).read(buffer);
+    } catch(final IOException ex) {
+      Util.debug(ex);
+      n = -1;
+    }
+    if(n == -1) {
+      // end of stream: exit session
+      drop(conn);
+    } else {
+      try {
+        conn.add(buffer.array(), n, inflated);
+      } catch(final DataFormatException ex) {
+        Util.debug(ex);
+        conn.key.cancel();
+        dispatch(conn, new byte[0]);
+        return;
+      }
+      if(conn.complete()) dispatch(conn, conn.next());
+    }
+  }
+
+  /**
+   * Resumes reading from a connection after a request has been processed.
+   * Pending bytes of the response are written first.
+   * @param conn connection
+   */
+  private void resume(final Connection conn) {
+    if(!conn.key.isValid()) return;
+    try {
+      if(!conn.client.output().drain()) {
+        // wait until the client reads the remaining bytes
+        conn.key.interestOps(SelectionKey.OP_WRITE);
+        return;
+      }
+    } catch(final IOException ex) {
+      Util.debug(ex);
+      drop(conn);
+      return;
+    }
+    // compression was enabled by the last request
+    if(conn.client.compressed && conn.inflater == null) conn.inflater = new Inflater();
+    if(conn.complete()) {
+      // pipelined request has already been received
+      dispatch(conn, conn.next());
+    } else {
+      conn.key.interestOps(SelectionKey.OP_READ);
+    }
+  }
+
+  /**
+   * Drops a connection. Authenticated sessions are closed by a worker thread.
+   * @param conn connection
+   */
+  private void drop(final Connection conn) {
+    conn.key.cancel();
+    conn.client.output().discard();
+    if(conn.login) {
+      dispatch(conn, new byte[0]);
+    } else {
+      close(conn.key.channel());
+    }
+  }
+
+  /**
+   * Passes on a request to a worker thread.
+   * No more bytes will be read from the connection until the request has been processed.
+   * @param conn connection
+   * @param request request
+   */
+  private void dispatch(final Connection conn, final byte[] request) {
+    if(conn.key.isValid()) conn.key.interestOps(0);
+    conn.busy = true;
+    workers.execute(new Runnable() {
+      @Override
+      public void run() {
+        final ClientListener client = conn.client;
+        final ArrayInput input = new ArrayInput(request);
+        final boolean ok;
+        if(conn.login) {
+          ok = client.process(input);
+        } else {
+          ok = client.login(input);
+          conn.login = ok;
+          if(!ok) {
+            // failed logins are delayed; the connection will be closed by the client listener
+            conn.key.cancel();
+            return;
+          }
+        }
+        conn.busy = false;
+        if(ok) {
+          processed.add(conn);
+          selector.wakeup();
+        } else {
+          close(conn.key.channel());
+        }
+      }
+    });
+  }
+
+  /**
+   * Closes connections that have not been authenticated within the keep-alive time, and
+   * connections of clients that have not read any pending bytes within this time.
+   */
+  private void timeout() {
+    final long ka = context.soptions.get(StaticOptions.KEEPALIVE) * 1000L;
+    if(ka <= 0) return;
+    final long ms = System.currentTimeMillis();
+    for(final SelectionKey key : selector.keys()) {
+      final Connection conn = (Connection) key.attachment();
+      if(conn.busy || !key.isValid()) continue;
+      final ChannelOutput co = conn.client.output();
+      if(co.pending() && ms - co.time() > ka) {
+        conn.client.log(LogType.ERROR, TIMEOUT_EXCEEDED);
+        drop(conn);
+      } else if(!conn.login && ms - conn.client.last > ka) {
+        key.cancel();
+        conn.client.quitAuth();
+      }
+    }
+  }
+
+  /**
+   * Closes a resource.
+   * @param closeable closeable resource
+   */
+  private void close(final Closeable closeable) {
+    try {
+      closeable.close();
+    } catch(final IOException ex) {
+      context.log.writeServer(LogType.ERROR, Util.message(ex));
+    }
+  }
+
+  /**
+   * Client connection. Incoming bytes are buffered until a request is complete.
+   */
+  private static final class Connection {
+    /** Client. */
+    final ClientListener client;
+    /** Selection key. */
+    SelectionKey key;
+    /** Indicates if the client has been authenticated. */
+    volatile boolean login;
+    /** Indicates if a request is being processed. */
+    volatile boolean busy;
+    /** Inflater for compressed input ({@code null} if input is not compressed). */
+    Inflater inflater;
+
+    /** Received bytes. */
+    private byte[] data = new byte[256];
+    /** Number of received bytes. */
+    private int size;
+    /** Number of scanned bytes. */
+    private int scanned;
+    /** Number of remaining 0-terminated fields of the current request ({@code -1}: unknown). */
+    private int fields = -1;
+    /** Indicates if the last field is an encoded input stream. */
+    private boolean stream;
+    /** Indicates if the next byte is escaped. */
+    private boolean escape;
+
+    /**
+     * Constructor.
+     * @param client client
+     */
+    Connection(final ClientListener client) {
+      this.client = client;
+    }
+
+    /**
+     * Adds received bytes.
+     * @param bytes bytes
+     * @param length number of bytes
+     * @param chunk buffer for decompressed bytes
+     * @throws DataFormatException invalid compressed input
+     */
+    void add(final byte[] bytes, final int length, final byte[] chunk)
+        throws DataFormatException {
+      if(inflater == null) {
+        append(bytes, length);
+      } else {
+        inflater.setInput(bytes, 0, length);
+        for(int l; (l = inflater.inflate(chunk)) > 0;) append(chunk, l);
+      }
+    }
+
+    /**
+     * Appends bytes to the buffer.
+     * @param bytes bytes
+     * @param length number of bytes
+     */
+    private void append(final byte[] bytes, final int length) {
+      if(size + length > data.length) {
+        data = Arrays.copyOf(data, Math.max(size + length, Array.newSize(data.length)));
+      }
+      System.arraycopy(bytes, 0, data, size, length);
+      size += length;
+    }
+
+    /**
+     * Checks if the received bytes contain a complete request.
+     * @return result of check
+     */
+    boolean complete() {
+      if(scanned == size && fields == 0) return true;
+      while(scanned < size) {
+        if(fields == -1) {
+          stream = false;
+          if(login) {
+            // request: first byte determines the number of fields
+            final ServerCmd sc = ServerCmd.get(data[scanned++] & 0xFF);
+            stream = sc == ServerCmd.CREATE || sc == ServerCmd.ADD ||
+                sc == ServerCmd.REPLACE || sc == ServerCmd.STORE || sc == ServerCmd.BATCH;
+            fields = sc == ServerCmd.BIND ? 4 : sc == ServerCmd.CONTEXT ? 3 :
+              stream && sc != ServerCmd.BATCH ? 2 : 1;
+            continue;
+          }
+          // authentication: {USER}0{DIGEST-HASH}0
+          fields = 2;
+        }
+        final int b = data[scanned++] & 0xFF;
+        if(escape) {
+          escape = false;
+        } else if(b == 0xFF && stream && fields == 1) {
+          escape = true;
+        } else if(b == 0 && --fields == 0) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    /**
+     * Returns the bytes of a complete request and removes them from the buffer.
+     * @return request
+     */
+    byte[] next() {
+      final byte[] request = Arrays.copyOf(data, scanned);
+      size -= scanned;
+      System.arraycopy(data, scanned, data, 0, size);
+      scanned = 0;
+      fields = -1;
+      return request;
+    }
+  }
+}
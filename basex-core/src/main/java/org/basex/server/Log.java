@@ -5,6 +5,9 @@ import static org.basex.util.Token.*;
 import java.io.*;
 import java.math.*;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.*;
 
 import org.basex.core.*;
 import org.basex.core.users.*;
@@ -23,6 +26,11 @@ import org.basex.util.*;
  *   <li><b>Performance</b>: Measured time in milliseconds</li>
  * </ul>
  *
+ * Entries are added to a queue and written in batches by a separate thread, so that logging
+ * threads neither compete for a lock nor wait for file operations. If the queue is full
+ * (see {@link StaticOptions#LOGQUEUE}), new entries are either discarded, or the logging thread
+ * writes all pending entries itself (see {@link StaticOptions#LOGDROP}).
+ *
  * @author BaseX Team 2005-16, BSD License
  * @author Christian Gruen
  */
@@ -41,10 +49,26 @@ public final class Log {
 
   /** Static options. */
   private final StaticOptions sopts;
+  /** Maximum number of pending entries. */
+  private final int max;
+  /** Discard entries if the queue is full. */
+  private final boolean drop;
+  /** Pending entries. */
+  private final ConcurrentLinkedQueue<Line> queue = new ConcurrentLinkedQueue<>();
+  /** Number of pending entries. */
+  private final AtomicInteger pending = new AtomicInteger();
+  /** Number of discarded entries. */
+  private final AtomicInteger dropped = new AtomicInteger();
+  /** Thread for writing pending entries ({@code null} if not running). */
+  private volatile Thread writer;
+  /** Indicates if the writer thread is waiting for new entries. */
+  private volatile boolean parked;
   /** Start date of log. */
   private String start;
+  /** End of the day of the current log file (ms). */
+  private long end;
   /** Output stream. */
-  private FileOutputStream fos;
+  private volatile FileOutputStream fos;
 
   /**
    * Constructor.
@@ -52,6 +76,8 @@ public final class Log {
    */
   public Log(final StaticOptions sopts) {
     this.sopts = sopts;
+    max = sopts.get(StaticOptions.LOGQUEUE);
+    drop = sopts.get(StaticOptions.LOGDROP);
   }
 
   /**
@@ -59,8 +85,10 @@ public final class Log {
    * @param type log type
    * @param info info string (can be {@code null})
    */
-  public synchronized void writeServer(final LogType type, final String info) {
+  public void writeServer(final LogType type, final String info) {
     write(SERVER, null, type, info, null);
+    // server entries are rare: write them immediately
+    flush();
   }
 
   /**
@@ -71,7 +99,7 @@ public final class Log {
    * @param info info string (can be {@code null})
    * @param perf performance string
    */
-  public synchronized void write(final String address, final User user, final int type,
+  public void write(final String address, final User user, final int type,
       final String info, final Performance perf) {
     write(address, user, Integer.toString(type), info, perf);
   }
@@ -84,7 +112,7 @@ public final class Log {
    * @param info info string (can be {@code null})
    * @param perf performance string
    */
-  public synchronized void write(final String address, final User user, final LogType type,
+  public void write(final String address, final User user, final LogType type,
       final String info, final Performance perf) {
     write(address, user, type.toString(), info, perf);
   }
@@ -97,77 +125,191 @@ public final class Log {
    * @param info info string (can be {@code null})
    * @param perf performance string
    */
-  public synchronized void write(final String address, final User user, final String type,
+  public void write(final String address, final User user, final String type,
       final String info, final Performance perf) {
 
     if(!sopts.get(StaticOptions.LOG)) {
-      close();
+      if(fos != null || writer != null) close();
       return;
     }
 
-    // initializes the output stream and returns the current date
+    // the entry will be formatted when it is written
+    final Line line = new Line(System.currentTimeMillis(), address,
+        user == null ? UserText.ADMIN : user.name(), type, info,
+        perf == null ? null : perf.toString());
+
+    if(pending.incrementAndGet() <= max) {
+      // queue entry and wake up writer thread
+      queue.add(line);
+      final Thread thread = writer == null ? writer() : writer;
+      if(parked) LockSupport.unpark(thread);
+    } else if(max > 0 && drop) {
+      // queue is full: discard entry
+      pending.decrementAndGet();
+      dropped.incrementAndGet();
+    } else {
+      // synchronous logging, or queue is full: write all pending entries
+      queue.add(line);
+      flush();
+    }
+  }
+
+  /**
+   * Writes all pending entries to disk.
+   */
+  public synchronized void flush() {
+    final int d = dropped.getAndSet(0);
+    if(d > 0) {
+      pending.incrementAndGet();
+      queue.add(new Line(System.currentTimeMillis(), SERVER, UserText.ADMIN,
+          LogType.ERROR.toString(), Util.info("% log entries were discarded.", d), null));
+    }
+
+    final int ml = sopts.get(StaticOptions.LOGMSGMAXLEN);
+    final TokenBuilder batch = new TokenBuilder();
     final Date date = new Date();
+    // formatted time without milliseconds, and the corresponding second
+    String time = null;
+    long second = -1;
     try {
-      // check if day has changed
-      final String nstart = name(date);
-      if(fos != null && !start.equals(nstart)) close();
-
-      // create new log file
-      if(fos == null) {
-        final IOFile dir = dir();
-        dir.md();
-        fos = new FileOutputStream(new IOFile(dir, nstart + IO.LOGSUFFIX).file(), true);
-        start = nstart;
-      }
+      for(Line line; (line = queue.poll()) != null;) {
+        pending.decrementAndGet();
+        date.setTime(line.time);
+        // check if day has changed
+        if(fos != null && line.time >= end) {
+          final String nstart = name(date);
+          if(!start.equals(nstart)) {
+            write(batch);
+            close(fos);
+          }
+        }
+        // create new log file
+        if(fos == null) {
+          final String nstart = name(date);
+          final IOFile dir = directory();
+          dir.md();
+          fos = new FileOutputStream(new IOFile(dir, nstart + IO.LOGSUFFIX).file(), true);
+          start = nstart;
+          final Calendar cal = Calendar.getInstance();
+          cal.setTime(date);
+          cal.set(Calendar.HOUR_OF_DAY, 0);
+          cal.set(Calendar.MINUTE, 0);
+          cal.set(Calendar.SECOND, 0);
+          cal.set(Calendar.MILLISECOND, 0);
+          cal.add(Calendar.DATE, 1);
+          end = cal.getTimeInMillis();
+        }
 
-      // construct log text
-      final int ml = sopts.get(StaticOptions.LOGMSGMAXLEN);
-      final TokenBuilder tb = new TokenBuilder();
-      tb.add(DateTime.format(date, DateTime.TIME));
-      tb.add('\t').add(address);
-      tb.add('\t').add(user == null ? UserText.ADMIN : user.name());
-      tb.add('\t').add(type);
-      tb.add('\t').add(info == null ? EMPTY : chop(normalize(token(info)), ml));
-      if(perf != null) tb.add('\t').add(perf.toString());
-      tb.add(Prop.NL);
-
-      // write and flush text
-      fos.write(tb.finish());
-      fos.flush();
+        // construct log text (the time string only changes once per second)
+        final long sec = line.time / 1000;
+        if(sec != second) {
+          final String tm = DateTime.format(date, DateTime.TIME);
+          time = tm.substring(0, tm.length() - 3);
+          second = sec;
+        }
+        final int ms = (int) (line.time - sec * 1000);
+        batch.add(time).add((char) ('0' + ms / 100)).add((char) ('0' + ms / 10 % 10));
+        batch.add((char) ('0' + ms % 10));
+        batch.add('\t').add(line.address);
+        batch.add('\t').add(line.user);
+        batch.add('\t').add(line.type);
+        batch.add('\t').add(line.info == null ? EMPTY : chop(normalize(token(line.info)), ml));
+        if(line.perf != null) batch.add('\t').add(line.perf);
+        batch.add(Prop.NL);
+      }
+      write(batch);
     } catch(final IOException ex) {
       Util.stack(ex);
     }
   }
 
   /**
-   * Closes the log file.
+   * Writes pending entries and closes the log file.
    */
   public synchronized void close() {
-    if(fos == null) return;
-    try {
-      fos.close();
-      fos = null;
-    } catch(final IOException ex) {
-      Util.stack(ex);
-    }
+    // stop writer thread; it will be restarted if new entries are added
+    final Thread thread = writer;
+    writer = null;
+    if(thread != null) LockSupport.unpark(thread);
+
+    flush();
+    if(fos != null) close(fos);
   }
 
   /**
-   * Returns a reference to the log directory.
+   * Returns a reference to the log directory. Pending entries are written first.
    * @return log directory
    */
-  public synchronized IOFile dir() {
-    return sopts.dbPath(".").resolve(sopts.get(StaticOptions.LOGPATH));
+  public IOFile dir() {
+    flush();
+    return directory();
   }
 
   /**
-   * Returns all log files.
+   * Returns all log files. Pending entries are written first.
    * @return log directory
    */
-  public synchronized IOFile[] files() {
+  public IOFile[] files() {
     return dir().children(".*\\" + IO.LOGSUFFIX);
   }
 
+  /**
+   * Returns a reference to the log directory.
+   * @return log directory
+   */
+  private IOFile directory() {
+    return sopts.dbPath(".").resolve(sopts.get(StaticOptions.LOGPATH));
+  }
+
+  /**
+   * Writes a batch of entries to the current log file.
+   * @param batch batch (will be reset)
+   * @throws IOException I/O exception
+   */
+  private void write(final TokenBuilder batch) throws IOException {
+    if(batch.isEmpty()) return;
+    fos.write(batch.finish());
+    batch.reset();
+  }
+
+  /**
+   * Closes the specified output stream.
+   * @param os output stream
+   */
+  private void close(final FileOutputStream os) {
+    try {
+      os.close();
+    } catch(final IOException ex) {
+      Util.stack(ex);
+    }
+    fos = null;
+  }
+
+  /**
+   * Returns the writer thread. Starts a new thread if none is running.
+   * @return thread
+   */
+  private synchronized Thread writer() {
+    if(writer == null) {
+      final Thread thread = new Thread() {
+        @Override
+        public void run() {
+          while(writer == this) {
+            flush();
+            // wait for new entries
+            parked = true;
+            if(queue.isEmpty() && writer == this) LockSupport.park(this);
+            parked = false;
+          }
+        }
+      };
+      thread.setDaemon(true);
+      writer = thread;
+      thread.start();
+    }
+    return writer;
+  }
+
   /**
    * Returns the name of a log file (excluding the suffix) for the specified date.
    * @param date date
@@ -177,6 +319,43 @@ public final class Log {
     return DateTime.format(date, DateTime.DATE);
   }
 
+  /**
+   * Pending entry.
+   */
+  private static final class Line {
+    /** Time (ms). */
+    final long time;
+    /** Address. */
+    final String address;
+    /** User name. */
+    final String user;
+    /** Type. */
+    final String type;
+    /** Info string (can be {@code null}). */
+    final String info;
+    /** Performance string (can be {@code null}). */
+    final String perf;
+
+    /**
+     * Constructor.
+     * @param time time (ms)
+     * @param address address string
+     * @param user user name
+     * @param type type
+     * @param info info string (can be {@code null})
+     * @param perf performance string (can be {@code null})
+     */
+    Line(final long time, final String address, final String user, final String type,
+        final String info, final String perf) {
+      this.time = time;
+      this.address = address;
+      this.user = user;
+      this.type = type;
+      this.info = info;
+      this.perf = perf;
+    }
+  }
+
   /**
    * Log entry.
    */
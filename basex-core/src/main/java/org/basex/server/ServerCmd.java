@@ -33,6 +33,14 @@ public enum ServerCmd {
   STORE(13),
   /** Code for binding a context value: {id}0{val}0{type}0. */
   CONTEXT(14),
+  /** Code for running a batch of requests, which are sent as encoded stream: {requests}0. */
+  BATCH(15),
+  /** Code for compressing all subsequent requests and responses: {algorithm}0. */
+  COMPRESS(16),
+  /** Code for returning results in the binary encoding: {id}0. */
+  BINARY(17),
+  /** Code for resetting the session state: {}0. */
+  RESET(20),
   /** Code for returning the update flag: {id}0. */
   UPDATING(30),
   /** Code for executing a query and returning all information relevant for XQJ: {id}0. */
@@ -40,6 +48,9 @@ public enum ServerCmd {
   /** Code for running a database command: {path}0{input}0. */
   COMMAND(-1);
 
+  /** Compression algorithm supported by {@link #COMPRESS}. */
+  public static final String DEFLATE = "deflate";
+
   /** Control code (soon obsolete). */
   public final int code;
 
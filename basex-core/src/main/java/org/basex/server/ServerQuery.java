@@ -21,6 +21,9 @@ import org.basex.util.*;
  * @author Christian Gruen
  */
 public final class ServerQuery extends Job {
+  /** Maximum time (ns) for which iteratively returned results are buffered. */
+  private static final long FLUSH = 100000000;
+
   /** Query string. */
   private final String query;
   /** Database context. */
@@ -111,6 +114,20 @@ public final class ServerQuery extends Job {
    */
   public void execute(final OutputStream out, final boolean iter, final boolean encode,
       final boolean full) throws IOException {
+    execute(out, iter, encode, full, false);
+  }
+
+  /**
+   * Executes the query.
+   * @param out output stream
+   * @param iter iterative evaluation
+   * @param encode encode results (client/server communication, iterative processing)
+   * @param full return full type information (only applicable to iterative evaluation)
+   * @param binary return results in the binary encoding (see {@link BinarySerializer})
+   * @throws IOException I/O Exception
+   */
+  public void execute(final OutputStream out, final boolean iter, final boolean encode,
+      final boolean full, final boolean binary) throws IOException {
 
     try {
       // parses the query and registers the process
@@ -126,17 +143,31 @@ public final class ServerQuery extends Job {
 
       // iterate through results
       int c = 0;
+      long flushed = 0;
       final PrintOutput po = PrintOutput.get(encode ? new ServerOutput(out) : out);
       final SerializerOptions sopts = full ? SerializerMode.API.get() : qp.qc.serParams();
-      try(final Serializer ser = Serializer.get(po, sopts)) {
+      // binary encoding: only applicable if the default serialization parameters are used
+      final boolean bin = binary && sopts.toString().equals(
+          SerializerMode.DEFAULT.get().toString());
+      try(final Serializer ser = Serializer.get(po, sopts);
+          final Serializer bser = bin ? new BinarySerializer(po) : null) {
         for(Item it; (it = ir.next()) != null;) {
           if(iter) {
             if(full) po.write(it.xdmInfo());
             else po.write(it.typeId().asByte());
-            ser.reset();
-            ser.serialize(it);
+            // binary encoding: maps, arrays and functions are serialized as text
+            final Serializer sr = bin && !(it instanceof FItem) ? bser : ser;
+            if(binary) po.write(sr == ser ? BinarySerializer.TEXTUAL : BinarySerializer.BINARY);
+            sr.reset();
+            sr.serialize(it);
             po.flush();
             out.write(0);
+            // send first result immediately, and subsequent results in regular intervals
+            final long time = System.nanoTime();
+            if(c == 0 || time - flushed >= FLUSH) {
+              out.flush();
+              flushed = time;
+            }
           } else {
             ser.serialize(it);
           }
@@ -167,6 +198,19 @@ public final class ServerQuery extends Job {
     }
   }
 
+  /**
+   * Closes a query processor that has been created, but not executed
+   * (because values have been bound, or because the query has been parsed).
+   */
+  public void close() {
+    if(qp != null) {
+      qp.close();
+      qp = null;
+      parsed = false;
+      popJob();
+    }
+  }
+
   /**
    * Initializes the query.
    * @throws IOException I/O Exception
@@ -189,7 +233,7 @@ public final class ServerQuery extends Job {
    * @return query processor
    */
   private QueryProcessor qp() {
-    if(parsed || qp == null) {
+    if(qp == null) {
       qp = pushJob(new QueryProcessor(query, ctx));
       parsed = false;
     }
@@ -0,0 +1,351 @@
+package org.basex.util;
+
+import java.util.*;
+
+/**
+ * Compressed bitmap for non-negative integers.
+ *
+ * Values are partitioned into chunks of 2<sup>16</sup> values, which share the same upper bits.
+ * Sparse chunks are stored as sorted arrays of the lower bits, and dense chunks are stored as
+ * bit arrays. Set operations are performed chunk by chunk, and on words if both chunks are dense.
+ *
+ * @author BaseX Team 2005-16, BSD License
+ * @author Christian Gruen
+ */
+public final class Bitmap {
+  /** Number of bits of the lower part of a value. */
+  private static final int BITS = 16;
+  /** Maximum number of values in a sparse chunk. */
+  private static final int SPARSE = 1 << 12;
+  /** Number of words of a dense chunk. */
+  private static final int WORDS = 1 << BITS - 6;
+
+  /** Upper bits of all chunks (sorted). */
+  private int[] keys;
+  /** Chunks ({@code char[]}: sparse chunk, {@code long[]}: dense chunk). */
+  private Object[] chunks;
+  /** Number of values in all chunks. */
+  private int[] sizes;
+  /** Number of chunks. */
+  private int size;
+
+  /**
+   * Constructor.
+   */
+  public Bitmap() {
+    this(1);
+  }
+
+  /**
+   * Constructor with initial capacity.
+   * @param capacity number of chunks
+   */
+  private Bitmap(final int capacity) {
+    keys = new int[capacity];
+    chunks = new Object[capacity];
+    sizes = new int[capacity];
+  }
+
+  /**
+   * Adds a value.
+   * @param value value (must not be negative)
+   */
+  public void add(final int value) {
+    final int key = value >>> BITS;
+    final char low = (char) value;
+    // values are usually added in ascending order: check last chunk first
+    int c = size - 1;
+    if(c == -1 || keys[c] != key) {
+      c = c == -1 || keys[c] < key ? -size - 1 : Arrays.binarySearch(keys, 0, size, key);
+      if(c < 0) {
+        c = -c - 1;
+        insert(c, key, new char[Array.CAPACITY], 0);
+      }
+    }
+
+    final Object chunk = chunks[c];
+    if(chunk instanceof long[]) {
+      final long[] words = (long[]) chunk;
+      final long w = words[low >>> 6], b = 1L << low;
+      if((w & b) == 0) {
+        words[low >>> 6] = w | b;
+        sizes[c]++;
+      }
+      return;
+    }
+
+    char[] values = (char[]) chunk;
+    final int s = sizes[c];
+    int i = s == 0 || values[s - 1] < low ? -s - 1 : Arrays.binarySearch(values, 0, s, low);
+    if(i >= 0) return;
+    i = -i - 1;
+    if(s == SPARSE) {
+      // convert to dense chunk
+      final long[] words = dense(values, s);
+      words[low >>> 6] |= 1L << low;
+      chunks[c] = words;
+    } else {
+      if(s == values.length) {
+        values = Arrays.copyOf(values, Math.min(SPARSE, Array.newSize(s)));
+        chunks[c] = values;
+      }
+      System.arraycopy(values, i, values, i + 1, s - i);
+      values[i] = low;
+    }
+    sizes[c] = s + 1;
+  }
+
+  /**
+   * Checks if the specified value is contained in the bitmap.
+   * @param value value
+   * @return result of check
+   */
+  public boolean contains(final int value) {
+    final int c = value < 0 ? -1 : Arrays.binarySearch(keys, 0, size, value >>> BITS);
+    return c >= 0 && has(c, (char) value);
+  }
+
+  /**
+   * Returns the number of values.
+   * @return number of values
+   */
+  public int cardinality() {
+    int n = 0;
+    for(int c = 0; c < size; c++) n += sizes[c];
+    return n;
+  }
+
+  /**
+   * Returns all values in ascending order.
+   * @return values
+   */
+  public int[] toArray() {
+    final int[] array = new int[cardinality()];
+    int a = 0;
+    for(int c = 0; c < size; c++) {
+      final int high = keys[c] << BITS;
+      final Object chunk = chunks[c];
+      if(chunk instanceof long[]) {
+        final long[] words = (long[]) chunk;
+        for(int w = 0; w < WORDS; w++) {
+          for(long word = words[w]; word != 0; word &= word - 1) {
+            array[a++] = high | w << 6 | Long.numberOfTrailingZeros(word);
+          }
+        }
+      } else {
+        final char[] values = (char[]) chunk;
+        final int s = sizes[c];
+        for(int v = 0; v < s; v++) array[a++] = high | values[v];
+      }
+    }
+    return array;
+  }
+
+  /**
+   * Returns the union of this and the specified bitmap.
+   * @param bitmap bitmap
+   * @return new bitmap
+   */
+  public Bitmap or(final Bitmap bitmap) {
+    final Bitmap result = new Bitmap(size + bitmap.size);
+    int c1 = 0, c2 = 0;
+    while(c1 < size || c2 < bitmap.size) {
+      final int k1 = c1 < size ? keys[c1] : Integer.MAX_VALUE;
+      final int k2 = c2 < bitmap.size ? bitmap.keys[c2] : Integer.MAX_VALUE;
+      if(k1 < k2) {
+        result.append(k1, copy(chunks[c1]), sizes[c1]);
+        c1++;
+      } else if(k1 > k2) {
+        result.append(k2, copy(bitmap.chunks[c2]), bitmap.sizes[c2]);
+        c2++;
+      } else {
+        final long[] words = words(chunks[c1], sizes[c1]);
+        final Object chunk = bitmap.chunks[c2];
+        if(chunk instanceof long[]) {
+          final long[] w2 = (long[]) chunk;
+          for(int w = 0; w < WORDS; w++) words[w] |= w2[w];
+        } else {
+          final char[] values = (char[]) chunk;
+          final int s = bitmap.sizes[c2];
+          for(int v = 0; v < s; v++) words[values[v] >>> 6] |= 1L << values[v];
+        }
+        result.append(k1, words);
+        c1++;
+        c2++;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the intersection of this and the specified bitmap.
+   * @param bitmap bitmap
+   * @return new bitmap
+   */
+  public Bitmap and(final Bitmap bitmap) {
+    return combine(bitmap, true);
+  }
+
+  /**
+   * Returns all values of this bitmap that are not contained in the specified bitmap.
+   * @param bitmap bitmap
+   * @return new bitmap
+   */
+  public Bitmap andNot(final Bitmap bitmap) {
+    return combine(bitmap, false);
+  }
+
+  /**
+   * Computes the intersection or difference of this and the specified bitmap.
+   * @param bitmap bitmap
+   * @param and intersection or difference
+   * @return new bitmap
+   */
+  private Bitmap combine(final Bitmap bitmap, final boolean and) {
+    final Bitmap result = new Bitmap(Math.max(1, size));
+    int c2 = 0;
+    for(int c1 = 0; c1 < size; c1++) {
+      final int key = keys[c1];
+      while(c2 < bitmap.size && bitmap.keys[c2] < key) c2++;
+      final boolean found = c2 < bitmap.size && bitmap.keys[c2] == key;
+      if(!found) {
+        if(!and) result.append(key, copy(chunks[c1]), sizes[c1]);
+        continue;
+      }
+
+      final Object chunk1 = chunks[c1], chunk2 = bitmap.chunks[c2];
+      if(chunk1 instanceof long[] && chunk2 instanceof long[]) {
+        // word-level operation
+        final long[] w1 = (long[]) chunk1, w2 = (long[]) chunk2, words = new long[WORDS];
+        if(and) {
+          for(int w = 0; w < WORDS; w++) words[w] = w1[w] & w2[w];
+        } else {
+          for(int w = 0; w < WORDS; w++) words[w] = w1[w] & ~w2[w];
+        }
+        result.append(key, words);
+      } else if(chunk1 instanceof long[]) {
+        final long[] words = and ? new long[WORDS] : ((long[]) chunk1).clone();
+        final char[] values = (char[]) chunk2;
+        final int s = bitmap.sizes[c2];
+        for(int v = 0; v < s; v++) {
+          final char val = values[v];
+          final long b = 1L << val;
+          if(and) words[val >>> 6] |= ((long[]) chunk1)[val >>> 6] & b;
+          else words[val >>> 6] &= ~b;
+        }
+        result.append(key, words);
+      } else {
+        final char[] values = (char[]) chunk1, vals = new char[sizes[c1]];
+        final int s = sizes[c1];
+        int n = 0;
+        for(int v = 0; v < s; v++) {
+          final char val = values[v];
+          if(bitmap.has(c2, val) == and) vals[n++] = val;
+        }
+        if(n > 0) result.append(key, vals, n);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Checks if the specified chunk contains a lower value.
+   * @param c chunk offset
+   * @param low lower value
+   * @return result of check
+   */
+  private boolean has(final int c, final char low) {
+    final Object chunk = chunks[c];
+    return chunk instanceof long[] ? (((long[]) chunk)[low >>> 6] & 1L << low) != 0 :
+      Arrays.binarySearch((char[]) chunk, 0, sizes[c], low) >= 0;
+  }
+
+  /**
+   * Appends a dense chunk. Chunks with few values will be converted to sparse chunks,
+   * empty chunks will be skipped.
+   * @param key upper bits
+   * @param words words
+   */
+  private void append(final int key, final long[] words) {
+    int n = 0;
+    for(final long word : words) n += Long.bitCount(word);
+    if(n == 0) return;
+    if(n > SPARSE) {
+      append(key, words, n);
+    } else {
+      final char[] values = new char[n];
+      int v = 0;
+      for(int w = 0; w < WORDS; w++) {
+        for(long word = words[w]; word != 0; word &= word - 1) {
+          values[v++] = (char) (w << 6 | Long.numberOfTrailingZeros(word));
+        }
+      }
+      append(key, values, n);
+    }
+  }
+
+  /**
+   * Appends a chunk.
+   * @param key upper bits
+   * @param chunk chunk
+   * @param s number of values
+   */
+  private void append(final int key, final Object chunk, final int s) {
+    insert(size, key, chunk, s);
+  }
+
+  /**
+   * Inserts a chunk.
+   * @param c chunk offset
+   * @param key upper bits
+   * @param chunk chunk
+   * @param s number of values
+   */
+  private void insert(final int c, final int key, final Object chunk, final int s) {
+    if(size == keys.length) {
+      final int ns = Array.newSize(size);
+      keys = Arrays.copyOf(keys, ns);
+      chunks = Arrays.copyOf(chunks, ns);
+      sizes = Arrays.copyOf(sizes, ns);
+    }
+    final int m = size - c;
+    System.arraycopy(keys, c, keys, c + 1, m);
+    System.arraycopy(chunks, c, chunks, c + 1, m);
+    System.arraycopy(sizes, c, sizes, c + 1, m);
+    keys[c] = key;
+    chunks[c] = chunk;
+    sizes[c] = s;
+    size++;
+  }
+
+  /**
+   * Returns a copy of the specified chunk.
+   * @param chunk chunk
+   * @return copy
+   */
+  private static Object copy(final Object chunk) {
+    return chunk instanceof long[] ? ((long[]) chunk).clone() : ((char[]) chunk).clone();
+  }
+
+  /**
+   * Returns the words of the specified chunk.
+   * @param chunk chunk
+   * @param s number of values
+   * @return words (copy)
+   */
+  private static long[] words(final Object chunk, final int s) {
+    return chunk instanceof long[] ? ((long[]) chunk).clone() : dense((char[]) chunk, s);
+  }
+
+  /**
+   * Converts sparse values to a dense chunk.
+   * @param values values
+   * @param s number of values
+   * @return words
+   */
+  private static long[] dense(final char[] values, final int s) {
+    final long[] words = new long[WORDS];
+    for(int v = 0; v < s; v++) words[values[v] >>> 6] |= 1L << values[v];
+    return words;
+  }
+}
@@ -1,5 +1,6 @@
 package org.basex.util;
 
+import java.io.*;
 import java.util.*;
 
 /**
@@ -124,6 +125,89 @@ public final class Compress {
     return bytes;
   }
 
+  /**
+   * Returns an input stream, which decompresses the bytes of the specified stream.
+   * @param input input stream with the compressed text
+   * @return input stream with the unpacked text
+   */
+  public static InputStream unpack(final InputStream input) {
+    return new InputStream() {
+      /** Mapping (assigned when the first byte is requested). */
+      private byte[] map;
+      /** Number of remaining bytes. */
+      private int size;
+      /** Current byte. */
+      private int curr;
+      /** Bit position in the current byte. */
+      private int pos;
+
+      @Override
+      public int read() throws IOException {
+        if(map == null) {
+          // read stored length, choose mapping (skip packer bit)
+          final int v = input.read();
+          switch(v & 0xC0) {
+            case 0:
+              size = v;
+              break;
+            case 0x40:
+              size = (v & 0x3F) << 8 | input.read();
+              break;
+            case 0x80:
+              size = (v & 0x3F) << 24 | input.read() << 16 | input.read() << 8 | input.read();
+              break;
+            default:
+              size = input.read() << 24 | input.read() << 16 | input.read() << 8 | input.read();
+          }
+          curr = input.read();
+          pos = 1;
+          map = bit() ? UNPACK1 : UNPACK2;
+        }
+        if(size == 0) return -1;
+        size--;
+
+        final int bits;
+        int out = 0;
+        if(bit()) { // 1 xxx
+          bits = 3;
+        } else if(bit()) { // 01 xxx
+          bits = 3;
+          out = 0x08;
+        } else if(bit()) { // 001 xxxx
+          bits = 4;
+          out = 0x10;
+        } else if(bit()) { // 0001 xxxxx
+          bits = 5;
+          out = 0x20;
+        } else { // 0000 xxxxxxxx
+          bits = 8;
+        }
+        for(int bit = 0; bit < bits; bit++) {
+          if(bit()) out |= 1 << bit;
+        }
+        return (out >= 0x80 ? out : map[out]) & 0xFF;
+      }
+
+      /**
+       * Checks if the next bit is set.
+       * @return result of check
+       * @throws IOException I/O exception
+       */
+      private boolean bit() throws IOException {
+        if(pos == 8) {
+          curr = input.read();
+          pos = 0;
+        }
+        return (curr & 1 << pos++) != 0;
+      }
+
+      @Override
+      public void close() throws IOException {
+        input.close();
+      }
+    };
+  }
+
   /**
    * Checks if a specified bit is set.
    * @param txt text to be unpacked
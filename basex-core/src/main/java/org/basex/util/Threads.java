@@ -0,0 +1,64 @@
+package org.basex.util;
+
+import java.util.concurrent.*;
+
+/**
+ * This class creates threads for client sessions and jobs.
+ * If virtual threads are requested and supported by the runtime (Java 21 and later),
+ * they will be used instead of platform threads. As the code base is compiled for older
+ * Java versions, the virtual thread factory is accessed via reflection.
+ *
+ * @author BaseX Team 2005-16, BSD License
+ * @author Christian Gruen
+ */
+public final class Threads {
+  /** Factory for virtual threads ({@code null} if not supported). */
+  private static final ThreadFactory VIRTUAL;
+
+  static {
+    // Thread.ofVirtual().factory()
+    final Object builder = Reflect.invoke(Reflect.method(Thread.class, "ofVirtual"), null);
+    final Class<?> clazz = Reflect.find("java.lang.Thread$Builder");
+    final Object factory = builder == null || clazz == null ? null :
+      Reflect.invoke(Reflect.method(clazz, "factory"), builder);
+    VIRTUAL = factory instanceof ThreadFactory ? (ThreadFactory) factory : null;
+  }
+
+  /** Hidden constructor. */
+  private Threads() { }
+
+  /**
+   * Indicates if virtual threads are supported by the runtime.
+   * @return result of check
+   */
+  public static boolean virtual() {
+    return VIRTUAL != null;
+  }
+
+  /**
+   * Creates a new thread, which still needs to be started.
+   * Virtual threads are always daemon threads.
+   * @param runnable code to be run
+   * @param virtual create virtual thread (ignored if not supported by the runtime)
+   * @return thread
+   */
+  public static Thread thread(final Runnable runnable, final boolean virtual) {
+    return virtual && VIRTUAL != null ? VIRTUAL.newThread(runnable) : new Thread(runnable);
+  }
+
+  /**
+   * Returns a factory for daemon threads.
+   * @param virtual create virtual threads (ignored if not supported by the runtime)
+   * @return thread factory
+   */
+  public static ThreadFactory factory(final boolean virtual) {
+    return new ThreadFactory() {
+      @Override
+      public Thread newThread(final Runnable runnable) {
+        final Thread thread = thread(runnable, virtual);
+        thread.setDaemon(true);
+        return thread;
+      }
+    };
+  }
+}
@@ -0,0 +1,89 @@
+package org.basex.util.hash;
+
+import java.util.*;
+
+import org.basex.util.*;
+
+/**
+ * This is an efficient and memory-saving hash map for storing primitive longs.
+ * It is related to the {@link TokenSet} class.
+ *
+ * @author BaseX Team 2005-16, BSD License
+ * @author Christian Gruen
+ */
+public final class LongSet extends ASet {
+  /** Hashed keys. */
+  private long[] keys;
+
+  /**
+   * Default constructor.
+   */
+  public LongSet() {
+    this(Array.CAPACITY);
+  }
+
+  /**
+   * Default constructor.
+   * @param capacity initial array capacity
+   */
+  public LongSet(final int capacity) {
+    super(capacity);
+    keys = new long[buckets.length];
+  }
+
+  /**
+   * Stores the specified key if it has not been stored before.
+   * @param key key to be added
+   * @return {@code true} if the key did not exist yet and was stored
+   */
+  public boolean add(final long key) {
+    checkSize();
+    final int b = hash(key) & buckets.length - 1;
+    for(int r = buckets[b]; r != 0; r = next[r]) if(key == keys[r]) return false;
+    next[size] = buckets[b];
+    keys[size] = key;
+    buckets[b] = size++;
+    return true;
+  }
+
+  /**
+   * Checks if the set contains the specified key.
+   * @param key key to be looked up
+   * @return result of check
+   */
+  public boolean contains(final long key) {
+    final int p = hash(key) & buckets.length - 1;
+    for(int id = buckets[p]; id != 0; id = next[id]) if(key == keys[id]) return true;
+    return false;
+  }
+
+  /**
+   * Returns the key with the specified id.
+   * All ids starts with {@code 1} instead of {@code 0}.
+   * @param id id of the key to return
+   * @return key
+   */
+  public long key(final int id) {
+    return keys[id];
+  }
+
+  @Override
+  protected int hash(final int id) {
+    return hash(keys[id]);
+  }
+
+  @Override
+  protected void rehash(final int newSize) {
+    keys = Arrays.copyOf(keys, newSize);
+  }
+
+  /**
+   * Returns the hash value of the specified key.
+   * @param key key
+   * @return hash value
+   */
+  private static int hash(final long key) {
+    final int h = (int) (key ^ key >>> 32);
+    return h ^ h >>> 16;
+  }
+}
@@ -0,0 +1,71 @@
+package org.basex.data;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.*;
+import org.basex.core.cmd.*;
+import org.basex.io.*;
+import org.basex.io.in.*;
+import org.junit.*;
+import org.junit.Test;
+
+/**
+ * Tests the streamed access to long texts of a database.
+ *
+ * @author BaseX Team 2005-16, BSD License
+ * @author Christian Gruen
+ */
+public final class TextStreamTest extends SandboxTest {
+  /** Number of repetitions. */
+  private static final int REPEAT = IO.STREAMSIZE / 4;
+
+  /** Creates the test database. */
+  @Before
+  public void setUp() {
+    query("db:create('" + NAME + "', <doc>"
+        + "<a>{ string-join((1 to " + REPEAT + ") ! 'aB9+') }</a>"
+        + "<b x='{ string-join((1 to " + REPEAT + ") ! 'attr') }'>"
+        + "{ string-join((1 to " + REPEAT + ") ! 'üa€') }</b>"
+        + "<c>small</c></doc>, 'doc.xml')");
+  }
+
+  /** Drops the test database. */
+  @After
+  public void tearDown() {
+    execute(new DropDB(NAME));
+  }
+
+  /**
+   * Compares streamed and materialized texts.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void textInput() throws IOException {
+    execute(new Open(NAME));
+    final Data data = context.data();
+    final int size = data.meta.size;
+    for(int pre = 0; pre < size; pre++) {
+      final int kind = data.kind(pre);
+      if(kind != Data.TEXT && kind != Data.ATTR) continue;
+      final boolean text = kind == Data.TEXT;
+      try(final BufferInput bi = data.textInput(pre, text)) {
+        assertTrue(Arrays.equals(data.text(pre, text), bi.content()));
+      }
+    }
+  }
+
+  /** Queries on long texts. */
+  @Test
+  public void queries() {
+    final String doc = "db:open('" + NAME + "')/doc";
+    assertEquals(Integer.toString(REPEAT * 4), query("string-length(" + doc + "/a)"));
+    assertEquals(Integer.toString(REPEAT * 3), query("string-length(" + doc + "/b)"));
+    assertEquals(Integer.toString(REPEAT * 4), query("string-length(" + doc + "/b/@x)"));
+    assertEquals("true", query("serialize(" + doc + ") = serialize(copy $c := " + doc +
+        " modify () return $c)"));
+    assertEquals("true", query("hash:md5(" + doc + "/b) = hash:md5(string(" + doc + "/b))"));
+  }
+}
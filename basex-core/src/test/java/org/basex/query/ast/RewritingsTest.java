@@ -202,4 +202,19 @@ public final class RewritingsTest extends QueryPlanTest {
   public void nonDeterministic() {
     check("count((# basex:non-deterministic #) { <x/> })", "1", "exists(//FnCount)");
   }
+
+  /**
+   * Checks that only the requested number of tuples is sorted by order by clauses.
+   */
+  @Test
+  public void topK() {
+    final String flwor = "for $i in (3, 1, 4, 1, 5, 9, 2, 6) order by $i descending return $i";
+    check("(" + flwor + ")[position() <= 3]", "9\n6\n5", "//OrderBy/@max = 3");
+    check(SUBSEQUENCE.args(" " + flwor, 2, 2), "6\n5", "//OrderBy/@max = 3");
+    check("(" + flwor + ")[2]", "6", "//OrderBy/@max = 2");
+    check(HEAD.args(" " + flwor), "9", "//OrderBy/@max = 1");
+    // results may be empty: no top-k evaluation
+    check("(for $i in (3, 1, 4) order by $i return $i[. > 1])[1]", "3",
+        "empty(//OrderBy/@max)");
+  }
 }
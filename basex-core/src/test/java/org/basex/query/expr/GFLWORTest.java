@@ -1,8 +1,14 @@
 package org.basex.query.expr;
 
+import static org.basex.query.func.Function.*;
 import static org.junit.Assert.*;
 
+import java.io.*;
+
+import org.basex.core.*;
+import org.basex.io.*;
 import org.basex.query.*;
+import org.basex.util.*;
 import org.junit.*;
 
 /**
@@ -30,4 +36,136 @@ public final class GFLWORTest extends AdvancedQueryTest {
   public void posOptimizationTest() {
     assertEquals("<a/>", query("for $a at $p in (<a/>,<b/>)/. where $p < 2 return $a"));
   }
+
+  /** Order by, spilling sorted runs to disk. */
+  @Test
+  public void orderBySpillTest() {
+    final String query = "string-join(for $i at $p in (3, 1, 2, 3, 1, 2.5, 1e0, 0) " +
+        "order by $i[. != 2] empty greatest, $p descending return $p, ',')";
+    final String expected = "8,7,5,2,6,4,1,3";
+    assertEquals(expected, query(query));
+    context.options.set(MainOptions.SORTLIMIT, 2);
+    try {
+      assertEquals(expected, query(query));
+      assertEquals("<a>1</a>\n<a>2</a>\n<a>3</a>", query(
+          "for $a in (<a>3</a>, <a>1</a>, <a>2</a>) order by xs:int($a) return $a"));
+    } finally {
+      context.options.set(MainOptions.SORTLIMIT, 0);
+    }
+  }
+
+  /** Group by, spilling groups to disk, pre-aggregated values. */
+  @Test
+  public void groupBySpillTest() {
+    final String query = "string-join(for $i in 1 to 1000 let $j := $i, $n := <n>{ $i }</n> " +
+        "group by $k := $i mod 7 order by $k " +
+        "return $k || ':' || count($j) || ':' || sum($j) || ':' || max($n), ',')";
+    final String expected = "0:142:71071:994,1:143:71214:995,2:143:71357:996," +
+        "3:143:71500:997,4:143:71643:998,5:143:71786:999,6:143:71929:1000";
+    assertEquals(expected, query(query));
+    context.options.set(MainOptions.GROUPLIMIT, 2);
+    try {
+      assertEquals(expected, query(query));
+      assertEquals("3", query("count(for $a in (<a>1</a>, <a>2</a>, <a>1</a>, <a>3</a>) " +
+          "group by $b := string($a) return $b)"));
+    } finally {
+      context.options.set(MainOptions.GROUPLIMIT, 0);
+    }
+  }
+
+  /** Pre-aggregated values: errors are only raised if an aggregated variable is evaluated. */
+  @Test
+  public void groupByAggregateErrorTest() {
+    final String query = "for $i in (1, 'a', 2, 3) let $j := $i " +
+        "group by $k := $i instance of xs:integer ";
+    query(query + "return if($k) then sum($j) else 'skip'", "6\nskip");
+    query("for $i in (1, 'a') let $j := $i group by $k := 1 " +
+        "return try { min($j) } catch * { 'caught' }", "caught");
+    error("for $i in (1, 'a', 2, 3) let $j := $i group by $k := 1 return sum($j)",
+        QueryError.SUMNUM_X_X);
+  }
+
+  /** Pre-aggregated values: functions without arguments are ignored. */
+  @Test
+  public void groupByAggregateNoArgTest() {
+    final String query = "for $i in 1 to 4 let $j := $i group by $k := $i mod 2 order by $k ";
+    query("(5, 6) ! (" + query + "return sum($j) + position())", "7\n5\n8\n6");
+    query(query + "return (count($j), true(), " + _RANDOM_DOUBLE.args() + " < 1)",
+        "2\ntrue\ntrue\n2\ntrue\ntrue");
+    query(query + "return sum($j, 0) + count($j)", "8\n6");
+  }
+
+  /** Temporary files are deleted if a result is only partially consumed, or if errors occur. */
+  @Test
+  public void spillCleanupTest() {
+    final int files = tempFiles();
+    context.options.set(MainOptions.SORTLIMIT, 2);
+    context.options.set(MainOptions.GROUPLIMIT, 1);
+    try {
+      query("some $x in (for $i in 1 to 100 order by -$i return $i) satisfies $x = 99", "true");
+      query("some $x in (for $i in 1 to 100 group by $k := $i mod 10 return $k) " +
+          "satisfies $x = 0", "true");
+      error("for $i in (1 to 100, 'x') order by $i return $i", QueryError.INVCAST_X_X_X);
+      error("for $i in 1 to 100 group by $k := $i mod 10 " +
+          "return if($k = 5) then error() else $k", QueryError.FUNERR1);
+    } finally {
+      context.options.set(MainOptions.SORTLIMIT, 0);
+      context.options.set(MainOptions.GROUPLIMIT, 0);
+    }
+    assertEquals(files, tempFiles());
+  }
+
+  /**
+   * Returns the number of temporary files created by spilling FLWOR clauses.
+   * @return number of files
+   */
+  private static int tempFiles() {
+    final String[] names = new File(Prop.TMP).list(new FilenameFilter() {
+      @Override
+      public boolean accept(final File dir, final String name) {
+        return name.startsWith(Prop.NAME + '-') && name.endsWith(IO.TMPSUFFIX);
+      }
+    });
+    return names == null ? 0 : names.length;
+  }
+
+  /** Order by and group by with collations, spilling to disk. */
+  @Test
+  public void collationTest() {
+    final String coll = " collation 'http://www.w3.org/2005/xpath-functions/collation/"
+        + "html-ascii-case-insensitive' ";
+    final String order = "string-join(for $s at $p in ('b', 'A', xs:untypedAtomic('a'), (), 'B') "
+        + "order by $s empty greatest" + coll + ", $p descending return $p, ',')";
+    final String group = "string-join(for $s in ('b', 'A', xs:untypedAtomic('a'), 'c', 'B') "
+        + "group by $g := $s" + coll + "order by $g return count($s), ',')";
+    assertEquals("3,2,4,1", query(order));
+    assertEquals("2,2,1", query(group));
+    context.options.set(MainOptions.SORTLIMIT, 2);
+    context.options.set(MainOptions.GROUPLIMIT, 1);
+    try {
+      assertEquals("3,2,4,1", query(order));
+      assertEquals("2,2,1", query(group));
+    } finally {
+      context.options.set(MainOptions.SORTLIMIT, 0);
+      context.options.set(MainOptions.GROUPLIMIT, 0);
+    }
+    error("for $s in ('a', 1) order by $s" + coll + "return $s", QueryError.INVCAST_X_X_X);
+  }
+
+  /** Sliding windows, reused end items. */
+  @Test
+  public void slidingWindowTest() {
+    query("for sliding window $w in 1 to 10 start when true() " +
+        "end $e previous $p next $n when $e mod 4 = 0 " +
+        "return string-join($w) || '/' || $e || $p || $n",
+        "1234/435\n234/435\n34/435\n4/435\n5678/879\n678/879\n78/879\n8/879\n" +
+        "910/109\n10/109");
+    query("for sliding window $w in 1 to 10 start when true() only " +
+        "end $e when $e mod 4 = 0 return string-join($w)",
+        "1234\n234\n34\n4\n5678\n678\n78\n8");
+    query("for sliding window $w in 1 to 6 start $s when true() only " +
+        "end when $s = 4 return string-join($w)", "4");
+    query("count(for sliding window $w in 1 to 100000 start when true() only " +
+        "end $e when $e = 0 return $w)", "0");
+  }
 }
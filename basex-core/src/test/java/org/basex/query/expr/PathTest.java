@@ -1,5 +1,7 @@
 package org.basex.query.expr;
 
+import static org.basex.query.func.Function.*;
+
 import org.basex.core.cmd.*;
 import org.basex.query.*;
 import org.junit.*;
@@ -248,4 +250,25 @@ public final class PathTest extends AdvancedQueryTest {
     execute(new Add("b.xml", "<b/>"));
     query(".[/a]", "<a/>");
   }
+
+  /**
+   * Nodes from multiple databases.
+   */
+  @Test public void multipleDatabases() {
+    final String xml = "<x>{ for $i in 1 to 10 return <y n='{ $i }'/> }</x>";
+    try {
+      for(int d = 1; d <= 3; d++) query(_DB_CREATE.args(NAME + d, " " + xml, "doc.xml"));
+      final String nodes = "let $n := (" + _DB_OPEN.args(NAME + 3) + ", " +
+          _DB_OPEN.args(NAME + 1) + ")//y[@n > 5] | " + _DB_OPEN.args(NAME + 2) + "//y[@n = 1] ";
+      query(nodes + "return count($n)", "11");
+      query(nodes + "return count(($n, $n)/.)", "11");
+      query(nodes + "return count($n intersect " + _DB_OPEN.args(NAME + 1) + "//y)", "5");
+      query(nodes + "return count($n except " + _DB_OPEN.args(NAME + 1) + "//y)", "6");
+      query(nodes + "return deep-equal($n ! (db:name(.) || @n), (reverse($n) | ()) ! " +
+          "(db:name(.) || @n))", "true");
+      query(nodes + "return sum($n/@n)", "81");
+    } finally {
+      for(int d = 1; d <= 3; d++) query(_DB_DROP.args(NAME + d));
+    }
+  }
 }
@@ -36,6 +36,42 @@ public final class MapModuleTest extends AdvancedQueryTest {
     query(_MAP_MERGE.args("(map{1:2},map {1:3})", " map{'duplicates':'combine'}") + "(1)", "2\n3");
     error(_MAP_MERGE.args("(map{1:2},map {1:3})", " map{'duplicates':'reject'}") + "(1)",
         MERGE_DUPLICATE_X);
+
+    // many maps (transient builder)
+    final String maps = " (for $i in 1 to 1000 return map { $i mod 300: $i })";
+    count(_MAP_MERGE.args(maps), 300);
+    query(_MAP_MERGE.args(maps) + "(7)", "7");
+    query(_MAP_MERGE.args(maps, " map{'duplicates':'use-last'}") + "(7)", "907");
+    query(_MAP_MERGE.args(maps, " map{'duplicates':'combine'}") + "(7)", "7\n307\n607\n907");
+    query("deep-equal(" + _MAP_MERGE.args(maps) + ", fold-left(" + maps +
+        ", map{}, function($m, $n) { map:merge(($m, $n)) }))", true);
+    error(_MAP_MERGE.args(maps, " map{'duplicates':'reject'}"), MERGE_DUPLICATE_X);
+  }
+
+  /** Maps with primitive integer and string keys. */
+  @Test
+  public void primitiveKeys() {
+    final String ints = _MAP_MERGE.args(" (for $i in 1 to 100 return map { $i: $i * 2 })");
+    query(ints + "(5)", "10");
+    query(ints + "(5.0)", "10");
+    query(ints + "(xs:double(5))", "10");
+    query(ints + "(xs:byte(5))", "10");
+    query(ints + "('5')", "");
+    query(ints + "(101)", "");
+    query(_MAP_SIZE.args(_MAP_PUT.args(ints, "x", 1)), "101");
+    query(_MAP_SIZE.args(_MAP_REMOVE.args(ints, 3)), "99");
+    query(ints + " instance of map(xs:integer, xs:integer)", true);
+    query(ints + " instance of map(xs:string, item()*)", false);
+    query("deep-equal(" + ints + ", fold-left(1 to 100, map{}, " +
+        "function($m, $i) { map:put($m, $i, $i * 2) }))", true);
+
+    final String strings = _MAP_MERGE.args(" (for $i in 1 to 100 return map { 'k' || $i: $i })");
+    query(strings + "('k7')", "7");
+    query(strings + "(xs:untypedAtomic('k8'))", "8");
+    query(strings + "(xs:anyURI('k9'))", "9");
+    query(strings + "(<a>k10</a>)", "10");
+    query(strings + "(1)", "");
+    query(strings + " instance of map(xs:string, xs:integer)", true);
   }
 
   /** Test method. */
@@ -4,6 +4,7 @@ import static org.basex.query.QueryError.*;
 import static org.basex.query.func.Function.*;
 import static org.junit.Assert.*;
 
+import org.basex.core.*;
 import org.basex.query.*;
 import org.junit.*;
 
@@ -76,6 +77,29 @@ public final class FnTest extends AdvancedQueryTest {
     error("replace('asdf','a{12,3}','')", REGPAT_X);
   }
 
+  /** Tests for regular expressions that are matched in linear time. */
+  @Test
+  public void linearRegex() {
+    for(final boolean linear : new boolean[] { false, true }) {
+      context.options.set(MainOptions.LINEARREGEX, linear);
+      try {
+        query("matches('ABC', 'b', 'i')", "true");
+        query("matches('a&#xA;b', '^b$')", "false");
+        query("matches('a&#xA;b', '^b$', 'm')", "true");
+        query("matches('aab', '^(a|b)\\1')", "true");
+        query("matches(string-join((1 to 30) ! 'a'), '(.*a){12}b')", "false");
+        query("replace('abc-abc', '(b)(c)', '[$2$1]')", "a[cb]-a[cb]");
+        query("replace('a.b', '.', '-', 'q')", "a-b");
+        query("replace('aaaa bbbbbbbb ddd ', '(.{6,15}) ', '$1@')", "aaaa bbbbbbbb@ddd ");
+        query("tokenize('a1b22c&#xE9;3', '\\d+')", "a\nb\nc\u00e9\n");
+        query("tokenize('a b&#x9;c', '\\s')", "a\nb\nc");
+        error("replace('a', '(a)', '$2')", REGROUP);
+      } finally {
+        context.options.set(MainOptions.LINEARREGEX, false);
+      }
+    }
+  }
+
   /** Tests for the {@code sum} function. */
   @Test
   public void sum() {
@@ -92,6 +116,50 @@ public final class FnTest extends AdvancedQueryTest {
     error("sum((), (1,2))", SEQFOUND_X);
   }
 
+  /** Tests for aggregations and arithmetic expressions on native sequences. */
+  @Test
+  public void nativeSequences() {
+    query("sum(reverse(5 to 10))", "45");
+    query("avg(1 to 9223372036854775806)", "4611686018427387903.5");
+    query("let $s := (1, 5, -3) return (sum($s), avg($s), min($s), max($s))", "3\n1\n-3\n5");
+    query("let $s := (1e0, 2.5e0) return (sum($s), avg($s), min($s), max($s))",
+        "3.5\n1.75\n1\n2.5");
+    query("let $s := (1e0, xs:double('NaN')) return (min($s), max($s))", "NaN\nNaN");
+    query("let $s := (1.5, -2.0) return (sum($s), min($s), max($s))", "-0.5\n-2\n1.5");
+    query("let $s := (xs:byte(1), xs:byte(2)) return min($s) instance of xs:byte", "true");
+    error("let $s := (9223372036854775807, 1) return sum($s)", RANGE_X);
+
+    query("let $s := (1, 5, -3) return $s ! (. * 2)", "2\n10\n-6");
+    query("let $s := (1, 5, -3) return $s ! (10 - .)", "9\n5\n13");
+    query("let $s := (1, 5, -3) return $s ! (. idiv 2)", "0\n2\n-1");
+    query("let $s := (1, 5, -3) return $s ! (. div 2e0)", "0.5\n2.5\n-1.5");
+    query("let $s := (1, 5, -3) return $s ! (. + ())", "");
+    query("let $s := (1e0, 4e0) return $s ! (1 div .)", "1\n0.25");
+    query("(1 to 5) ! (. + 1)", "2\n3\n4\n5\n6");
+    query("(1 to 5) ! (10 - .)", "9\n8\n7\n6\n5");
+    query("(1 to 3) ! (. + 1) ! (. * 2)", "4\n6\n8");
+    query("sum((1 to 100) ! (. - 1))", "4950");
+    error("let $s := (9223372036854775807, 1) return $s ! (. + 1)", RANGE_X);
+    error("let $s := (1, 2) return $s ! (. idiv 0)", DIVZERO_X);
+  }
+
+  /** Tests for large strings, which are represented as ropes. */
+  @Test
+  public void ropes() {
+    final String s = "let $s := fold-left(1 to 10000, '', function($a, $b) { $a || 'x' || $b }) ";
+    query(s + "return string-length($s)", "48894");
+    query(s + "return (substring($s, 1, 10), substring($s, 48885))", "x1x2x3x4x5\n9999x10000");
+    query(s + "return $s = string-join((1 to 10000) ! ('x' || .))", "true");
+    query(s + "return string-length(substring($s, 3, 20000))", "20000");
+    query(s + "return ends-with(concat($s, $s, 'y'), 'x10000y')", "true");
+
+    final String j = "let $j := string-join((1 to 10000) ! ('\u00e4' || .), '\u20ac') ";
+    query(j + "return string-length($j)", "58893");
+    query(j + "return substring($j, 10000, 5) = substring(string($j), 10000, 5)", "true");
+    query(j + "return hash:md5($j) = hash:md5(serialize($j))", "true");
+    query(j + "return string-length(serialize(<a>{ $j }</a>))", "58900");
+  }
+
   /** Tests for the {@code static-base-uri} function. */
   @Test
   public void staticBaseURI() {
@@ -147,6 +215,39 @@ public final class FnTest extends AdvancedQueryTest {
         + "'188','86','87','83','79','82','71','67','63','58','57','53','31','26','22','21','20'"
         + ",'15','10','03','05','1')", "", "function($s) { number($s) }")),
         "33");
+
+    // homogeneous keys
+    query(SORT.args("(3, 1e0, xs:double('NaN'), 2, -0e0, 0)"), "NaN\n-0\n0\n1\n2\n3");
+    query(SORT.args("(9007199254740993, 9007199254740992, 1.0e0)"),
+        "1\n9007199254740992\n9007199254740993");
+    query(SORT.args("('b', xs:untypedAtomic('a'), xs:anyURI('c'), 'A')"), "A\na\nb\nc");
+    query(SORT.args("('b', 'a', 'B')",
+        "http://www.w3.org/2005/xpath-functions/collation/html-ascii-case-insensitive"),
+        "a\nb\nB");
+    query("let $s := (1 to 100000) ! ((. * 7919) mod 100003) "
+        + "return deep-equal(" + SORT.args("$s") + ", " + SORT.args("$s ! string()", "",
+        "function($s) { xs:integer($s) }") + " ! xs:integer(.))", "true");
+  }
+
+  /** Tests for the {@code distinct-values} function. */
+  @Test
+  public void distinctValues() {
+    query(DISTINCT_VALUES.args("(1, 1e0, 2, xs:byte(2), xs:double('NaN'), 'a')"), "1\n2\nNaN\na");
+    query(DISTINCT_VALUES.args("(xs:double('NaN'), 0e0, -0e0, 1e0, xs:double('NaN'))"),
+        "NaN\n0\n1");
+    query(DISTINCT_VALUES.args("('a', xs:untypedAtomic('a'), xs:anyURI('a'), 'b')"), "a\nb");
+    query(DISTINCT_VALUES.args("(xs:byte(1), 1, 2)") + " ! (. instance of xs:byte)",
+        "true\nfalse");
+    query(COUNT.args(DISTINCT_VALUES.args("(1 to 10, 1 to 10)")), "10");
+    query(COUNT.args(DISTINCT_VALUES.args("(1 to 100000) ! ((. * 7919) mod 1003)")), "1003");
+
+    // collations
+    final String coll = "http://www.w3.org/2005/xpath-functions/collation/"
+        + "html-ascii-case-insensitive";
+    query(DISTINCT_VALUES.args("('a', 'A', xs:untypedAtomic('b'), 1, 'B', 1e0)", coll),
+        "a\nb\n1");
+    query(COUNT.args(DISTINCT_VALUES.args("(1 to 10000) ! ('x' || . mod 100, 'X' || . mod 100)",
+        coll)), "100");
   }
 
   /** Tests for the {@code outermost} and {@code innermost} functions. */
@@ -244,6 +244,28 @@ public final class IndexOptimizeTest extends QueryPlanTest {
     }
   }
 
+  /**
+   * Checks the cost-based choice of index accesses.
+   */
+  @Test
+  public void costs() {
+    final StringBuilder sb = new StringBuilder("<xml>");
+    for(int i = 0; i < 100; i++) sb.append("<a><b>" + i % 2 + "</b><c>" + i + "</c></a>");
+    for(int i = 0; i < 200; i++) sb.append("<z>1</z>");
+    execute(new CreateDB(NAME, sb.append("</xml>").toString()));
+
+    // value does not occur on the addressed path
+    check("//a[b = '2']", "", "empty(//ValueAccess)");
+    // estimated costs
+    check("count(//a[c = '5'])", "1", "//ValueAccess/@costs = 1");
+    // results with different costs are filtered instead of being intersected
+    check("count(//a[(b = '1' and c = '5') or c = '6'])", "2", "empty(//InterSect)");
+    check("count(//a[(b = '1' and b = '0') or c = '6'])", "1", "exists(//InterSect)");
+    // sequential scan is cheaper than index access
+    check("count(/xml/a[b = '1'])", "50", "empty(//ValueAccess)");
+    check("count(//a[b = '1'])", "50", "exists(//ValueAccess)");
+  }
+
   /**
    * Creates a test database.
    */
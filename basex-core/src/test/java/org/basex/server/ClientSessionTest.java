@@ -1,12 +1,22 @@
 package org.basex.server;
 
+import static org.basex.core.Text.*;
+import static org.basex.query.func.Function.*;
 import static org.junit.Assert.*;
 
 import java.io.*;
+import java.math.*;
 
 import org.basex.*;
+import org.basex.api.client.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.core.users.*;
+import org.basex.io.in.*;
 import org.basex.util.*;
 import org.junit.*;
+import org.junit.Test;
+import org.w3c.dom.*;
 
 /**
  * This class tests the client/server session API.
@@ -46,4 +56,231 @@ public class ClientSessionTest extends SessionTest {
       fail(Util.message(ex));
     }
   }
+
+  /**
+   * Sends pipelined requests.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void pipeline() throws IOException {
+    batch(((ClientSession) session).pipeline());
+  }
+
+  /**
+   * Sends requests in a single batch.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void batch() throws IOException {
+    batch(((ClientSession) session).batch());
+  }
+
+  /**
+   * Compresses requests and responses.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void compress() throws IOException {
+    final ClientSession cs = (ClientSession) session;
+    assertTrue(cs.compress());
+    assertTrue(cs.compress());
+    cs.create(NAME, new ArrayInput("<a>\u00ff</a>"));
+    cs.store("b", new ArrayInput(new byte[] { 0, -1, 1 }));
+    assertEqual("00FF01", cs.execute("xquery string(xs:hexBinary(db:retrieve('" +
+        NAME + "', 'b')))"));
+    final StringBuilder sb = new StringBuilder();
+    for(int i = 0; i < 100000; i++) sb.append('x');
+    assertEqual(sb.toString(), cs.execute("xquery string-join((1 to 100000) ! 'x')"));
+    final Query query = cs.query("declare variable $a external; $a || " + _DB_OPEN.args(NAME));
+    query.bind("a", "A");
+    assertEqual("A\u00ff", query.execute());
+    batch(cs.batch());
+  }
+
+  /**
+   * Finishes the evaluation of a query before its results have been read by the client.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void lazyResults() throws IOException {
+    final int count = 1000000;
+    try(final ClientSession cs = createClient(); final ClientSession cs2 = createClient()) {
+      session.execute(new CreateDB(NAME, "<a/>"));
+      final Query query = cs.query("for $i in 1 to " + count + " return " +
+          _DB_OPEN.args(NAME) + "/a/name() || $i");
+      assertTrue(query.more());
+      assertEquals("a1", query.next());
+
+      // query is closed, and locks are released, while the client pauses
+      final String jobs = "xquery " + COUNT.args(_JOBS_LIST.args());
+      final long start = System.currentTimeMillis();
+      while(!cs2.execute(jobs).equals("1") && System.currentTimeMillis() - start < 10000) {
+        Performance.sleep(50);
+      }
+      assertEquals("1", cs2.execute(jobs));
+      cs2.execute("xquery " + _DB_REPLACE.args(NAME, "a.xml", "<b/>"));
+
+      // all results are returned
+      int c = 1;
+      while(query.more()) assertEquals("a" + ++c, query.next());
+      assertEquals(count, c);
+      query.close();
+    }
+  }
+
+  /**
+   * Returns results in the binary encoding.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void binary() throws IOException {
+    final String query = "-1, xs:short(2), 1e0, xs:float(2), true(), 'x', " +
+        "xs:date('2016-01-01'), <a xmlns:p='u' p:a='1'><p:b>T</p:b><!--C--><?P V?><p:b/></a>, " +
+        "attribute a { 'v' }";
+    binary(query);
+    // serialization parameters, maps and arrays
+    binary("declare option output:method 'text'; <a>x</a>");
+    binary("declare option output:indent 'no'; <a><b/></a>");
+    binary("map { 'a': 1 }, [ 1, <b/> ], 2, <c/>, true#0");
+
+    try(final ClientQuery values = (ClientQuery) session.query(query)) {
+      values.binary(true);
+      assertEquals(new BigInteger("-1"), values.nextValue());
+      assertEquals((short) 2, values.nextValue());
+      assertEquals(1d, values.nextValue());
+      assertEquals(2f, values.nextValue());
+      assertEquals(true, values.nextValue());
+      assertEquals("x", values.nextValue());
+      assertEquals("2016-01-01", values.nextValue().toString());
+      assertEquals("a", ((Element) values.nextValue()).getNodeName());
+      assertEquals("v", ((Attr) values.nextValue()).getValue());
+      assertNull(values.nextValue());
+    }
+    // items that cannot be encoded are returned as text
+    try(final ClientQuery values = (ClientQuery) session.query("[ 1, 2 ], true#0")) {
+      values.binary(true);
+      assertEquals("[1, 2]", values.nextValue());
+      assertEquals("fn:true#0", values.nextValue());
+      assertNull(values.nextValue());
+    }
+    try(final ClientQuery values = (ClientQuery) session.query(
+        "declare option output:method 'text'; <a>x</a>")) {
+      values.binary(true);
+      assertEquals("x", values.nextValue());
+      assertNull(values.nextValue());
+    }
+  }
+
+  /**
+   * Compares the results of a query in the textual and the binary encoding.
+   * @param query query
+   * @throws IOException I/O exception
+   */
+  private void binary(final String query) throws IOException {
+    try(final ClientQuery text = (ClientQuery) session.query(query);
+        final ClientQuery binary = (ClientQuery) session.query(query)) {
+      binary.binary(true);
+      while(text.more()) {
+        assertTrue(binary.more());
+        assertEquals(text.next(), binary.next());
+        assertEquals(text.type(), binary.type());
+      }
+      assertFalse(binary.more());
+    }
+  }
+
+  /**
+   * Uses a session pool.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void pool() throws IOException {
+    session.execute("create db " + NAME + " <a/>");
+    try(final ClientPool pool = new ClientPool(S_LOCALHOST, DB_PORT, UserText.ADMIN,
+        UserText.ADMIN, 1, 2, 100000)) {
+      assertEquals(1, pool.available());
+      try(final ClientSession cs = pool.acquire()) {
+        cs.execute("open " + NAME);
+        cs.execute("set chop false");
+        assertEquals("1", cs.execute("xquery count(.)"));
+      }
+      assertEquals(1, pool.size());
+
+      // state of released session has been reset
+      final ClientSession cs1 = pool.acquire();
+      assertTrue(cs1.execute("get chop").contains("true"));
+      try {
+        cs1.execute("xquery count(.)");
+        fail("Error expected.");
+      } catch(final BaseXException ex) {
+        // no database opened
+      }
+      final ClientSession cs2 = pool.acquire();
+      assertEquals(2, pool.size());
+      try {
+        pool.acquire(10);
+        fail("Error expected.");
+      } catch(final BaseXException ex) {
+        cs1.close();
+      }
+      try(final ClientSession cs3 = pool.acquire(10)) {
+        assertEquals("1", cs3.execute("xquery 1"));
+      }
+      cs2.close();
+      assertEquals(2, pool.available());
+    }
+    session.execute("drop db " + NAME);
+  }
+
+  /**
+   * Closes idle sessions of a pool in the background.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void poolEviction() throws IOException {
+    try(final ClientPool pool = new ClientPool(S_LOCALHOST, DB_PORT, UserText.ADMIN,
+        UserText.ADMIN, 1, 3, 100)) {
+      final ClientSession cs1 = pool.acquire(), cs2 = pool.acquire(), cs3 = pool.acquire();
+      cs1.close();
+      cs2.close();
+      cs3.close();
+      assertEquals(3, pool.size());
+      // no further requests: sessions are closed by the maintenance thread
+      final long start = System.currentTimeMillis();
+      while(pool.size() > 1 && System.currentTimeMillis() - start < 5000) Performance.sleep(50);
+      assertEquals(1, pool.size());
+      assertEquals(1, pool.available());
+    }
+  }
+
+  /**
+   * Sends requests of a batch.
+   * @param batch batch
+   * @throws IOException I/O exception
+   */
+  private void batch(final ClientBatch batch) throws IOException {
+    final ClientQuery query = (ClientQuery) session.query("declare variable $a external; $a");
+    batch.execute("create db " + NAME).add("a.xml", new ArrayInput("<a/>"));
+    batch.store("b", new ArrayInput(new byte[] { 0, -1, 1 }));
+    for(int i = 0; i < 100; i++) batch.bind(query, "a", i, null).execute(query);
+    batch.execute("xquery count(db:open('" + NAME + "'))").close(query);
+    assertEquals(205, batch.size());
+
+    final String[] results = batch.send();
+    assertEquals(0, batch.size());
+    assertEquals(205, results.length);
+    for(int i = 0; i < 100; i++) assertEquals(Integer.toString(i), results[4 + i * 2]);
+    assertEquals("1", results[203]);
+    assertEqual("00FF01", session.execute("xquery string(xs:hexBinary(db:retrieve('" +
+        NAME + "', 'b')))"));
+
+    // remaining requests are processed if a request fails
+    batch.execute("xquery (").execute("drop db " + NAME);
+    try {
+      batch.send();
+      fail("Error expected.");
+    } catch(final BaseXException ex) {
+      assertEqual("false", session.execute("xquery " + _DB_EXISTS.args(NAME)));
+    }
+  }
 }
@@ -0,0 +1,209 @@
+package org.basex.server;
+
+import static org.basex.core.Text.*;
+import static org.junit.Assert.*;
+
+import java.io.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.io.*;
+import org.basex.server.Log.LogType;
+import org.basex.util.*;
+import org.junit.*;
+import org.junit.Test;
+
+/**
+ * Tests for writing log files.
+ *
+ * @author BaseX Team 2005-16, BSD License
+ * @author Christian Gruen
+ */
+public final class LogTest extends SandboxTest {
+  /** Log message. */
+  private static final String MSG = "log-test-entry";
+  /** Log instance. */
+  private Log log;
+
+  /**
+   * Assigns a separate log directory.
+   */
+  @Before
+  public void init() {
+    context.soptions.set(StaticOptions.LOGPATH, NAME);
+    directory().delete();
+  }
+
+  /**
+   * Closes the log and restores the default options.
+   */
+  @After
+  public void finish() {
+    if(log != null) log.close();
+    directory().delete();
+    context.soptions.set(StaticOptions.LOGPATH, StaticOptions.LOGPATH.value());
+    context.soptions.set(StaticOptions.LOGQUEUE, StaticOptions.LOGQUEUE.value());
+    context.soptions.set(StaticOptions.LOGDROP, StaticOptions.LOGDROP.value());
+  }
+
+  /**
+   * Queued entries are written when the log directory is requested.
+   */
+  @Test
+  public void queue() {
+    log = log(10000, false);
+    write(1000);
+    log.dir();
+    assertEquals(1000, entries(MSG));
+    // log files can be listed
+    assertEquals(1, log.files().length);
+  }
+
+  /**
+   * Queued entries are written when the log is closed.
+   */
+  @Test
+  public void close() {
+    log = log(10000, false);
+    write(1000);
+    log.close();
+    assertEquals(1000, entries(MSG));
+    // new entries can be added after the log has been closed
+    write(10);
+    log.close();
+    assertEquals(1010, entries(MSG));
+  }
+
+  /**
+   * Server entries are written immediately.
+   */
+  @Test
+  public void server() {
+    log = log(10000, false);
+    log.writeServer(LogType.OK, MSG);
+    assertEquals(1, entries(MSG));
+  }
+
+  /**
+   * Entries are written synchronously if no queue is used.
+   */
+  @Test
+  public void sync() {
+    log = log(0, false);
+    write(1);
+    assertEquals(1, entries(MSG));
+    write(99);
+    assertEquals(100, entries(MSG));
+  }
+
+  /**
+   * If the queue is full, entries are written by the logging thread.
+   */
+  @Test
+  public void full() {
+    log = log(1, false);
+    // the writer thread is blocked as long as the lock is held
+    synchronized(log) {
+      write(101);
+      // all entries, except for the last one, have been written by this thread
+      assertEquals(100, entries(MSG));
+    }
+    log.dir();
+    assertEquals(101, entries(MSG));
+    assertEquals(0, entries("discarded"));
+  }
+
+  /**
+   * If the queue is full, entries are discarded, and the number of discarded entries is logged.
+   */
+  @Test
+  public void drop() {
+    log = log(1, true);
+    // the writer thread is blocked as long as the lock is held
+    synchronized(log) {
+      write(100);
+    }
+    log.dir();
+    assertEquals(1, entries(MSG));
+    assertEquals(1, entries("99 log entries were discarded"));
+
+    // counter has been reset
+    write(1);
+    log.dir();
+    assertEquals(2, entries(MSG));
+    assertEquals(1, entries("discarded"));
+  }
+
+  /**
+   * Entries of concurrent threads are not lost.
+   * @throws InterruptedException interrupted exception
+   */
+  @Test
+  public void concurrent() throws InterruptedException {
+    log = log(10000, false);
+    final int threads = 16, entries = 20000;
+    final Thread[] th = new Thread[threads];
+    for(int t = 0; t < threads; t++) {
+      th[t] = new Thread() {
+        @Override
+        public void run() {
+          write(entries);
+        }
+      };
+    }
+    for(final Thread t : th) t.start();
+    for(final Thread t : th) t.join();
+    log.dir();
+    assertEquals(threads * entries, entries(MSG));
+  }
+
+  /**
+   * Creates a log instance.
+   * @param queue maximum number of pending entries
+   * @param drop discard entries if the queue is full
+   * @return log
+   */
+  private static Log log(final int queue, final boolean drop) {
+    context.soptions.set(StaticOptions.LOGQUEUE, queue);
+    context.soptions.set(StaticOptions.LOGDROP, drop);
+    return new Log(context.soptions);
+  }
+
+  /**
+   * Writes log entries.
+   * @param count number of entries
+   */
+  private void write(final int count) {
+    for(int c = 0; c < count; c++) {
+      log.write(S_LOCALHOST, null, LogType.REQUEST, MSG, new Performance());
+    }
+  }
+
+  /**
+   * Counts the entries in all log files that contain the specified string.
+   * Pending entries will not be written.
+   * @param string string to be found
+   * @return number of entries
+   */
+  private static int entries(final String string) {
+    int c = 0;
+    for(final IOFile file : directory().children(".*\\" + IO.LOGSUFFIX)) {
+      try {
+        for(final String line : file.string().split(Prop.NL)) {
+          if(line.contains(string)) c++;
+        }
+      } catch(final IOException ex) {
+        fail(Util.message(ex));
+      }
+    }
+    return c;
+  }
+
+  /**
+   * Returns the log directory.
+   * @return log directory
+   */
+  private static IOFile directory() {
+    return context.soptions.dbPath(".").resolve(NAME);
+  }
+}
@@ -286,6 +286,25 @@ public abstract class SessionTest extends SandboxTest {
     }
   }
 
+  /** Runs other requests while results of a query are retrieved.
+   * @throws IOException I/O exception */
+  @Test
+  public void queryMoreInterleaved() throws IOException {
+    try(final Query query = session.query("1 to 3")) {
+      assertTrue(query.more());
+      assertEqual("1", query.next());
+      assertEqual("A", session.execute("xquery 'A'"));
+      try(final Query query2 = session.query("'B'")) {
+        assertEqual("B", query2.execute());
+      }
+      assertTrue(query.more());
+      assertEqual("2", query.next());
+      assertTrue(query.more());
+      assertEqual("3", query.next());
+      assertFalse(query.more());
+    }
+  }
+
   /** Queries binary content.
    * @throws IOException I/O exception */
   @Test
@@ -378,6 +397,19 @@ public abstract class SessionTest extends SandboxTest {
     }
   }
 
+  /** Binds variables after the query has been parsed.
+   * @throws IOException I/O exception */
+  @Test
+  public void queryBindParsed() throws IOException {
+    try(final Query query = session.query("declare variable $a external; " +
+        "declare variable $b external; $a || $b")) {
+      query.bind("$a", "A");
+      assertFalse(query.updating());
+      query.bind("$b", "B");
+      assertEqual("AB", query.execute());
+    }
+  }
+
   /** Runs a query with an external variable declaration.
    * @throws IOException exception
    */
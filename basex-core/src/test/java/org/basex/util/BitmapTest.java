@@ -0,0 +1,83 @@
+package org.basex.util;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import org.junit.*;
+
+/**
+ * Tests for {@link Bitmap}.
+ *
+ * @author BaseX Team 2005-16, BSD License
+ * @author Christian Gruen
+ */
+public final class BitmapTest {
+  /** Number of values. */
+  private static final int SIZE = 200000;
+
+  /** Test method for {@link Bitmap#add(int)} and {@link Bitmap#contains(int)}. */
+  @Test
+  public void add() {
+    final Bitmap bm = new Bitmap();
+    final BitSet bs = new BitSet();
+    final Random rnd = new Random(0);
+    for(int i = 0; i < SIZE; i++) {
+      // mix sparse and dense chunks
+      final int v = i % 2 == 0 ? rnd.nextInt(1 << 17) : rnd.nextInt(Integer.MAX_VALUE);
+      bm.add(v);
+      bs.set(v);
+    }
+    assertEquals(bs.cardinality(), bm.cardinality());
+    assertArrayEquals(array(bs), bm.toArray());
+    for(int i = 0; i < 1 << 17; i++) assertEquals(bs.get(i), bm.contains(i));
+    assertFalse(bm.contains(-1));
+  }
+
+  /** Test method for the set operations. */
+  @Test
+  public void operations() {
+    final Random rnd = new Random(0);
+    final Bitmap bm1 = new Bitmap(), bm2 = new Bitmap();
+    final BitSet bs1 = new BitSet(), bs2 = new BitSet();
+    for(int i = 0; i < SIZE; i++) {
+      final int v1 = rnd.nextInt(1 << 18), v2 = rnd.nextInt(1 << (i % 3 == 0 ? 20 : 17));
+      bm1.add(v1);
+      bs1.set(v1);
+      bm2.add(v2);
+      bs2.set(v2);
+    }
+
+    BitSet bs = (BitSet) bs1.clone();
+    bs.or(bs2);
+    assertArrayEquals(array(bs), bm1.or(bm2).toArray());
+    assertArrayEquals(array(bs), bm2.or(bm1).toArray());
+
+    bs = (BitSet) bs1.clone();
+    bs.and(bs2);
+    assertArrayEquals(array(bs), bm1.and(bm2).toArray());
+    assertArrayEquals(array(bs), bm2.and(bm1).toArray());
+
+    bs = (BitSet) bs1.clone();
+    bs.andNot(bs2);
+    assertArrayEquals(array(bs), bm1.andNot(bm2).toArray());
+    bs = (BitSet) bs2.clone();
+    bs.andNot(bs1);
+    assertArrayEquals(array(bs), bm2.andNot(bm1).toArray());
+
+    assertEquals(0, bm1.andNot(bm1).cardinality());
+    assertEquals(0, new Bitmap().and(bm1).cardinality());
+  }
+
+  /**
+   * Returns the values of a bit set.
+   * @param bs bit set
+   * @return values
+   */
+  private static int[] array(final BitSet bs) {
+    final int[] array = new int[bs.cardinality()];
+    int a = 0;
+    for(int i = bs.nextSetBit(0); i >= 0; i = bs.nextSetBit(i + 1)) array[a++] = i;
+    return array;
+  }
+}
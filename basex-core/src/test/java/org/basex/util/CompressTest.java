@@ -3,9 +3,11 @@ package org.basex.util;
 import static org.basex.util.Token.*;
 import static org.junit.Assert.*;
 
+import java.io.*;
 import java.util.*;
 
 import org.basex.*;
+import org.basex.io.in.*;
 import org.basex.query.*;
 import org.basex.query.iter.*;
 import org.basex.query.value.item.*;
@@ -114,6 +116,15 @@ public final class CompressTest extends SandboxTest {
         if(!eq(token, pln)) {
           fail("\n[E] " + Arrays.toString(token) + ",\n[F] " + Arrays.toString(pln));
         }
+        // streamed decompression
+        try(final BufferInput bi = new BufferInput(Compress.unpack(new ArrayInput(cpr)))) {
+          final byte[] str = bi.content();
+          if(!eq(token, str)) {
+            fail("\n[E] " + Arrays.toString(token) + ",\n[F] " + Arrays.toString(str));
+          }
+        } catch(final IOException ex) {
+          fail(ex.toString());
+        }
       }
     }
   }